@@ -21,13 +21,14 @@ import android.animation.AnimatorInflater;
 import android.content.Intent;
 import android.graphics.Typeface;
 import android.net.Uri;
-import android.os.Build;
 import android.os.Bundle;
 import android.os.Parcelable;
+import android.support.annotation.NonNull;
 import android.support.constraint.ConstraintLayout;
 import android.support.v4.app.NavUtils;
 import android.support.v4.content.ContextCompat;
 import android.support.v4.widget.NestedScrollView;
+import android.support.v4.widget.TextViewCompat;
 import android.support.v7.app.AppCompatActivity;
 import android.text.Layout;
 import android.text.TextUtils;
@@ -35,7 +36,6 @@ import android.util.Log;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewTreeObserver;
 import android.widget.Button;
 import android.widget.ImageButton;
 import android.widget.ImageView;
@@ -43,9 +43,11 @@ import android.widget.RatingBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.example.kaushiknsanji.bookslibrary.customviews.PrecomputedTextView;
 import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
 import com.example.kaushiknsanji.bookslibrary.utils.TextAppearanceUtility;
 import com.example.kaushiknsanji.bookslibrary.workers.ImageDownloaderFragment;
+import com.example.kaushiknsanji.bookslibrary.workers.TextLayoutPrecomputer;
 
 import java.text.ParseException;
 
@@ -57,7 +59,8 @@ import java.text.ParseException;
  * @author Kaushik N Sanji
  */
 public class BookDetailActivity extends AppCompatActivity
-        implements View.OnClickListener, ViewTreeObserver.OnGlobalLayoutListener {
+        implements View.OnClickListener, View.OnLayoutChangeListener,
+        TextLayoutPrecomputer.OnTextLayoutPrecomputedListener {
 
     //Bundle Key used for grabbing the Intent's data
     public static final String BOOK_INFO_ITEM_STR_KEY = "BookInfo.Item.Data";
@@ -72,7 +75,7 @@ public class BookDetailActivity extends AppCompatActivity
     private TextView mPagesTextView;
     private TextView mPublisherTextView;
     private TextView mCategoryTextView;
-    private TextView mDescriptionTextView;
+    private PrecomputedTextView mDescriptionTextView;
     private ImageButton mEpubImageButton;
     private ImageButton mPdfImageButton;
     private Button mWebPreviewButton;
@@ -106,8 +109,10 @@ public class BookDetailActivity extends AppCompatActivity
     private String mInfoLink;
     private String mBuyLink;
 
-    //ViewTreeObserver to watch the Title TextView and Author TextView to enable Expand/Collapse
-    private ViewTreeObserver mViewTreeObserver;
+    //Text Layouts of the Title TextView and Author TextView computed in the background,
+    //used for enabling Expand/Collapse
+    private Layout mTitleTextLayout;
+    private Layout mAuthorTextLayout;
 
     //Rotate Animators for TextView Expand/Collapse Image anchor
     private Animator rotateTo180Anim;
@@ -156,8 +161,9 @@ public class BookDetailActivity extends AppCompatActivity
         mNotForSaleTextView = findViewById(R.id.detail_not_for_sale_text_id);
         //Retrieving the View Components: END
 
-        //Retrieving the Parent View's TreeObserver for the Title TextView and the Author TextView
-        mViewTreeObserver = findViewById(R.id.detail_title_author_card_id).getViewTreeObserver();
+        //Watching the layout of the Title TextView and the Author TextView to compute their Text Layouts
+        mTitleTextView.addOnLayoutChangeListener(this);
+        mAuthorTextView.addOnLayoutChangeListener(this);
 
         //Defaulting the Visibility of Expand/Collapse ImageView anchors to "GONE"
         mTitleTextExpandImageView.setVisibility(View.GONE);
@@ -362,10 +368,9 @@ public class BookDetailActivity extends AppCompatActivity
      * @param description is the Description of the Book retrieved from the Item's {@link BookInfo} Object
      */
     private void updateDescription(String description) {
-        //Setting the Description of the Book
-        mDescriptionTextView.setText(description);
-        //Setting the Font for the Description
-        mDescriptionTextView.setTypeface(Typeface.createFromAsset(getAssets(), "fonts/quintessential_regular.ttf"));
+        //Setting the Description of the Book along with its Font, both of which
+        //are loaded and laid out on a background thread
+        mDescriptionTextView.setText(description, "fonts/quintessential_regular.ttf");
     }
 
     /**
@@ -613,97 +618,74 @@ public class BookDetailActivity extends AppCompatActivity
     }
 
     /**
-     * Callback method to be invoked when the global layout state or the visibility of views
-     * within the view tree changes.
-     * This is applied for the View that contains both the Title Text and the Author Text
+     * Called when the layout bounds of a view changes due to layout processing.
+     * This is applied for the Title TextView and the Author TextView, whose Text Layouts
+     * are computed in the background whenever their width changes.
+     *
+     * @param view      The view whose bounds have changed.
+     * @param left      The new value of the view's left property.
+     * @param top       The new value of the view's top property.
+     * @param right     The new value of the view's right property.
+     * @param bottom    The new value of the view's bottom property.
+     * @param oldLeft   The previous value of the view's left property.
+     * @param oldTop    The previous value of the view's top property.
+     * @param oldRight  The previous value of the view's right property.
+     * @param oldBottom The previous value of the view's bottom property.
      */
     @Override
-    public void onGlobalLayout() {
-        //Enabling the Title TextView for Expansion if it exceeds Maxlines
-        addExpandableStateForEllipsizedTextViews(mTitleTextView);
-        //Enabling the Author TextView for Expansion if it exceeds Maxlines
-        addExpandableStateForEllipsizedTextViews(mAuthorTextView);
-
-        //Retrieving the Parent View's TreeObserver
-        mViewTreeObserver = findViewById(R.id.detail_title_author_card_id).getViewTreeObserver();
-
-        if (mViewTreeObserver.isAlive()) {
-            //UnRegistering the OnGlobalLayoutListener when done
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                mViewTreeObserver.removeOnGlobalLayoutListener(this);
-            } else {
-                mViewTreeObserver.removeGlobalOnLayoutListener(this);
-            }
+    public void onLayoutChange(View view, int left, int top, int right, int bottom,
+                               int oldLeft, int oldTop, int oldRight, int oldBottom) {
+        if ((right - left) != (oldRight - oldLeft)) {
+            //When the width of the TextView has changed, computing its Text Layout in the background
+            TextLayoutPrecomputer.precompute((TextView) view, this);
         }
     }
 
     /**
-     * Method that adds click listeners to TextViews with Text exceeding
-     * the MaxLines setting, which enables them to be expanded on click
+     * Method invoked on the Main Thread with the Layout computed for the Text of the TextView.
+     * This is applied for the Title TextView and the Author TextView
      *
-     * @param textView is the TextView of either the Title Text or the Author Text which
-     *                 is to be enabled for expansion
+     * @param textView   is the TextView whose Text was laid out
+     * @param textLayout is the {@link Layout} computed for the Text, without any limit on its lines
      */
-    private void addExpandableStateForEllipsizedTextViews(TextView textView) {
-        //Retrieving the total number of Text Lines in the TexView
-        int totalLineCount = textView.getLineCount();
-
-        if (totalLineCount > 0) {
-            //When Layout is attached to the TextView and the line count is more than 0
-
-            //Retrieving the Ellipse count for the entire Text
-            int totalEllipseCount = getEllipseCountFromTextView(textView, totalLineCount);
-
-            if (totalEllipseCount > 0) {
-                //When the Text in the TextView is Ellipsized (exceeds MaxLines set),
-                //enable the Click Listener
-                switch (textView.getId()) {
-                    case R.id.detail_title_text_id:
-                        //For the Title TextView
-                        if (mTitleTextExpandImageView.getVisibility() == View.GONE) {
-                            //Displaying the expand image anchor for the lengthy Title Text
-                            mTitleTextExpandImageView.setVisibility(View.VISIBLE);
-
-                            //Registering the click listener on the Title TextView
-                            mTitleTextView.setOnClickListener(this);
-                        }
-                        break;
-                    case R.id.detail_author_text_id:
-                        if (mAuthorTextExpandImageView.getVisibility() == View.GONE) {
-                            //Displaying the expand image anchor for the lengthy Author Text
-                            mAuthorTextExpandImageView.setVisibility(View.VISIBLE);
-
-                            //Registering the click listener on the Author TextView
-                            mAuthorTextView.setOnClickListener(this);
-                        }
-                        break;
+    @Override
+    public void onTextLayoutPrecomputed(@NonNull TextView textView, @NonNull Layout textLayout) {
+        switch (textView.getId()) {
+            case R.id.detail_title_text_id:
+                //For the Title TextView
+                mTitleTextLayout = textLayout;
+                //Enabling the Title TextView for Expansion if it exceeds Maxlines
+                if (textLayout.getLineCount() > getResources().getInteger(R.integer.detail_title_text_max_lines)) {
+                    addExpandableState(mTitleTextView, mTitleTextExpandImageView);
                 }
-            }
+                break;
+            case R.id.detail_author_text_id:
+                //For the Author TextView
+                mAuthorTextLayout = textLayout;
+                //Enabling the Author TextView for Expansion if it exceeds Maxlines
+                if (textLayout.getLineCount() > getResources().getInteger(R.integer.detail_author_text_max_lines)) {
+                    addExpandableState(mAuthorTextView, mAuthorTextExpandImageView);
+                }
+                break;
         }
     }
 
     /**
-     * Method that searches for the Ellipsis in the Text of a TextView and returns its total count
+     * Method that adds click listener to the TextView with Text exceeding
+     * the MaxLines setting, which enables it to be expanded on click
      *
-     * @param textView       is the TextView containing a Text which needs to be scanned for Ellipsis
-     * @param totalLineCount is the Total Line count of the Text in Integer
-     * @return Integer containing the total number of Ellipsis found in the Text of a TextView
+     * @param textView                  is the TextView of either the Title Text or the Author Text which
+     *                                  is to be enabled for expansion
+     * @param textExpandAnchorImageView is the Expand/Collapse ImageView anchor for the TextView passed
      */
-    private int getEllipseCountFromTextView(TextView textView, int totalLineCount) {
-        int totalEllipseCount = 0; //Defaulting the Total Ellipse count to 0, initially
-
-        //Retrieving the layout attached to TextView
-        Layout textViewLayout = textView.getLayout();
+    private void addExpandableState(TextView textView, ImageView textExpandAnchorImageView) {
+        if (textExpandAnchorImageView.getVisibility() == View.GONE) {
+            //Displaying the expand image anchor for the lengthy Text
+            textExpandAnchorImageView.setVisibility(View.VISIBLE);
 
-        //Iterating over the Lines of the Text and counting the Ellipsis found
-        for (int index = 0; index < totalLineCount; index++) {
-            if (textViewLayout.getEllipsisCount(index) > 0) {
-                totalEllipseCount++;
-            }
+            //Registering the click listener on the TextView
+            textView.setOnClickListener(this);
         }
-
-        //Returning the total Ellipsis found
-        return totalEllipseCount;
     }
 
     /**
@@ -716,16 +698,10 @@ public class BookDetailActivity extends AppCompatActivity
      * @param textScrollView            is the {@link NestedScrollView} which is the parent of the TextView passed
      */
     private void toggleTextViewExpansion(TextView textView, int originalLineCount, ImageView textExpandAnchorImageView, NestedScrollView textScrollView) {
-        //Retrieving the Current Line count of the Text in the TextView
-        int totalLineCount = textView.getLineCount();
-
-        //Retrieving the Ellipse count for the entire Text
-        int totalEllipseCount = getEllipseCountFromTextView(textView, totalLineCount);
-
         //Retrieving the basic Layout Params of the NestedScrollView
         ViewGroup.LayoutParams layoutParams = textScrollView.getLayoutParams();
 
-        if (totalEllipseCount == 0) {
+        if (TextViewCompat.getMaxLines(textView) != originalLineCount) {
             //Resetting to original state when it was previously expanded to show all the lines
             textView.setMaxLines(originalLineCount);
 
@@ -743,8 +719,17 @@ public class BookDetailActivity extends AppCompatActivity
             //Retrieving the Max Height set for the parent NestedScrollView
             int scrollContentMaxHeight = getResources().getDimensionPixelSize(R.dimen.detail_title_author_content_max_height);
 
+            //Retrieving the Text Layout computed in the background for the TextView
+            Layout textLayout = (textView == mTitleTextView) ? mTitleTextLayout : mAuthorTextLayout;
+
+            //Finding the Height of the expanded content from the Text Layout, if computed
+            int contentHeight = textView.getMeasuredHeight();
+            if (textLayout != null) {
+                contentHeight = textLayout.getHeight() + textView.getCompoundPaddingTop() + textView.getCompoundPaddingBottom();
+            }
+
             //Limiting the Height of the parent NestedScrollView when the content Height is more than the fixed Height
-            if (textView.getMeasuredHeight() > scrollContentMaxHeight) {
+            if (contentHeight > scrollContentMaxHeight) {
                 layoutParams.height = scrollContentMaxHeight; //Limiting to the fixed Height set
             }
 
@@ -754,16 +739,4 @@ public class BookDetailActivity extends AppCompatActivity
         }
     }
 
-    //Called by the Activity when it is prepared to be shown
-    @Override
-    protected void onResume() {
-        super.onResume();
-
-        if (mViewTreeObserver != null && mViewTreeObserver.isAlive()) {
-            //Registering the OnGlobalLayoutListener when the ViewTreeObserver is alive
-            mViewTreeObserver.addOnGlobalLayoutListener(this);
-        }
-
-    }
-
-}
\ No newline at end of file
+}
@@ -34,6 +34,7 @@ import android.support.v4.content.Loader;
 import android.support.v4.view.ViewPager;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.preference.PreferenceManager;
+import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.SearchView;
 import android.text.Html;
 import android.text.Spanned;
@@ -53,19 +54,37 @@ import com.example.kaushiknsanji.bookslibrary.adapters.DisplayPagerAdapter;
 import com.example.kaushiknsanji.bookslibrary.adapterviews.KeywordFiltersDialogFragment;
 import com.example.kaushiknsanji.bookslibrary.adapterviews.RecyclerViewFragment;
 import com.example.kaushiknsanji.bookslibrary.cache.BitmapImageCache;
+import com.example.kaushiknsanji.bookslibrary.cache.BooksResultHolder;
+import com.example.kaushiknsanji.bookslibrary.cache.LocalQueryEngine;
+import com.example.kaushiknsanji.bookslibrary.cache.SearchItemStore;
+import com.example.kaushiknsanji.bookslibrary.cache.SearchResultsCache;
 import com.example.kaushiknsanji.bookslibrary.dialogs.NetworkErrorDialogFragment;
 import com.example.kaushiknsanji.bookslibrary.dialogs.PaginationNumberPickerDialogFragment;
+import com.example.kaushiknsanji.bookslibrary.metrics.SearchTracer;
 import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
 import com.example.kaushiknsanji.bookslibrary.observers.OnAdapterItemDataSwapListener;
 import com.example.kaushiknsanji.bookslibrary.observers.OnPagerFragmentVerticalScrollListener;
+import com.example.kaushiknsanji.bookslibrary.observers.OnLastPageDiscoveredListener;
+import com.example.kaushiknsanji.bookslibrary.observers.OnPartialBooksResultListener;
 import com.example.kaushiknsanji.bookslibrary.providers.RecentBookSearchProvider;
 import com.example.kaushiknsanji.bookslibrary.settings.SearchSettingsActivity;
 import com.example.kaushiknsanji.bookslibrary.utils.PreferencesObserverUtility;
 import com.example.kaushiknsanji.bookslibrary.utils.TextAppearanceUtility;
 import com.example.kaushiknsanji.bookslibrary.workers.BooksLoader;
+import com.example.kaushiknsanji.bookslibrary.workers.LiveSearchScheduler;
+import com.example.kaushiknsanji.bookslibrary.workers.PaginationController;
+import com.example.kaushiknsanji.bookslibrary.workers.SearchPipeline;
+import com.example.kaushiknsanji.bookslibrary.workers.SearchReloadScheduler;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Main and the Searchable Activity of the app that shows the layout 'R.layout.activity_main'
@@ -79,9 +98,12 @@ public class BookSearchActivity
         implements KeywordFiltersDialogFragment.OnKeywordFilterSelectedListener,
         TabLayout.OnTabSelectedListener,
         LoaderManager.LoaderCallbacks<List<BookInfo>>,
-        OnAdapterItemDataSwapListener, OnPagerFragmentVerticalScrollListener,
+        OnAdapterItemDataSwapListener, OnPagerFragmentVerticalScrollListener, OnPartialBooksResultListener, OnLastPageDiscoveredListener,
         SharedPreferences.OnSharedPreferenceChangeListener,
-        OnClickListener {
+        OnClickListener, RecyclerViewFragment.RecycledViewPoolProvider,
+        SearchReloadScheduler.OnReloadListener, PaginationController.OnPageChangeListener,
+        PaginationNumberPickerDialogFragment.OnPageSelectedListener,
+        LiveSearchScheduler.OnLiveSearchListener {
 
     //Constant used for logs
     private static final String LOG_TAG = BookSearchActivity.class.getSimpleName();
@@ -94,8 +116,12 @@ public class BookSearchActivity
     private static final String VISIBLE_ITEM_VIEW_POSITION_INT_KEY = "ViewPager.ItemPosition";
     private static final String WELCOME_PAGE_STATE_INT_KEY = "WelcomePage.State";
     private static final String PROGRESS_BAR_STATE_INT_KEY = "ProgressBar.State";
+    private static final String LOCAL_SORT_ORDER_INT_KEY = "LocalQuery.SortOrder";
+    private static final String LOCAL_FACET_KEYS_STR_ARRAY_KEY = "LocalQuery.FacetKeys";
     //Instance of the Network Error Handler for displaying the Network Error Dialog
     private final NetworkErrorHandler mNetworkErrorHandler = new NetworkErrorHandler(this);
+    //RecyclerView Pool shared by the RecyclerViews of the List and Grid views
+    private final RecyclerView.RecycledViewPool mRecycledViewPool = new RecyclerView.RecycledViewPool();
     //For Recent Search Suggestions
     private SearchRecentSuggestions mRecentSuggestions;
     //For the SearchView
@@ -129,10 +155,32 @@ public class BookSearchActivity
     private String mSearchQueryInProgressStr;
     //Saves the first visible Adapter Item position
     private int mVisibleItemViewPosition;
-    //List of Preference Keys to exclude while triggering the loader to load data
-    private List<String> mKeysToExclude;
+    //Set of Preference Keys to exclude while triggering the loader to load data
+    private Set<String> mKeysToExclude;
     //For the Settings SharedPreferences
     private SharedPreferences mPreferences;
+    //Snapshot of the Search Query and the Search Settings, used by the Loader to prepare the Search URL
+    private SearchParams mSearchParams;
+    //Scheduler that coalesces the reloads triggered by the change of Search Settings
+    private SearchReloadScheduler mSearchReloadScheduler;
+    //Holds the Pagination state in memory, which is persisted lazily
+    private PaginationController mPaginationController;
+    //Search Settings of the cached page currently shown, while it is being refreshed by the Loader
+    private SearchParams mRenderedCachedParams;
+    //Scheduler that debounces the Search Query typed, for searching as you type
+    private LiveSearchScheduler mLiveSearchScheduler;
+    //Order of sorting the results on the device, one of the LocalQueryEngine.SORT_* constants
+    private int mLocalSortOrder = LocalQueryEngine.SORT_RELEVANCE;
+    //Set of Keys of the Facets selected for filtering the results on the device
+    private Set<String> mSelectedFacetKeys = new HashSet<>();
+    //Engine that sorts and filters the results fetched so far for the Search Query, on the device
+    private LocalQueryEngine mLocalQueryEngine;
+    //Generation of the LocalQueryEngine being built, used to discard the ones built for older results
+    private int mLocalQueryGeneration;
+    //The page of results last delivered by the Loader
+    private List<BookInfo> mLoadedBookInfos;
+    //Facets currently shown in the "Filter Results" menu, in the order of their Menu Item ids
+    private List<LocalQueryEngine.Facet> mShownFacets = new ArrayList<>();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -150,6 +198,32 @@ public class BookSearchActivity
         //Retrieving the instance of SharedPreferences
         mPreferences = PreferenceManager.getDefaultSharedPreferences(this);
 
+        //Restoring the Pagination state last persisted
+        mPaginationController = new PaginationController(this, mPreferences, this);
+
+        //Building the snapshot of the Search Settings once, which is later updated for each setting changed
+        mSearchParams = SearchParams.fromPreferences(this, mPreferences, mSearchQueryStr);
+
+        //Initializing the Scheduler that batches the reloads for the Search Settings changed together
+        mSearchReloadScheduler = new SearchReloadScheduler(
+                getResources().getInteger(R.integer.search_reload_coalesce_window_millis), this);
+
+        //Initializing the Scheduler that searches the Query as it is typed, when enabled
+        mLiveSearchScheduler = new LiveSearchScheduler(
+                getResources().getInteger(R.integer.live_search_debounce_window_millis),
+                getResources().getInteger(R.integer.live_search_min_query_length),
+                getResources().getInteger(R.integer.live_search_max_outstanding_requests),
+                this);
+
+        //Registering the OnAdapterItemDataSwapListener on the shared Search results
+        BooksResultHolder.setOnAdapterItemDataSwapListener(this);
+
+        //Sizing the shared RecyclerView Pool for the item views of the List and Grid views
+        //(The layout resource of the item view is used as its view type by the Adapters)
+        int maxRecycledViewsPerType = getResources().getInteger(R.integer.recycler_view_pool_max_views_per_type);
+        mRecycledViewPool.setMaxRecycledViews(R.layout.books_list_item, maxRecycledViewsPerType);
+        mRecycledViewPool.setMaxRecycledViews(R.layout.books_grid_item, maxRecycledViewsPerType);
+
         //Instantiating SearchRecentSuggestions
         mRecentSuggestions = new SearchRecentSuggestions(
                 this, RecentBookSearchProvider.AUTHORITY, RecentBookSearchProvider.DATABASE_MODE_QUERIES
@@ -371,11 +445,19 @@ public class BookSearchActivity
         //Restoring the SearchView State
         mIsSearchViewExpanded = savedInstanceState.getBoolean(SEARCH_VIEW_STATE_BOOL_KEY);
         mSearchQueryStr = savedInstanceState.getString(SEARCH_VIEW_QUERY_STR_KEY);
+        mSearchParams = mSearchParams.withQuery(mSearchQueryStr);
         mSearchQueryInProgressStr = savedInstanceState.getString(SEARCH_VIEW_QUERY_IN_PROGRESS_STR_KEY);
 
         //Restoring the value of the position of the first Adapter item previously visible in the ViewPager
         mVisibleItemViewPosition = savedInstanceState.getInt(VISIBLE_ITEM_VIEW_POSITION_INT_KEY);
 
+        //Restoring the sort order and the Facets selected for refining the results on the device
+        mLocalSortOrder = savedInstanceState.getInt(LOCAL_SORT_ORDER_INT_KEY, LocalQueryEngine.SORT_RELEVANCE);
+        String[] selectedFacetKeys = savedInstanceState.getStringArray(LOCAL_FACET_KEYS_STR_ARRAY_KEY);
+        if (selectedFacetKeys != null) {
+            mSelectedFacetKeys = new HashSet<>(Arrays.asList(selectedFacetKeys));
+        }
+
         //Restoring the active tab
         mViewPager.setCurrentItem(savedInstanceState.getInt(ACTIVE_TAB_POSITION_INT_KEY));
         onTabSelected(mTabLayout.getTabAt(mViewPager.getCurrentItem()));
@@ -384,6 +466,10 @@ public class BookSearchActivity
         if (!TextUtils.isEmpty(mSearchQueryStr)) {
             //Restoring the Query as the Activity Title
             setTitle(getString(R.string.searched_book_title, mSearchQueryStr));
+
+            //Reconnecting to the Loader of the Search previously executed
+            //(Its result, if already delivered, is ignored by the BooksResultHolder)
+            getSupportLoaderManager().initLoader(BooksLoader.BOOK_SEARCH_LOADER, null, this);
         }
 
         //Restoring the state of Pagination Buttons based on the current setting
@@ -415,6 +501,10 @@ public class BookSearchActivity
         //Saving the visibility state of the Progress Bar
         outState.putInt(PROGRESS_BAR_STATE_INT_KEY, mIndeterminateProgressBar.getVisibility());
 
+        //Saving the sort order and the Facets selected for refining the results on the device
+        outState.putInt(LOCAL_SORT_ORDER_INT_KEY, mLocalSortOrder);
+        outState.putStringArray(LOCAL_FACET_KEYS_STR_ARRAY_KEY, mSelectedFacetKeys.toArray(new String[mSelectedFacetKeys.size()]));
+
         super.onSaveInstanceState(outState);
     }
 
@@ -430,6 +520,14 @@ public class BookSearchActivity
         //Registering the Preference Change Listener
         mPreferences.registerOnSharedPreferenceChangeListener(this);
 
+        //Registering for the partial results and the last page discovered of the Loader,
+        //retained across the configuration changes
+        Loader<List<BookInfo>> loader = getSupportLoaderManager().getLoader(BooksLoader.BOOK_SEARCH_LOADER);
+        if (loader != null) {
+            ((BooksLoader) loader).setOnPartialBooksResultListener(this);
+            ((BooksLoader) loader).setOnLastPageDiscoveredListener(this);
+        }
+
     }
 
     //Called by the Activity when it loses focus
@@ -440,6 +538,9 @@ public class BookSearchActivity
         //UnRegistering the Listener on TabLayout
         mTabLayout.removeOnTabSelectedListener(this);
 
+        //Persisting the Pagination state, when changed
+        mPaginationController.persist();
+
         if (isFinishing()) {
             //When App is exiting
 
@@ -452,6 +553,45 @@ public class BookSearchActivity
 
     }
 
+    //Called by the Activity when it is being destroyed
+    @Override
+    protected void onDestroy() {
+        //Discarding any reload pending for the Search Settings changed
+        mSearchReloadScheduler.cancel();
+
+        //Discarding any Query typed that is pending to be searched
+        mLiveSearchScheduler.cancel();
+
+        //Unregistering the OnAdapterItemDataSwapListener on the shared Search results
+        BooksResultHolder.clearOnAdapterItemDataSwapListener(this);
+
+        //Unregistering from the partial results and the last page discovered of the Loader,
+        //to avoid leaking the Activity
+        Loader<List<BookInfo>> loader = getSupportLoaderManager().getLoader(BooksLoader.BOOK_SEARCH_LOADER);
+        if (loader != null) {
+            ((BooksLoader) loader).setOnPartialBooksResultListener(null);
+            ((BooksLoader) loader).setOnLastPageDiscoveredListener(null);
+        }
+
+        if (isFinishing()) {
+            //Clearing the shared Search results when the App is exiting
+            BooksResultHolder.clear();
+        }
+
+        super.onDestroy();
+    }
+
+    /**
+     * Method that returns the RecycledViewPool shared by the RecyclerViews
+     * of the List and Grid views
+     *
+     * @return The shared instance of {@link RecyclerView.RecycledViewPool}
+     */
+    @Override
+    public RecyclerView.RecycledViewPool getRecycledViewPool() {
+        return mRecycledViewPool;
+    }
+
     /**
      * Method that handles the ACTION_SEARCH Intent
      *
@@ -463,6 +603,10 @@ public class BookSearchActivity
             //Retrieving the Search Query from EXTRA
             String currentSearchQueryStr = intent.getStringExtra(SearchManager.QUERY);
 
+            //Starting the trace of the new Search
+            long searchId = SearchTracer.beginSearch(currentSearchQueryStr);
+            long handleIntentStartNanos = SearchTracer.beginStage(SearchTracer.STAGE_HANDLE_INTENT);
+
             //Hiding the Welcome Page if Visible
             if (mWelcomePageScrollView.getVisibility() == View.VISIBLE) {
                 manageWelcomePage(false, View.GONE);
@@ -478,6 +622,11 @@ public class BookSearchActivity
 
             //Copying the current query
             mSearchQueryStr = currentSearchQueryStr;
+            mSearchParams = mSearchParams.withQuery(mSearchQueryStr);
+
+            //Discarding the Query typed that is pending, as the Query is now submitted
+            mLiveSearchScheduler.cancel();
+            mLiveSearchScheduler.markSearched(mSearchQueryStr);
 
             //Adding the Search Query to the Recent Search Suggestions
             mRecentSuggestions.saveRecentQuery(mSearchQueryStr, null);
@@ -494,6 +643,9 @@ public class BookSearchActivity
             //Displaying the Progress Bar
             toggleProgressBarVisibility(View.VISIBLE);
 
+            //Inflating the item views in background while the Search is in flight
+            warmUpItemViews();
+
             if (isNewQuery) {
                 //Resetting the Adapter Item View position to 0 (First Item data in the adapter)
                 scrollToItemPosition(0, true);
@@ -501,69 +653,122 @@ public class BookSearchActivity
                 //Resetting the value of Page index related settings to 1, for the new Search Query
                 resetPageIndex();
 
+                //Discarding the sort order and the Facets selected for the previous Search Query
+                resetLocalQuery();
+
+                //Rendering the page seen earlier instantly if any, while it is refreshed by the Loader
+                renderCachedPage(mSearchParams);
+
                 //Restarting Loader when it is a new Search query
                 getSupportLoaderManager().restartLoader(BooksLoader.BOOK_SEARCH_LOADER, null, this);
 
                 //Clearing the Bitmap Memory Cache for the new Search done
                 BitmapImageCache.clearCache();
             } else {
+                //Rendering the page seen earlier instantly if any, while it is refreshed by the Loader
+                renderCachedPage(mSearchParams);
+
                 //Triggering the load with the same Search Query
                 getSupportLoaderManager().initLoader(BooksLoader.BOOK_SEARCH_LOADER, null, this);
             }
+
+            //Ending the span of the Intent handling
+            SearchTracer.endStage(searchId, SearchTracer.STAGE_HANDLE_INTENT, handleIntentStartNanos);
         }
     }
 
     /**
-     * Method that resets the 'startIndex' (Page to Display) setting to 1, when not 1
-     * and also its related 'endIndex' setting value to that of 'startIndex'
+     * Callback Method of {@link LiveSearchScheduler} invoked when the Query typed
+     * needs to be searched. Unlike the submitted Search, the SearchView is left expanded
+     * for further typing, and the Query is not saved to the Recent Search Suggestions.
+     * The Search in flight if any, is cancelled by the Loader on reload.
+     *
+     * @param query is the Query typed, trimmed of the surrounding spaces
      */
-    private void resetPageIndex() {
-        //Retrieving the preference key string of 'startIndex'
-        String startIndexPrefKeyStr = getString(R.string.pref_page_to_display_key);
-        //Retrieving the preference key string of 'endIndex'
-        String endIndexPrefKeyStr = getString(R.string.pref_page_to_display_max_value_key);
-        //Retrieving the preference key string for the last page index viewed
-        String lastViewedPageIndexPrefKeyStr = getString(R.string.pref_last_displayed_page_key);
-        //Retrieving the default value of 'startIndex' setting
-        int startIndexPrefKeyDefaultValue = getResources().getInteger(R.integer.pref_page_to_display_default_value);
-        //Retrieving the current value of 'startIndex' setting
-        int startIndex = mPreferences.getInt(startIndexPrefKeyStr, startIndexPrefKeyDefaultValue);
-        //Retrieving the current value of 'endIndex' setting
-        int endIndex = mPreferences.getInt(endIndexPrefKeyStr, startIndexPrefKeyDefaultValue);
-
-        if (startIndex != 1) {
-            //When the 'startIndex' setting value is not equal to 1
-
-            //Adding the key to exclusion, to avoid listener from retriggering the load on data change
-            PreferencesObserverUtility.addKeyToExclude(mKeysToExclude, startIndexPrefKeyStr);
-
-            //Opening the Editor to update the value
-            SharedPreferences.Editor prefEditor = mPreferences.edit();
-            //Setting to its default value, which is 1
-            prefEditor.putInt(startIndexPrefKeyStr, startIndexPrefKeyDefaultValue);
-            //Updating the value of 'endIndex' as well, to the default value of 'startIndex'
-            prefEditor.putInt(endIndexPrefKeyStr, startIndexPrefKeyDefaultValue);
-            //Updating the same value to the preference of the last viewed page index
-            prefEditor.putInt(lastViewedPageIndexPrefKeyStr, startIndexPrefKeyDefaultValue);
-            prefEditor.apply(); //applying the changes
-
-            //Removing the key from exclusion, to listen to the future updates on this key
-            PreferencesObserverUtility.removeKeyToInclude(mKeysToExclude, startIndexPrefKeyStr);
-
-        } else if (endIndex != startIndex) {
-            //When the 'startIndex' setting value is 1, but 'endIndex' setting value is different
-            //(This case occurs on a new search query entered by the user)
-
-            //Opening the Editor to update the value
-            SharedPreferences.Editor prefEditor = mPreferences.edit();
-            //Setting to its default value, which is 1
-            prefEditor.putInt(endIndexPrefKeyStr, startIndexPrefKeyDefaultValue);
-            //Updating the same value to the preference of the last viewed page index
-            prefEditor.putInt(lastViewedPageIndexPrefKeyStr, startIndexPrefKeyDefaultValue);
-            prefEditor.apply(); //applying the changes
+    @Override
+    public void onLiveSearch(@NonNull String query) {
+        if (query.equalsIgnoreCase(mSearchQueryStr)) {
+            //Ignoring when the Query is already the one searched
+            return;
+        }
+
+        //Starting the trace of the new Search
+        long searchId = SearchTracer.beginSearch(query);
+        long handleIntentStartNanos = SearchTracer.beginStage(SearchTracer.STAGE_HANDLE_INTENT);
+
+        //Hiding the Welcome Page if Visible
+        if (mWelcomePageScrollView.getVisibility() == View.VISIBLE) {
+            manageWelcomePage(false, View.GONE);
+        }
+
+        //Hiding the No Result Page if Visible
+        if (mNoResultPageScrollView.getVisibility() == View.VISIBLE) {
+            manageNoResultPage(false, View.GONE);
+        }
+
+        //Copying the current query
+        mSearchQueryStr = query;
+        mSearchParams = mSearchParams.withQuery(mSearchQueryStr);
+
+        //Set the Query searched as the Activity Title
+        setTitle(getString(R.string.searched_book_title, mSearchQueryStr));
+
+        //Resetting the value of Page index related settings to 1, for the new Search Query
+        resetPageIndex();
+
+        //Discarding the sort order and the Facets selected for the previous Search Query
+        resetLocalQuery();
+
+        if (getSupportLoaderManager().getLoader(BooksLoader.BOOK_SEARCH_LOADER) != null) {
+            //Resetting the Adapter Item View position to 0 (First Item data in the adapter)
+            scrollToItemPosition(0, true);
+
+            //Reloading on the active Loader, which cancels the Search in flight
+            reloadSearch(mSearchParams);
+        } else {
+            //Displaying the Progress Bar
+            toggleProgressBarVisibility(View.VISIBLE);
+
+            //Inflating the item views in background while the Search is in flight
+            warmUpItemViews();
 
+            //Rendering the page seen earlier instantly if any, while it is refreshed by the Loader
+            renderCachedPage(mSearchParams);
+
+            //Starting the Loader for the first Search
+            getSupportLoaderManager().initLoader(BooksLoader.BOOK_SEARCH_LOADER, null, this);
         }
 
+        //Ending the span of the Query handling
+        SearchTracer.endStage(searchId, SearchTracer.STAGE_HANDLE_INTENT, handleIntentStartNanos);
+    }
+
+    /**
+     * Method that inflates the item views of the List and Grid views in background,
+     * when they are yet to show any result
+     */
+    private void warmUpItemViews() {
+        //Retrieving the number of item views to be inflated
+        int warmUpCount = getResources().getInteger(R.integer.item_view_warm_up_count);
+        //Iterating over the registered Fragments to warm up their RecyclerViews
+        for (int position = 0; position < mViewPager.getAdapter().getCount(); position++) {
+            RecyclerViewFragment fragment = getFragmentByPositionFromViewPager(position);
+            if (fragment != null && fragment.getView() != null) {
+                fragment.warmUpItemViews(warmUpCount);
+            }
+        }
+    }
+
+    /**
+     * Method that resets the 'startIndex' (Page to Display) to 1, when not 1
+     * and also its related 'endIndex' and the last viewed page index to that of 'startIndex'
+     */
+    private void resetPageIndex() {
+        //Resetting the Pagination state in memory, which is persisted later
+        mPaginationController.reset();
+
+        //Updating the snapshot of the Search Settings to the first page
+        mSearchParams = mSearchParams.withPageToDisplay(mPaginationController.getPageIndex());
     }
 
     /**
@@ -572,13 +777,11 @@ public class BookSearchActivity
      */
     private void updatePaginationButtonsState() {
 
-        //Retrieving the 'startIndex' (Page to Display) setting value
-        int startIndex = mPreferences.getInt(getString(R.string.pref_page_to_display_key),
-                getResources().getInteger(R.integer.pref_page_to_display_default_value));
+        //Retrieving the 'startIndex' (Page to Display) value
+        int startIndex = mPaginationController.getPageIndex();
 
-        //Retrieving the 'endIndex' preference value
-        int endIndex = mPreferences.getInt(getString(R.string.pref_page_to_display_max_value_key),
-                startIndex);
+        //Retrieving the 'endIndex' value
+        int endIndex = mPaginationController.getLastPageIndex();
 
         Log.d(LOG_TAG, "updatePaginationButtonsState: startIndex " + startIndex);
         Log.d(LOG_TAG, "updatePaginationButtonsState: endIndex " + endIndex);
@@ -717,6 +920,28 @@ public class BookSearchActivity
             mSearchView.setSearchableInfo(searchManager.getSearchableInfo(getComponentName()));
         }
 
+        //Registering the Listener for the Query typed, to search as you type when enabled
+        mSearchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                //Discarding the Query pending, as the submit is handled through the ACTION_SEARCH Intent
+                mLiveSearchScheduler.cancel();
+                //Returning false to let the SearchView launch the Search
+                return false;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                if (mPreferences.getBoolean(getString(R.string.pref_live_search_key),
+                        getResources().getBoolean(R.bool.pref_live_search_default))) {
+                    //Scheduling the Search of the Query typed, when Live Search is enabled
+                    mLiveSearchScheduler.onQueryTextChanged(newText);
+                }
+                //Returning false to let the SearchView show the Suggestions
+                return false;
+            }
+        });
+
         if (mIsSearchViewExpanded) {
             //Restoring the Action View state and the Search Content if any
             restoreSearchViewContent(mSearchQueryInProgressStr);
@@ -726,7 +951,7 @@ public class BookSearchActivity
 
         //On Initial launch, the Search Query will be empty (using this as a flag for the same)
         if (TextUtils.isEmpty(mSearchQueryStr)) {
-            //Registering the OnAdapterItemDataSwapListener & OnPagerFragmentVerticalScrollListener
+            //Registering the OnPagerFragmentVerticalScrollListener
             //during the Initial launch
             //(AdapterViews for the ViewPager will be available only at this point during the initial launch)
 
@@ -734,15 +959,134 @@ public class BookSearchActivity
             int position = mViewPager.getCurrentItem();
             //Retrieving the current RecyclerViewFragment
             RecyclerViewFragment fragment = getFragmentByPositionFromViewPager(position);
-            //Registering the OnAdapterItemDataSwapListener
-            fragment.registerItemDataSwapListener(this, position);
             //Registering the OnPagerFragmentVerticalScrollListener
             fragment.setOnPagerFragmentVerticalScrollListener(this);
         }
 
+        //Showing the "Performance Metrics" menu only in the Debug builds
+        menu.findItem(R.id.perf_debug_action_id).setVisible(BuildConfig.DEBUG);
+
         return true;
     }
 
+    /**
+     * Prepare the Screen's standard options menu to be displayed. This is
+     * called right before the menu is shown, every time it is shown.
+     *
+     * @param menu The options menu as last shown or first initialized by onCreateOptionsMenu().
+     * @return You must return true for the menu to be displayed; if you return false it will not be shown.
+     */
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        //Checking the "Search Everywhere" Menu Item when enabled
+        MenuItem searchEverywhereMenuItem = menu.findItem(R.id.search_everywhere_action_id);
+        if (searchEverywhereMenuItem != null) {
+            searchEverywhereMenuItem.setChecked(mSearchParams.isSearchEverywhere());
+        }
+
+        //Checking the Menu Item of the current sort order
+        MenuItem sortMenuItem = menu.findItem(getSortMenuItemId(mLocalSortOrder));
+        if (sortMenuItem != null) {
+            sortMenuItem.setChecked(true);
+        }
+
+        //Loading the Facets of the results to the "Filter Results" menu
+        MenuItem filterMenuItem = menu.findItem(R.id.filter_results_action_id);
+        if (filterMenuItem != null && filterMenuItem.hasSubMenu()) {
+            populateFacetMenu(filterMenuItem.getSubMenu());
+        }
+
+        return super.onPrepareOptionsMenu(menu);
+    }
+
+    /**
+     * Method that loads the Facets of the results to the "Filter Results" menu, with the number of
+     * Books each Facet would show when selected. The Facets that would show none are disabled.
+     *
+     * @param filterMenu is the Sub Menu of the "Filter Results" menu
+     */
+    private void populateFacetMenu(Menu filterMenu) {
+        //Removing the Facets of the previous results
+        filterMenu.removeGroup(R.id.filter_results_group_id);
+        mShownFacets.clear();
+
+        if (mLocalQueryEngine == null) {
+            //Returning when there are no results to refine
+            return;
+        }
+
+        //Adding a checkable Menu Item for each of the Facets
+        mShownFacets.addAll(mLocalQueryEngine.getFacets());
+        int noOfFacets = mShownFacets.size();
+        for (int index = 0; index < noOfFacets; index++) {
+            LocalQueryEngine.Facet facet = mShownFacets.get(index);
+            int facetCount = mLocalQueryEngine.countFacet(facet, mSelectedFacetKeys);
+            MenuItem facetMenuItem = filterMenu.add(R.id.filter_results_group_id, Menu.FIRST + index, index,
+                    getString(R.string.facet_title_with_count_str, getFacetTitle(facet), facetCount));
+            facetMenuItem.setCheckable(true);
+            boolean isSelected = mSelectedFacetKeys.contains(facet.getKey());
+            facetMenuItem.setChecked(isSelected);
+            //Disabling the Facet that would show no Book, unless it is selected
+            facetMenuItem.setEnabled(isSelected || facetCount > 0);
+        }
+    }
+
+    /**
+     * Method that returns the title of the Facet to be shown in the "Filter Results" menu
+     *
+     * @param facet is the {@link LocalQueryEngine.Facet} whose title is required
+     * @return String containing the title of the Facet
+     */
+    private String getFacetTitle(LocalQueryEngine.Facet facet) {
+        switch (facet.getKey()) {
+            case LocalQueryEngine.FACET_KEY_FOR_SALE:
+                return getString(R.string.facet_for_sale_title_str);
+            case LocalQueryEngine.FACET_KEY_HIGHLY_RATED:
+                return getString(R.string.facet_highly_rated_title_str);
+            default:
+                //Print Type and Category Facets are titled by their value
+                return facet.getValue();
+        }
+    }
+
+    /**
+     * Method that returns the id of the Menu Item for the sort order
+     *
+     * @param sortOrder is the order of sorting, one of the LocalQueryEngine.SORT_* constants
+     * @return The id of the Menu Item in the "Sort Results" menu
+     */
+    private int getSortMenuItemId(int sortOrder) {
+        switch (sortOrder) {
+            case LocalQueryEngine.SORT_TITLE:
+                return R.id.sort_title_action_id;
+            case LocalQueryEngine.SORT_PRICE_LOW_TO_HIGH:
+                return R.id.sort_price_low_to_high_action_id;
+            case LocalQueryEngine.SORT_PRICE_HIGH_TO_LOW:
+                return R.id.sort_price_high_to_low_action_id;
+            case LocalQueryEngine.SORT_RATING:
+                return R.id.sort_rating_action_id;
+            case LocalQueryEngine.SORT_NEWEST:
+                return R.id.sort_newest_action_id;
+            case LocalQueryEngine.SORT_RELEVANCE:
+            default:
+                return R.id.sort_relevance_action_id;
+        }
+    }
+
+    /**
+     * Method that sorts the results on the device in the order requested
+     *
+     * @param item      is the Menu Item of the sort order selected
+     * @param sortOrder is the order of sorting, one of the LocalQueryEngine.SORT_* constants
+     */
+    private void handleSortAction(MenuItem item, int sortOrder) {
+        //Checking the sort order selected
+        item.setChecked(true);
+        mLocalSortOrder = sortOrder;
+        //Showing the results in the order selected
+        applyLocalQuery();
+    }
+
     /**
      * This hook is called whenever an item in your options menu is selected.
      * The default implementation simply returns false to have the normal
@@ -780,11 +1124,174 @@ public class BookSearchActivity
                 Intent aboutIntent = new Intent(this, AboutActivity.class);
                 startActivity(aboutIntent);
                 return true;
+            case R.id.perf_debug_action_id:
+                //Starting the PerformanceDebugActivity when "Performance Metrics" is clicked
+                Intent perfDebugIntent = new Intent(this, PerformanceDebugActivity.class);
+                startActivity(perfDebugIntent);
+                return true;
+            case R.id.search_everywhere_action_id:
+                //When "Search Everywhere" is toggled
+                handleSearchEverywhereAction(item);
+                return true;
+            case R.id.sort_relevance_action_id:
+                handleSortAction(item, LocalQueryEngine.SORT_RELEVANCE);
+                return true;
+            case R.id.sort_title_action_id:
+                handleSortAction(item, LocalQueryEngine.SORT_TITLE);
+                return true;
+            case R.id.sort_price_low_to_high_action_id:
+                handleSortAction(item, LocalQueryEngine.SORT_PRICE_LOW_TO_HIGH);
+                return true;
+            case R.id.sort_price_high_to_low_action_id:
+                handleSortAction(item, LocalQueryEngine.SORT_PRICE_HIGH_TO_LOW);
+                return true;
+            case R.id.sort_rating_action_id:
+                handleSortAction(item, LocalQueryEngine.SORT_RATING);
+                return true;
+            case R.id.sort_newest_action_id:
+                handleSortAction(item, LocalQueryEngine.SORT_NEWEST);
+                return true;
+            case R.id.filter_results_action_id:
+                //Refreshing the Facets and their counts before the "Filter Results" menu is shown
+                if (item.hasSubMenu()) {
+                    populateFacetMenu(item.getSubMenu());
+                }
+                //Returning false to let the Sub Menu be shown
+                return false;
+            case R.id.clear_result_filters_action_id:
+                //Clearing the Facets selected, when "Clear Filters" is clicked
+                mSelectedFacetKeys.clear();
+                applyLocalQuery();
+                return true;
             default:
+                if (item.getGroupId() == R.id.filter_results_group_id) {
+                    //When a Facet is clicked, toggling its selection
+                    handleFacetAction(item);
+                    return true;
+                }
                 return super.onOptionsItemSelected(item);
         }
     }
 
+    /**
+     * Method that toggles the "Search Everywhere" mode, which searches the Query under several
+     * keyword filters concurrently. The setting is saved along with the Search settings, whose
+     * Preference Listener reloads the Search from the first page.
+     *
+     * @param item is the Menu Item of "Search Everywhere"
+     */
+    private void handleSearchEverywhereAction(MenuItem item) {
+        boolean searchEverywhere = !item.isChecked();
+        item.setChecked(searchEverywhere);
+
+        //Resetting the value of Page index related settings to 1, as the results change
+        resetPageIndex();
+
+        //Saving the setting, which triggers the reload of the Search
+        SharedPreferences.Editor prefEditor = mPreferences.edit();
+        prefEditor.putBoolean(getString(R.string.pref_search_everywhere_key), searchEverywhere);
+        prefEditor.apply(); //Applying the changes
+    }
+
+    /**
+     * Method that toggles the selection of the Facet clicked in the "Filter Results" menu,
+     * and filters the results on the device accordingly
+     *
+     * @param item is the Menu Item of the Facet clicked
+     */
+    private void handleFacetAction(MenuItem item) {
+        //Retrieving the Facet of the Menu Item
+        int facetIndex = item.getItemId() - Menu.FIRST;
+        if (facetIndex < 0 || facetIndex >= mShownFacets.size()) {
+            //Ignoring the Menu Item of the Facets no longer shown
+            return;
+        }
+        String facetKey = mShownFacets.get(facetIndex).getKey();
+
+        //Toggling the selection of the Facet
+        if (!mSelectedFacetKeys.remove(facetKey)) {
+            mSelectedFacetKeys.add(facetKey);
+        }
+        item.setChecked(mSelectedFacetKeys.contains(facetKey));
+
+        //Showing the results having the Facets selected
+        applyLocalQuery();
+    }
+
+    /**
+     * Method that checks whether the results are being refined on the device,
+     * that is, sorted other than by relevance or filtered by the Facets
+     *
+     * @return <b>TRUE</b> when the results are being refined; <b>FALSE</b> otherwise
+     */
+    private boolean isRefiningResults() {
+        return mLocalSortOrder != LocalQueryEngine.SORT_RELEVANCE || !mSelectedFacetKeys.isEmpty();
+    }
+
+    /**
+     * Method that discards the sort order and the Facets selected, along with the
+     * {@link LocalQueryEngine} of the previous Search Query
+     */
+    private void resetLocalQuery() {
+        mLocalSortOrder = LocalQueryEngine.SORT_RELEVANCE;
+        mSelectedFacetKeys.clear();
+        mLocalQueryEngine = null;
+        //Discarding the LocalQueryEngine being built for the previous Search Query
+        mLocalQueryGeneration++;
+    }
+
+    /**
+     * Method that rebuilds the {@link LocalQueryEngine} over the results fetched so far for the
+     * Search Query, on the CPU stage of the {@link SearchPipeline}. The results are refined
+     * with the engine rebuilt, when the sort order or the Facets are selected.
+     */
+    private void rebuildLocalQueryEngine() {
+        //Reading the results fetched so far for the Search Query, falling back to the page loaded
+        List<BookInfo> bookInfos = SearchItemStore.getItems(mSearchParams);
+        if (bookInfos.isEmpty() && mLoadedBookInfos != null) {
+            bookInfos = new ArrayList<>(mLoadedBookInfos);
+        }
+        final List<BookInfo> sourceBookInfos = bookInfos;
+        final Locale locale = Locale.getDefault();
+        final int generation = ++mLocalQueryGeneration;
+
+        //Building the engine in the background, as the sort keys and the Facets are computed upfront
+        SearchPipeline.getCpuExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final LocalQueryEngine localQueryEngine = new LocalQueryEngine(sourceBookInfos, locale);
+                SearchPipeline.postToMain(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mLocalQueryGeneration) {
+                            //Discarding the engine built for the older results
+                            return;
+                        }
+                        mLocalQueryEngine = localQueryEngine;
+                        if (isRefiningResults()) {
+                            //Refining the results with the engine rebuilt
+                            applyLocalQuery();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Method that shows the results sorted and filtered on the device as selected. When not refining,
+     * the page last loaded is shown as is.
+     */
+    private void applyLocalQuery() {
+        if (isRefiningResults() && mLocalQueryEngine != null) {
+            //Showing the results having the Facets selected, in the order of sorting selected
+            BooksResultHolder.submitList(mLocalQueryEngine.query(mLocalSortOrder, mSelectedFacetKeys));
+        } else if (mLoadedBookInfos != null) {
+            //Showing the page last loaded
+            BooksResultHolder.submitList(mLoadedBookInfos);
+        }
+    }
+
     /**
      * Method that handles the action related to the Overflow Menu item "Search Keyword Filters"
      */
@@ -910,17 +1417,12 @@ public class BookSearchActivity
         if (!TextUtils.isEmpty(mSearchQueryStr)) {
             //Retrieving the current RecyclerViewFragment
             RecyclerViewFragment fragment = getFragmentByPositionFromViewPager(newPosition);
-            //Registering the OnAdapterItemDataSwapListener for the current tab
-            fragment.registerItemDataSwapListener(this, newPosition);
             //Registering the OnPagerFragmentVerticalScrollListener for the current tab
             fragment.setOnPagerFragmentVerticalScrollListener(this);
 
-            //Displaying the Progress Bar
-            toggleProgressBarVisibility(View.VISIBLE);
-
-            Log.d(LOG_TAG, "onTabSelected: reloading loader");
-            //Reloading the result of the Search previously executed
-            getSupportLoaderManager().initLoader(BooksLoader.BOOK_SEARCH_LOADER, null, this);
+            //Restoring the position to the last viewed Adapter item position on the Fragment
+            //(The Adapters share the same results, hence there is nothing to reload)
+            scrollToItemPosition(mVisibleItemViewPosition, false);
         }
 
     }
@@ -947,8 +1449,6 @@ public class BookSearchActivity
         RecyclerViewFragment fragment = getFragmentByPositionFromViewPager(oldPosition);
         mVisibleItemViewPosition = fragment.getFirstVisibleItemPosition();
 
-        //Unregistering the OnAdapterItemDataSwapListener on this tab unselected
-        fragment.clearItemDataSwapListener(oldPosition);
         //Unregistering the OnPagerFragmentVerticalScrollListener on this tab unselected
         fragment.clearOnPagerFragmentVerticalScrollListener();
     }
@@ -975,7 +1475,18 @@ public class BookSearchActivity
     @NonNull
     @Override
     public Loader<List<BookInfo>> onCreateLoader(int id, Bundle args) {
-        return new BooksLoader(this, mSearchQueryStr);
+        //Recording the Search Settings being loaded, to avoid reloading the same
+        mSearchReloadScheduler.markExecuted(mSearchParams);
+        BooksLoader booksLoader = new BooksLoader(this, mSearchParams);
+        //Passing the last page index known so far, to continue probing from
+        booksLoader.setKnownLastPageIndex(mPaginationController.getLastPageIndex());
+        //Passing the age up to which a cached page is served without fetching it again
+        booksLoader.setCacheFreshMillis(getCacheFreshMillis());
+        //Registering for the partial results of the load
+        booksLoader.setOnPartialBooksResultListener(this);
+        //Registering for the last page discovered after the load
+        booksLoader.setOnLastPageDiscoveredListener(this);
+        return booksLoader;
     }
 
     /**
@@ -990,11 +1501,45 @@ public class BookSearchActivity
     public void onLoadFinished(@NonNull Loader<List<BookInfo>> loader, List<BookInfo> bookInfos) {
         switch (loader.getId()) {
             case BooksLoader.BOOK_SEARCH_LOADER:
-                if (bookInfos != null && bookInfos.size() > 0) {
-                    //Loading the data to the RecyclerViewFragment when present
-                    RecyclerViewFragment fragment = getCurrentFragmentFromViewPager();
-                    fragment.loadNewData(bookInfos);
-                    Log.d(LOG_TAG, "onLoadFinished: data loaded by - " + fragment);
+                if (bookInfos != null && bookInfos.size() > 0
+                        && !(((BooksLoader) loader).isOfflineResult() && isCachedPageShownFor((BooksLoader) loader))) {
+                    //(The cached page shown is retained over the one answered offline, being the one seen online)
+
+                    if (isCachedPageShownFor((BooksLoader) loader)) {
+                        //When the cached page shown is refreshed, retaining the position scrolled to meanwhile,
+                        //as only the differences are applied to the page shown
+                        mVisibleItemViewPosition = getCurrentFragmentFromViewPager().getFirstVisibleItemPosition();
+                    }
+                    //Clearing the reference to the cached page, as it is now refreshed
+                    mRenderedCachedParams = null;
+
+                    //Updating the last page index with the one determined by the loader
+                    mPaginationController.updateLastPageIndex(((BooksLoader) loader).getLastPageIndex());
+
+                    //Saving the page loaded, for refining the results on the device
+                    mLoadedBookInfos = bookInfos;
+
+                    if (!isRefiningResults()) {
+                        //Loading the data to the shared Search results when present
+                        BooksResultHolder.submitList(bookInfos);
+                    }
+
+                    //Rebuilding the engine over the results fetched so far, which refines them when selected
+                    rebuildLocalQueryEngine();
+
+                    if (((BooksLoader) loader).isOfflineResult()) {
+                        //Displaying a message that the results are answered offline
+                        Toast.makeText(this, R.string.showing_offline_results_msg, Toast.LENGTH_SHORT).show();
+                    }
+                } else if (isCachedPageShownFor((BooksLoader) loader)) {
+                    //When the cached page shown could not be refreshed, retaining it as is
+                    mRenderedCachedParams = null;
+
+                    //Hiding the Progress Bar
+                    toggleProgressBarVisibility(View.GONE);
+
+                    //Displaying a message that the page shown is the one seen earlier
+                    Toast.makeText(this, R.string.showing_cached_page_msg, Toast.LENGTH_SHORT).show();
                 } else {
                     //When the data returned is NULL or Empty
                     BooksLoader booksLoader = (BooksLoader) loader;
@@ -1002,9 +1547,8 @@ public class BookSearchActivity
                     if (!booksLoader.getNetworkConnectivityStatus()) {
                         //Reporting Network Failure when False
 
-                        //Clearing the data displayed by the current RecyclerViewFragment
-                        RecyclerViewFragment fragment = getCurrentFragmentFromViewPager();
-                        fragment.clearData();
+                        //Clearing the data displayed by the RecyclerViewFragments
+                        BooksResultHolder.clear();
 
                         //Hiding the Progress Bar
                         toggleProgressBarVisibility(View.GONE);
@@ -1015,23 +1559,14 @@ public class BookSearchActivity
                     } else {
                         //When there is NO network issue and the current page has no data to be shown
 
-                        //Retrieving the preference key string of 'Page to Display' setting, that is, the 'startIndex'
-                        String startIndexPrefKeyStr = getString(R.string.pref_page_to_display_key);
-
-                        //Retrieving the preference key string of the Max value of 'Page to Display' setting, that is, the 'endIndex'
-                        String endIndexPrefKeyStr = getString(R.string.pref_page_to_display_max_value_key);
+                        //Retrieving the 'startIndex' (Page to Display) value
+                        int startIndex = mPaginationController.getPageIndex();
 
-                        //Retrieving the 'startIndex' (Page to Display) setting value
-                        int startIndex = mPreferences.getInt(startIndexPrefKeyStr,
-                                getResources().getInteger(R.integer.pref_page_to_display_default_value));
+                        //Retrieving the 'endIndex' value
+                        int endIndex = mPaginationController.getLastPageIndex();
 
-                        //Retrieving the 'endIndex' preference value
-                        int endIndex = mPreferences.getInt(getString(R.string.pref_page_to_display_max_value_key),
-                                startIndex);
-
-                        //Retrieving the value of preference for the last viewed page index
-                        int lastViewedPageIndex = mPreferences.getInt(getString(R.string.pref_last_displayed_page_key),
-                                startIndex);
+                        //Retrieving the last viewed page index
+                        int lastViewedPageIndex = mPaginationController.getLastViewedPageIndex();
 
                         if (startIndex == 1 && endIndex == startIndex && lastViewedPageIndex == startIndex) {
                             Log.d(LOG_TAG, "onLoadFinished: No data, All index is currently at " + startIndex);
@@ -1040,9 +1575,8 @@ public class BookSearchActivity
                             //Displaying the No Page Result in such cases
                             manageNoResultPage(false, View.VISIBLE);
 
-                            //Clearing the data displayed by the current RecyclerViewFragment
-                            RecyclerViewFragment fragment = getCurrentFragmentFromViewPager();
-                            fragment.clearData();
+                            //Clearing the data displayed by the RecyclerViewFragments
+                            BooksResultHolder.clear();
 
                             //Hiding the Progress Bar
                             toggleProgressBarVisibility(View.GONE);
@@ -1065,13 +1599,9 @@ public class BookSearchActivity
 
                             Log.d(LOG_TAG, "onLoadFinished: Restoring page " + lastViewedPageIndex + " from " + startIndex);
 
-                            //Opening the Editor to restore the value of last viewed page index to 'Page to Display' setting
-                            SharedPreferences.Editor prefEditor = mPreferences.edit();
-
-                            //Restoring the value of the last viewed page to 'startIndex' and 'endIndex' setting
-                            prefEditor.putInt(startIndexPrefKeyStr, lastViewedPageIndex);
-                            prefEditor.putInt(endIndexPrefKeyStr, lastViewedPageIndex);
-                            prefEditor.apply(); //Applying the changes
+                            //Restoring the value of the last viewed page to 'startIndex' and 'endIndex',
+                            //which loads the page restored
+                            mPaginationController.restoreToPage(lastViewedPageIndex);
                         }
 
                     }
@@ -1080,6 +1610,37 @@ public class BookSearchActivity
         }
     }
 
+    /**
+     * Method invoked on the Main Thread with the results loaded so far by the {@link BooksLoader},
+     * which are only shown. The pagination and the results refined on the device are updated
+     * with the final result of the load.
+     *
+     * @param bookInfos is the List of {@link BookInfo} objects loaded so far
+     */
+    @Override
+    public void onPartialBooksResult(@NonNull List<BookInfo> bookInfos) {
+        if (!isRefiningResults()) {
+            //Loading the results so far to the shared Search results, unless refined on the device
+            BooksResultHolder.submitList(bookInfos);
+        }
+    }
+
+    /**
+     * Method invoked on the Main Thread with the last page of the Search discovered in the background,
+     * after the page loaded was delivered with a provisional last page. The last page is taken
+     * only when it is of the Search Query being shown.
+     *
+     * @param searchParams  is the Search Query and the Search Settings of the page that started the discovery
+     * @param lastPageIndex is the index of the last page discovered, with 1 as the first page
+     */
+    @Override
+    public void onLastPageDiscovered(@NonNull SearchParams searchParams, int lastPageIndex) {
+        if (TextUtils.equals(searchParams.toQueryKey(), mSearchParams.toQueryKey())) {
+            //Updating the last page index with the one discovered, for the Search Query being shown
+            mPaginationController.updateLastPageIndex(lastPageIndex);
+        }
+    }
+
     /**
      * Called when a previously created loader is being reset, and thus
      * making its data unavailable.  The application should at this point
@@ -1091,8 +1652,8 @@ public class BookSearchActivity
     public void onLoaderReset(@NonNull Loader<List<BookInfo>> loader) {
         switch (loader.getId()) {
             case BooksLoader.BOOK_SEARCH_LOADER:
-                //Clearing the data from the Adapter hosted by the RecyclerViewFragment
-                getCurrentFragmentFromViewPager().clearData();
+                //Clearing the data from the Adapters hosted by the RecyclerViewFragments
+                BooksResultHolder.clear();
                 break;
         }
     }
@@ -1110,6 +1671,18 @@ public class BookSearchActivity
 
         //Hiding the Progress Bar
         toggleProgressBarVisibility(View.GONE);
+
+        //Marking the full page of the Search traced, once the results are laid out
+        //(the message posted runs after the layout pass requested by the data swap)
+        final long searchId = SearchTracer.getActiveSearchId();
+        if (searchId != SearchTracer.NO_SEARCH_ID) {
+            mViewPager.post(new Runnable() {
+                @Override
+                public void run() {
+                    SearchTracer.markFullPage(searchId, BooksResultHolder.getCurrentList().size());
+                }
+            });
+        }
     }
 
     /**
@@ -1122,22 +1695,162 @@ public class BookSearchActivity
      *                          removed
      */
     public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
-        if (!mKeysToExclude.contains(key)) {
-            //Resetting the Adapter Item View position reference to 0 (First Item data in the adapter)
-            //on Preference change
-            mVisibleItemViewPosition = 0;
-
-            //Get the active loader and trigger content change for data reload
-            Loader<List<BookInfo>> loader = getSupportLoaderManager().getLoader(BooksLoader.BOOK_SEARCH_LOADER);
-            if (loader != null) {
-                //Displaying the Progress Bar
-                toggleProgressBarVisibility(View.VISIBLE);
-
-                BooksLoader booksLoader = (BooksLoader) loader;
-                booksLoader.onContentChanged(); //Signalling the content change on the loader
+        //Updating the snapshot of the Search Settings with the value of the setting changed
+        mSearchParams = mSearchParams.withPreference(this, sharedPreferences, key);
+
+        if (key.equals(getString(R.string.pref_page_to_display_key))) {
+            //Synchronizing the Pagination state with the 'startIndex' changed from the Settings
+            mPaginationController.syncPageIndex(mSearchParams.getPageToDisplay());
+        }
+
+        if (key.equals(getString(R.string.pref_results_per_page_key))) {
+            //Tuning the RecyclerViews of the registered Fragments for the new 'maxResults' setting value
+            int pageSize = sharedPreferences.getInt(key, getResources().getInteger(R.integer.pref_results_per_page_default_value));
+            for (int position = 0; position < mViewPager.getAdapter().getCount(); position++) {
+                RecyclerViewFragment fragment = getFragmentByPositionFromViewPager(position);
+                if (fragment != null && fragment.getView() != null) {
+                    fragment.tuneForPageSize(pageSize);
+                }
             }
         }
 
+        if (!mKeysToExclude.contains(key)) {
+            //Scheduling a reload, which is batched with the other settings changed together
+            mSearchReloadScheduler.requestReload(mSearchParams);
+        }
+
+    }
+
+    /**
+     * Callback Method of {@link SearchReloadScheduler} invoked on the Main Thread
+     * when the Search results need to be reloaded for the Search Settings changed
+     *
+     * @param searchParams is the snapshot of the Search Query and the Search Settings to be loaded
+     */
+    @Override
+    public void onReload(@NonNull SearchParams searchParams) {
+        //Reloading the Search results for the Search Settings changed
+        reloadSearch(searchParams);
+    }
+
+    /**
+     * Callback Method of {@link PaginationController} invoked when the page
+     * to display is changed by navigation, and needs to be loaded
+     *
+     * @param pageIndex is the index of the page to display, with 1 as the first page
+     */
+    @Override
+    public void onPageChanged(int pageIndex) {
+        //Updating the snapshot of the Search Settings to the page to display
+        mSearchParams = mSearchParams.withPageToDisplay(pageIndex);
+
+        //Discarding any pending reload, as this load includes those Search Settings changed as well
+        mSearchReloadScheduler.cancel();
+        mSearchReloadScheduler.markExecuted(mSearchParams);
+
+        //Loading the page directly
+        reloadSearch(mSearchParams);
+    }
+
+    /**
+     * Callback Method of {@link PaginationNumberPickerDialogFragment} invoked
+     * when the user selects the page to jump to
+     *
+     * @param pageIndex is the index of the page selected, with 1 as the first page
+     */
+    @Override
+    public void onPageSelected(int pageIndex) {
+        //Navigating to the page selected
+        mPaginationController.moveToPage(pageIndex);
+    }
+
+    /**
+     * Method that triggers the reload of the Search results on the active Loader
+     *
+     * @param searchParams is the snapshot of the Search Query and the Search Settings to be loaded
+     */
+    private void reloadSearch(@NonNull SearchParams searchParams) {
+        //Resetting the Adapter Item View position reference to 0 (First Item data in the adapter)
+        //on Preference change
+        mVisibleItemViewPosition = 0;
+
+        //Get the active loader and trigger content change for data reload
+        Loader<List<BookInfo>> loader = getSupportLoaderManager().getLoader(BooksLoader.BOOK_SEARCH_LOADER);
+        if (loader != null) {
+            //Displaying the Progress Bar
+            toggleProgressBarVisibility(View.VISIBLE);
+
+            //Rendering the page seen earlier instantly if any, while it is refreshed by the Loader
+            renderCachedPage(searchParams);
+
+            BooksLoader booksLoader = (BooksLoader) loader;
+            booksLoader.setSearchParams(searchParams); //Passing the updated Search Settings to the loader
+            booksLoader.setKnownLastPageIndex(mPaginationController.getLastPageIndex()); //Passing the last page known
+            booksLoader.setCacheFreshMillis(getCacheFreshMillis()); //Passing the age of the cached page to be served
+            booksLoader.onContentChanged(); //Signalling the content change on the loader
+        }
+    }
+
+    /**
+     * Method that renders the page of Search results seen earlier for the Search Settings passed,
+     * when cached and is not older than the maximum staleness set. The page rendered is later
+     * refreshed by the Loader, applying only the differences through {@link BooksResultHolder}
+     *
+     * @param searchParams is the Search Query and the Search Settings of the page to be rendered
+     */
+    private void renderCachedPage(@NonNull SearchParams searchParams) {
+        //Clearing the reference to the cached page shown previously
+        mRenderedCachedParams = null;
+
+        //Retrieving the page seen earlier, provided it is fresh enough
+        SearchResultsCache.CachedPage cachedPage = SearchResultsCache.getPage(searchParams, getCacheMaxStalenessMillis());
+        if (cachedPage != null) {
+            //Saving the Search Settings of the cached page being shown
+            mRenderedCachedParams = searchParams;
+
+            //Restoring the last page index known along with the page
+            mPaginationController.updateLastPageIndex(cachedPage.getLastPageIndex());
+
+            //Loading the page to the shared Search results
+            BooksResultHolder.submitList(cachedPage.getBookInfos());
+        }
+    }
+
+    /**
+     * Method that checks whether the load finished by the Loader is the refresh
+     * of the cached page currently shown
+     *
+     * @param booksLoader is the {@link BooksLoader} that has finished its load
+     * @return <b>TRUE</b> when the load is for the Search Settings of the cached page shown;
+     * <b>FALSE</b> otherwise
+     */
+    private boolean isCachedPageShownFor(BooksLoader booksLoader) {
+        return mRenderedCachedParams != null && mRenderedCachedParams.equals(booksLoader.getLoadedSearchParams());
+    }
+
+    /**
+     * Method that reads the maximum age of a cached page that can be shown, from the
+     * "Show cached results" setting. The setting is global, applying the same maximum age
+     * to the pages of every Search Query, as there is no UI for setting it per Query.
+     *
+     * @return The maximum staleness in milliseconds; or 0 when the cached pages are not to be shown
+     */
+    private long getCacheMaxStalenessMillis() {
+        //Retrieving the setting value which is in seconds
+        String maxStalenessStr = mPreferences.getString(getString(R.string.pref_cache_max_staleness_key),
+                getString(R.string.pref_cache_max_staleness_default));
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(maxStalenessStr));
+    }
+
+    /**
+     * Method that returns the maximum age of a cached page that is served by the Loader
+     * without fetching it again, which is bounded by the "Show cached results" setting
+     *
+     * @return The maximum age in milliseconds; or 0 when the cached pages are not to be shown
+     */
+    private long getCacheFreshMillis() {
+        return Math.min(getResources().getInteger(R.integer.search_results_cache_fresh_window_millis),
+                getCacheMaxStalenessMillis());
     }
 
     /**
@@ -1172,71 +1885,47 @@ public class BookSearchActivity
     @Override
     public void onClick(View view) {
 
-        //Retrieving the preference key string of 'Page to Display' setting, that is, the 'startIndex'
-        String startIndexPrefKeyStr = getString(R.string.pref_page_to_display_key);
-        //Retrieving the 'startIndex' (Page to Display) setting value
-        int startIndex = mPreferences.getInt(startIndexPrefKeyStr,
-                getResources().getInteger(R.integer.pref_page_to_display_default_value));
-        //Opening the Editor to update the value
-        SharedPreferences.Editor prefEditor = mPreferences.edit();
-
-        //Updating the current page index to the preference of the last viewed page index
-        prefEditor.putInt(getString(R.string.pref_last_displayed_page_key), startIndex);
-
         //Executing the click action based on the view's id
         switch (view.getId()) {
             case R.id.page_first_button_id:
-                //On Page First action, updating the 'Page to Display' setting to 1
-                prefEditor.putInt(startIndexPrefKeyStr, 1);
-                prefEditor.apply(); //applying the changes
+                //On Page First action, navigating to the first page
+                mPaginationController.moveToFirstPage();
                 //Displaying a Toast Message
                 Toast.makeText(this, getString(R.string.navigate_page_first_msg), Toast.LENGTH_SHORT).show();
                 break;
 
             case R.id.page_previous_button_id:
-                //On Page Previous action, updating the 'Page to Display' setting
-                //to a value less than itself by 1
-                startIndex = startIndex - 1;
-                prefEditor.putInt(startIndexPrefKeyStr, startIndex);
-                prefEditor.apply(); //applying the changes
+                //On Page Previous action, navigating to the page previous to the current page
+                mPaginationController.moveToPreviousPage();
                 //Displaying a Toast Message
-                Toast.makeText(this, getString(R.string.navigate_page_x_msg, startIndex), Toast.LENGTH_SHORT).show();
+                Toast.makeText(this, getString(R.string.navigate_page_x_msg, mPaginationController.getPageIndex()), Toast.LENGTH_SHORT).show();
                 break;
 
             case R.id.page_more_button_id:
                 //On Page More action, displaying a Number Picker Dialog
                 //to allow the user to make the choice of viewing a random page
 
-                //Retrieving the Minimum and Maximum values for the NumberPicker
-                int minValue = getResources().getInteger(R.integer.pref_page_to_display_default_value);
-                int maxValue = mPreferences.getInt(getString(R.string.pref_page_to_display_max_value_key),
-                        minValue);
-
-                //Creating the DialogFragment Instance
+                //Creating the DialogFragment Instance with the Minimum, Maximum and the current page values
                 PaginationNumberPickerDialogFragment numberPickerDialogFragment
-                        = PaginationNumberPickerDialogFragment.newInstance(minValue, maxValue);
+                        = PaginationNumberPickerDialogFragment.newInstance(
+                        mPaginationController.getFirstPageIndex(),
+                        mPaginationController.getLastPageIndex(),
+                        mPaginationController.getPageIndex());
                 //Displaying the DialogFragment
                 numberPickerDialogFragment.show(getSupportFragmentManager(),
                         PaginationNumberPickerDialogFragment.DIALOG_FRAGMENT_TAG);
                 break;
 
             case R.id.page_next_button_id:
-                //On Page Next action, updating the 'Page to Display' setting
-                //to a value greater than itself by 1
-                startIndex = startIndex + 1;
-                prefEditor.putInt(startIndexPrefKeyStr, startIndex);
-                prefEditor.apply(); //applying the changes
+                //On Page Next action, navigating to the page next to the current page
+                mPaginationController.moveToNextPage();
                 //Displaying a Toast Message
-                Toast.makeText(this, getString(R.string.navigate_page_x_msg, startIndex), Toast.LENGTH_SHORT).show();
+                Toast.makeText(this, getString(R.string.navigate_page_x_msg, mPaginationController.getPageIndex()), Toast.LENGTH_SHORT).show();
                 break;
 
             case R.id.page_last_button_id:
-                //On Page Last action, updating the 'Page to Display' setting to
-                //a value equal to that of the predetermined 'endIndex' preference value
-                prefEditor.putInt(startIndexPrefKeyStr,
-                        mPreferences.getInt(getString(R.string.pref_page_to_display_max_value_key),
-                                startIndex));
-                prefEditor.apply(); //applying the changes
+                //On Page Last action, navigating to the predetermined last page
+                mPaginationController.moveToLastPage();
                 //Displaying a Toast Message
                 Toast.makeText(this, getString(R.string.navigate_page_last_msg), Toast.LENGTH_SHORT).show();
                 break;
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary;
+
+import android.os.Bundle;
+import android.support.v4.app.NavUtils;
+import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.example.kaushiknsanji.bookslibrary.cache.BookSuggestionIndex;
+import com.example.kaushiknsanji.bookslibrary.cache.DuplicateBookFilter;
+import com.example.kaushiknsanji.bookslibrary.cache.SearchResultsCache;
+import com.example.kaushiknsanji.bookslibrary.metrics.PerformanceReport;
+import com.example.kaushiknsanji.bookslibrary.metrics.ScrollPerformanceStats;
+import com.example.kaushiknsanji.bookslibrary.metrics.SearchTracer;
+import com.example.kaushiknsanji.bookslibrary.workers.LastPageDiscovery;
+import com.example.kaushiknsanji.bookslibrary.workers.SearchPipeline;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Activity that displays the report of the performance measurements recorded on the device,
+ * on click of "Performance Metrics" menu in the {@link BookSearchActivity}, which is shown
+ * only in the Debug builds. The report can also be dumped to a log file.
+ *
+ * @author Kaushik N Sanji
+ */
+public class PerformanceDebugActivity extends AppCompatActivity {
+
+    //Constant used for Logs
+    private static final String LOG_TAG = PerformanceDebugActivity.class.getSimpleName();
+
+    //TextView that shows the report
+    private TextView mReportTextView;
+
+    //Method invoked by the system to create and setup the layout 'R.layout.activity_performance_debug'
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_performance_debug);
+
+        //Displaying the Up button
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        //Finding the TextView of the report
+        mReportTextView = findViewById(R.id.perf_debug_report_text_id);
+    }
+
+    //Called by the Activity when it is prepared to be shown
+    @Override
+    protected void onResume() {
+        super.onResume();
+
+        //Showing the latest report
+        refreshReport();
+    }
+
+    /**
+     * Method that prepares the latest report and shows it
+     */
+    private void refreshReport() {
+        mReportTextView.setText(PerformanceReport.build(this));
+    }
+
+    /**
+     * Method that writes the latest report to a log file on a worker thread,
+     * and displays a toast with the path of the file written
+     */
+    private void dumpReport() {
+        //Preparing the report on the Main Thread
+        final String report = PerformanceReport.build(this);
+        //Logging the report as well, for it to be pulled through logcat
+        Log.i(LOG_TAG, "dumpReport:\n" + report);
+
+        //Writing the report on a worker thread
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                String message;
+                try {
+                    File reportFile = PerformanceReport.dumpToFile(getApplicationContext(), report);
+                    message = getString(R.string.perf_debug_dump_success_msg, reportFile.getAbsolutePath());
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Error occurred while writing the report\n", e);
+                    message = getString(R.string.perf_debug_dump_failure_msg);
+                }
+
+                //Displaying the result of the dump on the Main Thread
+                showToastOnUiThread(message);
+            }
+        }, LOG_TAG).start();
+    }
+
+    /**
+     * Method that exports the recent Search traces as JSON to a file on a worker thread,
+     * and displays a toast with the path of the file written
+     */
+    private void exportSearchTraces() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                String message;
+                try {
+                    File tracesFile = PerformanceReport.exportSearchTracesToFile(getApplicationContext());
+                    message = getString(R.string.perf_debug_dump_success_msg, tracesFile.getAbsolutePath());
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Error occurred while exporting the Search traces\n", e);
+                    message = getString(R.string.perf_debug_dump_failure_msg);
+                }
+
+                //Displaying the result of the export on the Main Thread
+                showToastOnUiThread(message);
+            }
+        }, LOG_TAG).start();
+    }
+
+    /**
+     * Method that displays a long toast with the message on the Main Thread
+     *
+     * @param message is the String message to be displayed
+     */
+    private void showToastOnUiThread(final String message) {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                Toast.makeText(getApplicationContext(), message, Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    /**
+     * Initialize the contents of the Activity's standard options menu.
+     *
+     * @param menu The options menu in which you place your items.
+     * @return You must return true for the menu to be displayed;
+     * if you return false it will not be shown.
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        //Inflating the Menu options from menu_performance_debug.xml
+        getMenuInflater().inflate(R.menu.menu_performance_debug, menu);
+        return true;
+    }
+
+    /**
+     * This hook is called whenever an item in your options menu is selected.
+     *
+     * @param item The menu item that was selected.
+     * @return boolean Return false to allow normal menu processing to
+     * proceed, true to consume it here.
+     */
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        //Executing based on MenuItem's Id
+        switch (item.getItemId()) {
+            case android.R.id.home:
+                //Handling the action bar's home/up button
+                NavUtils.navigateUpFromSameTask(this);
+                return true;
+            case R.id.perf_debug_refresh_action_id:
+                //Showing the latest report when "Refresh" is clicked
+                refreshReport();
+                return true;
+            case R.id.perf_debug_dump_action_id:
+                //Writing the report to a log file when "Dump to File" is clicked
+                dumpReport();
+                return true;
+            case R.id.perf_debug_export_traces_action_id:
+                //Exporting the Search traces as JSON when "Export Search Traces" is clicked
+                exportSearchTraces();
+                return true;
+            case R.id.perf_debug_reset_action_id:
+                //Discarding the measurements recorded when "Reset" is clicked
+                ScrollPerformanceStats.resetAll();
+                SearchTracer.reset();
+                SearchPipeline.reset();
+                BookSuggestionIndex.reset();
+                SearchResultsCache.reset();
+                LastPageDiscovery.reset();
+                DuplicateBookFilter.reset();
+                refreshReport();
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+
+}
@@ -18,14 +18,9 @@ package com.example.kaushiknsanji.bookslibrary.adapters;
 
 import android.content.Context;
 import android.graphics.Typeface;
-import android.os.Bundle;
-import android.os.Parcelable;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.v4.app.FragmentActivity;
-import android.support.v4.app.LoaderManager;
-import android.support.v4.content.Loader;
-import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
 import android.text.TextUtils;
 import android.util.Log;
@@ -37,15 +32,20 @@ import android.widget.RatingBar;
 import android.widget.TextView;
 
 import com.example.kaushiknsanji.bookslibrary.R;
+import com.example.kaushiknsanji.bookslibrary.cache.BooksResultHolder;
+import com.example.kaushiknsanji.bookslibrary.metrics.ScrollPerformanceStats;
+import com.example.kaushiknsanji.bookslibrary.metrics.SearchTracer;
 import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
 import com.example.kaushiknsanji.bookslibrary.observers.OnAdapterItemClickListener;
-import com.example.kaushiknsanji.bookslibrary.observers.OnAdapterItemDataSwapListener;
+import com.example.kaushiknsanji.bookslibrary.observers.OnBooksListDiffListener;
+import com.example.kaushiknsanji.bookslibrary.utils.BooksDiffResult;
+import com.example.kaushiknsanji.bookslibrary.utils.BooksDiffUtility;
 import com.example.kaushiknsanji.bookslibrary.utils.TextAppearanceUtility;
-import com.example.kaushiknsanji.bookslibrary.workers.BooksDiffLoader;
 import com.example.kaushiknsanji.bookslibrary.workers.ImageDownloaderFragment;
+import com.example.kaushiknsanji.bookslibrary.workers.ItemViewWarmer;
 
 import java.text.ParseException;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -57,15 +57,11 @@ import java.util.List;
  * @author Kaushik N Sanji
  */
 public class RecyclerListAdapter extends RecyclerView.Adapter<RecyclerListAdapter.ViewHolder>
-        implements LoaderManager.LoaderCallbacks<DiffUtil.DiffResult> {
+        implements OnBooksListDiffListener, ItemViewWarmer.PreInflatedViewConsumer {
 
     //Constant used for logs
     private static final String LOG_TAG = RecyclerListAdapter.class.getSimpleName();
 
-    //Constants used for the Diff Loader's Bundle arguments
-    private static final String OLD_LIST_STR_KEY = "BookInfo.Old";
-    private static final String NEW_LIST_STR_KEY = "BookInfo.New";
-
     //Stores the layout resource of the list item that needs to be inflated manually
     private int mLayoutRes;
 
@@ -81,20 +77,21 @@ public class RecyclerListAdapter extends RecyclerView.Adapter<RecyclerListAdapte
     //Stores the reference to the Listener OnAdapterItemClickListener
     private OnAdapterItemClickListener mItemClickListener;
 
-    //Stores the reference to the Listener OnAdapterItemDataSwapListener
-    private OnAdapterItemDataSwapListener mItemDataSwapListener;
-
     /**
      * Constructor of the Adapter {@link RecyclerListAdapter}
      *
-     * @param context   is the Context of the Activity/Application
-     * @param resource  is the layout resource ID of the item view ('R.layout.books_list_item')
-     * @param bookInfos is the list of BookInfo objects which is the Dataset of the Adapter
+     * @param context  is the Context of the Activity/Application
+     * @param resource is the layout resource ID of the item view ('R.layout.books_list_item')
      */
-    public RecyclerListAdapter(@NonNull Context context, @LayoutRes int resource, @NonNull List<BookInfo> bookInfos) {
+    public RecyclerListAdapter(@NonNull Context context, @LayoutRes int resource) {
         mContext = context;
         mLayoutRes = resource;
-        mBookInfoList = bookInfos;
+
+        //Starting with an empty Dataset, which gets loaded on subscribing to the BooksResultHolder
+        mBookInfoList = Collections.emptyList();
+
+        //Enabling Stable Ids, so that the item views are retained across the data swaps
+        setHasStableIds(true);
 
         //Saving an instance of the font face for the Book Title
         mTitleTextTypeface = Typeface.createFromAsset(getContext().getAssets(), "fonts/garamond_bold.ttf");
@@ -119,17 +116,6 @@ public class RecyclerListAdapter extends RecyclerView.Adapter<RecyclerListAdapte
         mItemClickListener = listener;
     }
 
-    /**
-     * Method that registers the {@link OnAdapterItemDataSwapListener} for the
-     * {@link com.example.kaushiknsanji.bookslibrary.BookSearchActivity}
-     * to receive event callbacks
-     *
-     * @param listener is the instance of the Activity implementing the {@link OnAdapterItemDataSwapListener}
-     */
-    public void setOnAdapterItemDataSwapListener(OnAdapterItemDataSwapListener listener) {
-        mItemDataSwapListener = listener;
-    }
-
     /**
      * Called when RecyclerView needs a new {@link ViewHolder} of the given type to represent
      * an item.
@@ -142,9 +128,13 @@ public class RecyclerListAdapter extends RecyclerView.Adapter<RecyclerListAdapte
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        //Inflating the item Layout view
-        //Passing False as we are attaching the View ourselves
-        View itemView = LayoutInflater.from(getContext()).inflate(mLayoutRes, parent, false);
+        //Using the item view inflated in background, when the ViewHolder is created by the ItemViewWarmer
+        View itemView = ItemViewWarmer.takePreInflatedView();
+        if (itemView == null) {
+            //Inflating the item Layout view
+            //Passing False as we are attaching the View ourselves
+            itemView = LayoutInflater.from(getContext()).inflate(mLayoutRes, parent, false);
+        }
 
         //Instantiating the ViewHolder to initialize the reference to the view components in the item layout
         //and returning the same
@@ -162,14 +152,86 @@ public class RecyclerListAdapter extends RecyclerView.Adapter<RecyclerListAdapte
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder viewHolder, int position) {
+        //Noting the start time of the bind
+        long bindStartNanos = System.nanoTime();
+
         //Retrieving the BookInfo object at the current item position
         BookInfo bookInfo = mBookInfoList.get(position);
 
-        //Retrieving the Context
-        Context context = getContext();
-
         //Populating the data onto the Template View using the BookInfo object: START
+        bindBookImage(viewHolder, bookInfo, position);
+        bindBookInfo(viewHolder, bookInfo);
+        bindBookRatings(viewHolder, bookInfo);
+        bindBookPrice(viewHolder, bookInfo);
+        //Populating the data onto the Template View using the BookInfo object: END
+
+        //Recording the time taken for the complete bind of the item view
+        ScrollPerformanceStats.forItemLayout(mLayoutRes).recordBind(System.nanoTime() - bindStartNanos);
+
+        //Marking the first item bound for the Search being traced
+        SearchTracer.markItemBound();
+    }
+
+    /**
+     * Called by RecyclerView to display the data at the specified position, with the payloads
+     * describing the partial change. When the payloads are present, only the views affected by
+     * the change (as identified by the {@link BooksDiffUtility} PAYLOAD_* Bit flags) are rebound;
+     * otherwise the complete item is rebound.
+     *
+     * @param viewHolder The ViewHolder which should be updated to represent the contents of the
+     *                   item at the given position in the data set.
+     * @param position   The position of the item within the adapter's data set.
+     * @param payloads   A non-null list of merged payloads. Can be empty list if requires full
+     *                   update.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder viewHolder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            //Doing a complete rebind when there are no payloads
+            onBindViewHolder(viewHolder, position);
+            return;
+        }
+
+        //Merging all the payload Bit masks received for the item
+        int payloadMask = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                payloadMask |= (Integer) payload;
+            }
+        }
+
+        if (payloadMask == 0) {
+            //Doing a complete rebind when the payloads could not be interpreted
+            onBindViewHolder(viewHolder, position);
+            return;
+        }
+
+        //Retrieving the BookInfo object at the current item position
+        BookInfo bookInfo = mBookInfoList.get(position);
 
+        //Rebinding only the views affected by the change
+        if ((payloadMask & BooksDiffUtility.PAYLOAD_IMAGE) != 0) {
+            bindBookImage(viewHolder, bookInfo, position);
+        }
+        if ((payloadMask & BooksDiffUtility.PAYLOAD_INFO) != 0) {
+            bindBookInfo(viewHolder, bookInfo);
+        }
+        if ((payloadMask & BooksDiffUtility.PAYLOAD_RATING) != 0) {
+            bindBookRatings(viewHolder, bookInfo);
+        }
+        if ((payloadMask & BooksDiffUtility.PAYLOAD_PRICE) != 0) {
+            bindBookPrice(viewHolder, bookInfo);
+        }
+    }
+
+    /**
+     * Method that binds the Image of the Book to the item view
+     *
+     * @param viewHolder is the ViewHolder of the item view being bound
+     * @param bookInfo   is the {@link BookInfo} object of the item being bound
+     * @param position   is the position of the item within the adapter's data set
+     */
+    private void bindBookImage(ViewHolder viewHolder, BookInfo bookInfo, int position) {
         //Updating the Book Image if link is present
         String imageURLStr = bookInfo.getImageLinkForItemInfo();
         if (!TextUtils.isEmpty(imageURLStr)) {
@@ -183,6 +245,17 @@ public class RecyclerListAdapter extends RecyclerView.Adapter<RecyclerListAdapte
             //Resetting to the default Book image when link is absent
             viewHolder.bookImageView.setImageResource(R.drawable.ic_book);
         }
+    }
+
+    /**
+     * Method that binds the textual information of the Book to the item view
+     *
+     * @param viewHolder is the ViewHolder of the item view being bound
+     * @param bookInfo   is the {@link BookInfo} object of the item being bound
+     */
+    private void bindBookInfo(ViewHolder viewHolder, BookInfo bookInfo) {
+        //Retrieving the Context
+        Context context = getContext();
 
         //Updating the Title
         viewHolder.titleTextView.setText(bookInfo.getTitle());
@@ -213,12 +286,31 @@ public class RecyclerListAdapter extends RecyclerView.Adapter<RecyclerListAdapte
 
         //Updating the Categories
         viewHolder.categoriesTextView.setText(bookInfo.getCategories(context.getString(R.string.no_categories_found_default_text)));
+    }
 
+    /**
+     * Method that binds the Ratings of the Book to the item view
+     *
+     * @param viewHolder is the ViewHolder of the item view being bound
+     * @param bookInfo   is the {@link BookInfo} object of the item being bound
+     */
+    private void bindBookRatings(ViewHolder viewHolder, BookInfo bookInfo) {
         //Updating the Book's Ratings
         viewHolder.bookRatingBarView.setRating(bookInfo.getBookRatings());
 
         //Updating the Count of Ratings
         viewHolder.ratingCountTextView.setText(bookInfo.getBookRatingCount());
+    }
+
+    /**
+     * Method that binds the Price of the Book to the item view
+     *
+     * @param viewHolder is the ViewHolder of the item view being bound
+     * @param bookInfo   is the {@link BookInfo} object of the item being bound
+     */
+    private void bindBookPrice(ViewHolder viewHolder, BookInfo bookInfo) {
+        //Retrieving the Context
+        Context context = getContext();
 
         //Updating the Price of the Book : START
         //Ensuring that the view components are visible
@@ -257,8 +349,6 @@ public class RecyclerListAdapter extends RecyclerView.Adapter<RecyclerListAdapte
             viewHolder.listPriceTextView.setText(context.getString(R.string.not_for_sale_price_text));
         }
         //Updating the Price of the Book : END
-
-        //Populating the data onto the Template View using the BookInfo object: END
     }
 
     /**
@@ -273,95 +363,50 @@ public class RecyclerListAdapter extends RecyclerView.Adapter<RecyclerListAdapte
     }
 
     /**
-     * Method that computes the difference between the current and the new list of
-     * {@link BookInfo} objects and sends the result to the adapter to notify the changes
-     * on the item data and reload accordingly
-     *
-     * @param newBookInfos is the new list of {@link BookInfo} objects which is the Dataset of the Adapter
-     */
-    public void swapItemData(@NonNull List<BookInfo> newBookInfos) {
-        //Loading the List of BookInfo objects as Bundle arguments to be passed to a Loader
-        Bundle args = new Bundle();
-        args.putParcelableArrayList(OLD_LIST_STR_KEY, (ArrayList<? extends Parcelable>) mBookInfoList);
-        args.putParcelableArrayList(NEW_LIST_STR_KEY, (ArrayList<? extends Parcelable>) newBookInfos);
-        //Initiating a loader to execute the difference computation in a background thread
-        ((FragmentActivity) getContext()).getSupportLoaderManager().restartLoader(BooksDiffLoader.BOOK_DIFF_LOADER, args, this);
-    }
-
-    /**
-     * Internal Method called by the Loader {@link BooksDiffLoader}
-     * after the difference computation between the current and the new list of
-     * {@link BookInfo} objects to notify the adapter of the changes required
-     * with respect to the data
+     * Returns the stable ID for the item at <code>position</code>, which is
+     * the 64-bit Id generated from the Book Id of the {@link BookInfo} object at the position
      *
-     * @param diffResult   the result obtained after the difference computation between two sets of
-     *                     {@link BookInfo} objects
-     * @param newBookInfos is the new list of {@link BookInfo} objects which is the Dataset of the Adapter
-     */
-    private void doSwapItemData(DiffUtil.DiffResult diffResult, @NonNull List<BookInfo> newBookInfos) {
-        Log.d(LOG_TAG, "doSwapItemData: Started");
-        //Clearing the Adapter's data to load the new list of BookInfo objects
-        mBookInfoList.clear();
-        mBookInfoList.addAll(newBookInfos);
-
-        //Informing the adapter about the changes required, so that it triggers the notify accordingly
-        diffResult.dispatchUpdatesTo(this);
-
-        //Dispatching the Item Data Swap event to the listener
-        mItemDataSwapListener.onItemDataSwapped();
-    }
-
-    /**
-     * Instantiate and return a new Loader for the given ID.
-     *
-     * @param id   The ID whose loader is to be created.
-     * @param args Any arguments supplied by the caller.
-     * @return Return a new Loader instance that is ready to start loading.
+     * @param position Adapter position to query
+     * @return the stable ID of the item at position
      */
     @Override
-    public Loader<DiffUtil.DiffResult> onCreateLoader(int id, Bundle args) {
-        switch (id) {
-            case BooksDiffLoader.BOOK_DIFF_LOADER:
-                //Preparing the Diff Loader and returning the instance
-                List<BookInfo> oldBookInfoList = args.getParcelableArrayList(OLD_LIST_STR_KEY);
-                List<BookInfo> newBookInfoList = args.getParcelableArrayList(NEW_LIST_STR_KEY);
-                return new BooksDiffLoader(getContext(), oldBookInfoList, newBookInfoList);
-            default:
-                return null;
-        }
+    public long getItemId(int position) {
+        return mBookInfoList.get(position).getStableId();
     }
 
     /**
-     * Called when a previously created loader has finished its load.
-     * This is where we notify the Adapter with the result of the difference computation
+     * Returns the view type of the item at <code>position</code> for the purposes
+     * of view recycling. The layout resource of the item is used as its view type,
+     * so that the item views of the List and Grid remain distinct in a shared
+     * {@link android.support.v7.widget.RecyclerView.RecycledViewPool}
      *
-     * @param loader     The Loader that has finished.
-     * @param diffResult The data generated by the Loader.
+     * @param position position to query
+     * @return integer value identifying the type of the view needed to represent the item at
+     * <code>position</code>.
      */
     @Override
-    public void onLoadFinished(@NonNull Loader<DiffUtil.DiffResult> loader, DiffUtil.DiffResult diffResult) {
-        if (diffResult != null) {
-            //When there is a result of the difference computation
-            switch (loader.getId()) {
-                case BooksDiffLoader.BOOK_DIFF_LOADER:
-                    //Update the New Data to the Adapter and notify the changes in the data
-                    doSwapItemData(diffResult, ((BooksDiffLoader) loader).getNewBookInfoList());
-                    break;
-            }
-        }
+    public int getItemViewType(int position) {
+        return mLayoutRes;
     }
 
     /**
-     * Called when a previously created loader is being reset, and thus
-     * making its data unavailable.  The application should at this point
-     * remove any references it has to the Loader's data.
+     * Method invoked on the Main Thread by the {@link BooksResultHolder}
+     * after the difference computation between the current and the new list of
+     * {@link BookInfo} objects, to notify the adapter of the changes required
+     * with respect to the data
      *
-     * @param loader The Loader that is being reset.
+     * @param newBookInfos is the new (unmodifiable) list of {@link BookInfo} objects which is the Dataset of the Adapter
+     * @param diffResult   the result obtained after the difference computation between two sets of
+     *                     {@link BookInfo} objects
      */
     @Override
-    public void onLoaderReset(@NonNull Loader<DiffUtil.DiffResult> loader) {
-        //No-op, just invalidating the loader
-        loader = null;
+    public void onBooksListDiffed(@NonNull List<BookInfo> newBookInfos, @NonNull BooksDiffResult diffResult) {
+        Log.d(LOG_TAG, "onBooksListDiffed: Started");
+        //Swapping the Adapter's data with the new list of BookInfo objects
+        mBookInfoList = newBookInfos;
+
+        //Informing the adapter about the changes required, so that it triggers the notify accordingly
+        diffResult.dispatchUpdatesTo(this);
     }
 
     /**
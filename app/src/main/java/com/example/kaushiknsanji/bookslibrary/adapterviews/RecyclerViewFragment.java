@@ -17,6 +17,7 @@
 package com.example.kaushiknsanji.bookslibrary.adapterviews;
 
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
@@ -26,10 +27,10 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
 import android.support.v4.content.ContextCompat;
+import android.support.v7.preference.PreferenceManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -38,16 +39,17 @@ import com.example.kaushiknsanji.bookslibrary.BookDetailActivity;
 import com.example.kaushiknsanji.bookslibrary.R;
 import com.example.kaushiknsanji.bookslibrary.adapters.RecyclerGridAdapter;
 import com.example.kaushiknsanji.bookslibrary.adapters.RecyclerListAdapter;
+import com.example.kaushiknsanji.bookslibrary.cache.BooksResultHolder;
+import com.example.kaushiknsanji.bookslibrary.metrics.ScrollPerformanceMonitor;
 import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
 import com.example.kaushiknsanji.bookslibrary.observers.BaseRecyclerViewScrollListener;
 import com.example.kaushiknsanji.bookslibrary.observers.OnAdapterItemClickListener;
-import com.example.kaushiknsanji.bookslibrary.observers.OnAdapterItemDataSwapListener;
+import com.example.kaushiknsanji.bookslibrary.observers.OnBooksListDiffListener;
 import com.example.kaushiknsanji.bookslibrary.observers.OnPagerFragmentVerticalScrollListener;
+import com.example.kaushiknsanji.bookslibrary.workers.ItemViewWarmer;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Fragment that inflates the layout 'R.layout.recycler_layout_view'
@@ -70,8 +72,12 @@ public class RecyclerViewFragment extends Fragment
     private static final String LAYOUT_MODE_INT_KEY = "layoutMode.Value";
     //Stores the reference to the RecyclerView inflated
     private RecyclerView mRecyclerView;
+    //Stores the layout resource of the item view used by the Adapter
+    private int mItemLayoutRes;
     //Stores the reference to the Listener OnPagerFragmentVerticalScrollListener
     private OnPagerFragmentVerticalScrollListener mListener;
+    //Monitors the frames drawn while the RecyclerView is scrolling
+    private ScrollPerformanceMonitor mScrollPerformanceMonitor;
 
     /**
      * Static constructor of the Fragment {@link RecyclerViewFragment}
@@ -132,6 +138,14 @@ public class RecyclerViewFragment extends Fragment
         //Retrieving the RecyclerView component
         mRecyclerView = rootView.findViewById(R.id.recycler_layout_id);
 
+        //Item changes do not affect the size of the RecyclerView which fills its parent
+        mRecyclerView.setHasFixedSize(true);
+
+        //Using the RecyclerView Pool shared by the Activity, if provided
+        if (getActivity() instanceof RecycledViewPoolProvider) {
+            mRecyclerView.setRecycledViewPool(((RecycledViewPoolProvider) getActivity()).getRecycledViewPool());
+        }
+
         if (getArguments() != null) {
             //Retrieving the Layout mode passed
             int layoutMode = getArguments().getInt(LAYOUT_MODE_INT_KEY);
@@ -149,10 +163,42 @@ public class RecyclerViewFragment extends Fragment
         //Registering the scroll listener on RecyclerView
         mRecyclerView.addOnScrollListener(new RecyclerViewScrollListener());
 
+        //Monitoring the scroll performance of the RecyclerView
+        mScrollPerformanceMonitor = ScrollPerformanceMonitor.attach(mRecyclerView,
+                requireActivity().getWindow(), mItemLayoutRes);
+
+        //Tuning the RecyclerView for the current 'maxResults' (Results per page) setting value
+        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(requireContext());
+        tuneForPageSize(preferences.getInt(getString(R.string.pref_results_per_page_key),
+                getResources().getInteger(R.integer.pref_results_per_page_default_value)));
+
         //Returning the inflated layout
         return rootView;
     }
 
+    /**
+     * Method that tunes the cache of off-screen item views retained by the RecyclerView,
+     * based on the number of items shown per page
+     *
+     * @param pageSize is the Integer value of the setting 'maxResults' which is the Max Results per page
+     */
+    public void tuneForPageSize(int pageSize) {
+        //Sizing the cache of off-screen item views to a fraction of the page size,
+        //so that the items scrolled back into view are only reattached and not rebound
+        int itemViewCacheSize = Math.max(pageSize / getResources().getInteger(R.integer.recycler_item_view_cache_page_divisor), 2);
+        mRecyclerView.setItemViewCacheSize(itemViewCacheSize);
+    }
+
+    /**
+     * Method that inflates the given number of item views in background, for the first render of the
+     * Search results to only bind the data
+     *
+     * @param count is the number of item views to be inflated
+     */
+    public void warmUpItemViews(int count) {
+        ItemViewWarmer.warmUp(mRecyclerView, mItemLayoutRes, count);
+    }
+
     /**
      * Method that selects the Layout Manager, Adapter
      * and Decoration for Grid View Layout Mode
@@ -164,11 +210,11 @@ public class RecyclerViewFragment extends Fragment
         //Setting the LayoutManager on the RecyclerView
         mRecyclerView.setLayoutManager(gridLayoutManager);
 
-        //Initializing an empty ArrayList of BookInfo Objects as the dataset for the Adapter
-        ArrayList<BookInfo> bookInfoList = new ArrayList<>();
+        //Saving the layout resource of the item view
+        mItemLayoutRes = R.layout.books_grid_item;
 
         //Initializing the Adapter for the Grid view
-        RecyclerGridAdapter recyclerGridAdapter = new RecyclerGridAdapter(requireContext(), R.layout.books_grid_item, bookInfoList);
+        RecyclerGridAdapter recyclerGridAdapter = new RecyclerGridAdapter(requireContext(), mItemLayoutRes);
 
         //Registering the OnAdapterItemClickListener on the Adapter
         recyclerGridAdapter.setOnAdapterItemClickListener(this);
@@ -176,6 +222,9 @@ public class RecyclerViewFragment extends Fragment
         //Setting the Adapter on the RecyclerView
         mRecyclerView.setAdapter(recyclerGridAdapter);
 
+        //Subscribing the Adapter to the shared Search results
+        BooksResultHolder.subscribe(recyclerGridAdapter);
+
         //Setting the Book Shelf Item Decoration for Grid View
         BookShelfItemDecoration bookShelfItemDecoration = new BookShelfItemDecoration(
                 ContextCompat.getDrawable(requireContext(), R.drawable.book_shelf_no_base),
@@ -195,11 +244,11 @@ public class RecyclerViewFragment extends Fragment
         //Setting the LayoutManager on the RecyclerView
         mRecyclerView.setLayoutManager(linearLayoutManager);
 
-        //Initializing an empty ArrayList of BookInfo Objects as the dataset for the Adapter
-        ArrayList<BookInfo> bookInfoList = new ArrayList<>();
+        //Saving the layout resource of the item view
+        mItemLayoutRes = R.layout.books_list_item;
 
         //Initializing the Adapter for the List view
-        RecyclerListAdapter recyclerListAdapter = new RecyclerListAdapter(requireContext(), R.layout.books_list_item, bookInfoList);
+        RecyclerListAdapter recyclerListAdapter = new RecyclerListAdapter(requireContext(), mItemLayoutRes);
 
         //Registering the OnAdapterItemClickListener on the Adapter
         recyclerListAdapter.setOnAdapterItemClickListener(this);
@@ -207,6 +256,9 @@ public class RecyclerViewFragment extends Fragment
         //Setting the Adapter on the RecyclerView
         mRecyclerView.setAdapter(recyclerListAdapter);
 
+        //Subscribing the Adapter to the shared Search results
+        BooksResultHolder.subscribe(recyclerListAdapter);
+
         //Setting the Book Shelf Item Decoration for List View
         BookShelfItemDecoration bookShelfItemDecoration = new BookShelfItemDecoration(
                 ContextCompat.getDrawable(requireContext(), R.drawable.book_shelf_no_base),
@@ -283,78 +335,24 @@ public class RecyclerViewFragment extends Fragment
     }
 
     /**
-     * Method exposed for the {@link com.example.kaushiknsanji.bookslibrary.BookSearchActivity}
-     * to register the {@link OnAdapterItemDataSwapListener} on the Fragment position specified
-     *
-     * @param itemDataSwapListener is the instance of the Activity implementing the {@link OnAdapterItemDataSwapListener}
-     * @param position             is the Fragment position on which this Listener is to be Registered
+     * Called when the view previously created by {@link #onCreateView} has
+     * been detached from the fragment.
      */
-    public void registerItemDataSwapListener(@Nullable OnAdapterItemDataSwapListener itemDataSwapListener, int position) {
-        //Retrieving the RecyclerView's Adapter
-        RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
-        //Registering the listener on the corresponding adapter based on the Fragment position passed
-        if (position == LIST_MODE) {
-            //When the Fragment position is of the LIST_MODE Fragment
-
-            RecyclerListAdapter listAdapter = (RecyclerListAdapter) adapter;
-            listAdapter.setOnAdapterItemDataSwapListener(itemDataSwapListener);
-        } else if (position == GRID_MODE) {
-            //When the Fragment position is of the GRID_MODE Fragment
-
-            RecyclerGridAdapter gridAdapter = (RecyclerGridAdapter) adapter;
-            gridAdapter.setOnAdapterItemDataSwapListener(itemDataSwapListener);
+    @Override
+    public void onDestroyView() {
+        //Stopping the scroll performance monitor
+        if (mScrollPerformanceMonitor != null) {
+            mScrollPerformanceMonitor.detach();
+            mScrollPerformanceMonitor = null;
         }
-    }
 
-    /**
-     * Method exposed for the {@link com.example.kaushiknsanji.bookslibrary.BookSearchActivity}
-     * to clear the {@link OnAdapterItemDataSwapListener} previously registered for the Fragment position specified
-     *
-     * @param position is the Fragment position on which this Listener is to be Unregistered
-     */
-    public void clearItemDataSwapListener(int position) {
-        //Propagating the call to #registerItemDataSwapListener with null to unregister
-        registerItemDataSwapListener(null, position);
-    }
-
-    /**
-     * Method to load the data into the Adapter
-     *
-     * @param bookInfos List of {@link BookInfo} objects to be loaded into the Adapter
-     */
-    public void loadNewData(List<BookInfo> bookInfos) {
-        Log.d(LOG_TAG, "loadNewData: Started");
-        //Calling the Adapter's method to Load the new data
-        swapAdapterData(bookInfos);
-    }
-
-    /**
-     * Method that swaps the data in the Adapter
-     *
-     * @param bookInfos List of {@link BookInfo} objects to be loaded into the Adapter
-     */
-    private void swapAdapterData(@NonNull List<BookInfo> bookInfos) {
+        //Unsubscribing the Adapter from the shared Search results
         RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
-        //Calling the respective method from the Adapter to load & display the new data accordingly
-        if (adapter instanceof RecyclerListAdapter) {
-            Log.d(LOG_TAG, "swapAdapterData: Started for List");
-            RecyclerListAdapter listAdapter = (RecyclerListAdapter) adapter;
-            listAdapter.swapItemData(bookInfos);
-        } else if (adapter instanceof RecyclerGridAdapter) {
-            Log.d(LOG_TAG, "swapAdapterData: Started for Grid");
-            RecyclerGridAdapter gridAdapter = (RecyclerGridAdapter) adapter;
-            gridAdapter.swapItemData(bookInfos);
+        if (adapter instanceof OnBooksListDiffListener) {
+            BooksResultHolder.unsubscribe((OnBooksListDiffListener) adapter);
         }
-    }
 
-    /**
-     * Method to clear the data from the Adapter
-     */
-    public void clearData() {
-        //Creating an Empty List of BookInfo objects to clear the content in the Adapter
-        List<BookInfo> bookInfos = new ArrayList<>();
-        //Calling the Adapter's method to clear the data
-        swapAdapterData(bookInfos);
+        super.onDestroyView();
     }
 
     /**
@@ -371,6 +369,20 @@ public class RecyclerViewFragment extends Fragment
         startActivity(itemIntent);
     }
 
+    /**
+     * Interface to be implemented by the Activity hosting this Fragment to share
+     * a single {@link android.support.v7.widget.RecyclerView.RecycledViewPool}
+     * between the RecyclerViews of the List and Grid views
+     */
+    public interface RecycledViewPoolProvider {
+        /**
+         * Method that returns the RecycledViewPool to be shared
+         *
+         * @return The shared instance of {@link android.support.v7.widget.RecyclerView.RecycledViewPool}
+         */
+        RecyclerView.RecycledViewPool getRecycledViewPool();
+    }
+
     //Defining the LayoutMode IntDef annotation with Retention only at SOURCE
     @Retention(RetentionPolicy.SOURCE)
     @IntDef({LIST_MODE, GRID_MODE})
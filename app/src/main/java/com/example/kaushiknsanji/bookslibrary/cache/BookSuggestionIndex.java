@@ -0,0 +1,596 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.cache;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.example.kaushiknsanji.bookslibrary.data.OfflineBookStore;
+import com.example.kaushiknsanji.bookslibrary.metrics.SampleRecorder;
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.workers.SearchPipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Application level class that indexes the Titles and Authors of the Books seen, for suggesting
+ * the completions of the Search Query being typed, without the network.
+ * <p>
+ * The index is a sorted array of Keys, one for each start of a word in the Title or Author,
+ * which is looked up by binary search for the Keys starting with the text typed. The pages of
+ * Books loaded are merged into a new array, which then replaces the one being read, so that
+ * the lookups are never blocked by the updates. The weights of the Suggestions are published
+ * within the same immutable array, so that the lookups never read a weight being updated.
+ * </p>
+ * <p>
+ * The index is bounded like the local Book store: the Titles and Authors not seen within
+ * the last {@link OfflineBookStore#MAX_STORED_BOOKS} Books added are evicted.
+ * </p>
+ *
+ * @author Kaushik N Sanji
+ */
+public class BookSuggestionIndex {
+
+    //Constants for the kind of the Suggestion
+    public static final int KIND_TITLE = 0;
+    public static final int KIND_AUTHOR = 1;
+
+    //Constant used for logs
+    private static final String LOG_TAG = BookSuggestionIndex.class.getSimpleName();
+
+    //Constant for the number of words of the Title or Author, from whose start the Keys are indexed
+    private static final int MAX_INDEXED_WORDS = 6;
+    //Constant for the number of most recent Books whose Titles and Authors are retained, as in the local Book store
+    private static final int MAX_INDEXED_BOOKS = OfflineBookStore.MAX_STORED_BOOKS;
+    //Constant for the maximum number of Keys scanned for a lookup, which bounds the time of a lookup
+    private static final int MAX_KEYS_SCANNED = 256;
+    //Constant for the number of lookup times retained for the report
+    private static final int SAMPLE_CAPACITY = 256;
+
+    //Constant for an empty index
+    private static final IndexSnapshot EMPTY_SNAPSHOT = new IndexSnapshot(new String[0], new Suggestion[0], new int[0], new int[0]);
+
+    //The current index being read, which is replaced on every update
+    private static volatile IndexSnapshot mSnapshot = EMPTY_SNAPSHOT;
+
+    //Suggestions indexed along with their weights and the time last seen,
+    //keyed by their kind and normalized text; guarded by the class lock
+    private static final Map<String, SuggestionEntry> mSuggestionMap = new HashMap<>();
+
+    //Number of Books added so far, which serves as the clock for evicting the Suggestions; guarded by the class lock
+    private static long mBooksAddedCount;
+
+    //Boolean flag that saves whether the index was already seeded from the local Book store
+    private static final AtomicBoolean mIsSeeded = new AtomicBoolean(false);
+
+    //Records the time taken by the lookups, in microseconds
+    private static final SampleRecorder mLookupMicros = new SampleRecorder(SAMPLE_CAPACITY);
+
+    /**
+     * Method that seeds the index in the background with the Titles and Authors of the Books
+     * saved in the local Book store, once per process
+     *
+     * @param context is the Context of the Activity/Fragment/Provider or App
+     */
+    public static void seedFromStore(@NonNull final Context context) {
+        if (!mIsSeeded.compareAndSet(false, true)) {
+            //Returning when already seeded
+            return;
+        }
+
+        //Reading the local Book store on the I/O stage
+        SearchPipeline.getIoExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                List<String> titles = new ArrayList<>();
+                List<String> authors = new ArrayList<>();
+                OfflineBookStore.readTitlesAndAuthors(context, titles, authors);
+                addTexts(titles, authors);
+                Log.d(LOG_TAG, "seedFromStore: Titles " + titles.size() + ", Authors " + authors.size());
+            }
+        });
+    }
+
+    /**
+     * Method that adds the Titles and Authors of the page of Books loaded to the index.
+     * To be called on a worker thread.
+     *
+     * @param bookInfos is the List of {@link BookInfo} objects loaded
+     */
+    public static void addBooks(@Nullable List<BookInfo> bookInfos) {
+        if (bookInfos == null || bookInfos.isEmpty()) {
+            return;
+        }
+
+        //Collecting the Titles and Authors of the Books
+        List<String> titles = new ArrayList<>(bookInfos.size());
+        List<String> authors = new ArrayList<>();
+        for (BookInfo bookInfo : bookInfos) {
+            titles.add(bookInfo.getTitle());
+            String[] authorNames = bookInfo.getAuthorNames();
+            if (authorNames != null) {
+                Collections.addAll(authors, authorNames);
+            }
+        }
+
+        //Merging them into the index
+        addTexts(titles, authors);
+    }
+
+    /**
+     * Method that merges the Titles and Authors into the index. The texts already indexed
+     * are only weighed up, while the new ones are indexed. The texts not seen within the last
+     * {@link #MAX_INDEXED_BOOKS} Books are evicted. The current Keys still indexed and the
+     * sorted new Keys are then merged into a new array, along with their weights,
+     * which replaces the current index.
+     *
+     * @param titles  is the List of Titles to be added, one for each Book
+     * @param authors is the List of Authors to be added
+     */
+    @VisibleForTesting
+    static synchronized void addTexts(List<String> titles, List<String> authors) {
+        //Advancing the clock by the number of Books added
+        mBooksAddedCount += titles.size();
+
+        //Collecting the Keys of the new Suggestions: START
+        List<IndexKey> newKeys = new ArrayList<>();
+        boolean isWeighedUp = collectNewKeys(titles, KIND_TITLE, newKeys);
+        isWeighedUp |= collectNewKeys(authors, KIND_AUTHOR, newKeys);
+        //Collecting the Keys of the new Suggestions: END
+
+        //Evicting the Suggestions not seen within the last Books
+        boolean isEvicted = evictStaleSuggestions();
+
+        if (newKeys.isEmpty() && !isWeighedUp && !isEvicted) {
+            //Returning when the index is unchanged
+            return;
+        }
+
+        //Sorting the new Keys
+        Collections.sort(newKeys, new Comparator<IndexKey>() {
+            @Override
+            public int compare(IndexKey key1, IndexKey key2) {
+                return key1.mKey.compareTo(key2.mKey);
+            }
+        });
+
+        //Merging the new Keys with the current sorted Keys still indexed: START
+        IndexSnapshot current = mSnapshot;
+        int currentSize = current.mKeys.length;
+        int newSize = newKeys.size();
+        String[] mergedKeys = new String[currentSize + newSize];
+        Suggestion[] mergedSuggestions = new Suggestion[currentSize + newSize];
+        int[] mergedWordIndices = new int[currentSize + newSize];
+        int[] mergedWeights = new int[currentSize + newSize];
+        int mergedCount = 0;
+        int currentIndex = 0;
+        int newIndex = 0;
+        while (currentIndex < currentSize || newIndex < newSize) {
+            if (newIndex >= newSize
+                    || (currentIndex < currentSize && current.mKeys[currentIndex].compareTo(newKeys.get(newIndex).mKey) <= 0)) {
+                //Taking from the current Keys, unless its Suggestion was evicted
+                Suggestion suggestion = current.mSuggestions[currentIndex];
+                SuggestionEntry suggestionEntry = mSuggestionMap.get(suggestion.mMapKey);
+                if (suggestionEntry != null && suggestionEntry.mSuggestion == suggestion) {
+                    mergedKeys[mergedCount] = current.mKeys[currentIndex];
+                    mergedSuggestions[mergedCount] = suggestion;
+                    mergedWordIndices[mergedCount] = current.mWordIndices[currentIndex];
+                    mergedWeights[mergedCount] = suggestionEntry.mWeight;
+                    mergedCount++;
+                }
+                currentIndex++;
+            } else {
+                //Taking from the new Keys
+                IndexKey indexKey = newKeys.get(newIndex);
+                mergedKeys[mergedCount] = indexKey.mKey;
+                mergedSuggestions[mergedCount] = indexKey.mSuggestion;
+                mergedWordIndices[mergedCount] = indexKey.mWordIndex;
+                mergedWeights[mergedCount] = mSuggestionMap.get(indexKey.mSuggestion.mMapKey).mWeight;
+                mergedCount++;
+                newIndex++;
+            }
+        }
+        //Merging the new Keys with the current sorted Keys still indexed: END
+
+        //Publishing the merged index for the lookups
+        mSnapshot = new IndexSnapshot(
+                Arrays.copyOf(mergedKeys, mergedCount),
+                Arrays.copyOf(mergedSuggestions, mergedCount),
+                Arrays.copyOf(mergedWordIndices, mergedCount),
+                Arrays.copyOf(mergedWeights, mergedCount)
+        );
+    }
+
+    /**
+     * Method that weighs up the texts already indexed, and collects the Keys of the texts
+     * not indexed yet, one for each start of their words. The texts are marked as seen
+     * at the current count of the Books added.
+     *
+     * @param texts   is the List of Titles or Authors
+     * @param kind    is the kind of the texts, either {@link #KIND_TITLE} or {@link #KIND_AUTHOR}
+     * @param newKeys is the List to which the Keys of the new texts are added
+     * @return <b>TRUE</b> when any of the texts already indexed was weighed up; <b>FALSE</b> otherwise
+     */
+    private static boolean collectNewKeys(List<String> texts, int kind, List<IndexKey> newKeys) {
+        boolean isWeighedUp = false;
+        for (String text : texts) {
+            String normalizedText = normalize(text);
+            if (normalizedText.length() == 0) {
+                continue;
+            }
+
+            //Weighing up the text when already indexed
+            String mapKey = kind + normalizedText;
+            SuggestionEntry suggestionEntry = mSuggestionMap.get(mapKey);
+            if (suggestionEntry != null) {
+                suggestionEntry.mWeight++;
+                suggestionEntry.mLastSeenCount = mBooksAddedCount;
+                isWeighedUp = true;
+                continue;
+            }
+
+            //Creating the Suggestion for the new text
+            Suggestion suggestion = new Suggestion(text.trim(), kind, mapKey);
+            mSuggestionMap.put(mapKey, new SuggestionEntry(suggestion, mBooksAddedCount));
+
+            //Adding a Key for the start of each word, up to the limit
+            int wordIndex = 0;
+            int wordStart = 0;
+            while (wordStart >= 0 && wordIndex < MAX_INDEXED_WORDS) {
+                newKeys.add(new IndexKey(normalizedText.substring(wordStart), suggestion, wordIndex));
+                int spaceIndex = normalizedText.indexOf(' ', wordStart);
+                wordStart = (spaceIndex == -1) ? -1 : spaceIndex + 1;
+                wordIndex++;
+            }
+        }
+        return isWeighedUp;
+    }
+
+    /**
+     * Method that evicts the Suggestions not seen within the last {@link #MAX_INDEXED_BOOKS} Books added.
+     * Their Keys are dropped on the next merge of the index.
+     *
+     * @return <b>TRUE</b> when any of the Suggestions was evicted; <b>FALSE</b> otherwise
+     */
+    private static boolean evictStaleSuggestions() {
+        boolean isEvicted = false;
+        long oldestRetainedCount = mBooksAddedCount - MAX_INDEXED_BOOKS;
+        Iterator<SuggestionEntry> entryIterator = mSuggestionMap.values().iterator();
+        while (entryIterator.hasNext()) {
+            if (entryIterator.next().mLastSeenCount <= oldestRetainedCount) {
+                entryIterator.remove();
+                isEvicted = true;
+            }
+        }
+        return isEvicted;
+    }
+
+    /**
+     * Method that clears the index, for the tests to start from an empty index
+     */
+    @VisibleForTesting
+    static synchronized void clearIndex() {
+        mSuggestionMap.clear();
+        mBooksAddedCount = 0;
+        mSnapshot = EMPTY_SNAPSHOT;
+    }
+
+    /**
+     * Method that looks up the Suggestions for the text typed. The Suggestions are ranked by
+     * the ones starting with the text first, then by the number of times they were seen,
+     * and then the shorter ones first.
+     *
+     * @param typedText  is the text typed in the SearchView
+     * @param maxResults is the maximum number of Suggestions to be returned
+     * @return List of {@link Suggestion} ranked, which is empty when nothing matched
+     */
+    @NonNull
+    public static List<Suggestion> lookup(@Nullable String typedText, int maxResults) {
+        long startNanos = System.nanoTime();
+
+        //Initializing the List of Suggestions ranked
+        List<Suggestion> rankedSuggestions = new ArrayList<>(maxResults);
+        String prefix = normalize(typedText);
+        if (prefix.length() == 0 || maxResults <= 0) {
+            return rankedSuggestions;
+        }
+
+        //Reading the current index once, as it may be replaced meanwhile
+        IndexSnapshot snapshot = mSnapshot;
+
+        //Finding the first Key not less than the prefix
+        int low = 0;
+        int high = snapshot.mKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot.mKeys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        //Scanning the Keys starting with the prefix, keeping the best ranked Suggestions: START
+        List<Integer> rankedWordIndices = new ArrayList<>(maxResults);
+        List<Integer> rankedWeights = new ArrayList<>(maxResults);
+        int lastIndex = Math.min(snapshot.mKeys.length, low + MAX_KEYS_SCANNED);
+        for (int index = low; index < lastIndex && snapshot.mKeys[index].startsWith(prefix); index++) {
+            Suggestion suggestion = snapshot.mSuggestions[index];
+            int wordIndex = snapshot.mWordIndices[index];
+            int weight = snapshot.mWeights[index];
+
+            //Retaining the best ranked match of the Suggestion when matched by more than one Key
+            int existingPosition = rankedSuggestions.indexOf(suggestion);
+            if (existingPosition != -1) {
+                if (wordIndex >= rankedWordIndices.get(existingPosition)) {
+                    continue;
+                }
+                rankedSuggestions.remove(existingPosition);
+                rankedWordIndices.remove(existingPosition);
+                rankedWeights.remove(existingPosition);
+            }
+
+            //Finding the position of the Suggestion by its rank
+            int position = rankedSuggestions.size();
+            while (position > 0 && isRankedHigher(suggestion, wordIndex, weight,
+                    rankedSuggestions.get(position - 1), rankedWordIndices.get(position - 1),
+                    rankedWeights.get(position - 1))) {
+                position--;
+            }
+
+            //Inserting the Suggestion when within the maximum number of results
+            if (position < maxResults) {
+                rankedSuggestions.add(position, suggestion);
+                rankedWordIndices.add(position, wordIndex);
+                rankedWeights.add(position, weight);
+                if (rankedSuggestions.size() > maxResults) {
+                    rankedSuggestions.remove(maxResults);
+                    rankedWordIndices.remove(maxResults);
+                    rankedWeights.remove(maxResults);
+                }
+            }
+        }
+        //Scanning the Keys starting with the prefix, keeping the best ranked Suggestions: END
+
+        //Recording the time taken by the lookup
+        mLookupMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+
+        //Returning the Suggestions ranked
+        return rankedSuggestions;
+    }
+
+    /**
+     * Method that compares the rank of two Suggestions matched
+     *
+     * @param suggestion1 is the first {@link Suggestion}
+     * @param wordIndex1  is the index of the word of the first Suggestion, that matched
+     * @param weight1     is the number of times the first Suggestion was seen
+     * @param suggestion2 is the second {@link Suggestion}
+     * @param wordIndex2  is the index of the word of the second Suggestion, that matched
+     * @param weight2     is the number of times the second Suggestion was seen
+     * @return <b>TRUE</b> when the first Suggestion is ranked higher than the second; <b>FALSE</b> otherwise
+     */
+    private static boolean isRankedHigher(Suggestion suggestion1, int wordIndex1, int weight1,
+                                          Suggestion suggestion2, int wordIndex2, int weight2) {
+        //Ranking the ones starting with the text typed first
+        if ((wordIndex1 == 0) != (wordIndex2 == 0)) {
+            return wordIndex1 == 0;
+        }
+        //Ranking the ones seen more often first
+        if (weight1 != weight2) {
+            return weight1 > weight2;
+        }
+        //Ranking the shorter ones first
+        return suggestion1.mText.length() < suggestion2.mText.length();
+    }
+
+    /**
+     * Method that normalizes the text for indexing and lookup, by folding it to lower case
+     * and collapsing the characters other than letters and digits into single spaces
+     *
+     * @param text is the text to be normalized
+     * @return The normalized text; or an empty String when there is nothing to index
+     */
+    @NonNull
+    static String normalize(@Nullable String text) {
+        if (TextUtils.isEmpty(text)) {
+            return "";
+        }
+
+        String lowerCaseText = text.toLowerCase(Locale.getDefault());
+        StringBuilder normalizedBuilder = new StringBuilder(lowerCaseText.length());
+        boolean isPendingSpace = false;
+        int length = lowerCaseText.length();
+        for (int index = 0; index < length; index++) {
+            char character = lowerCaseText.charAt(index);
+            if (Character.isLetterOrDigit(character)) {
+                if (isPendingSpace && normalizedBuilder.length() > 0) {
+                    normalizedBuilder.append(' ');
+                }
+                normalizedBuilder.append(character);
+                isPendingSpace = false;
+            } else {
+                isPendingSpace = true;
+            }
+        }
+
+        //Retaining the trailing space typed, so that the next word is not matched as a prefix of the last
+        if (isPendingSpace && normalizedBuilder.length() > 0) {
+            normalizedBuilder.append(' ');
+        }
+        return normalizedBuilder.toString();
+    }
+
+    /**
+     * Method that summarizes the size of the index and the time taken by the lookups
+     *
+     * @return String containing the summary, one line per measurement
+     */
+    @NonNull
+    public static String dump() {
+        return "keys: " + mSnapshot.mKeys.length + "\n"
+                + mLookupMicros.summarizeMicros("lookup") + "\n";
+    }
+
+    /**
+     * Method that discards the lookup times recorded
+     */
+    public static void reset() {
+        mLookupMicros.clear();
+    }
+
+    /**
+     * Class that holds a Suggestion of a Title or an Author
+     */
+    public static class Suggestion {
+
+        //The Title or Author as seen
+        final String mText;
+        //The kind of the Suggestion
+        final int mKind;
+        //The kind and normalized text of the Suggestion, under which it is indexed
+        final String mMapKey;
+
+        /**
+         * Constructor of {@link Suggestion}
+         *
+         * @param text   is the Title or Author as seen
+         * @param kind   is the kind of the Suggestion, either {@link #KIND_TITLE} or {@link #KIND_AUTHOR}
+         * @param mapKey is the kind and normalized text of the Suggestion, under which it is indexed
+         */
+        Suggestion(String text, int kind, String mapKey) {
+            mText = text;
+            mKind = kind;
+            mMapKey = mapKey;
+        }
+
+        /**
+         * Method that returns the Title or Author suggested
+         *
+         * @return String of the Title or Author
+         */
+        public String getText() {
+            return mText;
+        }
+
+        /**
+         * Method that returns the kind of the Suggestion
+         *
+         * @return Either {@link #KIND_TITLE} or {@link #KIND_AUTHOR}
+         */
+        public int getKind() {
+            return mKind;
+        }
+    }
+
+    /**
+     * Class that holds the weight of an indexed Suggestion along with the time it was last seen,
+     * which are updated under the class lock and never read by the lookups
+     */
+    private static class SuggestionEntry {
+
+        //The Suggestion indexed
+        final Suggestion mSuggestion;
+        //The number of times the Title or Author was seen
+        int mWeight = 1;
+        //The count of the Books added when the Title or Author was last seen
+        long mLastSeenCount;
+
+        /**
+         * Constructor of {@link SuggestionEntry}
+         *
+         * @param suggestion    is the {@link Suggestion} indexed
+         * @param lastSeenCount is the count of the Books added when the Suggestion was seen
+         */
+        SuggestionEntry(Suggestion suggestion, long lastSeenCount) {
+            mSuggestion = suggestion;
+            mLastSeenCount = lastSeenCount;
+        }
+    }
+
+    /**
+     * Class that holds a Key to be indexed for a Suggestion
+     */
+    private static class IndexKey {
+
+        //The normalized text from the start of a word
+        final String mKey;
+        //The Suggestion of the Key
+        final Suggestion mSuggestion;
+        //The index of the word from which the Key starts
+        final int mWordIndex;
+
+        /**
+         * Constructor of {@link IndexKey}
+         *
+         * @param key        is the normalized text from the start of a word
+         * @param suggestion is the {@link Suggestion} of the Key
+         * @param wordIndex  is the index of the word from which the Key starts
+         */
+        IndexKey(String key, Suggestion suggestion, int wordIndex) {
+            mKey = key;
+            mSuggestion = suggestion;
+            mWordIndex = wordIndex;
+        }
+    }
+
+    /**
+     * Class that holds an immutable sorted array of Keys along with their Suggestions
+     * and the weights of the Suggestions, read by the lookups
+     */
+    private static class IndexSnapshot {
+
+        //Sorted array of Keys
+        final String[] mKeys;
+        //Suggestions of the Keys at the same index
+        final Suggestion[] mSuggestions;
+        //Indices of the words from which the Keys start, at the same index
+        final int[] mWordIndices;
+        //Weights of the Suggestions of the Keys at the same index
+        final int[] mWeights;
+
+        /**
+         * Constructor of {@link IndexSnapshot}
+         *
+         * @param keys        is the sorted array of Keys
+         * @param suggestions is the array of Suggestions of the Keys
+         * @param wordIndices is the array of indices of the words from which the Keys start
+         * @param weights     is the array of weights of the Suggestions of the Keys
+         */
+        IndexSnapshot(String[] keys, Suggestion[] suggestions, int[] wordIndices, int[] weights) {
+            mKeys = keys;
+            mSuggestions = suggestions;
+            mWordIndices = wordIndices;
+            mWeights = weights;
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.cache;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.example.kaushiknsanji.bookslibrary.metrics.SearchTracer;
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.observers.OnAdapterItemDataSwapListener;
+import com.example.kaushiknsanji.bookslibrary.observers.OnBooksListDiffListener;
+import com.example.kaushiknsanji.bookslibrary.utils.BooksDiffResult;
+import com.example.kaushiknsanji.bookslibrary.utils.BooksDiffUtility;
+import com.example.kaushiknsanji.bookslibrary.workers.BooksListDiffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Application level class that holds the single source of the Search results
+ * shown by the RecyclerView's Adapters of both the List and Grid views.
+ * <p>
+ * The difference computation for every new result is done only once by a {@link BooksListDiffer},
+ * and its result is replayed to all the subscribed Adapters. Hence switching between the views
+ * does not require any reload or difference computation.
+ *
+ * @author Kaushik N Sanji
+ */
+public class BooksResultHolder {
+
+    //Constant used for logs
+    private static final String LOG_TAG = BooksResultHolder.class.getSimpleName();
+
+    //List of the Adapters subscribed to the results
+    private static final List<OnBooksListDiffListener> mSubscribers = new ArrayList<>();
+
+    //Differ that computes the difference for every new result and latches the current result
+    private static final BooksListDiffer mBooksListDiffer = new BooksListDiffer(new OnBooksListDiffListener() {
+        /**
+         * Method invoked on the Main Thread when the new list of {@link BookInfo} objects
+         * has been diffed and latched as the current list
+         *
+         * @param newBookInfos is the new (unmodifiable) list of {@link BookInfo} objects
+         * @param diffResult   is the result of the difference computation to be dispatched to the Adapter
+         */
+        @Override
+        public void onBooksListDiffed(@NonNull List<BookInfo> newBookInfos, @NonNull BooksDiffResult diffResult) {
+            //Retrieving the Search ID of the Search being traced
+            long searchId = SearchTracer.getActiveSearchId();
+
+            //Replaying the same result to all the subscribed Adapters
+            //(Iterating over a copy, as the subscribers may change during dispatch)
+            long dispatchStartNanos = SearchTracer.beginStage(SearchTracer.STAGE_DISPATCH);
+            for (OnBooksListDiffListener subscriber : new ArrayList<>(mSubscribers)) {
+                subscriber.onBooksListDiffed(newBookInfos, diffResult);
+            }
+            SearchTracer.endStage(searchId, SearchTracer.STAGE_DISPATCH, dispatchStartNanos);
+
+            //Dispatching the Item Data Swap event to the listener once all the Adapters are updated
+            if (mItemDataSwapListener != null) {
+                long swapStartNanos = SearchTracer.beginStage(SearchTracer.STAGE_ITEM_DATA_SWAPPED);
+                mItemDataSwapListener.onItemDataSwapped();
+                SearchTracer.endStage(searchId, SearchTracer.STAGE_ITEM_DATA_SWAPPED, swapStartNanos);
+            }
+        }
+    }, Collections.<BookInfo>emptyList());
+
+    //Stores the reference to the Listener OnAdapterItemDataSwapListener
+    private static OnAdapterItemDataSwapListener mItemDataSwapListener;
+
+    //Stores the reference to the last List of BookInfo objects submitted
+    private static List<BookInfo> mLastSubmittedList;
+
+    /**
+     * Method that subscribes the Adapter to the results. The Adapter is immediately
+     * loaded with the current result if any.
+     *
+     * @param subscriber is the Adapter implementing the {@link OnBooksListDiffListener}
+     */
+    @MainThread
+    public static void subscribe(@NonNull OnBooksListDiffListener subscriber) {
+        if (!mSubscribers.contains(subscriber)) {
+            //Adding to the list of subscribers when not present
+            mSubscribers.add(subscriber);
+
+            //Loading the current result into the new subscriber, which always starts empty
+            List<BookInfo> currentBookInfos = mBooksListDiffer.getCurrentList();
+            if (!currentBookInfos.isEmpty()) {
+                subscriber.onBooksListDiffed(currentBookInfos,
+                        BooksDiffUtility.calculateDiff(Collections.<BookInfo>emptyList(), currentBookInfos));
+            }
+        }
+    }
+
+    /**
+     * Method that unsubscribes the Adapter from the results
+     *
+     * @param subscriber is the Adapter implementing the {@link OnBooksListDiffListener}
+     */
+    @MainThread
+    public static void unsubscribe(@NonNull OnBooksListDiffListener subscriber) {
+        mSubscribers.remove(subscriber);
+    }
+
+    /**
+     * Method that registers the {@link OnAdapterItemDataSwapListener} for the
+     * {@link com.example.kaushiknsanji.bookslibrary.BookSearchActivity}
+     * to receive event callbacks when the result is swapped in the Adapters
+     *
+     * @param listener is the instance of the Activity implementing the {@link OnAdapterItemDataSwapListener}
+     */
+    @MainThread
+    public static void setOnAdapterItemDataSwapListener(@Nullable OnAdapterItemDataSwapListener listener) {
+        mItemDataSwapListener = listener;
+    }
+
+    /**
+     * Method that unregisters the {@link OnAdapterItemDataSwapListener} only when it is
+     * the same listener that was registered
+     *
+     * @param listener is the instance of the Activity implementing the {@link OnAdapterItemDataSwapListener}
+     */
+    @MainThread
+    public static void clearOnAdapterItemDataSwapListener(@NonNull OnAdapterItemDataSwapListener listener) {
+        if (mItemDataSwapListener == listener) {
+            mItemDataSwapListener = null;
+        }
+    }
+
+    /**
+     * Method that submits the new result to be diffed once and replayed to all the subscribed Adapters
+     *
+     * @param newBookInfos is the new List of {@link BookInfo} objects
+     */
+    @MainThread
+    public static void submitList(@NonNull List<BookInfo> newBookInfos) {
+        if (newBookInfos == mLastSubmittedList) {
+            //Ignoring the re-delivery of the same result
+            Log.d(LOG_TAG, "submitList: Ignoring the same result submitted again");
+            return;
+        }
+
+        //Saving the reference to the list submitted
+        mLastSubmittedList = newBookInfos;
+
+        //Submitting to the Differ to compute the difference
+        mBooksListDiffer.submitList(newBookInfos);
+    }
+
+    /**
+     * Method that returns the current result
+     *
+     * @return The current unmodifiable List of {@link BookInfo} objects
+     */
+    @NonNull
+    public static List<BookInfo> getCurrentList() {
+        return mBooksListDiffer.getCurrentList();
+    }
+
+    /**
+     * Method that clears the current result from all the subscribed Adapters
+     */
+    @MainThread
+    public static void clear() {
+        submitList(new ArrayList<BookInfo>());
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application level class that suppresses the Books repeated across the pages of a Search Query,
+ * as the Book API frequently returns the same volume on adjacent pages.
+ * <p>
+ * For each Search Query, the offset at which every Book was first seen is recorded against its
+ * 64-bit Stable Id in a compact open-addressed table. A Book is shown only at the offset it was
+ * first seen, so that filtering a page again yields the same page. The page short of its duplicates
+ * is backfilled with the Books of its following page when fetched, which then move to the page
+ * backfilled and are suppressed from their own page. As the pages backfilled depend on the number
+ * of results per page, the offsets are recorded separately for each page size of the Search Query.
+ *
+ * @author Kaushik N Sanji
+ */
+public class DuplicateBookFilter {
+
+    //Constant for the number of Search Queries whose Books seen are retained
+    private static final int MAX_CACHED_QUERIES = 8;
+
+    //Tables of the Books seen, keyed by the Search Query Key and the page size
+    private static final LruCache<String, SeenBookTable> mSeenBookTables = new LruCache<>(MAX_CACHED_QUERIES);
+
+    //Counters of the Books filtered, the duplicates suppressed and the Books backfilled
+    private static final AtomicLong mFilteredCount = new AtomicLong();
+    private static final AtomicLong mDuplicateCount = new AtomicLong();
+    private static final AtomicLong mBackfilledCount = new AtomicLong();
+
+    /**
+     * Method that removes the Books of the page that were already seen at an earlier offset
+     * of the Search Query, and backfills the page with the Books of its following page,
+     * to keep the page as full as it was fetched.
+     *
+     * @param searchParams       is the Search Query and the Search Settings of the page
+     * @param bookInfos          is the List of {@link BookInfo} objects of the page, as fetched
+     * @param followingBookInfos is the List of {@link BookInfo} objects of the page following, as fetched;
+     *                           can be Null when not fetched
+     * @return The List of {@link BookInfo} objects of the page, without the duplicates;
+     * or NULL when the page passed is NULL
+     */
+    @Nullable
+    public static List<BookInfo> filterPage(@NonNull SearchParams searchParams, @Nullable List<BookInfo> bookInfos,
+                                            @Nullable List<BookInfo> followingBookInfos) {
+        if (bookInfos == null) {
+            //Returning when the request failed
+            return null;
+        }
+
+        //Retrieving the table of the Books seen for the Search Query and its page size,
+        //creating one when not present
+        String queryKey = getTableKey(searchParams);
+        SeenBookTable seenBookTable;
+        synchronized (mSeenBookTables) {
+            seenBookTable = mSeenBookTables.get(queryKey);
+            if (seenBookTable == null) {
+                seenBookTable = new SeenBookTable();
+                mSeenBookTables.put(queryKey, seenBookTable);
+            }
+        }
+
+        //Reading the range of the offsets of the page
+        int startItemIndex = searchParams.getStartItemIndex();
+        int followingStartItemIndex = startItemIndex + searchParams.getMaxResults();
+        int noOfBooks = bookInfos.size();
+
+        List<BookInfo> uniqueBookInfos = new ArrayList<>(noOfBooks);
+        synchronized (seenBookTable) {
+            //Recording the offsets of the Books of the page and its following page
+            recordOffsets(seenBookTable, bookInfos, startItemIndex);
+            if (followingBookInfos != null) {
+                recordOffsets(seenBookTable, followingBookInfos, followingStartItemIndex);
+            }
+
+            //Retaining the Books of the page first seen at their own offset
+            Set<Long> uniqueStableIds = new HashSet<>();
+            for (int index = 0; index < noOfBooks; index++) {
+                BookInfo bookInfo = bookInfos.get(index);
+                if (seenBookTable.getOffset(bookInfo.getStableId()) == startItemIndex + index) {
+                    uniqueBookInfos.add(bookInfo);
+                    uniqueStableIds.add(bookInfo.getStableId());
+                }
+            }
+            int noOfDuplicates = noOfBooks - uniqueBookInfos.size();
+
+            //Backfilling the page with the Books of its following page, not already seen earlier
+            int noOfFollowingBooks = (followingBookInfos == null) ? 0 : followingBookInfos.size();
+            int noOfBackfilled = 0;
+            for (int index = 0; index < noOfFollowingBooks && uniqueBookInfos.size() < noOfBooks; index++) {
+                BookInfo bookInfo = followingBookInfos.get(index);
+                long stableId = bookInfo.getStableId();
+                int offset = seenBookTable.getOffset(stableId);
+                //(A Book backfilled earlier is recorded at an offset within this page)
+                boolean isAvailable = offset == followingStartItemIndex + index
+                        || (offset >= startItemIndex && offset < followingStartItemIndex);
+                if (isAvailable && uniqueStableIds.add(stableId)) {
+                    //Moving the Book to this page, which suppresses it from the following page
+                    seenBookTable.putOffset(stableId, startItemIndex + uniqueBookInfos.size());
+                    uniqueBookInfos.add(bookInfo);
+                    noOfBackfilled++;
+                }
+            }
+
+            //Recording the counts for the metrics
+            mFilteredCount.addAndGet(noOfBooks);
+            mDuplicateCount.addAndGet(noOfDuplicates);
+            mBackfilledCount.addAndGet(noOfBackfilled);
+        }
+
+        //Returning the page without the duplicates
+        return uniqueBookInfos;
+    }
+
+    /**
+     * Method that returns the Key of the table of the Books seen for the Search Query. The page size
+     * is part of the Key, since the offsets the Books are backfilled to are valid only for the pages
+     * of the size they were backfilled in.
+     *
+     * @param searchParams is the Search Query and the Search Settings of the page
+     * @return String containing the Key of the Search Query and its page size
+     */
+    private static String getTableKey(SearchParams searchParams) {
+        return searchParams.toQueryKey() + "\n" + searchParams.getMaxResults();
+    }
+
+    /**
+     * Method that records the offsets of the Books passed, retaining the earliest offset
+     * at which each Book was seen
+     *
+     * @param seenBookTable  is the {@link SeenBookTable} of the Search Query
+     * @param bookInfos      is the List of {@link BookInfo} objects to be recorded
+     * @param startItemIndex is the absolute offset of the first Book passed
+     */
+    private static void recordOffsets(SeenBookTable seenBookTable, List<BookInfo> bookInfos, int startItemIndex) {
+        int noOfBooks = bookInfos.size();
+        for (int index = 0; index < noOfBooks; index++) {
+            long stableId = bookInfos.get(index).getStableId();
+            int offset = seenBookTable.getOffset(stableId);
+            if (offset < 0 || startItemIndex + index < offset) {
+                seenBookTable.putOffset(stableId, startItemIndex + index);
+            }
+        }
+    }
+
+    /**
+     * Method that removes the Books repeated in the List passed, retaining the first of each
+     *
+     * @param bookInfos is the List of {@link BookInfo} objects that may have Books repeated
+     * @return The List of {@link BookInfo} objects without the Books repeated
+     */
+    @NonNull
+    public static List<BookInfo> removeDuplicates(@NonNull List<BookInfo> bookInfos) {
+        int noOfBooks = bookInfos.size();
+        SeenBookTable seenBookTable = new SeenBookTable();
+        List<BookInfo> uniqueBookInfos = new ArrayList<>(noOfBooks);
+        for (int index = 0; index < noOfBooks; index++) {
+            BookInfo bookInfo = bookInfos.get(index);
+            if (seenBookTable.getOffset(bookInfo.getStableId()) < 0) {
+                //Retaining the first of the Book
+                seenBookTable.putOffset(bookInfo.getStableId(), index);
+                uniqueBookInfos.add(bookInfo);
+            }
+        }
+        return uniqueBookInfos;
+    }
+
+    /**
+     * Method that clears the Books seen for all the Search Queries
+     */
+    public static void clearFilter() {
+        mSeenBookTables.evictAll();
+    }
+
+    /**
+     * Method that summarizes the duplicates suppressed and the Books backfilled
+     *
+     * @return String containing the summary, one line per measurement
+     */
+    @NonNull
+    public static String dump() {
+        long filteredCount = mFilteredCount.get();
+        long duplicateCount = mDuplicateCount.get();
+        return "queries: " + mSeenBookTables.snapshot().size() + "\n"
+                + "books filtered: " + filteredCount + ", duplicates: " + duplicateCount
+                + String.format(Locale.US, ", duplicate rate: %.1f%%", (filteredCount == 0) ? 0f : 100f * duplicateCount / filteredCount)
+                + ", backfilled: " + mBackfilledCount.get()
+                + "\n";
+    }
+
+    /**
+     * Method that discards the counts of the Books filtered, the duplicates and the Books backfilled
+     */
+    public static void reset() {
+        mFilteredCount.set(0);
+        mDuplicateCount.set(0);
+        mBackfilledCount.set(0);
+    }
+
+    /**
+     * Class that maps the 64-bit Stable Ids of the Books seen to the offset they were first seen,
+     * in parallel arrays with open addressing, taking 12 bytes per slot without boxing.
+     * Not thread-safe; guarded by the caller.
+     */
+    private static class SeenBookTable {
+
+        //Constant for the initial number of slots, which is a power of 2
+        private static final int INITIAL_CAPACITY = 64;
+
+        //Stable Ids of the Books, at their slot
+        private long[] mStableIds = new long[INITIAL_CAPACITY];
+        //Offsets of the Books plus one at their slot, with 0 marking the slot as empty
+        private int[] mOffsetsPlusOne = new int[INITIAL_CAPACITY];
+        //Number of the Books recorded
+        private int mSize;
+
+        /**
+         * Method that returns the offset recorded for the Book
+         *
+         * @param stableId is the 64-bit Stable Id of the Book
+         * @return The offset recorded; or -1 when the Book is not recorded
+         */
+        int getOffset(long stableId) {
+            return mOffsetsPlusOne[findSlot(mStableIds, mOffsetsPlusOne, stableId)] - 1;
+        }
+
+        /**
+         * Method that records the offset for the Book, replacing the one recorded if any
+         *
+         * @param stableId is the 64-bit Stable Id of the Book
+         * @param offset   is the offset to be recorded
+         */
+        void putOffset(long stableId, int offset) {
+            int slot = findSlot(mStableIds, mOffsetsPlusOne, stableId);
+            if (mOffsetsPlusOne[slot] == 0) {
+                //Doubling the slots when more than half of them get used
+                if (++mSize > mStableIds.length / 2) {
+                    grow();
+                    slot = findSlot(mStableIds, mOffsetsPlusOne, stableId);
+                }
+                mStableIds[slot] = stableId;
+            }
+            mOffsetsPlusOne[slot] = offset + 1;
+        }
+
+        /**
+         * Method that doubles the slots, placing the Books recorded into the new slots
+         */
+        private void grow() {
+            long[] stableIds = new long[mStableIds.length * 2];
+            int[] offsetsPlusOne = new int[stableIds.length];
+            for (int index = 0; index < mStableIds.length; index++) {
+                if (mOffsetsPlusOne[index] != 0) {
+                    int slot = findSlot(stableIds, offsetsPlusOne, mStableIds[index]);
+                    stableIds[slot] = mStableIds[index];
+                    offsetsPlusOne[slot] = mOffsetsPlusOne[index];
+                }
+            }
+            mStableIds = stableIds;
+            mOffsetsPlusOne = offsetsPlusOne;
+        }
+
+        /**
+         * Method that finds the slot of the Book through linear probing, which is either
+         * the slot holding the Book or the empty slot where it is to be placed
+         *
+         * @param stableIds      is the array of the Stable Ids at their slot
+         * @param offsetsPlusOne is the array of the offsets plus one at their slot
+         * @param stableId       is the 64-bit Stable Id of the Book
+         * @return The index of the slot
+         */
+        private static int findSlot(long[] stableIds, int[] offsetsPlusOne, long stableId) {
+            int mask = stableIds.length - 1;
+            //Mixing the high bits into the low bits used for the slot
+            int slot = (int) (stableId ^ (stableId >>> 32)) & mask;
+            while (offsetsPlusOne[slot] != 0 && stableIds[slot] != stableId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+}
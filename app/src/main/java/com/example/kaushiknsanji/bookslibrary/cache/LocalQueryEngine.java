@@ -0,0 +1,411 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.cache;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class that sorts and filters the Search results fetched so far on the device, without
+ * any request to the Book API, which cannot sort or filter by most of these.
+ * <p>
+ * The keys used for sorting are computed once when built, that is, the {@link CollationKey}s
+ * of the Titles and the numeric keys of the Prices, Ratings and Published dates. Each Facet
+ * holds the Books having it as a {@link BitSet}, so that filtering and counting are reduced
+ * to the bitwise operations over the Books. The Facets of the same group are combined as
+ * alternatives, and the groups are combined as restrictions.
+ *
+ * @author Kaushik N Sanji
+ */
+public class LocalQueryEngine {
+
+    //Constants of the orders of sorting
+    public static final int SORT_RELEVANCE = 0;
+    public static final int SORT_TITLE = 1;
+    public static final int SORT_PRICE_LOW_TO_HIGH = 2;
+    public static final int SORT_PRICE_HIGH_TO_LOW = 3;
+    public static final int SORT_RATING = 4;
+    public static final int SORT_NEWEST = 5;
+
+    //Constants of the groups of Facets
+    public static final int GROUP_AVAILABILITY = 0;
+    public static final int GROUP_RATING = 1;
+    public static final int GROUP_PRINT_TYPE = 2;
+    public static final int GROUP_CATEGORY = 3;
+
+    //Keys of the Facets that are not derived from the values of the Books
+    public static final String FACET_KEY_FOR_SALE = "availability:forSale";
+    public static final String FACET_KEY_HIGHLY_RATED = "rating:highlyRated";
+
+    //Constant for the minimum ratings of the Books that are highly rated
+    private static final float MIN_HIGHLY_RATED = 4f;
+
+    //Constant for the maximum number of Category Facets, of the Categories having the most Books
+    private static final int MAX_CATEGORY_FACETS = 8;
+
+    //The Books in the order of their relevance, that is, the order of the results fetched
+    private final List<BookInfo> mBookInfos;
+    //The Collation keys of the Titles of the Books
+    private final CollationKey[] mTitleKeys;
+    //The Retail Prices of the Books; NaN when not for sale
+    private final double[] mPrices;
+    //The Ratings of the Books
+    private final float[] mRatings;
+    //The Published dates of the Books as received, which order chronologically; empty when not available
+    private final String[] mPublishedDates;
+    //The Facets of the Books, in the order they are to be shown
+    private final List<Facet> mFacets = new ArrayList<>();
+
+    /**
+     * Constructor of {@link LocalQueryEngine}, that computes the keys and Facets of the Books.
+     * To be built on a worker thread, as the Collation keys are costly to compute.
+     *
+     * @param bookInfos is the List of {@link BookInfo} objects fetched, in the order of their relevance
+     * @param locale    is the Locale used for comparing the Titles
+     */
+    public LocalQueryEngine(@NonNull List<BookInfo> bookInfos, @NonNull Locale locale) {
+        mBookInfos = new ArrayList<>(bookInfos);
+        int noOfBooks = mBookInfos.size();
+        mTitleKeys = new CollationKey[noOfBooks];
+        mPrices = new double[noOfBooks];
+        mRatings = new float[noOfBooks];
+        mPublishedDates = new String[noOfBooks];
+
+        //Comparing the Titles regardless of their case and accents
+        Collator collator = Collator.getInstance(locale);
+        collator.setStrength(Collator.PRIMARY);
+
+        //Facets of the values of the Books, keyed by their Facet Key
+        Facet forSaleFacet = new Facet(FACET_KEY_FOR_SALE, GROUP_AVAILABILITY, null);
+        Facet highlyRatedFacet = new Facet(FACET_KEY_HIGHLY_RATED, GROUP_RATING, null);
+        Map<String, Facet> printTypeFacets = new HashMap<>();
+        Map<String, Facet> categoryFacets = new HashMap<>();
+
+        //Computing the keys and Facets of each Book
+        for (int index = 0; index < noOfBooks; index++) {
+            BookInfo bookInfo = mBookInfos.get(index);
+
+            //Computing the keys for sorting
+            String title = bookInfo.getTitle();
+            mTitleKeys[index] = collator.getCollationKey(title == null ? "" : title);
+            mPrices[index] = bookInfo.isForSale() ? bookInfo.getRetailPriceValue() : Double.NaN;
+            mRatings[index] = bookInfo.getBookRatings();
+            String publishedDate = bookInfo.getPublishedDateStr();
+            mPublishedDates[index] = (publishedDate == null) ? "" : publishedDate;
+
+            //Adding the Book to the Facets it has
+            if (bookInfo.isForSale()) {
+                forSaleFacet.mBookSet.set(index);
+            }
+            if (mRatings[index] >= MIN_HIGHLY_RATED) {
+                highlyRatedFacet.mBookSet.set(index);
+            }
+            addToFacet(printTypeFacets, GROUP_PRINT_TYPE, bookInfo.getBookType(), index);
+            String[] categories = bookInfo.getCategoryNames();
+            if (categories != null) {
+                for (String category : categories) {
+                    addToFacet(categoryFacets, GROUP_CATEGORY, category, index);
+                }
+            }
+        }
+
+        //Ordering the Facets: the fixed ones, then the Print types and the Categories with the most Books
+        mFacets.add(forSaleFacet);
+        mFacets.add(highlyRatedFacet);
+        mFacets.addAll(sortBySize(printTypeFacets.values(), Integer.MAX_VALUE));
+        mFacets.addAll(sortBySize(categoryFacets.values(), MAX_CATEGORY_FACETS));
+    }
+
+    /**
+     * Method that adds the Book to the Facet of the value passed, creating the Facet when new
+     *
+     * @param facetMap  is the Map of the Facets of the group, keyed by their Facet Key
+     * @param group     is the group of the Facet, one of the GROUP_* constants
+     * @param value     is the value of the Book for the group
+     * @param bookIndex is the index of the Book
+     */
+    private static void addToFacet(Map<String, Facet> facetMap, int group, String value, int bookIndex) {
+        if (TextUtils.isEmpty(value)) {
+            return;
+        }
+
+        String facetKey = group + ":" + value;
+        Facet facet = facetMap.get(facetKey);
+        if (facet == null) {
+            facet = new Facet(facetKey, group, value);
+            facetMap.put(facetKey, facet);
+        }
+        facet.mBookSet.set(bookIndex);
+    }
+
+    /**
+     * Method that orders the Facets by the number of their Books, the largest first
+     *
+     * @param facets    is the Collection of Facets to be ordered
+     * @param maxFacets is the maximum number of Facets to be returned
+     * @return The List of the largest Facets
+     */
+    private static List<Facet> sortBySize(Collection<Facet> facets, int maxFacets) {
+        List<Facet> sortedFacets = new ArrayList<>(facets);
+        Collections.sort(sortedFacets, new Comparator<Facet>() {
+            @Override
+            public int compare(Facet facet1, Facet facet2) {
+                return facet2.mBookSet.cardinality() - facet1.mBookSet.cardinality();
+            }
+        });
+        return (sortedFacets.size() > maxFacets) ? sortedFacets.subList(0, maxFacets) : sortedFacets;
+    }
+
+    /**
+     * Method that returns the number of Books the engine was built with
+     *
+     * @return The number of Books
+     */
+    public int getBookCount() {
+        return mBookInfos.size();
+    }
+
+    /**
+     * Method that returns the Facets of the Books
+     *
+     * @return Read-only List of the {@link Facet}s, in the order they are to be shown
+     */
+    @NonNull
+    public List<Facet> getFacets() {
+        return Collections.unmodifiableList(mFacets);
+    }
+
+    /**
+     * Method that returns the Books having the Facets selected, in the order of sorting requested
+     *
+     * @param sortOrder         is the order of sorting, one of the SORT_* constants
+     * @param selectedFacetKeys is the Set of Keys of the Facets selected
+     * @return The List of {@link BookInfo} objects matched, sorted
+     */
+    @NonNull
+    public List<BookInfo> query(int sortOrder, @NonNull Set<String> selectedFacetKeys) {
+        //Selecting the Books having the Facets
+        BitSet selectedBooks = select(selectedFacetKeys, -1);
+
+        //Collecting the indices of the Books selected, in the order of relevance
+        Integer[] bookIndices = new Integer[selectedBooks.cardinality()];
+        int position = 0;
+        for (int index = selectedBooks.nextSetBit(0); index >= 0; index = selectedBooks.nextSetBit(index + 1)) {
+            bookIndices[position++] = index;
+        }
+
+        //Sorting the indices on the keys computed, unless ordered by relevance
+        if (sortOrder != SORT_RELEVANCE) {
+            Arrays.sort(bookIndices, new BookKeyComparator(sortOrder));
+        }
+
+        //Returning the Books in the order sorted
+        List<BookInfo> bookInfos = new ArrayList<>(bookIndices.length);
+        for (Integer bookIndex : bookIndices) {
+            bookInfos.add(mBookInfos.get(bookIndex));
+        }
+        return bookInfos;
+    }
+
+    /**
+     * Method that counts the Books of the Facet that would be matched, when the Facet is selected
+     * along with the Facets already selected. The Facets selected of the same group are ignored,
+     * as they are alternatives to the Facet.
+     *
+     * @param facet             is the {@link Facet} to be counted
+     * @param selectedFacetKeys is the Set of Keys of the Facets selected
+     * @return The number of Books of the Facet that would be matched
+     */
+    public int countFacet(@NonNull Facet facet, @NonNull Set<String> selectedFacetKeys) {
+        BitSet selectedBooks = select(selectedFacetKeys, facet.mGroup);
+        selectedBooks.and(facet.mBookSet);
+        return selectedBooks.cardinality();
+    }
+
+    /**
+     * Method that selects the Books having the Facets, combining the Facets of the same group
+     * as alternatives, and the groups as restrictions
+     *
+     * @param selectedFacetKeys is the Set of Keys of the Facets selected
+     * @param excludedGroup     is the group whose Facets are to be ignored; -1 when none
+     * @return {@link BitSet} of the indices of the Books selected
+     */
+    private BitSet select(Set<String> selectedFacetKeys, int excludedGroup) {
+        //Combining the Facets selected of each group
+        Map<Integer, BitSet> groupBookSets = new HashMap<>();
+        for (Facet facet : mFacets) {
+            if (facet.mGroup == excludedGroup || !selectedFacetKeys.contains(facet.mKey)) {
+                continue;
+            }
+            BitSet groupBookSet = groupBookSets.get(facet.mGroup);
+            if (groupBookSet == null) {
+                groupBookSet = new BitSet(mBookInfos.size());
+                groupBookSets.put(facet.mGroup, groupBookSet);
+            }
+            groupBookSet.or(facet.mBookSet);
+        }
+
+        //Restricting all the Books to each of the groups
+        BitSet selectedBooks = new BitSet(mBookInfos.size());
+        selectedBooks.set(0, mBookInfos.size());
+        for (BitSet groupBookSet : groupBookSets.values()) {
+            selectedBooks.and(groupBookSet);
+        }
+        return selectedBooks;
+    }
+
+    /**
+     * Class that holds a Facet of the Books, along with the Books having it
+     */
+    public static class Facet {
+
+        //The Key of the Facet, unique across the groups
+        private final String mKey;
+        //The group of the Facet, one of the GROUP_* constants
+        private final int mGroup;
+        //The value of the Books for the Facet; Null for the Facets that are not derived from the values
+        private final String mValue;
+        //The indices of the Books having the Facet
+        private final BitSet mBookSet = new BitSet();
+
+        /**
+         * Constructor of {@link Facet}
+         *
+         * @param key   is the Key of the Facet
+         * @param group is the group of the Facet
+         * @param value is the value of the Books for the Facet; Null for the Facets that are not derived from the values
+         */
+        Facet(String key, int group, String value) {
+            mKey = key;
+            mGroup = group;
+            mValue = value;
+        }
+
+        /**
+         * Method that returns the Key of the Facet
+         *
+         * @return String containing the Key of the Facet
+         */
+        public String getKey() {
+            return mKey;
+        }
+
+        /**
+         * Method that returns the group of the Facet
+         *
+         * @return The group of the Facet, one of the GROUP_* constants
+         */
+        public int getGroup() {
+            return mGroup;
+        }
+
+        /**
+         * Method that returns the value of the Books for the Facet, shown as its label
+         *
+         * @return String containing the value; or Null for the Facets that are not derived from the values
+         */
+        public String getValue() {
+            return mValue;
+        }
+    }
+
+    /**
+     * {@link Comparator} that orders the indices of the Books on their keys computed
+     * for the order of sorting, retaining the order of relevance for the ties
+     */
+    private class BookKeyComparator implements Comparator<Integer> {
+
+        //The order of sorting, one of the SORT_* constants
+        private final int mSortOrder;
+
+        /**
+         * Constructor of {@link BookKeyComparator}
+         *
+         * @param sortOrder is the order of sorting, one of the SORT_* constants
+         */
+        BookKeyComparator(int sortOrder) {
+            mSortOrder = sortOrder;
+        }
+
+        /**
+         * Compares its two arguments for order.
+         *
+         * @param index1 the index of the first Book to be compared.
+         * @param index2 the index of the second Book to be compared.
+         * @return a negative integer, zero, or a positive integer as the
+         * first argument is less than, equal to, or greater than the second.
+         */
+        @Override
+        public int compare(Integer index1, Integer index2) {
+            int result = 0;
+            switch (mSortOrder) {
+                case SORT_TITLE:
+                    result = mTitleKeys[index1].compareTo(mTitleKeys[index2]);
+                    break;
+                case SORT_PRICE_LOW_TO_HIGH:
+                    result = comparePrices(mPrices[index1], mPrices[index2], true);
+                    break;
+                case SORT_PRICE_HIGH_TO_LOW:
+                    result = comparePrices(mPrices[index1], mPrices[index2], false);
+                    break;
+                case SORT_RATING:
+                    result = Float.compare(mRatings[index2], mRatings[index1]);
+                    break;
+                case SORT_NEWEST:
+                    result = mPublishedDates[index2].compareTo(mPublishedDates[index1]);
+                    break;
+            }
+            //Retaining the order of relevance for the ties
+            return (result != 0) ? result : index1 - index2;
+        }
+
+        /**
+         * Method that compares the Prices, ordering the Books not for sale last
+         *
+         * @param price1    is the Price of the first Book; NaN when not for sale
+         * @param price2    is the Price of the second Book; NaN when not for sale
+         * @param ascending is whether the lower Price is to be ordered first
+         * @return a negative integer, zero, or a positive integer as the
+         * first Price is to be ordered before, same as, or after the second.
+         */
+        private int comparePrices(double price1, double price2, boolean ascending) {
+            boolean isPrice1Missing = Double.isNaN(price1);
+            boolean isPrice2Missing = Double.isNaN(price2);
+            if (isPrice1Missing || isPrice2Missing) {
+                return (isPrice1Missing == isPrice2Missing) ? 0 : (isPrice1Missing ? 1 : -1);
+            }
+            return ascending ? Double.compare(price1, price2) : Double.compare(price2, price1);
+        }
+    }
+
+}
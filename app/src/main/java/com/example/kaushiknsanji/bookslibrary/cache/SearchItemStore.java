@@ -0,0 +1,290 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.cache;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Application level class that saves the items of Search results fetched, at their absolute
+ * offset in the results of the Search Query. The page requested for any page size is sliced
+ * from the items saved, so that a change in the number of results per page, or a page
+ * overlapping the ones fetched earlier, only needs the items that are missing to be fetched.
+ * <p>
+ * Each item is saved along with the time it was fetched, and its freshness is checked
+ * when it is read for a page. The items gone stale are treated as missing, and are
+ * replaced by the next fetch of their range, without discarding the fresh items of the
+ * other ranges of the Search Query.
+ *
+ * @author Kaushik N Sanji
+ */
+public class SearchItemStore {
+
+    //Constant for the number of Search Queries whose items are retained
+    private static final int MAX_CACHED_QUERIES = 8;
+
+    //Memory Cache of the items fetched, keyed by the Search Query Key
+    private static final LruCache<String, ItemWindow> mItemWindows = new LruCache<>(MAX_CACHED_QUERIES);
+
+    /**
+     * Method that saves the items fetched for the Search Query, from the offset passed
+     *
+     * @param searchParams       is the Search Query and the Search Settings used for fetching the items
+     * @param startItemIndex     is the absolute offset of the first item fetched, with 0 as the first item
+     * @param requestedItemCount is the number of items requested, which when not met, marks the end of the results
+     * @param bookInfos          is the List of {@link BookInfo} objects fetched
+     */
+    public static void putItems(@NonNull SearchParams searchParams, int startItemIndex, int requestedItemCount,
+                                @Nullable List<BookInfo> bookInfos) {
+        if (bookInfos == null) {
+            //Returning when the request failed
+            return;
+        }
+
+        //Retrieving the items of the Search Query, creating the window for its first items
+        String queryKey = searchParams.toQueryKey();
+        ItemWindow itemWindow = mItemWindows.get(queryKey);
+        if (itemWindow == null) {
+            itemWindow = new ItemWindow();
+            mItemWindows.put(queryKey, itemWindow);
+        }
+
+        //Time of the fetch, recorded on each of the items saved
+        long savedAtMillis = SystemClock.elapsedRealtime();
+
+        synchronized (itemWindow) {
+            //Saving the items at their absolute offset, replacing the ones saved earlier
+            int noOfItems = bookInfos.size();
+            for (int index = 0; index < noOfItems; index++) {
+                itemWindow.mStoredItems.put(startItemIndex + index, new StoredItem(bookInfos.get(index), savedAtMillis));
+            }
+
+            if (noOfItems < requestedItemCount) {
+                //Marking the end of the results, when fewer items were returned than requested
+                itemWindow.mItemCount = startItemIndex + noOfItems;
+                itemWindow.mItemCountSavedAtMillis = savedAtMillis;
+            } else if (itemWindow.mItemCount >= 0 && itemWindow.mItemCount < startItemIndex + noOfItems) {
+                //Discarding the end marked earlier, when the items go past it
+                itemWindow.mItemCount = -1;
+            }
+        }
+    }
+
+    /**
+     * Method that slices the page requested from the items saved for the Search Query.
+     * Only the items not older than the age mentioned are used, the rest being treated as missing.
+     * The end of the results is used only when it was seen within the same age.
+     *
+     * @param searchParams is the Search Query and the Search Settings of the page
+     * @param maxAgeMillis is the maximum age in milliseconds of the items to be used.
+     *                     A value of 0 or less disables the lookup
+     * @return The {@link ItemSlice} of the page, which has the items of the page when all of
+     * them are saved and fresh, or else the range of the items missing; or null when no item
+     * of the page is saved fresh
+     */
+    @Nullable
+    public static ItemSlice getSlice(@NonNull SearchParams searchParams, long maxAgeMillis) {
+        if (maxAgeMillis <= 0) {
+            //Returning null when the items saved are not to be used
+            return null;
+        }
+
+        //Retrieving the items of the Search Query
+        ItemWindow itemWindow = mItemWindows.get(searchParams.toQueryKey());
+        if (itemWindow == null) {
+            return null;
+        }
+
+        //Time before which the items saved are too old to be used
+        long oldestSavedAtMillis = SystemClock.elapsedRealtime() - maxAgeMillis;
+
+        synchronized (itemWindow) {
+            //Range of the page, bounded by the end of the results when known and fresh
+            int fromIndex = searchParams.getStartItemIndex();
+            int toIndex = fromIndex + searchParams.getMaxResults();
+            if (itemWindow.mItemCount >= 0 && itemWindow.mItemCountSavedAtMillis >= oldestSavedAtMillis) {
+                toIndex = Math.min(toIndex, itemWindow.mItemCount);
+            }
+
+            //Collecting the fresh items of the page, and the range of the items missing or stale
+            List<BookInfo> bookInfos = new ArrayList<>(Math.max(0, toIndex - fromIndex));
+            int firstMissingIndex = -1;
+            int lastMissingIndex = -1;
+            for (int itemIndex = fromIndex; itemIndex < toIndex; itemIndex++) {
+                StoredItem storedItem = itemWindow.mStoredItems.get(itemIndex);
+                if (storedItem != null && storedItem.mSavedAtMillis >= oldestSavedAtMillis) {
+                    bookInfos.add(storedItem.mBookInfo);
+                } else {
+                    if (firstMissingIndex < 0) {
+                        firstMissingIndex = itemIndex;
+                    }
+                    lastMissingIndex = itemIndex;
+                }
+            }
+
+            if (bookInfos.isEmpty()) {
+                //Returning null when no item of the page is saved fresh
+                return null;
+            } else if (firstMissingIndex < 0) {
+                //Returning the items of the page when all of them are saved
+                return new ItemSlice(bookInfos, -1, 0);
+            }
+
+            //Returning the range of the items missing
+            return new ItemSlice(null, firstMissingIndex, lastMissingIndex - firstMissingIndex + 1);
+        }
+    }
+
+    /**
+     * Method that returns all the items saved for the Search Query regardless of their age,
+     * in the order of their offset, for refining the results fetched so far on the device.
+     * The items repeated at a later offset are left out.
+     *
+     * @param searchParams is the Search Query and the Search Settings of the results
+     * @return The List of {@link BookInfo} objects saved, without the repeats; empty when none
+     */
+    @NonNull
+    public static List<BookInfo> getItems(@NonNull SearchParams searchParams) {
+        ItemWindow itemWindow = mItemWindows.get(searchParams.toQueryKey());
+        if (itemWindow == null) {
+            return new ArrayList<>();
+        }
+
+        synchronized (itemWindow) {
+            //Reading the items in the order of their offset
+            int noOfItems = itemWindow.mStoredItems.size();
+            List<BookInfo> bookInfos = new ArrayList<>(noOfItems);
+            for (int index = 0; index < noOfItems; index++) {
+                bookInfos.add(itemWindow.mStoredItems.valueAt(index).mBookInfo);
+            }
+            //Leaving out the items repeated across the pages
+            return DuplicateBookFilter.removeDuplicates(bookInfos);
+        }
+    }
+
+    /**
+     * Method that clears all the items saved
+     */
+    public static void clearStore() {
+        mItemWindows.evictAll();
+    }
+
+    /**
+     * Class that holds the items of a Search Query saved at their absolute offset
+     */
+    private static class ItemWindow {
+        //Items saved along with the time they were fetched, keyed by their absolute offset; guarded by this window
+        final SparseArray<StoredItem> mStoredItems = new SparseArray<>();
+        //The number of items of the Search Query when its end was seen; -1 otherwise
+        int mItemCount = -1;
+        //The time in milliseconds since boot, when the end of the results was seen
+        long mItemCountSavedAtMillis;
+    }
+
+    /**
+     * Class that holds an item saved along with the time it was fetched
+     */
+    private static class StoredItem {
+        //The item saved
+        final BookInfo mBookInfo;
+        //The time in milliseconds since boot, when the item was fetched
+        final long mSavedAtMillis;
+
+        /**
+         * Constructor of {@link StoredItem}
+         *
+         * @param bookInfo      is the {@link BookInfo} of the item fetched
+         * @param savedAtMillis is the time in milliseconds since boot, when the item was fetched
+         */
+        StoredItem(BookInfo bookInfo, long savedAtMillis) {
+            mBookInfo = bookInfo;
+            mSavedAtMillis = savedAtMillis;
+        }
+    }
+
+    /**
+     * Class that holds the page sliced from the items saved, or else the range of its items missing
+     */
+    public static class ItemSlice {
+
+        //The items of the page when all of them are saved; null otherwise
+        private final List<BookInfo> mBookInfos;
+        //The absolute offset of the first item missing; -1 when none
+        private final int mMissingStartIndex;
+        //The number of items from the first item missing to the last item missing
+        private final int mMissingItemCount;
+
+        /**
+         * Constructor of {@link ItemSlice}
+         *
+         * @param bookInfos         is the List of items of the page when all of them are saved; null otherwise
+         * @param missingStartIndex is the absolute offset of the first item missing; -1 when none
+         * @param missingItemCount  is the number of items from the first item missing to the last item missing
+         */
+        ItemSlice(List<BookInfo> bookInfos, int missingStartIndex, int missingItemCount) {
+            mBookInfos = bookInfos;
+            mMissingStartIndex = missingStartIndex;
+            mMissingItemCount = missingItemCount;
+        }
+
+        /**
+         * Method that returns whether all the items of the page are saved
+         *
+         * @return <b>TRUE</b> when the page is complete; <b>FALSE</b> when some items are missing
+         */
+        public boolean isComplete() {
+            return mBookInfos != null;
+        }
+
+        /**
+         * Method that returns the items of the page
+         *
+         * @return The List of {@link BookInfo} objects of the page; or null when some items are missing
+         */
+        public List<BookInfo> getBookInfos() {
+            return mBookInfos;
+        }
+
+        /**
+         * Method that returns the absolute offset of the first item missing
+         *
+         * @return The offset of the first item missing, with 0 as the first item; or -1 when none
+         */
+        public int getMissingStartIndex() {
+            return mMissingStartIndex;
+        }
+
+        /**
+         * Method that returns the number of items in the range of the items missing
+         *
+         * @return The number of items from the first item missing to the last item missing
+         */
+        public int getMissingItemCount() {
+            return mMissingItemCount;
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.cache;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application level class that saves the pages of Search results loaded in a Memory Cache,
+ * keyed by the normalized Search Query along with the Search Settings they were loaded for.
+ * A page revisited is rendered instantly from this cache while it is refreshed in the background,
+ * and is served without a refresh while it is fresh.
+ * <p>
+ * The cache is bounded by the approximate size of the pages in bytes, evicting the
+ * least recently used pages first. The hits and misses of the lookups are counted
+ * for the performance report.
+ *
+ * @author Kaushik N Sanji
+ */
+public class SearchResultsCache {
+
+    //Constant for the separator of the parts of the Key
+    private static final char KEY_SEPARATOR = '\n';
+
+    //Memory Cache to save the pages of Search results loaded
+    private static LruCache<String, CachedPage> mMemoryCache;
+
+    //Counters of the lookups that found and missed a page
+    private static final AtomicLong mHitCount = new AtomicLong();
+    private static final AtomicLong mMissCount = new AtomicLong();
+
+    static {
+        //Static constructor invoked only on the first time when loaded into VM
+
+        //Setting the cache size to be 1/32nd of the Max Memory available for the VM, in bytes
+        final int cacheSizeInBytes = (int) (Runtime.getRuntime().maxMemory() / 32);
+
+        mMemoryCache = new LruCache<String, CachedPage>(cacheSizeInBytes) {
+            /**
+             * Returns the size of the entry for {@code key} and {@code value} in
+             * terms of bytes rather than the number of entries
+             */
+            @Override
+            protected int sizeOf(String key, CachedPage cachedPage) {
+                return 2 * key.length() + cachedPage.getSizeInBytes();
+            }
+        };
+    }
+
+    /**
+     * Method that retrieves the page of Search results from Memory Cache for the Search Settings passed,
+     * provided it is not older than the maximum staleness allowed
+     *
+     * @param searchParams       is the Search Query and the Search Settings of the page to be retrieved
+     * @param maxStalenessMillis is the maximum age in milliseconds of the page that can be shown.
+     *                           A value of 0 or less disables the lookup
+     * @return The {@link CachedPage} for the Search Settings mentioned; or null when not
+     * cached or is older than the maximum staleness allowed
+     */
+    @Nullable
+    public static CachedPage getPage(@NonNull SearchParams searchParams, long maxStalenessMillis) {
+        if (maxStalenessMillis <= 0) {
+            //Returning null when the cached pages are not to be shown
+            return null;
+        }
+
+        //Retrieving the page cached for the Search Settings
+        CachedPage cachedPage = mMemoryCache.get(toCacheKey(searchParams));
+        if (cachedPage != null && cachedPage.getAgeMillis() <= maxStalenessMillis) {
+            //Returning the page when it is fresh enough
+            mHitCount.incrementAndGet();
+            return cachedPage;
+        }
+
+        //Returning null when not cached or is too old
+        //(The stale page is retained, as a later lookup may allow a greater staleness)
+        mMissCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Method that checks whether the page of Search results for the Search Settings passed
+     * is cached and not older than the age mentioned. Unlike {@link #getPage(SearchParams, long)},
+     * this is not counted as a lookup, being used only for deciding the pages to be prefetched.
+     *
+     * @param searchParams is the Search Query and the Search Settings of the page to be checked
+     * @param maxAgeMillis is the maximum age in milliseconds of the page
+     * @return <b>TRUE</b> when the page is cached and is fresh enough; <b>FALSE</b> otherwise
+     */
+    public static boolean hasPage(@NonNull SearchParams searchParams, long maxAgeMillis) {
+        CachedPage cachedPage = mMemoryCache.get(toCacheKey(searchParams));
+        return cachedPage != null && cachedPage.getAgeMillis() <= maxAgeMillis;
+    }
+
+    /**
+     * Method that adds the page of Search results loaded to Memory Cache
+     * with the Search Settings as the Key, replacing the one cached previously
+     *
+     * @param searchParams  is the Search Query and the Search Settings used for loading the page
+     * @param bookInfos     is the List of {@link BookInfo} objects loaded for the page
+     * @param lastPageIndex is the last page index determined along with the page, with 1 as the first page
+     */
+    public static void putPage(@NonNull SearchParams searchParams, List<BookInfo> bookInfos, int lastPageIndex) {
+        if (bookInfos != null && bookInfos.size() > 0) {
+            mMemoryCache.put(toCacheKey(searchParams), new CachedPage(bookInfos, lastPageIndex));
+        }
+    }
+
+    /**
+     * Method that prepares the Key of the page for the Search Settings passed, from the
+     * normalized Search Query Key of {@link SearchParams#toQueryKey()}, so that the Queries
+     * yielding the same results share the page cached
+     *
+     * @param searchParams is the Search Query and the Search Settings of the page
+     * @return String containing the Key of the page
+     */
+    @NonNull
+    private static String toCacheKey(@NonNull SearchParams searchParams) {
+        return searchParams.toQueryKey()
+                + KEY_SEPARATOR + searchParams.getPageToDisplay()
+                + KEY_SEPARATOR + searchParams.getMaxResults();
+    }
+
+    /**
+     * Method that clears the entire Memory Cache
+     */
+    public static void clearCache() {
+        mMemoryCache.evictAll();
+    }
+
+    /**
+     * Method that summarizes the size of the Memory Cache and the hit rate of its lookups
+     *
+     * @return String containing the summary, one line per measurement
+     */
+    @NonNull
+    public static String dump() {
+        long hitCount = mHitCount.get();
+        long lookupCount = hitCount + mMissCount.get();
+        return "pages: " + mMemoryCache.snapshot().size()
+                + ", size: " + (mMemoryCache.size() / 1024) + " KB of " + (mMemoryCache.maxSize() / 1024) + " KB"
+                + ", evictions: " + mMemoryCache.evictionCount() + "\n"
+                + "lookups: " + lookupCount + ", hits: " + hitCount
+                + String.format(Locale.US, ", hit rate: %.1f%%", (lookupCount == 0) ? 0f : 100f * hitCount / lookupCount)
+                + "\n";
+    }
+
+    /**
+     * Method that discards the hits and misses of the lookups counted
+     */
+    public static void reset() {
+        mHitCount.set(0);
+        mMissCount.set(0);
+    }
+
+    /**
+     * Class that holds a page of Search results cached, along with the time it was loaded
+     */
+    public static class CachedPage {
+
+        //Read-only copy of the List of BookInfo objects loaded for the page
+        private final List<BookInfo> mBookInfos;
+        //The last page index determined along with the page
+        private final int mLastPageIndex;
+        //The time in milliseconds since boot, when the page was loaded
+        private final long mLoadedAtMillis;
+        //The approximate size of the page in bytes
+        private final int mSizeInBytes;
+
+        /**
+         * Constructor of {@link CachedPage}
+         *
+         * @param bookInfos     is the List of {@link BookInfo} objects loaded for the page
+         * @param lastPageIndex is the last page index determined along with the page
+         */
+        CachedPage(List<BookInfo> bookInfos, int lastPageIndex) {
+            //Copying the List to keep it unaffected by the changes done to the List passed
+            mBookInfos = Collections.unmodifiableList(new ArrayList<>(bookInfos));
+            mLastPageIndex = lastPageIndex;
+            mLoadedAtMillis = SystemClock.elapsedRealtime();
+
+            //Estimating the size of the page, from that of its Books
+            int sizeInBytes = 0;
+            for (BookInfo bookInfo : mBookInfos) {
+                sizeInBytes += bookInfo.estimateSizeInBytes();
+            }
+            mSizeInBytes = sizeInBytes;
+        }
+
+        /**
+         * Method that returns the List of {@link BookInfo} objects cached for the page
+         *
+         * @return Read-only List of {@link BookInfo} objects of the page
+         */
+        public List<BookInfo> getBookInfos() {
+            return mBookInfos;
+        }
+
+        /**
+         * Method that returns the last page index determined along with the page
+         *
+         * @return The last page index with 1 as the first page; or 0 when not determined
+         */
+        public int getLastPageIndex() {
+            return mLastPageIndex;
+        }
+
+        /**
+         * Method that returns the time elapsed since the page was loaded
+         *
+         * @return The age of the page in milliseconds
+         */
+        public long getAgeMillis() {
+            return SystemClock.elapsedRealtime() - mLoadedAtMillis;
+        }
+
+        /**
+         * Method that returns the approximate size of the page in memory
+         *
+         * @return The size of the page in bytes
+         */
+        int getSizeInBytes() {
+            return mSizeInBytes;
+        }
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.customviews;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import com.example.kaushiknsanji.bookslibrary.workers.TextLayoutPrecomputer;
+
+/**
+ * Custom {@link View} class that draws a plain Text with the {@link Layout} computed on
+ * a background thread by the {@link TextLayoutPrecomputer}, so that the Text is never
+ * measured on the Main Thread. Used for long Texts such as the Description of the Book,
+ * in place of a TextView that would measure the Text during its layout pass.
+ * <p>
+ * Reads the 'android:textSize' and 'android:textColor' attributes of its style. The view
+ * stays empty until the Layout for the width available is delivered.
+ *
+ * @author Kaushik N Sanji
+ */
+public class PrecomputedTextView extends View {
+
+    //Text attributes read from the style, in the ascending order of their ids as required
+    private static final int[] TEXT_ATTRS = new int[]{android.R.attr.textSize, android.R.attr.textColor};
+    //Index of the 'android:textSize' attribute in TEXT_ATTRS
+    private static final int TEXT_SIZE_ATTR_INDEX = 0;
+    //Index of the 'android:textColor' attribute in TEXT_ATTRS
+    private static final int TEXT_COLOR_ATTR_INDEX = 1;
+    //Default Text Size in SP, used when the style does not specify one
+    private static final float DEFAULT_TEXT_SIZE_SP = 14.0f;
+
+    //Paint with the Text Size and the Color of the Text
+    private final TextPaint mTextPaint;
+    //The Text to be drawn
+    private CharSequence mText;
+    //Path to the Font asset of the Text
+    private String mFontAssetPath;
+    //The Layout computed for the Text
+    private Layout mTextLayout;
+    //Width for which the current Layout was computed
+    private int mLayoutWidth;
+    //Width for which the Layout was last requested
+    private int mRequestedWidth;
+    //Width actually occupied by the lines of the current Layout
+    private int mContentWidth;
+
+    public PrecomputedTextView(Context context) {
+        //Delegating to other constructor
+        this(context, null);
+    }
+
+    public PrecomputedTextView(Context context, AttributeSet attrs) {
+        //Delegating to other constructor
+        this(context, attrs, 0);
+    }
+
+    public PrecomputedTextView(Context context, AttributeSet attrs, int defStyleAttr) {
+        //Propagating the call to super
+        super(context, attrs, defStyleAttr);
+
+        //Reading the Text Size and the Color from the style
+        TypedArray typedArray = context.obtainStyledAttributes(attrs, TEXT_ATTRS, defStyleAttr, 0);
+        float defaultTextSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+                DEFAULT_TEXT_SIZE_SP, getResources().getDisplayMetrics());
+        mTextPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+        mTextPaint.setTextSize(typedArray.getDimension(TEXT_SIZE_ATTR_INDEX, defaultTextSize));
+        mTextPaint.setColor(typedArray.getColor(TEXT_COLOR_ATTR_INDEX, Color.BLACK));
+        typedArray.recycle();
+    }
+
+    /**
+     * Method that sets the Text to be drawn. The Text is laid out on a background thread,
+     * once the width available to the Text is known.
+     *
+     * @param text          is the Text to be drawn
+     * @param fontAssetPath is the path to the Font asset to draw the Text with. Can be {@code null}
+     *                      to use the default Typeface
+     */
+    @MainThread
+    public void setText(@Nullable CharSequence text, @Nullable String fontAssetPath) {
+        mText = text;
+        mFontAssetPath = fontAssetPath;
+
+        //Discarding the Layout of the previous Text
+        mTextLayout = null;
+        mLayoutWidth = 0;
+        mRequestedWidth = 0;
+        mContentWidth = 0;
+
+        //Exposing the Text to the Accessibility services
+        setContentDescription(text);
+
+        //Requesting a layout pass to compute the Layout for the new Text
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Method that returns the Text being drawn
+     *
+     * @return The Text being drawn
+     */
+    public CharSequence getText() {
+        return mText;
+    }
+
+    /**
+     * Method that measures the view with the dimensions of the Layout computed for the Text.
+     * When the Layout for the width available is not computed yet, requests the same
+     * on a background thread, measuring with the previous Layout if any.
+     *
+     * @param widthMeasureSpec  horizontal space requirements as imposed by the parent.
+     * @param heightMeasureSpec vertical space requirements as imposed by the parent.
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        //Retrieving the maximum width the view can take
+        int maxWidth = (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED) ?
+                getResources().getDisplayMetrics().widthPixels : MeasureSpec.getSize(widthMeasureSpec);
+        //Computing the width available to the Text
+        int availableWidth = maxWidth - getPaddingLeft() - getPaddingRight();
+
+        if (availableWidth > 0 && availableWidth != mLayoutWidth && availableWidth != mRequestedWidth
+                && !TextUtils.isEmpty(mText)) {
+            //Requesting the Layout for the width available when not yet computed or requested
+            requestTextLayout(availableWidth);
+        }
+
+        //Measuring with the dimensions of the current Layout if any
+        int contentWidth = 0;
+        int contentHeight = 0;
+        if (mTextLayout != null) {
+            contentWidth = mContentWidth;
+            contentHeight = mTextLayout.getHeight();
+        }
+        setMeasuredDimension(
+                resolveSize(contentWidth + getPaddingLeft() + getPaddingRight(), widthMeasureSpec),
+                resolveSize(contentHeight + getPaddingTop() + getPaddingBottom(), heightMeasureSpec)
+        );
+    }
+
+    /**
+     * Method that requests the Layout of the Text to be computed on a background thread
+     *
+     * @param availableWidth is the Integer value of the width available to the Text
+     */
+    private void requestTextLayout(final int availableWidth) {
+        //Saving the width requested, to avoid requesting the same again
+        mRequestedWidth = availableWidth;
+        //Saving the Text requested, to discard the Layout if the Text changes meanwhile
+        final CharSequence requestedText = mText;
+
+        TextLayoutPrecomputer.precompute(getContext(), mText, mTextPaint, mFontAssetPath, availableWidth,
+                new TextLayoutPrecomputer.OnLayoutPrecomputedCallback() {
+                    /**
+                     * Method invoked on the Main Thread with the Layout computed for the Text
+                     *
+                     * @param textLayout is the {@link Layout} computed for the Text
+                     */
+                    @Override
+                    public void onLayoutPrecomputed(@NonNull Layout textLayout) {
+                        if (mText != requestedText || mRequestedWidth != availableWidth) {
+                            //Ignoring the Layout as the Text or the width has changed meanwhile
+                            return;
+                        }
+
+                        //Saving the Layout computed
+                        mTextLayout = textLayout;
+                        mLayoutWidth = availableWidth;
+                        mContentWidth = computeContentWidth(textLayout);
+
+                        //Requesting a layout pass and a redraw with the Layout computed
+                        requestLayout();
+                        invalidate();
+                    }
+                });
+    }
+
+    /**
+     * Method that returns the width actually occupied by the lines of the Layout. Returns the
+     * whole width of the Layout when any of its paragraphs is Right-To-Left, since those
+     * lines are drawn against the right edge of the Layout.
+     *
+     * @param textLayout is the {@link Layout} computed for the Text
+     * @return Integer value of the width occupied by the lines of the Layout
+     */
+    private static int computeContentWidth(Layout textLayout) {
+        float contentWidth = 0.0f;
+        for (int lineIndex = 0, lineCount = textLayout.getLineCount(); lineIndex < lineCount; lineIndex++) {
+            if (textLayout.getParagraphDirection(lineIndex) == Layout.DIR_RIGHT_TO_LEFT) {
+                //Using the whole width for the Right-To-Left Text
+                return textLayout.getWidth();
+            }
+            contentWidth = Math.max(contentWidth, textLayout.getLineWidth(lineIndex));
+        }
+        return (int) Math.ceil(contentWidth);
+    }
+
+    /**
+     * Method that draws the Layout computed for the Text, within the paddings of the view
+     *
+     * @param canvas the canvas on which the background will be drawn
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+        //Propagating the call to super
+        super.onDraw(canvas);
+
+        if (mTextLayout != null) {
+            //Drawing the Layout when computed
+            canvas.save();
+            canvas.translate(getPaddingLeft(), getPaddingTop());
+            mTextLayout.draw(canvas);
+            canvas.restore();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.data;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Build;
+
+/**
+ * {@link SQLiteOpenHelper} of the local Book store, that saves the Book Volumes fetched
+ * for answering the Searches offline. The Book Volumes are normalized into the tables of
+ * Books, Authors and Categories, and are indexed for Full-Text Search on their
+ * Title, SubTitle, Authors and Description.
+ *
+ * @author Kaushik N Sanji
+ */
+public class BookStoreDbHelper extends SQLiteOpenHelper {
+
+    //Constants for the Name and Version of the Database
+    private static final String DATABASE_NAME = "book_store.db";
+    private static final int DATABASE_VERSION = 1;
+
+    //Constants of the Books table
+    static final String TABLE_BOOKS = "books";
+    static final String COLUMN_ID = "_id";
+    static final String COLUMN_VOLUME_ID = "volume_id";
+    static final String COLUMN_TITLE = "title";
+    static final String COLUMN_SUBTITLE = "subtitle";
+    static final String COLUMN_DESCRIPTION = "description";
+    static final String COLUMN_PRINT_TYPE = "print_type";
+    static final String COLUMN_SALEABILITY = "saleability";
+    static final String COLUMN_PUBLISHED_DATE = "published_date";
+    static final String COLUMN_AVERAGE_RATING = "average_rating";
+    static final String COLUMN_RATINGS_COUNT = "ratings_count";
+    static final String COLUMN_VOLUME_JSON = "volume_json";
+    static final String COLUMN_UPDATED_AT = "updated_at";
+
+    //Constants of the Authors and Categories tables, along with their link tables to the Books
+    static final String TABLE_AUTHORS = "authors";
+    static final String TABLE_CATEGORIES = "categories";
+    static final String COLUMN_NAME = "name";
+    static final String TABLE_BOOK_AUTHORS = "book_authors";
+    static final String COLUMN_AUTHOR_ID = "author_id";
+    static final String TABLE_BOOK_CATEGORIES = "book_categories";
+    static final String COLUMN_CATEGORY_ID = "category_id";
+    static final String COLUMN_BOOK_ID = "book_id";
+    static final String COLUMN_POSITION = "position";
+
+    //Constants of the Full-Text Search table, whose 'docid' is the '_id' of the Books table
+    static final String TABLE_BOOKS_FTS = "books_fts";
+    static final String COLUMN_DOC_ID = "docid";
+    static final String COLUMN_AUTHORS = "authors";
+
+    //Constants of the table that records the position of the Books in the results of the Searches done online
+    static final String TABLE_SEARCH_HITS = "search_hits";
+    static final String COLUMN_QUERY_KEY = "query_key";
+
+    //Singleton instance of the Helper, shared by the reads and the writes
+    private static BookStoreDbHelper mInstance;
+
+    /**
+     * Private Constructor of {@link BookStoreDbHelper}
+     *
+     * @param context is the Application Context
+     */
+    private BookStoreDbHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            //Enabling Write-Ahead Logging, so that the reads are not blocked by the writes
+            setWriteAheadLoggingEnabled(true);
+        }
+    }
+
+    /**
+     * Method that returns the Singleton instance of {@link BookStoreDbHelper}
+     *
+     * @param context is the Context of the Activity/Fragment or App
+     * @return The instance of {@link BookStoreDbHelper}
+     */
+    static synchronized BookStoreDbHelper getInstance(Context context) {
+        if (mInstance == null) {
+            //Creating the instance with the Application Context, to not leak the Activity
+            mInstance = new BookStoreDbHelper(context.getApplicationContext());
+        }
+        return mInstance;
+    }
+
+    /**
+     * Called when the database is created for the first time. This is where the
+     * creation of tables and the initial population of the tables should happen.
+     *
+     * @param db The database.
+     */
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        //Creating the Books table
+        db.execSQL("CREATE TABLE " + TABLE_BOOKS + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY, "
+                + COLUMN_VOLUME_ID + " TEXT NOT NULL UNIQUE, "
+                + COLUMN_TITLE + " TEXT NOT NULL, "
+                + COLUMN_SUBTITLE + " TEXT, "
+                + COLUMN_DESCRIPTION + " TEXT, "
+                + COLUMN_PRINT_TYPE + " TEXT, "
+                + COLUMN_SALEABILITY + " TEXT, "
+                + COLUMN_PUBLISHED_DATE + " TEXT, "
+                + COLUMN_AVERAGE_RATING + " REAL NOT NULL DEFAULT 0, "
+                + COLUMN_RATINGS_COUNT + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_VOLUME_JSON + " TEXT NOT NULL, "
+                + COLUMN_UPDATED_AT + " INTEGER NOT NULL)");
+        //Indexing the Books on their time of update, for evicting the least recently fetched
+        db.execSQL("CREATE INDEX " + TABLE_BOOKS + "_" + COLUMN_UPDATED_AT
+                + " ON " + TABLE_BOOKS + " (" + COLUMN_UPDATED_AT + ")");
+
+        //Creating the Authors table and its link table to the Books
+        db.execSQL("CREATE TABLE " + TABLE_AUTHORS + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY, "
+                + COLUMN_NAME + " TEXT NOT NULL UNIQUE)");
+        db.execSQL("CREATE TABLE " + TABLE_BOOK_AUTHORS + " ("
+                + COLUMN_BOOK_ID + " INTEGER NOT NULL, "
+                + COLUMN_AUTHOR_ID + " INTEGER NOT NULL, "
+                + COLUMN_POSITION + " INTEGER NOT NULL, "
+                + "PRIMARY KEY (" + COLUMN_BOOK_ID + ", " + COLUMN_AUTHOR_ID + "))");
+
+        //Creating the Categories table and its link table to the Books
+        db.execSQL("CREATE TABLE " + TABLE_CATEGORIES + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY, "
+                + COLUMN_NAME + " TEXT NOT NULL UNIQUE)");
+        db.execSQL("CREATE TABLE " + TABLE_BOOK_CATEGORIES + " ("
+                + COLUMN_BOOK_ID + " INTEGER NOT NULL, "
+                + COLUMN_CATEGORY_ID + " INTEGER NOT NULL, "
+                + "PRIMARY KEY (" + COLUMN_BOOK_ID + ", " + COLUMN_CATEGORY_ID + "))");
+
+        //Creating the Full-Text Search table on the Title, SubTitle, Authors and Description
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_BOOKS_FTS + " USING fts4("
+                + COLUMN_TITLE + ", "
+                + COLUMN_SUBTITLE + ", "
+                + COLUMN_AUTHORS + ", "
+                + COLUMN_DESCRIPTION + ")");
+
+        //Creating the table of positions of the Books in the results of the Searches done online
+        db.execSQL("CREATE TABLE " + TABLE_SEARCH_HITS + " ("
+                + COLUMN_QUERY_KEY + " TEXT NOT NULL, "
+                + COLUMN_BOOK_ID + " INTEGER NOT NULL, "
+                + COLUMN_POSITION + " INTEGER NOT NULL, "
+                + "PRIMARY KEY (" + COLUMN_QUERY_KEY + ", " + COLUMN_BOOK_ID + "))");
+
+        //Creating the Trigger that removes the Index, Links and Positions of the Books deleted
+        db.execSQL("CREATE TRIGGER " + TABLE_BOOKS + "_after_delete AFTER DELETE ON " + TABLE_BOOKS + " BEGIN "
+                + "DELETE FROM " + TABLE_BOOKS_FTS + " WHERE " + COLUMN_DOC_ID + " = old." + COLUMN_ID + "; "
+                + "DELETE FROM " + TABLE_BOOK_AUTHORS + " WHERE " + COLUMN_BOOK_ID + " = old." + COLUMN_ID + "; "
+                + "DELETE FROM " + TABLE_BOOK_CATEGORIES + " WHERE " + COLUMN_BOOK_ID + " = old." + COLUMN_ID + "; "
+                + "DELETE FROM " + TABLE_SEARCH_HITS + " WHERE " + COLUMN_BOOK_ID + " = old." + COLUMN_ID + "; "
+                + "END");
+    }
+
+    /**
+     * Called when the database needs to be upgraded. Since the store only holds the
+     * Book Volumes fetched earlier, the tables are simply recreated.
+     *
+     * @param db         The database.
+     * @param oldVersion The old database version.
+     * @param newVersion The new database version.
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        //Dropping all the tables, which also drops the Trigger and Indices
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BOOKS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_AUTHORS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BOOK_AUTHORS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CATEGORIES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BOOK_CATEGORIES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BOOKS_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SEARCH_HITS);
+        //Recreating the tables
+        onCreate(db);
+    }
+
+    /**
+     * Called when the database has been opened.
+     *
+     * @param db The database.
+     */
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN && !db.isReadOnly()) {
+            //Enabling Write-Ahead Logging on the older versions, where the Helper cannot configure it
+            db.enableWriteAheadLogging();
+        }
+    }
+
+}
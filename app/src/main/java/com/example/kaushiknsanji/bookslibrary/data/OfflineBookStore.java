@@ -0,0 +1,1012 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.os.CancellationSignal;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+import com.example.kaushiknsanji.bookslibrary.utils.BookClientUtility;
+import com.example.kaushiknsanji.bookslibrary.utils.ConnectionCancellationUtility;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_AUTHORS;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_AUTHOR_ID;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_AVERAGE_RATING;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_BOOK_ID;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_CATEGORY_ID;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_DESCRIPTION;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_DOC_ID;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_ID;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_NAME;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_POSITION;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_PRINT_TYPE;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_PUBLISHED_DATE;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_QUERY_KEY;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_RATINGS_COUNT;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_SALEABILITY;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_SUBTITLE;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_TITLE;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_UPDATED_AT;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_VOLUME_ID;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.COLUMN_VOLUME_JSON;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.TABLE_AUTHORS;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.TABLE_BOOKS;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.TABLE_BOOKS_FTS;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.TABLE_BOOK_AUTHORS;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.TABLE_BOOK_CATEGORIES;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.TABLE_CATEGORIES;
+import static com.example.kaushiknsanji.bookslibrary.data.BookStoreDbHelper.TABLE_SEARCH_HITS;
+
+/**
+ * Class that persists the Book Volumes fetched by the Searches done online into the local
+ * Book store, and answers the Searches from the same when there is no network.
+ * <p>
+ * The writes are queued and applied by a single background thread, in one transaction
+ * for all the pages queued meanwhile. The offline results are ranked first by the position
+ * the Books had in the results of the same Search done online, and then by the
+ * BM25 relevance of their match on the Title, SubTitle, Authors and Description.
+ * </p>
+ *
+ * @author Kaushik N Sanji
+ */
+public class OfflineBookStore {
+
+    //Constant for the maximum number of Books retained, beyond which the least recently fetched are evicted
+    public static final int MAX_STORED_BOOKS = 2000;
+
+    //Constant used for logs
+    private static final String LOG_TAG = OfflineBookStore.class.getSimpleName();
+
+    //Constants of the BM25 ranking function
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    //Minimum value of the inverse document frequency, for the terms present in most of the Books
+    private static final double BM25_MIN_IDF = 1e-6;
+    //Weights of the Full-Text Search columns in their order: Title, SubTitle, Authors and Description
+    private static final double[] FTS_COLUMN_WEIGHTS = {4.0, 2.0, 3.0, 1.0};
+
+    //Constants of the Keyword Filters of the Search Query that restrict the match to a column
+    private static final String KEYWORD_IN_TITLE = "intitle";
+    private static final String KEYWORD_IN_AUTHOR = "inauthor";
+
+    //Constants of the setting values mapped to the values stored for the Books
+    private static final String PRINT_TYPE_BOOKS = "books";
+    private static final String PRINT_TYPE_MAGAZINES = "magazines";
+    private static final String STORED_PRINT_TYPE_BOOK = "BOOK";
+    private static final String STORED_PRINT_TYPE_MAGAZINE = "MAGAZINE";
+    private static final String FILTER_FREE_EBOOKS = "free-ebooks";
+    private static final String FILTER_PAID_EBOOKS = "paid-ebooks";
+    private static final String STORED_SALEABILITY_FREE = "FREE";
+    private static final String STORED_SALEABILITY_FOR_SALE = "FOR_SALE";
+
+    //Dedicated single worker thread for the writes, which serializes the transactions on the store
+    private static final Executor WRITE_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        /**
+         * Constructs a new {@code Thread}.
+         *
+         * @param runnable a runnable to be executed by new thread instance
+         * @return constructed thread
+         */
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    //Running the writes at the Background priority
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, LOG_TAG);
+        }
+    });
+
+    //Queue of the pages of Search results waiting to be written
+    private static final ConcurrentLinkedQueue<PendingWrite> mPendingWrites = new ConcurrentLinkedQueue<>();
+
+    //Boolean flag that saves whether the writing of the pages queued is already scheduled
+    private static final AtomicBoolean mIsDrainScheduled = new AtomicBoolean(false);
+
+    /**
+     * Method that queues the page of Search results fetched online to be written to the local store
+     * in the background. The pages queued while a write is in progress are written together
+     * in the next transaction.
+     *
+     * @param context      is the Context of the Activity/Fragment or App
+     * @param searchParams is the Search Query and the Search Settings used for fetching the page
+     * @param jsonResponse is the JSON Response of the Search request for the page
+     */
+    public static void saveSearchResults(@NonNull Context context, @NonNull SearchParams searchParams,
+                                         String jsonResponse) {
+        saveSearchResults(context, searchParams, searchParams.getStartItemIndex(), jsonResponse);
+    }
+
+    /**
+     * Method that queues the range of Search results fetched online to be written to the local store
+     * in the background, for the range that does not begin with a page
+     *
+     * @param context       is the Context of the Activity/Fragment or App
+     * @param searchParams  is the Search Query and the Search Settings used for fetching the range
+     * @param firstPosition is the absolute position of the first Book of the range in the Search results
+     * @param jsonResponse  is the JSON Response of the Search request for the range
+     */
+    public static void saveSearchResults(@NonNull Context context, @NonNull SearchParams searchParams,
+                                         int firstPosition, String jsonResponse) {
+        if (TextUtils.isEmpty(jsonResponse)) {
+            //Returning when there is nothing to be written
+            return;
+        }
+
+        //Queuing the page with the absolute position of its first Book in the Search results
+        mPendingWrites.offer(new PendingWrite(searchParams.toQueryKey(), firstPosition, jsonResponse));
+
+        //Scheduling the write of the pages queued, when not already scheduled
+        if (mIsDrainScheduled.compareAndSet(false, true)) {
+            final BookStoreDbHelper dbHelper = BookStoreDbHelper.getInstance(context);
+            WRITE_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    drainPendingWrites(dbHelper);
+                }
+            });
+        }
+    }
+
+    /**
+     * Method that writes all the pages queued so far in a single transaction.
+     * To be run on the {@link #WRITE_EXECUTOR}
+     *
+     * @param dbHelper is the {@link BookStoreDbHelper} of the local store
+     */
+    private static void drainPendingWrites(BookStoreDbHelper dbHelper) {
+        //Allowing the next write to be scheduled, as the pages queued so far are taken now
+        mIsDrainScheduled.set(false);
+
+        //Taking all the pages queued
+        List<PendingWrite> pendingWrites = new ArrayList<>();
+        PendingWrite pendingWrite;
+        while ((pendingWrite = mPendingWrites.poll()) != null) {
+            pendingWrites.add(pendingWrite);
+        }
+
+        if (pendingWrites.isEmpty()) {
+            //Returning when the pages were already written by the previous run
+            return;
+        }
+
+        //Opening the store for writing
+        SQLiteDatabase db;
+        try {
+            db = dbHelper.getWritableDatabase();
+        } catch (SQLiteException e) {
+            Log.e(LOG_TAG, "Error occurred while opening the Book store for writing\n", e);
+            return;
+        }
+
+        //Time of the write, recorded on the Books for evicting the least recently fetched
+        long updatedAtMillis = System.currentTimeMillis();
+
+        //Writing all the pages in a single transaction
+        WriteStatements statements = new WriteStatements(db);
+        db.beginTransactionNonExclusive();
+        try {
+            for (PendingWrite write : pendingWrites) {
+                try {
+                    writeSearchResults(statements, write, updatedAtMillis);
+                } catch (JSONException e) {
+                    Log.e(LOG_TAG, "Error occurred while parsing the JSON Response to be stored\n", e);
+                }
+            }
+
+            //Evicting the least recently fetched Books beyond the limit
+            if (statements.mDeleteEvictedBooks.executeUpdateDelete() > 0) {
+                //Removing the Authors and Categories no longer linked to any Book
+                statements.mDeleteOrphanAuthors.execute();
+                statements.mDeleteOrphanCategories.execute();
+            }
+
+            db.setTransactionSuccessful();
+        } catch (SQLiteException e) {
+            Log.e(LOG_TAG, "Error occurred while writing to the Book store\n", e);
+        } finally {
+            db.endTransaction();
+            statements.close();
+        }
+
+        Log.d(LOG_TAG, "drainPendingWrites: Pages written " + pendingWrites.size());
+    }
+
+    /**
+     * Method that writes the Books of a page of Search results along with their
+     * position in the results
+     *
+     * @param statements      is the {@link WriteStatements} compiled for the transaction
+     * @param pendingWrite    is the {@link PendingWrite} of the page to be written
+     * @param updatedAtMillis is the time of the write
+     * @throws JSONException when the JSON Response could not be parsed
+     */
+    private static void writeSearchResults(WriteStatements statements, PendingWrite pendingWrite,
+                                           long updatedAtMillis) throws JSONException {
+        //Retrieving the 'items' JSON Array
+        JSONArray itemsJsonArray = new JSONObject(pendingWrite.mJsonResponse).optJSONArray("items");
+        if (itemsJsonArray == null) {
+            //Returning when the page has no Books
+            return;
+        }
+        int noOfItems = itemsJsonArray.length();
+
+        //Clearing the positions recorded earlier for the range of the page, as the results may have changed
+        statements.mDeleteSearchHits.bindString(1, pendingWrite.mQueryKey);
+        statements.mDeleteSearchHits.bindLong(2, pendingWrite.mFirstPosition);
+        statements.mDeleteSearchHits.bindLong(3, pendingWrite.mFirstPosition + noOfItems - 1);
+        statements.mDeleteSearchHits.executeUpdateDelete();
+
+        //Iterating over the 'items' JSON Array to write each of the Books
+        for (int index = 0; index < noOfItems; index++) {
+            JSONObject itemJsonObject = itemsJsonArray.optJSONObject(index);
+            if (itemJsonObject == null) {
+                continue;
+            }
+
+            try {
+                //Writing the Book
+                long bookRowId = upsertBook(statements, itemJsonObject, updatedAtMillis);
+
+                //Recording the position of the Book in the Search results
+                statements.mInsertSearchHit.bindString(1, pendingWrite.mQueryKey);
+                statements.mInsertSearchHit.bindLong(2, bookRowId);
+                statements.mInsertSearchHit.bindLong(3, pendingWrite.mFirstPosition + index);
+                statements.mInsertSearchHit.executeInsert();
+            } catch (JSONException e) {
+                //Skipping the Book when its mandatory data is absent
+                Log.e(LOG_TAG, "Error occurred while parsing the Book Volume to be stored\n", e);
+            }
+        }
+    }
+
+    /**
+     * Method that inserts or updates the Book along with its Authors, Categories and its
+     * Full-Text Search index
+     *
+     * @param statements      is the {@link WriteStatements} compiled for the transaction
+     * @param itemJsonObject  is the JSON Object of the Book Volume from the 'items' JSON Array
+     * @param updatedAtMillis is the time of the write
+     * @return The row id of the Book in the Books table
+     * @throws JSONException when the mandatory data of the Book Volume is absent
+     */
+    private static long upsertBook(WriteStatements statements, JSONObject itemJsonObject,
+                                   long updatedAtMillis) throws JSONException {
+        //Retrieving the data to be stored: START
+        String volumeId = itemJsonObject.getString("id");
+        JSONObject volumeInfoJsonObject = itemJsonObject.getJSONObject("volumeInfo");
+        String title = volumeInfoJsonObject.getString("title");
+        String subTitle = volumeInfoJsonObject.optString("subtitle", "");
+        String description = volumeInfoJsonObject.optString("description", "");
+        JSONArray authorsJsonArray = volumeInfoJsonObject.optJSONArray("authors");
+        JSONArray categoriesJsonArray = volumeInfoJsonObject.optJSONArray("categories");
+        JSONObject saleInfoJsonObject = itemJsonObject.optJSONObject("saleInfo");
+        String saleability = (saleInfoJsonObject != null) ? saleInfoJsonObject.optString("saleability", "") : "";
+        //Retrieving the data to be stored: END
+
+        //Looking up the Book stored earlier, if any
+        long bookRowId;
+        statements.mSelectBookRowId.bindString(1, volumeId);
+        try {
+            bookRowId = statements.mSelectBookRowId.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            bookRowId = -1;
+        }
+
+        //Binding the columns of the Book, which are in the same order for both insert and update
+        SQLiteStatement upsertStatement = (bookRowId == -1) ? statements.mInsertBook : statements.mUpdateBook;
+        upsertStatement.bindString(1, title);
+        upsertStatement.bindString(2, subTitle);
+        upsertStatement.bindString(3, description);
+        upsertStatement.bindString(4, volumeInfoJsonObject.optString("printType", ""));
+        upsertStatement.bindString(5, saleability);
+        upsertStatement.bindString(6, volumeInfoJsonObject.optString("publishedDate", ""));
+        upsertStatement.bindDouble(7, volumeInfoJsonObject.optDouble("averageRating", 0.0));
+        upsertStatement.bindLong(8, volumeInfoJsonObject.optInt("ratingsCount", 0));
+        upsertStatement.bindString(9, itemJsonObject.toString());
+        upsertStatement.bindLong(10, updatedAtMillis);
+        upsertStatement.bindString(11, volumeId);
+        if (bookRowId == -1) {
+            bookRowId = upsertStatement.executeInsert();
+        } else {
+            upsertStatement.executeUpdateDelete();
+        }
+
+        //Re-indexing the Book for Full-Text Search
+        statements.mDeleteFts.bindLong(1, bookRowId);
+        statements.mDeleteFts.executeUpdateDelete();
+        statements.mInsertFts.bindLong(1, bookRowId);
+        statements.mInsertFts.bindString(2, title);
+        statements.mInsertFts.bindString(3, subTitle);
+        statements.mInsertFts.bindString(4, joinJsonStrings(authorsJsonArray));
+        statements.mInsertFts.bindString(5, description);
+        statements.mInsertFts.executeInsert();
+
+        //Re-linking the Authors of the Book in their order
+        statements.mDeleteBookAuthors.bindLong(1, bookRowId);
+        statements.mDeleteBookAuthors.executeUpdateDelete();
+        if (authorsJsonArray != null) {
+            int noOfAuthors = authorsJsonArray.length();
+            for (int index = 0; index < noOfAuthors; index++) {
+                String author = authorsJsonArray.optString(index);
+                if (!TextUtils.isEmpty(author)) {
+                    statements.mInsertBookAuthor.bindLong(1, bookRowId);
+                    statements.mInsertBookAuthor.bindLong(2,
+                            getOrInsertName(statements.mSelectAuthorId, statements.mInsertAuthor, author));
+                    statements.mInsertBookAuthor.bindLong(3, index);
+                    statements.mInsertBookAuthor.executeInsert();
+                }
+            }
+        }
+
+        //Re-linking the Categories of the Book
+        statements.mDeleteBookCategories.bindLong(1, bookRowId);
+        statements.mDeleteBookCategories.executeUpdateDelete();
+        if (categoriesJsonArray != null) {
+            int noOfCategories = categoriesJsonArray.length();
+            for (int index = 0; index < noOfCategories; index++) {
+                String category = categoriesJsonArray.optString(index);
+                if (!TextUtils.isEmpty(category)) {
+                    statements.mInsertBookCategory.bindLong(1, bookRowId);
+                    statements.mInsertBookCategory.bindLong(2,
+                            getOrInsertName(statements.mSelectCategoryId, statements.mInsertCategory, category));
+                    statements.mInsertBookCategory.executeInsert();
+                }
+            }
+        }
+
+        //Returning the row id of the Book
+        return bookRowId;
+    }
+
+    /**
+     * Method that returns the row id of the name in the Authors or Categories table,
+     * inserting the name when not present
+     *
+     * @param selectStatement is the {@link SQLiteStatement} that looks up the row id of the name
+     * @param insertStatement is the {@link SQLiteStatement} that inserts the name
+     * @param name            is the name of the Author or Category
+     * @return The row id of the name
+     */
+    private static long getOrInsertName(SQLiteStatement selectStatement, SQLiteStatement insertStatement, String name) {
+        selectStatement.bindString(1, name);
+        try {
+            return selectStatement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            insertStatement.bindString(1, name);
+            return insertStatement.executeInsert();
+        }
+    }
+
+    /**
+     * Method that joins the Strings of the JSON Array with a space, for indexing
+     *
+     * @param jsonArray is the JSON Array of Strings; can be Null
+     * @return The Strings joined; or an empty String when the JSON Array is Null
+     */
+    private static String joinJsonStrings(@Nullable JSONArray jsonArray) {
+        if (jsonArray == null) {
+            return "";
+        }
+
+        StringBuilder joinedBuilder = new StringBuilder();
+        int length = jsonArray.length();
+        for (int index = 0; index < length; index++) {
+            if (index > 0) {
+                joinedBuilder.append(' ');
+            }
+            joinedBuilder.append(jsonArray.optString(index));
+        }
+        return joinedBuilder.toString();
+    }
+
+    /**
+     * Method that answers the Search from the local store, for the page of results
+     * requested by the Search Settings. To be run on a worker thread.
+     *
+     * @param context            is the Context of the Activity/Fragment or App
+     * @param searchParams       is the Search Query and the Search Settings of the page requested
+     * @param cancellationSignal is the {@link CancellationSignal} that stops the Search when canceled; can be Null
+     * @return The {@link OfflineSearchResult} of the page requested; or NULL when the store
+     * has no Books matching the Search
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
+     */
+    @Nullable
+    public static OfflineSearchResult search(@NonNull Context context, @NonNull SearchParams searchParams,
+                                             @Nullable CancellationSignal cancellationSignal) {
+        //Translating the Search Query to the Full-Text Search query
+        String matchExpression = buildMatchExpression(searchParams.getQuery());
+        if (TextUtils.isEmpty(matchExpression)) {
+            return null;
+        }
+
+        //Opening the store for reading
+        SQLiteDatabase db;
+        try {
+            db = BookStoreDbHelper.getInstance(context).getReadableDatabase();
+        } catch (SQLiteException e) {
+            Log.e(LOG_TAG, "Error occurred while opening the Book store for reading\n", e);
+            return null;
+        }
+
+        //Preparing the query of the Books matched along with the data for ranking them: START
+        List<String> selectionArgs = new ArrayList<>();
+        StringBuilder sqlBuilder = new StringBuilder();
+        sqlBuilder.append("SELECT b.").append(COLUMN_ID)
+                .append(", b.").append(COLUMN_PUBLISHED_DATE)
+                .append(", h.").append(COLUMN_POSITION)
+                .append(", matchinfo(").append(TABLE_BOOKS_FTS).append(", 'pcnalx')")
+                .append(" FROM ").append(TABLE_BOOKS_FTS)
+                .append(" JOIN ").append(TABLE_BOOKS).append(" b ON b.").append(COLUMN_ID)
+                .append(" = ").append(TABLE_BOOKS_FTS).append(".").append(COLUMN_DOC_ID)
+                .append(" LEFT JOIN ").append(TABLE_SEARCH_HITS).append(" h ON h.").append(COLUMN_BOOK_ID)
+                .append(" = b.").append(COLUMN_ID).append(" AND h.").append(COLUMN_QUERY_KEY).append(" = ?")
+                .append(" WHERE ").append(TABLE_BOOKS_FTS).append(" MATCH ?");
+        selectionArgs.add(searchParams.toQueryKey());
+        selectionArgs.add(matchExpression);
+
+        //Restricting to the Publication Type set
+        String printType = searchParams.getPrintType();
+        if (PRINT_TYPE_BOOKS.equals(printType) || PRINT_TYPE_MAGAZINES.equals(printType)) {
+            sqlBuilder.append(" AND b.").append(COLUMN_PRINT_TYPE).append(" = ?");
+            selectionArgs.add(PRINT_TYPE_BOOKS.equals(printType) ? STORED_PRINT_TYPE_BOOK : STORED_PRINT_TYPE_MAGAZINE);
+        }
+
+        //Restricting to the Content Type set, for those that can be derived from the data stored
+        String filter = searchParams.getFilter();
+        if (FILTER_FREE_EBOOKS.equals(filter) || FILTER_PAID_EBOOKS.equals(filter)) {
+            sqlBuilder.append(" AND b.").append(COLUMN_SALEABILITY).append(" = ?");
+            selectionArgs.add(FILTER_FREE_EBOOKS.equals(filter) ? STORED_SALEABILITY_FREE : STORED_SALEABILITY_FOR_SALE);
+        }
+        //Preparing the query of the Books matched along with the data for ranking them: END
+
+        //Reading and scoring the Books matched
+        List<RankedBook> rankedBooks = new ArrayList<>();
+        Cursor cursor = db.rawQuery(sqlBuilder.toString(), selectionArgs.toArray(new String[selectionArgs.size()]));
+        try {
+            while (cursor.moveToNext()) {
+                //Stopping the Search when the load is canceled
+                ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
+
+                rankedBooks.add(new RankedBook(
+                        cursor.getLong(0),
+                        cursor.getString(1),
+                        cursor.isNull(2) ? -1 : cursor.getInt(2),
+                        computeBm25Score(cursor.getBlob(3))
+                ));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (rankedBooks.isEmpty()) {
+            //Returning NULL when no Book matched
+            return null;
+        }
+
+        //Ranking the Books matched
+        Collections.sort(rankedBooks, new RankedBookComparator(searchParams.getOrderBy()));
+
+        //Slicing the page requested: START
+        int maxResults = searchParams.getMaxResults();
+        int totalResults = rankedBooks.size();
+        int fromIndex = Math.min(searchParams.getStartItemIndex(), totalResults);
+        int toIndex = Math.min(fromIndex + maxResults, totalResults);
+        List<RankedBook> pageRankedBooks = rankedBooks.subList(fromIndex, toIndex);
+        //Slicing the page requested: END
+
+        //Computing the last page index, with 1 as the first page
+        int lastPageIndex = searchParams.getLastPageIndexFor(totalResults);
+
+        //Returning the page of Books parsed from their data stored
+        return new OfflineSearchResult(readBookInfos(db, pageRankedBooks, cancellationSignal), lastPageIndex);
+    }
+
+    /**
+     * Method that reads and parses the data stored of the Books ranked, in their order
+     *
+     * @param db                 is the {@link SQLiteDatabase} of the local store
+     * @param rankedBooks        is the List of {@link RankedBook} of the page, in their order
+     * @param cancellationSignal is the {@link CancellationSignal} that stops the reading when canceled; can be Null
+     * @return List of {@link BookInfo} objects of the Books ranked
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
+     */
+    private static List<BookInfo> readBookInfos(SQLiteDatabase db, List<RankedBook> rankedBooks,
+                                                @Nullable CancellationSignal cancellationSignal) {
+        //Initializing the List of BookInfo objects for the page
+        int noOfBooks = rankedBooks.size();
+        List<BookInfo> bookInfoList = new ArrayList<>(noOfBooks);
+        if (noOfBooks == 0) {
+            return bookInfoList;
+        }
+
+        //Preparing the query of the data stored of the Books: START
+        String[] selectionArgs = new String[noOfBooks];
+        StringBuilder sqlBuilder = new StringBuilder();
+        sqlBuilder.append("SELECT ").append(COLUMN_ID).append(", ").append(COLUMN_VOLUME_JSON)
+                .append(" FROM ").append(TABLE_BOOKS)
+                .append(" WHERE ").append(COLUMN_ID).append(" IN (");
+        for (int index = 0; index < noOfBooks; index++) {
+            sqlBuilder.append(index == 0 ? "?" : ", ?");
+            selectionArgs[index] = String.valueOf(rankedBooks.get(index).mRowId);
+        }
+        sqlBuilder.append(")");
+        //Preparing the query of the data stored of the Books: END
+
+        //Reading the data stored of the Books, keyed by their row id
+        Map<Long, String> volumeJsonMap = new HashMap<>(noOfBooks);
+        Cursor cursor = db.rawQuery(sqlBuilder.toString(), selectionArgs);
+        try {
+            while (cursor.moveToNext()) {
+                volumeJsonMap.put(cursor.getLong(0), cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        //Parsing the Books in their order, with the same parser as that of the Searches done online
+        for (RankedBook rankedBook : rankedBooks) {
+            //Stopping the parsing when the load is canceled
+            ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
+
+            String volumeJsonStr = volumeJsonMap.get(rankedBook.mRowId);
+            if (volumeJsonStr != null) {
+                BookInfo bookInfo = BookClientUtility.extractStoredVolume(volumeJsonStr);
+                if (bookInfo != null) {
+                    bookInfoList.add(bookInfo);
+                }
+            }
+        }
+
+        //Returning the List of BookInfo objects parsed
+        return bookInfoList;
+    }
+
+    /**
+     * Method that reads the Titles of all the Books and the names of all the Authors
+     * saved in the local store, the most recently fetched Titles first. To be run on a worker thread.
+     *
+     * @param context is the Context of the Activity/Fragment/Provider or App
+     * @param titles  is the List to which the Titles are added
+     * @param authors is the List to which the names of the Authors are added
+     */
+    public static void readTitlesAndAuthors(@NonNull Context context, @NonNull List<String> titles,
+                                            @NonNull List<String> authors) {
+        //Opening the store for reading
+        SQLiteDatabase db;
+        try {
+            db = BookStoreDbHelper.getInstance(context).getReadableDatabase();
+        } catch (SQLiteException e) {
+            Log.e(LOG_TAG, "Error occurred while opening the Book store for reading\n", e);
+            return;
+        }
+
+        //Reading the Titles
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_TITLE + " FROM " + TABLE_BOOKS
+                + " ORDER BY " + COLUMN_UPDATED_AT + " DESC", null);
+        try {
+            while (cursor.moveToNext()) {
+                titles.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        //Reading the names of the Authors
+        cursor = db.rawQuery("SELECT " + COLUMN_NAME + " FROM " + TABLE_AUTHORS, null);
+        try {
+            while (cursor.moveToNext()) {
+                authors.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Method that translates the Search Query to the query of the Full-Text Search table.
+     * The terms are split the same way as the 'simple' tokenizer of the table, and are matched
+     * together. The terms of the "intitle:" and "inauthor:" Keyword Filters are restricted to
+     * their column, while the other Keyword Filters are matched on all the columns.
+     *
+     * @param query is the Search Query executed by the User
+     * @return The Full-Text Search query; or an empty String when the Search Query has no terms
+     */
+    static String buildMatchExpression(@Nullable String query) {
+        //Initializing the StringBuilder for the Full-Text Search query
+        StringBuilder expressionBuilder = new StringBuilder();
+        if (TextUtils.isEmpty(query)) {
+            return expressionBuilder.toString();
+        }
+
+        //Iterating over the words of the Search Query
+        for (String word : query.trim().split("\\s+")) {
+            //Reading the Keyword Filter of the word if any, and its column restriction: START
+            String columnPrefix = "";
+            int colonIndex = word.indexOf(':');
+            if (colonIndex > 0) {
+                String keyword = word.substring(0, colonIndex).toLowerCase(Locale.ENGLISH);
+                if (KEYWORD_IN_TITLE.equals(keyword)) {
+                    columnPrefix = COLUMN_TITLE + ":";
+                } else if (KEYWORD_IN_AUTHOR.equals(keyword)) {
+                    columnPrefix = COLUMN_AUTHORS + ":";
+                }
+                word = word.substring(colonIndex + 1);
+            }
+            //Reading the Keyword Filter of the word if any, and its column restriction: END
+
+            //Splitting the word into terms at the ASCII characters other than letters and digits,
+            //and folding the ASCII letters to lower case, as done by the 'simple' tokenizer
+            StringBuilder termBuilder = new StringBuilder();
+            int length = word.length();
+            for (int index = 0; index <= length; index++) {
+                char character = (index < length) ? word.charAt(index) : ' ';
+                if (character >= 128 || Character.isLetterOrDigit(character)) {
+                    termBuilder.append((character >= 'A' && character <= 'Z') ? (char) (character + ('a' - 'A')) : character);
+                } else if (termBuilder.length() > 0) {
+                    //Appending the term, which is implicitly matched together with the others
+                    if (expressionBuilder.length() > 0) {
+                        expressionBuilder.append(' ');
+                    }
+                    expressionBuilder.append(columnPrefix).append(termBuilder);
+                    termBuilder.setLength(0);
+                }
+            }
+        }
+
+        //Returning the Full-Text Search query
+        return expressionBuilder.toString();
+    }
+
+    /**
+     * Method that computes the BM25 relevance of the Book matched, from the 'pcnalx'
+     * matchinfo of the Full-Text Search table, weighted by the column of the match
+     *
+     * @param matchInfoBlob is the matchinfo of the Book matched
+     * @return The relevance score of the Book, which is greater for the more relevant Books
+     */
+    private static double computeBm25Score(@Nullable byte[] matchInfoBlob) {
+        if (matchInfoBlob == null) {
+            return 0.0;
+        }
+
+        //Reading the matchinfo as an array of 32-bit unsigned integers in the native byte order
+        IntBuffer matchInfo = ByteBuffer.wrap(matchInfoBlob).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int noOfPhrases = matchInfo.get(0);
+        int noOfColumns = matchInfo.get(1);
+        long noOfRows = matchInfo.get(2) & 0xFFFFFFFFL;
+        int averageLengthOffset = 3;
+        int lengthOffset = averageLengthOffset + noOfColumns;
+        int hitsOffset = lengthOffset + noOfColumns;
+
+        //Summing the scores of each phrase in each column
+        double score = 0.0;
+        for (int phrase = 0; phrase < noOfPhrases; phrase++) {
+            for (int column = 0; column < noOfColumns; column++) {
+                int hitsIndex = hitsOffset + 3 * (column + phrase * noOfColumns);
+                int hitsInRow = matchInfo.get(hitsIndex);
+                if (hitsInRow == 0) {
+                    continue;
+                }
+                int rowsWithHits = matchInfo.get(hitsIndex + 2);
+
+                double idf = Math.max(BM25_MIN_IDF,
+                        Math.log((noOfRows - rowsWithHits + 0.5) / (rowsWithHits + 0.5)));
+                double averageLength = Math.max(1, matchInfo.get(averageLengthOffset + column));
+                double length = matchInfo.get(lengthOffset + column);
+                double weight = (column < FTS_COLUMN_WEIGHTS.length) ? FTS_COLUMN_WEIGHTS[column] : 1.0;
+
+                score += weight * idf * (hitsInRow * (BM25_K1 + 1))
+                        / (hitsInRow + BM25_K1 * (1 - BM25_B + BM25_B * length / averageLength));
+            }
+        }
+
+        //Returning the score computed
+        return score;
+    }
+
+    /**
+     * Class that holds the page of Books answered from the local store
+     */
+    public static class OfflineSearchResult {
+
+        //List of BookInfo objects of the page
+        private final List<BookInfo> mBookInfos;
+        //The last page index of the Books matched
+        private final int mLastPageIndex;
+
+        /**
+         * Constructor of {@link OfflineSearchResult}
+         *
+         * @param bookInfos     is the List of {@link BookInfo} objects of the page
+         * @param lastPageIndex is the last page index of the Books matched, with 1 as the first page
+         */
+        OfflineSearchResult(List<BookInfo> bookInfos, int lastPageIndex) {
+            mBookInfos = bookInfos;
+            mLastPageIndex = lastPageIndex;
+        }
+
+        /**
+         * Method that returns the List of {@link BookInfo} objects of the page
+         *
+         * @return List of {@link BookInfo} objects of the page, which is empty when the page is beyond the last
+         */
+        public List<BookInfo> getBookInfos() {
+            return mBookInfos;
+        }
+
+        /**
+         * Method that returns the last page index of the Books matched
+         *
+         * @return The last page index with 1 as the first page
+         */
+        public int getLastPageIndex() {
+            return mLastPageIndex;
+        }
+    }
+
+    /**
+     * Class that holds the page of Search results waiting to be written
+     */
+    private static class PendingWrite {
+
+        //Key under which the positions of the Books are recorded
+        final String mQueryKey;
+        //Absolute position of the first Book of the page in the Search results
+        final int mFirstPosition;
+        //JSON Response of the Search request for the page
+        final String mJsonResponse;
+
+        /**
+         * Constructor of {@link PendingWrite}
+         *
+         * @param queryKey      is the Key under which the positions of the Books are recorded
+         * @param firstPosition is the absolute position of the first Book of the page
+         * @param jsonResponse  is the JSON Response of the Search request for the page
+         */
+        PendingWrite(String queryKey, int firstPosition, String jsonResponse) {
+            mQueryKey = queryKey;
+            mFirstPosition = firstPosition;
+            mJsonResponse = jsonResponse;
+        }
+    }
+
+    /**
+     * Class that holds the data of the Book matched, used for ranking
+     */
+    private static class RankedBook {
+
+        //Row id of the Book in the Books table
+        final long mRowId;
+        //Published date of the Book
+        final String mPublishedDate;
+        //Position of the Book in the results of the same Search done online; -1 when not known
+        final int mKnownPosition;
+        //BM25 relevance of the Book matched
+        final double mScore;
+
+        /**
+         * Constructor of {@link RankedBook}
+         *
+         * @param rowId         is the row id of the Book in the Books table
+         * @param publishedDate is the published date of the Book
+         * @param knownPosition is the position of the Book in the results of the same Search done online;
+         *                      -1 when not known
+         * @param score         is the BM25 relevance of the Book matched
+         */
+        RankedBook(long rowId, String publishedDate, int knownPosition, double score) {
+            mRowId = rowId;
+            mPublishedDate = publishedDate;
+            mKnownPosition = knownPosition;
+            mScore = score;
+        }
+    }
+
+    /**
+     * {@link Comparator} that orders the Books matched, first by their known position in the
+     * results of the same Search done online, and the rest by the 'orderBy' (Sort By) setting
+     */
+    private static class RankedBookComparator implements Comparator<RankedBook> {
+
+        //Constant of the 'orderBy' setting value that sorts the most recent first
+        private static final String ORDER_BY_NEWEST = "newest";
+
+        //Boolean that saves whether the most recent Books are to be ordered first
+        private final boolean mIsNewestFirst;
+
+        /**
+         * Constructor of {@link RankedBookComparator}
+         *
+         * @param orderBy is the 'orderBy' (Sort By) setting value
+         */
+        RankedBookComparator(String orderBy) {
+            mIsNewestFirst = ORDER_BY_NEWEST.equals(orderBy);
+        }
+
+        /**
+         * Compares its two arguments for order.
+         *
+         * @param book1 the first Book to be compared.
+         * @param book2 the second Book to be compared.
+         * @return a negative integer, zero, or a positive integer as the
+         * first argument is less than, equal to, or greater than the second.
+         */
+        @Override
+        public int compare(RankedBook book1, RankedBook book2) {
+            //Ordering the Books with known positions first, by their position
+            if (book1.mKnownPosition != -1 || book2.mKnownPosition != -1) {
+                if (book1.mKnownPosition == -1) {
+                    return 1;
+                } else if (book2.mKnownPosition == -1) {
+                    return -1;
+                }
+                return (book1.mKnownPosition < book2.mKnownPosition) ? -1
+                        : ((book1.mKnownPosition == book2.mKnownPosition) ? 0 : 1);
+            }
+
+            //Ordering the rest by the most recent first, when required
+            if (mIsNewestFirst) {
+                String date1 = (book1.mPublishedDate == null) ? "" : book1.mPublishedDate;
+                String date2 = (book2.mPublishedDate == null) ? "" : book2.mPublishedDate;
+                int dateComparison = date2.compareTo(date1);
+                if (dateComparison != 0) {
+                    return dateComparison;
+                }
+            }
+
+            //Ordering by the relevance, the most relevant first
+            return Double.compare(book2.mScore, book1.mScore);
+        }
+    }
+
+    /**
+     * Class that holds the statements compiled for the writes done in a transaction
+     */
+    private static class WriteStatements {
+
+        final SQLiteStatement mSelectBookRowId;
+        final SQLiteStatement mInsertBook;
+        final SQLiteStatement mUpdateBook;
+        final SQLiteStatement mDeleteFts;
+        final SQLiteStatement mInsertFts;
+        final SQLiteStatement mSelectAuthorId;
+        final SQLiteStatement mInsertAuthor;
+        final SQLiteStatement mDeleteBookAuthors;
+        final SQLiteStatement mInsertBookAuthor;
+        final SQLiteStatement mSelectCategoryId;
+        final SQLiteStatement mInsertCategory;
+        final SQLiteStatement mDeleteBookCategories;
+        final SQLiteStatement mInsertBookCategory;
+        final SQLiteStatement mDeleteSearchHits;
+        final SQLiteStatement mInsertSearchHit;
+        final SQLiteStatement mDeleteEvictedBooks;
+        final SQLiteStatement mDeleteOrphanAuthors;
+        final SQLiteStatement mDeleteOrphanCategories;
+
+        /**
+         * Constructor of {@link WriteStatements} that compiles all the statements
+         *
+         * @param db is the {@link SQLiteDatabase} of the local store opened for writing
+         */
+        WriteStatements(SQLiteDatabase db) {
+            //Columns of the Book bound in the same order for both insert and update
+            String bookColumns = COLUMN_TITLE + ", " + COLUMN_SUBTITLE + ", " + COLUMN_DESCRIPTION + ", "
+                    + COLUMN_PRINT_TYPE + ", " + COLUMN_SALEABILITY + ", " + COLUMN_PUBLISHED_DATE + ", "
+                    + COLUMN_AVERAGE_RATING + ", " + COLUMN_RATINGS_COUNT + ", " + COLUMN_VOLUME_JSON + ", "
+                    + COLUMN_UPDATED_AT + ", " + COLUMN_VOLUME_ID;
+
+            mSelectBookRowId = db.compileStatement("SELECT " + COLUMN_ID + " FROM " + TABLE_BOOKS
+                    + " WHERE " + COLUMN_VOLUME_ID + " = ?");
+            mInsertBook = db.compileStatement("INSERT INTO " + TABLE_BOOKS + " (" + bookColumns + ")"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            mUpdateBook = db.compileStatement("UPDATE " + TABLE_BOOKS + " SET "
+                    + COLUMN_TITLE + " = ?, " + COLUMN_SUBTITLE + " = ?, " + COLUMN_DESCRIPTION + " = ?, "
+                    + COLUMN_PRINT_TYPE + " = ?, " + COLUMN_SALEABILITY + " = ?, " + COLUMN_PUBLISHED_DATE + " = ?, "
+                    + COLUMN_AVERAGE_RATING + " = ?, " + COLUMN_RATINGS_COUNT + " = ?, " + COLUMN_VOLUME_JSON + " = ?, "
+                    + COLUMN_UPDATED_AT + " = ? WHERE " + COLUMN_VOLUME_ID + " = ?");
+            mDeleteFts = db.compileStatement("DELETE FROM " + TABLE_BOOKS_FTS
+                    + " WHERE " + COLUMN_DOC_ID + " = ?");
+            mInsertFts = db.compileStatement("INSERT INTO " + TABLE_BOOKS_FTS + " ("
+                    + COLUMN_DOC_ID + ", " + COLUMN_TITLE + ", " + COLUMN_SUBTITLE + ", "
+                    + COLUMN_AUTHORS + ", " + COLUMN_DESCRIPTION + ") VALUES (?, ?, ?, ?, ?)");
+            mSelectAuthorId = db.compileStatement("SELECT " + COLUMN_ID + " FROM " + TABLE_AUTHORS
+                    + " WHERE " + COLUMN_NAME + " = ?");
+            mInsertAuthor = db.compileStatement("INSERT INTO " + TABLE_AUTHORS + " (" + COLUMN_NAME + ") VALUES (?)");
+            mDeleteBookAuthors = db.compileStatement("DELETE FROM " + TABLE_BOOK_AUTHORS
+                    + " WHERE " + COLUMN_BOOK_ID + " = ?");
+            mInsertBookAuthor = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_BOOK_AUTHORS + " ("
+                    + COLUMN_BOOK_ID + ", " + COLUMN_AUTHOR_ID + ", " + COLUMN_POSITION + ") VALUES (?, ?, ?)");
+            mSelectCategoryId = db.compileStatement("SELECT " + COLUMN_ID + " FROM " + TABLE_CATEGORIES
+                    + " WHERE " + COLUMN_NAME + " = ?");
+            mInsertCategory = db.compileStatement("INSERT INTO " + TABLE_CATEGORIES + " (" + COLUMN_NAME + ") VALUES (?)");
+            mDeleteBookCategories = db.compileStatement("DELETE FROM " + TABLE_BOOK_CATEGORIES
+                    + " WHERE " + COLUMN_BOOK_ID + " = ?");
+            mInsertBookCategory = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_BOOK_CATEGORIES + " ("
+                    + COLUMN_BOOK_ID + ", " + COLUMN_CATEGORY_ID + ") VALUES (?, ?)");
+            mDeleteSearchHits = db.compileStatement("DELETE FROM " + TABLE_SEARCH_HITS
+                    + " WHERE " + COLUMN_QUERY_KEY + " = ? AND " + COLUMN_POSITION + " BETWEEN ? AND ?");
+            mInsertSearchHit = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_SEARCH_HITS + " ("
+                    + COLUMN_QUERY_KEY + ", " + COLUMN_BOOK_ID + ", " + COLUMN_POSITION + ") VALUES (?, ?, ?)");
+            mDeleteEvictedBooks = db.compileStatement("DELETE FROM " + TABLE_BOOKS
+                    + " WHERE " + COLUMN_ID + " IN (SELECT " + COLUMN_ID + " FROM " + TABLE_BOOKS
+                    + " ORDER BY " + COLUMN_UPDATED_AT + " DESC LIMIT -1 OFFSET " + MAX_STORED_BOOKS + ")");
+            mDeleteOrphanAuthors = db.compileStatement("DELETE FROM " + TABLE_AUTHORS
+                    + " WHERE " + COLUMN_ID + " NOT IN (SELECT " + COLUMN_AUTHOR_ID + " FROM " + TABLE_BOOK_AUTHORS + ")");
+            mDeleteOrphanCategories = db.compileStatement("DELETE FROM " + TABLE_CATEGORIES
+                    + " WHERE " + COLUMN_ID + " NOT IN (SELECT " + COLUMN_CATEGORY_ID + " FROM " + TABLE_BOOK_CATEGORIES + ")");
+        }
+
+        /**
+         * Method that releases all the statements compiled
+         */
+        void close() {
+            mSelectBookRowId.close();
+            mInsertBook.close();
+            mUpdateBook.close();
+            mDeleteFts.close();
+            mInsertFts.close();
+            mSelectAuthorId.close();
+            mInsertAuthor.close();
+            mDeleteBookAuthors.close();
+            mInsertBookAuthor.close();
+            mSelectCategoryId.close();
+            mInsertCategory.close();
+            mDeleteBookCategories.close();
+            mInsertBookCategory.close();
+            mDeleteSearchHits.close();
+            mInsertSearchHit.close();
+            mDeleteEvictedBooks.close();
+            mDeleteOrphanAuthors.close();
+            mDeleteOrphanCategories.close();
+        }
+    }
+
+}
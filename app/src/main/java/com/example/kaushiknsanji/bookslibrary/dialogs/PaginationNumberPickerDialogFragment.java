@@ -16,14 +16,13 @@
 
 package com.example.kaushiknsanji.bookslibrary.dialogs;
 
+import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.Dialog;
-import android.content.SharedPreferences;
+import android.content.Context;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
 import android.support.v4.app.DialogFragment;
-import android.support.v7.preference.PreferenceManager;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.Button;
@@ -48,6 +47,7 @@ public class PaginationNumberPickerDialogFragment extends DialogFragment
     //Bundle Key constants for Dialog Fragment Arguments
     private static final String NUMBER_PICKER_MAX_VALUE_INT_KEY = "NumberPicker.MaxValue";
     private static final String NUMBER_PICKER_MIN_VALUE_INT_KEY = "NumberPicker.MinValue";
+    private static final String NUMBER_PICKER_CURRENT_VALUE_INT_KEY = "NumberPicker.CurrentValue";
 
     //Bundle Key constant used for restoring the value selected
     private static final String NUMBER_PICKER_SEL_VALUE_INT_KEY = "NumberPicker.SelectedValue";
@@ -55,24 +55,26 @@ public class PaginationNumberPickerDialogFragment extends DialogFragment
     //Stores the number picked by the user
     private int mSelectedValue;
 
-    //For the Settings SharedPreferences
-    private SharedPreferences mPreferences;
+    //Listener to be notified of the page selected
+    private OnPageSelectedListener mOnPageSelectedListener;
 
     /**
      * Static constructor of the DialogFragment {@link PaginationNumberPickerDialogFragment}
      *
-     * @param minValue is the Integer value of the Minimum number to be set on the Number Picker
-     * @param maxValue is the Integer value of the Maximum number to be set on the Number Picker
+     * @param minValue     is the Integer value of the Minimum number to be set on the Number Picker
+     * @param maxValue     is the Integer value of the Maximum number to be set on the Number Picker
+     * @param currentValue is the Integer value of the current page, preselected on the Number Picker
      * @return Instance of the Fragment {@link PaginationNumberPickerDialogFragment}
      */
-    public static PaginationNumberPickerDialogFragment newInstance(int minValue, int maxValue) {
+    public static PaginationNumberPickerDialogFragment newInstance(int minValue, int maxValue, int currentValue) {
         //Initializing this DialogFragment
         PaginationNumberPickerDialogFragment dialogFragment = new PaginationNumberPickerDialogFragment();
 
         //Storing the Arguments in a Bundle: START
-        Bundle bundleArgs = new Bundle(2);
+        Bundle bundleArgs = new Bundle(3);
         bundleArgs.putInt(NUMBER_PICKER_MIN_VALUE_INT_KEY, minValue);
         bundleArgs.putInt(NUMBER_PICKER_MAX_VALUE_INT_KEY, maxValue);
+        bundleArgs.putInt(NUMBER_PICKER_CURRENT_VALUE_INT_KEY, currentValue);
         //Storing the Arguments in a Bundle: END
 
         //Setting the Arguments
@@ -82,13 +84,26 @@ public class PaginationNumberPickerDialogFragment extends DialogFragment
         return dialogFragment;
     }
 
-    //Called when the Fragment is about to be created
+    //Attaching the context to the fragment
     @Override
-    public void onCreate(@Nullable Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
+    public void onAttach(Context context) {
+        super.onAttach(context);
+        try {
+            mOnPageSelectedListener = (OnPageSelectedListener) context;
+        } catch (ClassCastException e) {
+            throw new ClassCastException(context.toString() + " must implement OnPageSelectedListener");
+        }
+    }
 
-        //Retrieving the instance of SharedPreferences
-        mPreferences = PreferenceManager.getDefaultSharedPreferences(requireContext());
+    //Attaching the activity to the fragment
+    @Override
+    public void onAttach(Activity activity) {
+        super.onAttach(activity);
+        try {
+            mOnPageSelectedListener = (OnPageSelectedListener) activity;
+        } catch (ClassCastException e) {
+            throw new ClassCastException(activity.toString() + " must implement OnPageSelectedListener");
+        }
     }
 
     /**
@@ -124,10 +139,9 @@ public class PaginationNumberPickerDialogFragment extends DialogFragment
         if (savedInstanceState != null) {
             //Restoring the selected value when instance have been saved
             mSelectedValue = savedInstanceState.getInt(NUMBER_PICKER_SEL_VALUE_INT_KEY);
-        } else {
-            //Defaulting the selected value to the current value of the 'startIndex' (Page to Display) setting
-            mSelectedValue = mPreferences.getInt(getString(R.string.pref_page_to_display_key),
-                    getResources().getInteger(R.integer.pref_page_to_display_default_value));
+        } else if (getArguments() != null) {
+            //Defaulting the selected value to the current page, that is, the 'startIndex'
+            mSelectedValue = getArguments().getInt(NUMBER_PICKER_CURRENT_VALUE_INT_KEY);
         }
         numberPicker.setValue(mSelectedValue);
         //Updating the preselected value of the NumberPicker: END
@@ -162,11 +176,8 @@ public class PaginationNumberPickerDialogFragment extends DialogFragment
             case R.id.page_number_picker_set_btn_id:
                 //When the Positive button is clicked
 
-                //Opening the Preferences Editor
-                SharedPreferences.Editor prefEditor = mPreferences.edit();
-                //Updating the 'startIndex' value
-                prefEditor.putInt(getString(R.string.pref_page_to_display_key), mSelectedValue);
-                prefEditor.apply(); //Applying the changes
+                //Notifying the Listener to navigate to the page selected
+                mOnPageSelectedListener.onPageSelected(mSelectedValue);
 
                 dismiss(); //Dismissing the dialog in the end
 
@@ -202,4 +213,26 @@ public class PaginationNumberPickerDialogFragment extends DialogFragment
         outState.putInt(NUMBER_PICKER_SEL_VALUE_INT_KEY, mSelectedValue);
         super.onSaveInstanceState(outState);
     }
+
+    //Called when the Activity is destroyed
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        //Clearing the reference to the Activity to avoid leaking
+        mOnPageSelectedListener = null;
+    }
+
+    /**
+     * Activity that creates an instance of this {@link PaginationNumberPickerDialogFragment}
+     * needs to implement the interface to receive event callbacks
+     */
+    public interface OnPageSelectedListener {
+        /**
+         * Callback Method of {@link PaginationNumberPickerDialogFragment}
+         * invoked when the user selects the page to jump to
+         *
+         * @param pageIndex is the index of the page selected, with 1 as the first page
+         */
+        void onPageSelected(int pageIndex);
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.metrics;
+
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import com.example.kaushiknsanji.bookslibrary.cache.BookSuggestionIndex;
+import com.example.kaushiknsanji.bookslibrary.cache.DuplicateBookFilter;
+import com.example.kaushiknsanji.bookslibrary.cache.SearchResultsCache;
+import com.example.kaushiknsanji.bookslibrary.workers.LastPageDiscovery;
+import com.example.kaushiknsanji.bookslibrary.workers.SearchPipeline;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Utility Class that prepares the report of the performance measurements
+ * recorded on the device, and dumps it to a log file. The Search traces
+ * can also be exported as JSON.
+ *
+ * @author Kaushik N Sanji
+ */
+public class PerformanceReport {
+
+    //Name of the directory under the App's files directory, where the reports are dumped
+    private static final String REPORT_DIRECTORY_NAME = "metrics";
+
+    //Pattern of the timestamp used in the name of the report files
+    private static final String REPORT_FILE_TIMESTAMP_PATTERN = "yyyyMMdd_HHmmss";
+
+    /**
+     * Method that prepares the report of all the performance measurements recorded
+     *
+     * @param context is the Context of the Activity/Application
+     * @return String containing the report
+     */
+    @NonNull
+    public static String build(@NonNull Context context) {
+        StringBuilder reportBuilder = new StringBuilder();
+
+        //Appending the details of the device
+        reportBuilder.append("Device: ").append(Build.MANUFACTURER).append(" ").append(Build.MODEL)
+                .append(" (API ").append(Build.VERSION.SDK_INT).append(")\n\n");
+
+        //Appending the scroll performance measurements
+        reportBuilder.append("== Scroll Performance ==\n");
+        reportBuilder.append(ScrollPerformanceStats.dumpAll(context));
+
+        //Appending the Search latencies
+        reportBuilder.append("== Search Latency ==\n");
+        reportBuilder.append(SearchTracer.dump());
+
+        //Appending the measurements of the stages of the Search pipeline
+        reportBuilder.append("== Search Pipeline ==\n");
+        reportBuilder.append(SearchPipeline.dump());
+
+        //Appending the measurements of the Search Suggestions
+        reportBuilder.append("== Search Suggestions ==\n");
+        reportBuilder.append(BookSuggestionIndex.dump());
+
+        //Appending the measurements of the Memory Cache of the Search results
+        reportBuilder.append("== Search Results Cache ==\n");
+        reportBuilder.append(SearchResultsCache.dump());
+
+        //Appending the measurements of the discovery of the last page
+        reportBuilder.append("== Last Page Discovery ==\n");
+        reportBuilder.append(LastPageDiscovery.dump());
+
+        //Appending the measurements of the duplicates suppressed across the pages
+        reportBuilder.append("== Duplicate Suppression ==\n");
+        reportBuilder.append(DuplicateBookFilter.dump());
+
+        //Returning the report
+        return reportBuilder.toString();
+    }
+
+    /**
+     * Method that writes the report to a new log file under the 'metrics' directory
+     * of the App's files directory
+     *
+     * @param context is the Context of the Activity/Application
+     * @param report  is the String containing the report to be written
+     * @return The log File written
+     * @throws IOException when the log file could not be written
+     */
+    @WorkerThread
+    @NonNull
+    public static File dumpToFile(@NonNull Context context, @NonNull String report) throws IOException {
+        return writeToFile(context, "performance_", ".log", report);
+    }
+
+    /**
+     * Method that writes the recent Search traces as JSON to a new file under the 'metrics'
+     * directory of the App's files directory
+     *
+     * @param context is the Context of the Activity/Application
+     * @return The JSON File written
+     * @throws IOException when the JSON file could not be written
+     */
+    @WorkerThread
+    @NonNull
+    public static File exportSearchTracesToFile(@NonNull Context context) throws IOException {
+        return writeToFile(context, "search_traces_", ".json", SearchTracer.exportJson());
+    }
+
+    /**
+     * Method that writes the content to a new file under the 'metrics' directory
+     * of the App's files directory, named with the current timestamp
+     *
+     * @param context        is the Context of the Activity/Application
+     * @param fileNamePrefix is the prefix of the name of the file
+     * @param fileExtension  is the extension of the file
+     * @param content        is the String content to be written
+     * @return The File written
+     * @throws IOException when the file could not be written
+     */
+    private static File writeToFile(Context context, String fileNamePrefix, String fileExtension,
+                                    String content) throws IOException {
+        //Preparing the directory of the reports
+        File reportDirectory = new File(context.getFilesDir(), REPORT_DIRECTORY_NAME);
+        if (!reportDirectory.isDirectory() && !reportDirectory.mkdirs()) {
+            throw new IOException("Unable to create the directory " + reportDirectory);
+        }
+
+        //Naming the report file with the current timestamp
+        String timestamp = new SimpleDateFormat(REPORT_FILE_TIMESTAMP_PATTERN, Locale.US).format(new Date());
+        File reportFile = new File(reportDirectory, fileNamePrefix + timestamp + fileExtension);
+
+        //Writing the content to the file
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(reportFile), "UTF-8");
+            writer.write(content);
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        //Returning the file written
+        return reportFile;
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Class that records the most recent samples of a measurement in a fixed size ring buffer,
+ * and summarizes them into percentiles. Recording is thread-safe and does not allocate.
+ *
+ * @author Kaushik N Sanji
+ */
+public class SampleRecorder {
+
+    //Percentiles reported in the summary
+    private static final float[] SUMMARY_PERCENTILES = {50f, 90f, 95f, 99f};
+
+    //Ring buffer of the samples recorded
+    private final long[] mSamples;
+
+    //Index in the ring buffer where the next sample will be written
+    private int mNextIndex;
+
+    //Number of samples currently held in the ring buffer
+    private int mSampleCount;
+
+    //Total number of samples recorded, including the ones overwritten
+    private long mTotalCount;
+
+    /**
+     * Constructor of {@link SampleRecorder}
+     *
+     * @param capacity is the number of most recent samples to be retained
+     */
+    public SampleRecorder(int capacity) {
+        mSamples = new long[capacity];
+    }
+
+    /**
+     * Method that returns the value at the percentile requested, from the sorted array of samples,
+     * using the nearest-rank method
+     *
+     * @param sortedSamples is the array of samples sorted in the ascending order
+     * @param percentile    is the percentile requested, ranging from 0 to 100
+     * @return The value at the percentile requested; 0 when there are no samples
+     */
+    public static long getPercentile(@NonNull long[] sortedSamples, float percentile) {
+        if (sortedSamples.length == 0) {
+            //Returning 0 when there are no samples
+            return 0;
+        }
+
+        //Finding the nearest rank for the percentile
+        int rank = (int) Math.ceil((percentile / 100f) * sortedSamples.length);
+        //Bounding the rank to the samples available
+        rank = Math.min(Math.max(rank, 1), sortedSamples.length);
+
+        //Returning the value at the rank
+        return sortedSamples[rank - 1];
+    }
+
+    /**
+     * Method that records a sample, overwriting the oldest sample when the buffer is full
+     *
+     * @param value is the value of the sample to be recorded
+     */
+    public synchronized void record(long value) {
+        mSamples[mNextIndex] = value;
+        mNextIndex = (mNextIndex + 1) % mSamples.length;
+        if (mSampleCount < mSamples.length) {
+            mSampleCount++;
+        }
+        mTotalCount++;
+    }
+
+    /**
+     * Method that returns a copy of the samples currently held, sorted in the ascending order
+     *
+     * @return Sorted array of the samples currently held
+     */
+    @NonNull
+    public synchronized long[] getSortedSamples() {
+        long[] sortedSamples = Arrays.copyOf(mSamples, mSampleCount);
+        Arrays.sort(sortedSamples);
+        return sortedSamples;
+    }
+
+    /**
+     * Method that returns the total number of samples recorded, including the ones overwritten
+     *
+     * @return Total number of samples recorded
+     */
+    public synchronized long getTotalCount() {
+        return mTotalCount;
+    }
+
+    /**
+     * Method that discards all the samples recorded
+     */
+    public synchronized void clear() {
+        mNextIndex = 0;
+        mSampleCount = 0;
+        mTotalCount = 0;
+    }
+
+    /**
+     * Method that summarizes the samples currently held into a single line of text, with the
+     * count, the percentiles and the maximum. The samples are expected to be in microseconds,
+     * and are reported in milliseconds.
+     *
+     * @param label is the label to prefix the summary with
+     * @return String containing the summary of the samples
+     */
+    @NonNull
+    public String summarizeMicros(String label) {
+        //Retrieving the samples and the total count
+        long[] sortedSamples = getSortedSamples();
+        long totalCount = getTotalCount();
+
+        //Building the summary
+        StringBuilder summaryBuilder = new StringBuilder(label);
+        summaryBuilder.append(String.format(Locale.US, ": n=%d (last %d)", totalCount, sortedSamples.length));
+        for (float percentile : SUMMARY_PERCENTILES) {
+            summaryBuilder.append(String.format(Locale.US, " p%d=%.2fms",
+                    (int) percentile, getPercentile(sortedSamples, percentile) / 1000f));
+        }
+        summaryBuilder.append(String.format(Locale.US, " max=%.2fms",
+                getPercentile(sortedSamples, 100f) / 1000f));
+
+        //Returning the summary
+        return summaryBuilder.toString();
+    }
+
+    /**
+     * Method that summarizes the samples currently held into a single line of text, with the
+     * count, the percentiles and the maximum, reported as plain counts.
+     *
+     * @param label is the label to prefix the summary with
+     * @return String containing the summary of the samples
+     */
+    @NonNull
+    public String summarizeCounts(String label) {
+        //Retrieving the samples and the total count
+        long[] sortedSamples = getSortedSamples();
+        long totalCount = getTotalCount();
+
+        //Building the summary
+        StringBuilder summaryBuilder = new StringBuilder(label);
+        summaryBuilder.append(String.format(Locale.US, ": n=%d (last %d)", totalCount, sortedSamples.length));
+        for (float percentile : SUMMARY_PERCENTILES) {
+            summaryBuilder.append(String.format(Locale.US, " p%d=%d",
+                    (int) percentile, getPercentile(sortedSamples, percentile)));
+        }
+        summaryBuilder.append(String.format(Locale.US, " max=%d", getPercentile(sortedSamples, 100f)));
+
+        //Returning the summary
+        return summaryBuilder.toString();
+    }
+
+}
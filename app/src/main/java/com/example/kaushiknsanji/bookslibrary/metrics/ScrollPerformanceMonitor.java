@@ -0,0 +1,333 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.metrics;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.RequiresApi;
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link android.support.v7.widget.RecyclerView.OnScrollListener} that measures the frames drawn
+ * while the RecyclerView is scrolling, and records them to the {@link ScrollPerformanceStats}
+ * of its item layout.
+ * <p>
+ * The duration of each frame is read from {@link FrameMetrics} on Android N and above.
+ * On the older versions, it is the interval between the successive frames reported by the
+ * {@link Choreographer}. Frames are measured only while scrolling, and the janky frames
+ * are also counted for each fling.
+ *
+ * @author Kaushik N Sanji
+ */
+public class ScrollPerformanceMonitor extends RecyclerView.OnScrollListener {
+
+    //Constant used for logs
+    private static final String LOG_TAG = ScrollPerformanceMonitor.class.getSimpleName();
+
+    //Default refresh rate of the display, used when the display does not report it
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    //Factor of the frame interval beyond which the interval between the
+    //Choreographer frames denotes a missed frame
+    private static final float CHOREOGRAPHER_JANK_FACTOR = 1.5f;
+
+    //Handler of the worker thread that receives the FrameMetrics, created lazily
+    private static Handler mFrameMetricsHandler;
+
+    //The RecyclerView being monitored
+    private final RecyclerView mRecyclerView;
+
+    //Stats of the item layout, where the measurements are recorded
+    private final ScrollPerformanceStats mStats;
+
+    //Interval between the frames of the display, in nanoseconds
+    private final long mFrameIntervalNanos;
+
+    //Source that reports the frames drawn; Null when the frames cannot be measured
+    private final FrameSource mFrameSource;
+
+    //Number of janky frames seen in the current fling
+    private final AtomicInteger mFlingJankyFrameCount = new AtomicInteger();
+
+    //Boolean that denotes whether the frames are being measured
+    private boolean mIsTracking;
+
+    //Boolean that denotes whether the RecyclerView is currently flinging
+    private volatile boolean mIsFlinging;
+
+    /**
+     * Private Constructor of {@link ScrollPerformanceMonitor}
+     *
+     * @param recyclerView  is the RecyclerView to be monitored
+     * @param window        is the Window of the Activity showing the RecyclerView
+     * @param itemLayoutRes is the layout resource of the item view (List/Grid) of the RecyclerView
+     */
+    private ScrollPerformanceMonitor(RecyclerView recyclerView, Window window, @LayoutRes int itemLayoutRes) {
+        mRecyclerView = recyclerView;
+        mStats = ScrollPerformanceStats.forItemLayout(itemLayoutRes);
+
+        //Reading the refresh rate of the display to find the frame interval
+        float refreshRate = window.getWindowManager().getDefaultDisplay().getRefreshRate();
+        if (refreshRate <= 0f) {
+            refreshRate = DEFAULT_REFRESH_RATE;
+        }
+        mFrameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refreshRate);
+
+        //Selecting the source of the frames based on the version
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            mFrameSource = new FrameMetricsSource(window);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameSource = new ChoreographerSource();
+        } else {
+            mFrameSource = null;
+        }
+    }
+
+    /**
+     * Method that starts monitoring the scroll performance of the RecyclerView
+     *
+     * @param recyclerView  is the RecyclerView to be monitored
+     * @param window        is the Window of the Activity showing the RecyclerView
+     * @param itemLayoutRes is the layout resource of the item view (List/Grid) of the RecyclerView
+     * @return Instance of {@link ScrollPerformanceMonitor} attached, to be detached when done
+     */
+    @NonNull
+    public static ScrollPerformanceMonitor attach(@NonNull RecyclerView recyclerView, @NonNull Window window,
+                                                  @LayoutRes int itemLayoutRes) {
+        ScrollPerformanceMonitor monitor = new ScrollPerformanceMonitor(recyclerView, window, itemLayoutRes);
+        recyclerView.addOnScrollListener(monitor);
+        return monitor;
+    }
+
+    /**
+     * Method that returns the Handler of the worker thread that receives the FrameMetrics,
+     * starting the thread on the first call
+     *
+     * @return Handler of the worker thread
+     */
+    private static synchronized Handler getFrameMetricsHandler() {
+        if (mFrameMetricsHandler == null) {
+            HandlerThread handlerThread = new HandlerThread(LOG_TAG, Process.THREAD_PRIORITY_BACKGROUND);
+            handlerThread.start();
+            mFrameMetricsHandler = new Handler(handlerThread.getLooper());
+        }
+        return mFrameMetricsHandler;
+    }
+
+    /**
+     * Method that stops monitoring the RecyclerView
+     */
+    public void detach() {
+        mRecyclerView.removeOnScrollListener(this);
+        onScrollStateChanged(mRecyclerView, RecyclerView.SCROLL_STATE_IDLE);
+    }
+
+    /**
+     * Callback method to be invoked when RecyclerView's scroll state changes.
+     *
+     * @param recyclerView The RecyclerView whose scroll state has changed.
+     * @param newState     The updated scroll state. One of {@link RecyclerView#SCROLL_STATE_IDLE},
+     *                     {@link RecyclerView#SCROLL_STATE_DRAGGING} or {@link RecyclerView#SCROLL_STATE_SETTLING}.
+     */
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (mFrameSource == null) {
+            //Returning when the frames cannot be measured
+            return;
+        }
+
+        if (newState != RecyclerView.SCROLL_STATE_SETTLING && mIsFlinging) {
+            //Recording the janky frames of the fling, when the fling has ended or was caught by the user
+            mIsFlinging = false;
+            mStats.recordFling(mFlingJankyFrameCount.get());
+        }
+
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            //Stopping the measurement when the scroll has ended
+            if (mIsTracking) {
+                mIsTracking = false;
+                mFrameSource.stop();
+            }
+        } else {
+            //Starting the measurement when the scroll has begun
+            if (!mIsTracking) {
+                mIsTracking = true;
+                mFrameSource.start();
+            }
+
+            if (newState == RecyclerView.SCROLL_STATE_SETTLING && !mIsFlinging) {
+                //Counting the janky frames afresh for the new fling
+                mFlingJankyFrameCount.set(0);
+                mIsFlinging = true;
+            }
+        }
+    }
+
+    /**
+     * Method invoked by the {@link FrameSource} for each frame drawn while scrolling
+     *
+     * @param durationNanos is the duration of the frame in nanoseconds
+     * @param isJanky       is a Boolean which denotes whether the frame missed its deadline
+     */
+    private void onFrame(long durationNanos, boolean isJanky) {
+        //Recording the frame
+        mStats.recordFrame(TimeUnit.NANOSECONDS.toMicros(durationNanos), isJanky);
+        if (isJanky && mIsFlinging) {
+            //Counting the janky frame for the current fling
+            mFlingJankyFrameCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Interface for the sources that report the frames drawn
+     */
+    private interface FrameSource {
+        /**
+         * Method that starts reporting the frames
+         */
+        void start();
+
+        /**
+         * Method that stops reporting the frames
+         */
+        void stop();
+    }
+
+    /**
+     * {@link FrameSource} that reports the total duration of each frame, from the {@link FrameMetrics}
+     * of the Window. A frame is janky when its duration exceeds the frame interval.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    private class FrameMetricsSource implements FrameSource, Window.OnFrameMetricsAvailableListener {
+
+        //The Window whose frames are reported
+        private final Window mWindow;
+
+        /**
+         * Constructor of {@link FrameMetricsSource}
+         *
+         * @param window is the Window whose frames are to be reported
+         */
+        FrameMetricsSource(Window window) {
+            mWindow = window;
+        }
+
+        /**
+         * Method that starts reporting the frames
+         */
+        @Override
+        public void start() {
+            mWindow.addOnFrameMetricsAvailableListener(this, getFrameMetricsHandler());
+        }
+
+        /**
+         * Method that stops reporting the frames
+         */
+        @Override
+        public void stop() {
+            mWindow.removeOnFrameMetricsAvailableListener(this);
+        }
+
+        /**
+         * Called when information is available for the previously rendered frame.
+         *
+         * @param window                       The {@link Window} on which the frame was displayed.
+         * @param frameMetrics                 the available metrics.
+         * @param dropCountSinceLastInvocation the number of reports dropped since the last time
+         *                                     this callback was invoked.
+         */
+        @Override
+        public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+            if (frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+                //Ignoring the first frame of the Window, which is not a scroll frame
+                return;
+            }
+
+            //Reporting the total duration of the frame
+            long durationNanos = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            onFrame(durationNanos, durationNanos > mFrameIntervalNanos);
+        }
+    }
+
+    /**
+     * {@link FrameSource} that reports the interval between the successive frames from the
+     * {@link Choreographer}. A frame is janky when the interval denotes a missed frame.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    private class ChoreographerSource implements FrameSource, Choreographer.FrameCallback {
+
+        //Time of the previous frame in nanoseconds; 0 when not yet received
+        private long mLastFrameTimeNanos;
+
+        //Boolean that denotes whether the frames are being reported
+        private boolean mIsRunning;
+
+        /**
+         * Method that starts reporting the frames
+         */
+        @Override
+        public void start() {
+            mIsRunning = true;
+            mLastFrameTimeNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        /**
+         * Method that stops reporting the frames
+         */
+        @Override
+        public void stop() {
+            mIsRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        /**
+         * Called when a new display frame is being rendered.
+         *
+         * @param frameTimeNanos The time in nanoseconds when the frame started being rendered,
+         *                       in the {@link System#nanoTime()} timebase.
+         */
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mIsRunning) {
+                //Returning when stopped
+                return;
+            }
+
+            if (mLastFrameTimeNanos > 0) {
+                //Reporting the interval from the previous frame
+                long durationNanos = frameTimeNanos - mLastFrameTimeNanos;
+                onFrame(durationNanos, durationNanos > mFrameIntervalNanos * CHOREOGRAPHER_JANK_FACTOR);
+            }
+            mLastFrameTimeNanos = frameTimeNanos;
+
+            //Registering for the next frame
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+}
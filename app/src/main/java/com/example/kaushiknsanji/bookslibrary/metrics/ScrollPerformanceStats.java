@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.metrics;
+
+import android.content.Context;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.util.SparseArray;
+
+import java.util.Locale;
+
+/**
+ * Application level class that holds the scroll performance measurements of the RecyclerViews,
+ * one for each item layout (List/Grid). The measurements are recorded by the
+ * {@link ScrollPerformanceMonitor} and the Adapters, and outlive the Fragments recording them.
+ *
+ * @author Kaushik N Sanji
+ */
+public class ScrollPerformanceStats {
+
+    //Number of most recent frames retained for the percentiles
+    private static final int FRAME_SAMPLE_CAPACITY = 2048;
+    //Number of most recent binds retained for the percentiles
+    private static final int BIND_SAMPLE_CAPACITY = 1024;
+    //Number of most recent flings retained for the percentiles
+    private static final int FLING_SAMPLE_CAPACITY = 256;
+
+    //Sparse Array of the Stats instances keyed by their item layout resource
+    private static final SparseArray<ScrollPerformanceStats> mStatsArray = new SparseArray<>();
+
+    //Durations of the frames drawn during scroll, in microseconds
+    private final SampleRecorder mFrameDurations = new SampleRecorder(FRAME_SAMPLE_CAPACITY);
+    //Number of janky frames in each fling
+    private final SampleRecorder mJankyFramesPerFling = new SampleRecorder(FLING_SAMPLE_CAPACITY);
+    //Durations of each complete bind of the item views, in microseconds
+    private final SampleRecorder mBindDurations = new SampleRecorder(BIND_SAMPLE_CAPACITY);
+
+    //Total number of janky frames recorded
+    private long mJankyFrameCount;
+
+    /**
+     * Private Constructor of {@link ScrollPerformanceStats}
+     */
+    private ScrollPerformanceStats() {
+    }
+
+    /**
+     * Method that returns the Stats instance of the item layout, creating it if not present
+     *
+     * @param itemLayoutRes is the layout resource of the item view (List/Grid)
+     * @return Instance of {@link ScrollPerformanceStats} for the item layout
+     */
+    @NonNull
+    public static ScrollPerformanceStats forItemLayout(@LayoutRes int itemLayoutRes) {
+        synchronized (mStatsArray) {
+            ScrollPerformanceStats stats = mStatsArray.get(itemLayoutRes);
+            if (stats == null) {
+                //Creating the Stats instance for the first time
+                stats = new ScrollPerformanceStats();
+                mStatsArray.put(itemLayoutRes, stats);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Method that summarizes the measurements of all the item layouts into a readable report
+     *
+     * @param context is the Context used for resolving the names of the item layouts
+     * @return String containing the report of the measurements
+     */
+    @NonNull
+    public static String dumpAll(@NonNull Context context) {
+        StringBuilder reportBuilder = new StringBuilder();
+        synchronized (mStatsArray) {
+            //Iterating over the Stats of each item layout
+            for (int index = 0, size = mStatsArray.size(); index < size; index++) {
+                //Resolving the name of the item layout
+                String layoutName = context.getResources().getResourceEntryName(mStatsArray.keyAt(index));
+                //Appending the report of the item layout
+                mStatsArray.valueAt(index).dump(layoutName, reportBuilder);
+            }
+        }
+        return reportBuilder.toString();
+    }
+
+    /**
+     * Method that discards the measurements of all the item layouts
+     */
+    public static void resetAll() {
+        synchronized (mStatsArray) {
+            for (int index = 0, size = mStatsArray.size(); index < size; index++) {
+                mStatsArray.valueAt(index).reset();
+            }
+        }
+    }
+
+    /**
+     * Method that records the duration of a frame drawn during scroll
+     *
+     * @param durationMicros is the duration of the frame in microseconds
+     * @param isJanky        is a Boolean which denotes whether the frame missed its deadline
+     */
+    public void recordFrame(long durationMicros, boolean isJanky) {
+        mFrameDurations.record(durationMicros);
+        if (isJanky) {
+            synchronized (this) {
+                mJankyFrameCount++;
+            }
+        }
+    }
+
+    /**
+     * Method that records the number of janky frames seen in a fling
+     *
+     * @param jankyFrameCount is the number of janky frames in the fling
+     */
+    public void recordFling(int jankyFrameCount) {
+        mJankyFramesPerFling.record(jankyFrameCount);
+    }
+
+    /**
+     * Method that records the duration of a complete bind of an item view
+     *
+     * @param durationNanos is the duration of the bind in nanoseconds
+     */
+    public void recordBind(long durationNanos) {
+        mBindDurations.record(durationNanos / 1000L);
+    }
+
+    /**
+     * Method that appends the summary of the measurements to the report
+     *
+     * @param layoutName    is the name of the item layout whose measurements are reported
+     * @param reportBuilder is the StringBuilder of the report
+     */
+    private void dump(String layoutName, StringBuilder reportBuilder) {
+        //Retrieving the frame counts
+        long frameCount = mFrameDurations.getTotalCount();
+        long jankyFrameCount;
+        synchronized (this) {
+            jankyFrameCount = mJankyFrameCount;
+        }
+
+        //Appending the summary
+        reportBuilder.append("[").append(layoutName).append("]\n");
+        reportBuilder.append(mFrameDurations.summarizeMicros("Frame duration")).append("\n");
+        reportBuilder.append(String.format(Locale.US, "Janky frames: %d of %d (%.1f%%)\n",
+                jankyFrameCount, frameCount, frameCount == 0 ? 0f : (100f * jankyFrameCount) / frameCount));
+        reportBuilder.append(mJankyFramesPerFling.summarizeCounts("Janky frames per fling")).append("\n");
+        reportBuilder.append(mBindDurations.summarizeMicros("Bind duration")).append("\n\n");
+    }
+
+    /**
+     * Method that discards the measurements recorded
+     */
+    private void reset() {
+        mFrameDurations.clear();
+        mJankyFramesPerFling.clear();
+        mBindDurations.clear();
+        synchronized (this) {
+            mJankyFrameCount = 0;
+        }
+    }
+
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.metrics;
+
+import android.support.annotation.NonNull;
+import android.support.v4.os.TraceCompat;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application level class that traces the latency of each Search end-to-end, from the
+ * Search Intent till the first page of results is laid out.
+ * <p>
+ * Every Search is identified by a Search ID, and each stage of the Search records a span
+ * under that ID. The spans are also emitted as systrace sections. The completed traces are
+ * retained in a ring buffer which can be exported as JSON, and the time-to-first-item,
+ * time-to-full-page and the duration of each stage are summarized into percentiles.
+ *
+ * @author Kaushik N Sanji
+ */
+public class SearchTracer {
+
+    //Search ID denoting that no Search is being traced
+    public static final long NO_SEARCH_ID = 0L;
+
+    //Stages of the Search, in the order of their occurrence
+    public static final String STAGE_HANDLE_INTENT = "handleIntent";
+    public static final String STAGE_CREATE_URL = "createURL";
+    public static final String STAGE_HTTP = "http";
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_PAGINATION_PROBE = "paginationProbe";
+    public static final String STAGE_DIFF = "diff";
+    public static final String STAGE_DISPATCH = "dispatchUpdatesTo";
+    public static final String STAGE_ITEM_DATA_SWAPPED = "onItemDataSwapped";
+
+    //Constant used for logs
+    private static final String LOG_TAG = SearchTracer.class.getSimpleName();
+
+    //Prefix of the systrace sections
+    private static final String SECTION_PREFIX = "Search#";
+
+    //Number of most recent traces retained
+    private static final int TRACE_BUFFER_CAPACITY = 32;
+    //Number of most recent samples retained for the percentiles
+    private static final int SAMPLE_CAPACITY = 256;
+
+    //Lock guarding the state of the tracer
+    private static final Object mLock = new Object();
+
+    //Ring buffer of the most recent traces
+    private static final ArrayDeque<SearchTrace> mTraceBuffer = new ArrayDeque<>(TRACE_BUFFER_CAPACITY);
+
+    //Time-to-first-item and time-to-full-page samples of the completed traces, in microseconds
+    private static final SampleRecorder mFirstItemTimes = new SampleRecorder(SAMPLE_CAPACITY);
+    private static final SampleRecorder mFullPageTimes = new SampleRecorder(SAMPLE_CAPACITY);
+
+    //Duration samples of each stage, in microseconds, keyed by the stage in the order of occurrence
+    private static final Map<String, SampleRecorder> mStageDurations = new LinkedHashMap<>();
+
+    //The trace of the Search in progress; Null when no Search is being traced
+    private static SearchTrace mActiveTrace;
+
+    //Stores the last Search ID generated
+    private static long mLastSearchId;
+
+    static {
+        //Static constructor invoked only on the first time when loaded into VM
+
+        //Creating the recorders of each stage in the order of their occurrence
+        String[] stages = {STAGE_HANDLE_INTENT, STAGE_CREATE_URL, STAGE_HTTP, STAGE_PARSE,
+                STAGE_PAGINATION_PROBE, STAGE_DIFF, STAGE_DISPATCH, STAGE_ITEM_DATA_SWAPPED};
+        for (String stage : stages) {
+            mStageDurations.put(stage, new SampleRecorder(SAMPLE_CAPACITY));
+        }
+    }
+
+    /**
+     * Method that starts tracing a new Search. Any Search still being traced is
+     * retained as superseded.
+     *
+     * @param query is the Search Query executed
+     * @return The Search ID of the new Search
+     */
+    public static long beginSearch(String query) {
+        synchronized (mLock) {
+            //Retiring the Search still being traced
+            if (mActiveTrace != null) {
+                retireActiveTrace(false);
+            }
+
+            //Starting the trace of the new Search
+            mActiveTrace = new SearchTrace(++mLastSearchId, query);
+            return mActiveTrace.mSearchId;
+        }
+    }
+
+    /**
+     * Method that returns the Search ID of the Search being traced, starting a new trace
+     * when there is none. Used when a Search is started without a Search Intent, like on
+     * change of the Search settings.
+     *
+     * @param query is the Search Query executed
+     * @return The Search ID of the Search being traced
+     */
+    public static long getOrBeginSearch(String query) {
+        synchronized (mLock) {
+            if (mActiveTrace != null) {
+                return mActiveTrace.mSearchId;
+            }
+        }
+        return beginSearch(query);
+    }
+
+    /**
+     * Method that returns the Search ID of the Search being traced
+     *
+     * @return The Search ID of the Search being traced; {@link #NO_SEARCH_ID} when there is none
+     */
+    public static long getActiveSearchId() {
+        synchronized (mLock) {
+            return mActiveTrace != null ? mActiveTrace.mSearchId : NO_SEARCH_ID;
+        }
+    }
+
+    /**
+     * Method that begins the span of a stage of the Search, and its systrace section.
+     * The span needs to be ended by {@link #endStage(long, String, long)} on the same thread.
+     *
+     * @param stage is the Stage of the Search, one of the STAGE_* constants
+     * @return The start time of the span in nanoseconds, to be passed to {@link #endStage(long, String, long)}
+     */
+    public static long beginStage(String stage) {
+        TraceCompat.beginSection(SECTION_PREFIX + stage);
+        return System.nanoTime();
+    }
+
+    /**
+     * Method that ends the span of a stage of the Search and its systrace section. The span is
+     * recorded only when the Search is still being traced.
+     *
+     * @param searchId   is the Search ID of the Search
+     * @param stage      is the Stage of the Search, one of the STAGE_* constants
+     * @param startNanos is the start time of the span returned by {@link #beginStage(String)}
+     */
+    public static void endStage(long searchId, String stage, long startNanos) {
+        long endNanos = System.nanoTime();
+        TraceCompat.endSection();
+
+        synchronized (mLock) {
+            if (mActiveTrace == null || mActiveTrace.mSearchId != searchId) {
+                //Ignoring the span when the Search is not being traced
+                return;
+            }
+
+            //Recording the span to the trace and its duration to the stage
+            mActiveTrace.addSpan(stage, startNanos, endNanos);
+            SampleRecorder stageRecorder = mStageDurations.get(stage);
+            if (stageRecorder != null) {
+                stageRecorder.record(TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos));
+            }
+        }
+    }
+
+    /**
+     * Method to be called when an item view is bound, which marks the time-to-first-item of the
+     * Search being traced, after its results have been dispatched to the Adapters
+     */
+    public static void markItemBound() {
+        synchronized (mLock) {
+            if (mActiveTrace != null && mActiveTrace.mFirstItemNanos < 0 && mActiveTrace.mIsDispatched) {
+                mActiveTrace.mFirstItemNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Method to be called once the page of results is laid out, which marks the
+     * time-to-full-page and completes the trace of the Search
+     *
+     * @param searchId  is the Search ID of the Search
+     * @param itemCount is the number of items in the page of results
+     */
+    public static void markFullPage(long searchId, int itemCount) {
+        synchronized (mLock) {
+            if (mActiveTrace == null || mActiveTrace.mSearchId != searchId) {
+                //Ignoring when the Search is not being traced
+                return;
+            }
+
+            //Marking the time-to-full-page and completing the trace
+            mActiveTrace.mFullPageNanos = System.nanoTime();
+            mActiveTrace.mItemCount = itemCount;
+            retireActiveTrace(true);
+        }
+    }
+
+    /**
+     * Method that moves the trace of the Search in progress to the ring buffer.
+     * Should be called with the lock held.
+     *
+     * @param isCompleted is a Boolean which denotes whether the Search completed or was superseded
+     */
+    private static void retireActiveTrace(boolean isCompleted) {
+        SearchTrace trace = mActiveTrace;
+        mActiveTrace = null;
+        trace.mIsCompleted = isCompleted;
+
+        if (isCompleted) {
+            //Recording the latencies of the completed Search with results
+            if (trace.mFirstItemNanos > 0) {
+                mFirstItemTimes.record(TimeUnit.NANOSECONDS.toMicros(trace.mFirstItemNanos - trace.mStartNanos));
+            }
+            if (trace.mItemCount > 0) {
+                mFullPageTimes.record(TimeUnit.NANOSECONDS.toMicros(trace.mFullPageNanos - trace.mStartNanos));
+            }
+        }
+
+        //Adding to the ring buffer, evicting the oldest trace when full
+        if (mTraceBuffer.size() == TRACE_BUFFER_CAPACITY) {
+            mTraceBuffer.pollFirst();
+        }
+        mTraceBuffer.addLast(trace);
+
+        Log.d(LOG_TAG, "retireActiveTrace: " + trace.getSummary());
+    }
+
+    /**
+     * Method that summarizes the latencies into a readable report
+     *
+     * @return String containing the report of the latencies
+     */
+    @NonNull
+    public static String dump() {
+        StringBuilder reportBuilder = new StringBuilder();
+        synchronized (mLock) {
+            reportBuilder.append(mFirstItemTimes.summarizeMicros("Time to first item")).append("\n");
+            reportBuilder.append(mFullPageTimes.summarizeMicros("Time to full page")).append("\n\n");
+            for (Map.Entry<String, SampleRecorder> stageEntry : mStageDurations.entrySet()) {
+                reportBuilder.append(stageEntry.getValue().summarizeMicros(stageEntry.getKey())).append("\n");
+            }
+            reportBuilder.append("\nRecent traces:\n");
+            for (SearchTrace trace : mTraceBuffer) {
+                reportBuilder.append(trace.getSummary()).append("\n");
+            }
+        }
+        return reportBuilder.toString();
+    }
+
+    /**
+     * Method that exports the traces in the ring buffer as JSON
+     *
+     * @return String containing the JSON Array of the traces
+     */
+    @NonNull
+    public static String exportJson() {
+        JSONArray tracesJsonArray = new JSONArray();
+        synchronized (mLock) {
+            for (SearchTrace trace : mTraceBuffer) {
+                try {
+                    tracesJsonArray.put(trace.toJson());
+                } catch (JSONException e) {
+                    Log.e(LOG_TAG, "Error occurred while exporting the trace " + trace.mSearchId + "\n", e);
+                }
+            }
+        }
+        try {
+            return tracesJsonArray.toString(2);
+        } catch (JSONException e) {
+            return tracesJsonArray.toString();
+        }
+    }
+
+    /**
+     * Method that discards the traces and the latencies recorded
+     */
+    public static void reset() {
+        synchronized (mLock) {
+            mTraceBuffer.clear();
+            mFirstItemTimes.clear();
+            mFullPageTimes.clear();
+            for (SampleRecorder stageRecorder : mStageDurations.values()) {
+                stageRecorder.clear();
+            }
+        }
+    }
+
+    /**
+     * Class that holds the spans and the milestones of a single Search
+     */
+    private static class SearchTrace {
+
+        //Search ID of the Search
+        final long mSearchId;
+        //Search Query executed
+        final String mQuery;
+        //Start time of the Search in nanoseconds
+        final long mStartNanos = System.nanoTime();
+        //Start time of the Search as the wall clock time in milliseconds
+        final long mStartEpochMillis = System.currentTimeMillis();
+        //Spans recorded for the stages of the Search
+        final List<Span> mSpans = new ArrayList<>();
+        //Times of the first item bound and the full page laid out in nanoseconds; -1 when not reached
+        long mFirstItemNanos = -1;
+        long mFullPageNanos = -1;
+        //Number of items in the page of results
+        int mItemCount;
+        //Boolean that denotes whether the Search completed or was superseded
+        boolean mIsCompleted;
+        //Boolean that denotes whether the results have been dispatched to the Adapters
+        boolean mIsDispatched;
+
+        /**
+         * Constructor of {@link SearchTrace}
+         *
+         * @param searchId is the Search ID of the Search
+         * @param query    is the Search Query executed
+         */
+        SearchTrace(long searchId, String query) {
+            mSearchId = searchId;
+            mQuery = query;
+        }
+
+        /**
+         * Method that adds the span of a stage to the trace
+         *
+         * @param stage      is the Stage of the Search
+         * @param startNanos is the start time of the span in nanoseconds
+         * @param endNanos   is the end time of the span in nanoseconds
+         */
+        void addSpan(String stage, long startNanos, long endNanos) {
+            mSpans.add(new Span(stage, startNanos - mStartNanos, endNanos - startNanos,
+                    Thread.currentThread().getName()));
+            if (STAGE_DISPATCH.equals(stage)) {
+                //Noting that the results have been dispatched to the Adapters
+                mIsDispatched = true;
+            }
+        }
+
+        /**
+         * Method that returns a single line summary of the trace
+         *
+         * @return String containing the summary of the trace
+         */
+        String getSummary() {
+            StringBuilder summaryBuilder = new StringBuilder();
+            summaryBuilder.append("#").append(mSearchId).append(" '").append(mQuery).append("'");
+            if (!mIsCompleted) {
+                summaryBuilder.append(" superseded");
+            }
+            if (mFirstItemNanos > 0) {
+                summaryBuilder.append(" ttfi=").append(TimeUnit.NANOSECONDS.toMillis(mFirstItemNanos - mStartNanos)).append("ms");
+            }
+            if (mFullPageNanos > 0) {
+                summaryBuilder.append(" full=").append(TimeUnit.NANOSECONDS.toMillis(mFullPageNanos - mStartNanos)).append("ms");
+            }
+            for (Span span : mSpans) {
+                summaryBuilder.append(" ").append(span.mStage).append("=")
+                        .append(TimeUnit.NANOSECONDS.toMillis(span.mDurationNanos)).append("ms");
+            }
+            return summaryBuilder.toString();
+        }
+
+        /**
+         * Method that converts the trace to JSON
+         *
+         * @return JSONObject of the trace
+         * @throws JSONException when the trace could not be converted
+         */
+        JSONObject toJson() throws JSONException {
+            JSONObject traceJsonObject = new JSONObject();
+            traceJsonObject.put("searchId", mSearchId);
+            traceJsonObject.put("query", mQuery);
+            traceJsonObject.put("startEpochMillis", mStartEpochMillis);
+            traceJsonObject.put("completed", mIsCompleted);
+            traceJsonObject.put("itemCount", mItemCount);
+            if (mFirstItemNanos > 0) {
+                traceJsonObject.put("timeToFirstItemMicros", TimeUnit.NANOSECONDS.toMicros(mFirstItemNanos - mStartNanos));
+            }
+            if (mFullPageNanos > 0) {
+                traceJsonObject.put("timeToFullPageMicros", TimeUnit.NANOSECONDS.toMicros(mFullPageNanos - mStartNanos));
+            }
+
+            JSONArray spansJsonArray = new JSONArray();
+            for (Span span : mSpans) {
+                JSONObject spanJsonObject = new JSONObject();
+                spanJsonObject.put("stage", span.mStage);
+                spanJsonObject.put("startOffsetMicros", TimeUnit.NANOSECONDS.toMicros(span.mStartOffsetNanos));
+                spanJsonObject.put("durationMicros", TimeUnit.NANOSECONDS.toMicros(span.mDurationNanos));
+                spanJsonObject.put("thread", span.mThreadName);
+                spansJsonArray.put(spanJsonObject);
+            }
+            traceJsonObject.put("spans", spansJsonArray);
+
+            return traceJsonObject;
+        }
+    }
+
+    /**
+     * Class that holds the timing of a single stage of the Search
+     */
+    private static class Span {
+
+        //Stage of the Search
+        final String mStage;
+        //Start of the span relative to the start of the Search, in nanoseconds
+        final long mStartOffsetNanos;
+        //Duration of the span in nanoseconds
+        final long mDurationNanos;
+        //Name of the thread that ran the stage
+        final String mThreadName;
+
+        /**
+         * Constructor of {@link Span}
+         *
+         * @param stage            is the Stage of the Search
+         * @param startOffsetNanos is the start of the span relative to the start of the Search, in nanoseconds
+         * @param durationNanos    is the duration of the span in nanoseconds
+         * @param threadName       is the name of the thread that ran the stage
+         */
+        Span(String stage, long startOffsetNanos, long durationNanos, String threadName) {
+            mStage = stage;
+            mStartOffsetNanos = startOffsetNanos;
+            mDurationNanos = durationNanos;
+            mThreadName = threadName;
+        }
+    }
+
+}
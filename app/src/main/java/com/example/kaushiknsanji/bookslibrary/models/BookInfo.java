@@ -26,6 +26,7 @@ import java.text.DateFormat;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Locale;
 
@@ -66,8 +67,15 @@ public class BookInfo implements Parcelable {
             return new BookInfo[size];
         }
     };
+    //FNV-1a 64-bit constants used for generating the Stable Id from the Book Id
+    private static final long FNV_64_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_64_PRIME = 0x100000001b3L;
+    //Approximate overhead in bytes of an object in memory, used for estimating the size of the Book
+    private static final int OBJECT_OVERHEAD_BYTES = 16;
     //Stores the id of the Book (for comparison purpose)
     private String mBookId;
+    //Stores the 64-bit Stable Id generated from the Book Id
+    private long mStableId;
     //Stores the Title of the Book
     private String mTitle;
     //Stores the SubTitle of the Book if any
@@ -112,6 +120,14 @@ public class BookInfo implements Parcelable {
     private String mPreviewLink;
     //Stores the link to buying page of the book
     private String mBuyLink;
+    //Stores the fingerprint of the textual information of the Book (Title, Authors, Publisher etc.)
+    private int mInfoFingerprint;
+    //Stores the fingerprint of the Book ratings and its count
+    private int mRatingFingerprint;
+    //Stores the fingerprint of the saleability and prices of the Book
+    private int mPriceFingerprint;
+    //Stores the fingerprint of the Image links of the Book
+    private int mImageFingerprint;
 
     /**
      * Constructor of {@link BookInfo}
@@ -120,6 +136,7 @@ public class BookInfo implements Parcelable {
      */
     public BookInfo(String bookId) {
         mBookId = bookId;
+        mStableId = generateStableId(bookId);
     }
 
     /**
@@ -129,6 +146,7 @@ public class BookInfo implements Parcelable {
      */
     protected BookInfo(Parcel in) {
         mBookId = in.readString();
+        mStableId = generateStableId(mBookId);
         mTitle = in.readString();
         mSubTitle = in.readString();
         mAuthors = in.createStringArray();
@@ -151,6 +169,10 @@ public class BookInfo implements Parcelable {
         mPdfLink = in.readString();
         mPreviewLink = in.readString();
         mBuyLink = in.readString();
+        mInfoFingerprint = in.readInt();
+        mRatingFingerprint = in.readInt();
+        mPriceFingerprint = in.readInt();
+        mImageFingerprint = in.readInt();
     }
 
     /**
@@ -185,6 +207,10 @@ public class BookInfo implements Parcelable {
         dest.writeString(mPdfLink);
         dest.writeString(mPreviewLink);
         dest.writeString(mBuyLink);
+        dest.writeInt(mInfoFingerprint);
+        dest.writeInt(mRatingFingerprint);
+        dest.writeInt(mPriceFingerprint);
+        dest.writeInt(mImageFingerprint);
     }
 
     /**
@@ -333,6 +359,15 @@ public class BookInfo implements Parcelable {
         this.mSubTitle = subTitle;
     }
 
+    /**
+     * Getter method for the List of Authors
+     *
+     * @return The List of Authors; or NULL when no Authors present
+     */
+    public String[] getAuthorNames() {
+        return mAuthors;
+    }
+
     /**
      * Method that prepares and returns the Authors of the Book
      *
@@ -364,6 +399,16 @@ public class BookInfo implements Parcelable {
         return TextUtils.isEmpty(mPublisher) ? fallback : mPublisher;
     }
 
+    /**
+     * Getter method for the Published date of the Book as received, such as 'yyyy-MM-dd' or 'yyyy',
+     * which orders chronologically when compared as Strings
+     *
+     * @return String containing the Published date; or NULL when not available
+     */
+    public String getPublishedDateStr() {
+        return mPublishedDateStr;
+    }
+
     /**
      * Method that prepares and returns the Published date of the Book (in Medium format)
      *
@@ -479,6 +524,15 @@ public class BookInfo implements Parcelable {
         this.mBookType = bookType;
     }
 
+    /**
+     * Getter method for the List of Categories the Book belongs to
+     *
+     * @return The List of Categories; or NULL when no Categories present
+     */
+    public String[] getCategoryNames() {
+        return mCategories;
+    }
+
     /**
      * Method that prepares and returns the Categories the Book belongs to
      *
@@ -581,6 +635,15 @@ public class BookInfo implements Parcelable {
         return NumberFormat.getCurrencyInstance().format(mRetailPrice);
     }
 
+    /**
+     * Getter method for the Retail Price value of the Book
+     *
+     * @return The Retail Price value of the Book, which is 0 when not for sale
+     */
+    public double getRetailPriceValue() {
+        return mRetailPrice;
+    }
+
     /**
      * Setter method for the Retail Price value of the Book
      *
@@ -704,6 +767,77 @@ public class BookInfo implements Parcelable {
         return mBookId;
     }
 
+    /**
+     * Method that returns the 64-bit Stable Id of the Book Volume generated from its Id,
+     * used as the Stable Id of the items in the RecyclerView's Adapters
+     *
+     * @return Long value of the Stable Id of the Book Volume
+     */
+    public long getStableId() {
+        return mStableId;
+    }
+
+    /**
+     * Method that generates a 64-bit Id from the Book Id using the FNV-1a hash,
+     * which keeps the chance of a collision far lower than that of {@link String#hashCode()}
+     *
+     * @param bookId is the Id of the Book Volume
+     * @return Long value of the 64-bit Id generated
+     */
+    private static long generateStableId(String bookId) {
+        long hash = FNV_64_OFFSET_BASIS;
+        if (bookId != null) {
+            int length = bookId.length();
+            for (int index = 0; index < length; index++) {
+                hash ^= bookId.charAt(index);
+                hash *= FNV_64_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Method that estimates the number of bytes held in memory by this Book,
+     * used for bounding the Memory Cache of the Search results by size.
+     * Strings are counted at 2 bytes per character over a fixed overhead per object.
+     *
+     * @return Integer value of the approximate size of the Book in bytes
+     */
+    public int estimateSizeInBytes() {
+        //Starting with the object header and the primitive fields of the Book
+        int sizeInBytes = OBJECT_OVERHEAD_BYTES * 2;
+
+        //Adding the size of the String fields
+        for (String value : new String[]{mBookId, mTitle, mSubTitle, mPublisher, mPublishedDateStr,
+                mBookType, mSaleability, mDescription, mImageLinkSmall, mImageLinkLarge,
+                mImageLinkExtraLarge, mAccessViewStatus, mEpubLink, mPdfLink, mPreviewLink, mBuyLink}) {
+            sizeInBytes += estimateSizeInBytes(value);
+        }
+
+        //Adding the size of the String array fields
+        for (String[] values : new String[][]{mAuthors, mCategories}) {
+            if (values != null) {
+                sizeInBytes += OBJECT_OVERHEAD_BYTES + 4 * values.length;
+                for (String value : values) {
+                    sizeInBytes += estimateSizeInBytes(value);
+                }
+            }
+        }
+
+        //Returning the size estimated
+        return sizeInBytes;
+    }
+
+    /**
+     * Method that estimates the number of bytes held in memory by the String passed
+     *
+     * @param value is the String whose size is to be estimated
+     * @return Integer value of the approximate size of the String in bytes; 0 when null
+     */
+    private static int estimateSizeInBytes(String value) {
+        return (value == null) ? 0 : OBJECT_OVERHEAD_BYTES * 2 + 2 * value.length();
+    }
+
     /**
      * Method that checks and returns whether the Book Sample is available or not
      *
@@ -743,4 +877,71 @@ public class BookInfo implements Parcelable {
         this.mBuyLink = buyLink;
     }
 
+    /**
+     * Method that computes and stores the fingerprints of the content of the Book.
+     * To be called once all the data of the Book has been set, so that
+     * the content comparisons done by {@link BooksDiffUtility} are reduced to integer comparisons
+     * instead of comparing the fields on every call.
+     */
+    public void computeFingerprints() {
+        //Computing the fingerprint of the textual information shown for the Book
+        mInfoFingerprint = Arrays.hashCode(new Object[]{
+                mTitle, mSubTitle, mPublisher, mPublishedDateStr, mPageCount, mBookType,
+                mDescription, mAccessViewStatus, mEpubLink, mPdfLink, mPreviewLink, mBuyLink
+        });
+        mInfoFingerprint = 31 * mInfoFingerprint + Arrays.hashCode(mAuthors);
+        mInfoFingerprint = 31 * mInfoFingerprint + Arrays.hashCode(mCategories);
+
+        //Computing the fingerprint of the Book ratings
+        mRatingFingerprint = 31 * Float.floatToIntBits(mBookRatings) + mBookRatingCount;
+
+        //Computing the fingerprint of the Book prices
+        mPriceFingerprint = Arrays.hashCode(new Object[]{mSaleability, mListPrice, mRetailPrice});
+
+        //Computing the fingerprint of the Book Image links
+        mImageFingerprint = Arrays.hashCode(new Object[]{
+                mImageLinkSmall, mImageLinkLarge, mImageLinkExtraLarge
+        });
+    }
+
+    /**
+     * Method that returns the fingerprint of the textual information of the Book
+     *
+     * @return Integer value of the fingerprint of the textual information of the Book
+     * @see #computeFingerprints()
+     */
+    public int getInfoFingerprint() {
+        return mInfoFingerprint;
+    }
+
+    /**
+     * Method that returns the fingerprint of the Book ratings
+     *
+     * @return Integer value of the fingerprint of the Book ratings
+     * @see #computeFingerprints()
+     */
+    public int getRatingFingerprint() {
+        return mRatingFingerprint;
+    }
+
+    /**
+     * Method that returns the fingerprint of the saleability and prices of the Book
+     *
+     * @return Integer value of the fingerprint of the saleability and prices of the Book
+     * @see #computeFingerprints()
+     */
+    public int getPriceFingerprint() {
+        return mPriceFingerprint;
+    }
+
+    /**
+     * Method that returns the fingerprint of the Image links of the Book
+     *
+     * @return Integer value of the fingerprint of the Image links of the Book
+     * @see #computeFingerprints()
+     */
+    public int getImageFingerprint() {
+        return mImageFingerprint;
+    }
+
 }
@@ -0,0 +1,513 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.models;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.example.kaushiknsanji.bookslibrary.R;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable Model Class that holds the typed parameters of a Search, that is, the Search Query
+ * along with the Search Settings used for preparing the Search URL.
+ * <p>
+ * It is built once from the Preferences, and then updated incrementally for each Preference
+ * changed, which yields a new instance. Two instances are equal when they would
+ * prepare the same Search URL, which allows it to be used as a cache key as well.
+ *
+ * @author Kaushik N Sanji
+ */
+public final class SearchParams {
+
+    //Constants of the Query Parameters of the Book API
+    private static final String QUERY_PARAM_SEARCH = "q";
+    private static final String QUERY_PARAM_PRINT_TYPE = "printType";
+    private static final String QUERY_PARAM_FILTER = "filter";
+    private static final String QUERY_PARAM_ORDER_BY = "orderBy";
+    private static final String QUERY_PARAM_START_INDEX = "startIndex";
+    private static final String QUERY_PARAM_MAX_RESULTS = "maxResults";
+    private static final String QUERY_PARAM_FIELDS = "fields";
+
+    //Partial response projection of the probe requests, which only need to know whether an item exists
+    private static final String PROBE_FIELDS = "items(id)";
+
+    //Constant for the separator of the parts of the Query Key, which cannot occur in a normalized Search Query
+    private static final char KEY_SEPARATOR = '\n';
+
+    //Pattern of the keyword filter prefixes such as 'intitle :', to remove the spaces around their colon
+    private static final Pattern KEYWORD_FILTER_PATTERN = Pattern.compile(
+            "\\b(intitle|inauthor|inpublisher|subject|isbn|lccn|oclc)\\s*:\\s*");
+
+    //Pattern of the runs of whitespace in the Search Query
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    //Constant used for logs
+    private static final String LOG_TAG = SearchParams.class.getSimpleName();
+
+    //Stores the Search Query executed by the User
+    private final String mQuery;
+    //Stores the 'printType' (Publication Type) setting value
+    private final String mPrintType;
+    //Stores the 'filter' (Content Type) setting value; Null when no filter is applied
+    private final String mFilter;
+    //Stores the 'orderBy' (Sort By) setting value
+    private final String mOrderBy;
+    //Stores the 'startIndex' (Page to Display) setting value, with 1 as the first page
+    private final int mPageToDisplay;
+    //Stores the 'maxResults' (Results per page) setting value
+    private final int mMaxResults;
+    //Stores the "Search Everywhere" setting value, for searching the Query under several keyword filters
+    private final boolean mSearchEverywhere;
+
+    /**
+     * Private Constructor of {@link SearchParams}
+     *
+     * @param query            is the Search Query executed by the User
+     * @param printType        is the 'printType' (Publication Type) setting value
+     * @param filter           is the 'filter' (Content Type) setting value; Null when no filter is applied
+     * @param orderBy          is the 'orderBy' (Sort By) setting value
+     * @param pageToDisplay    is the 'startIndex' (Page to Display) setting value, with 1 as the first page
+     * @param maxResults       is the 'maxResults' (Results per page) setting value
+     * @param searchEverywhere is the "Search Everywhere" setting value
+     */
+    private SearchParams(String query, String printType, String filter, String orderBy,
+                         int pageToDisplay, int maxResults, boolean searchEverywhere) {
+        mQuery = query;
+        mPrintType = printType;
+        mFilter = filter;
+        mOrderBy = orderBy;
+        mPageToDisplay = pageToDisplay;
+        mMaxResults = maxResults;
+        mSearchEverywhere = searchEverywhere;
+    }
+
+    /**
+     * Method that builds the {@link SearchParams} from the current values of the Preferences
+     *
+     * @param context     is the Context of the Activity/Application
+     * @param preferences is the instance of the Default SharedPreferences
+     * @param query       is the Search Query executed by the User
+     * @return Instance of {@link SearchParams} built from the Preferences
+     */
+    @NonNull
+    public static SearchParams fromPreferences(@NonNull Context context, @NonNull SharedPreferences preferences,
+                                               @Nullable String query) {
+        return new SearchParams(
+                query,
+                preferences.getString(context.getString(R.string.pref_publication_type_key),
+                        context.getString(R.string.pref_publication_type_default)),
+                readFilter(context, preferences),
+                preferences.getString(context.getString(R.string.pref_sort_by_key),
+                        context.getString(R.string.pref_sort_by_default)),
+                preferences.getInt(context.getString(R.string.pref_page_to_display_key),
+                        context.getResources().getInteger(R.integer.pref_page_to_display_default_value)),
+                preferences.getInt(context.getString(R.string.pref_results_per_page_key),
+                        context.getResources().getInteger(R.integer.pref_results_per_page_default_value)),
+                preferences.getBoolean(context.getString(R.string.pref_search_everywhere_key),
+                        context.getResources().getBoolean(R.bool.pref_search_everywhere_default))
+        );
+    }
+
+    /**
+     * Method that reads the 'filter' (Content Type) setting value, which is
+     * returned as Null when its value is 'none' as it has no meaning in the Book API
+     *
+     * @param context     is the Context of the Activity/Application
+     * @param preferences is the instance of the Default SharedPreferences
+     * @return The 'filter' setting value; Null when no filter is applied
+     */
+    @Nullable
+    private static String readFilter(Context context, SharedPreferences preferences) {
+        String filter = preferences.getString(context.getString(R.string.pref_content_type_key),
+                context.getString(R.string.pref_content_type_default));
+        if (TextUtils.isEmpty(filter) || filter.equals(context.getString(R.string.pref_content_type_default))) {
+            return null;
+        }
+        return filter;
+    }
+
+    /**
+     * Method that returns the {@link SearchParams} updated for the Preference changed.
+     * Only the value of the Preference changed is read.
+     *
+     * @param context     is the Context of the Activity/Application
+     * @param preferences is the instance of the Default SharedPreferences
+     * @param key         is the Key of the Preference changed
+     * @return A new instance of {@link SearchParams} with the value of the Preference changed;
+     * or the same instance when the Preference is not a Search setting or its value is unchanged
+     */
+    @NonNull
+    public SearchParams withPreference(@NonNull Context context, @NonNull SharedPreferences preferences,
+                                       @Nullable String key) {
+        if (key == null) {
+            //Returning the same instance when no key is passed
+            return this;
+        }
+
+        //Reading the value of the Preference changed, and copying the rest
+        SearchParams updatedParams = this;
+        if (key.equals(context.getString(R.string.pref_publication_type_key))) {
+            updatedParams = new SearchParams(mQuery,
+                    preferences.getString(key, context.getString(R.string.pref_publication_type_default)),
+                    mFilter, mOrderBy, mPageToDisplay, mMaxResults, mSearchEverywhere);
+        } else if (key.equals(context.getString(R.string.pref_content_type_key))) {
+            updatedParams = new SearchParams(mQuery, mPrintType, readFilter(context, preferences),
+                    mOrderBy, mPageToDisplay, mMaxResults, mSearchEverywhere);
+        } else if (key.equals(context.getString(R.string.pref_sort_by_key))) {
+            updatedParams = new SearchParams(mQuery, mPrintType, mFilter,
+                    preferences.getString(key, context.getString(R.string.pref_sort_by_default)),
+                    mPageToDisplay, mMaxResults, mSearchEverywhere);
+        } else if (key.equals(context.getString(R.string.pref_page_to_display_key))) {
+            updatedParams = withPageToDisplay(preferences.getInt(key,
+                    context.getResources().getInteger(R.integer.pref_page_to_display_default_value)));
+        } else if (key.equals(context.getString(R.string.pref_results_per_page_key))) {
+            updatedParams = new SearchParams(mQuery, mPrintType, mFilter, mOrderBy, mPageToDisplay,
+                    preferences.getInt(key, context.getResources().getInteger(R.integer.pref_results_per_page_default_value)),
+                    mSearchEverywhere);
+        } else if (key.equals(context.getString(R.string.pref_search_everywhere_key))) {
+            updatedParams = new SearchParams(mQuery, mPrintType, mFilter, mOrderBy, mPageToDisplay, mMaxResults,
+                    preferences.getBoolean(key, context.getResources().getBoolean(R.bool.pref_search_everywhere_default)));
+        }
+
+        //Returning the same instance when the value is unchanged
+        return equals(updatedParams) ? this : updatedParams;
+    }
+
+    /**
+     * Method that returns the {@link SearchParams} for the Search Query
+     *
+     * @param query is the Search Query executed by the User
+     * @return A new instance of {@link SearchParams} with the Search Query;
+     * or the same instance when the Search Query is unchanged
+     */
+    @NonNull
+    public SearchParams withQuery(@Nullable String query) {
+        if (TextUtils.equals(mQuery, query)) {
+            return this;
+        }
+        return new SearchParams(query, mPrintType, mFilter, mOrderBy, mPageToDisplay, mMaxResults, mSearchEverywhere);
+    }
+
+    /**
+     * Method that returns the {@link SearchParams} of the sub-query of the "Search Everywhere" Search,
+     * which searches the same terms under the keyword filter passed
+     *
+     * @param filterValue is the keyword filter to be prepended to the Search Query, such as '+intitle:'
+     * @return A new instance of {@link SearchParams} with the keyword filter prepended to the Search Query,
+     * searched as is
+     */
+    @NonNull
+    public SearchParams withKeywordFilter(@NonNull String filterValue) {
+        String query = (mQuery == null) ? "" : mQuery.trim();
+        return new SearchParams(filterValue + query, mPrintType, mFilter, mOrderBy, mPageToDisplay, mMaxResults, false);
+    }
+
+    /**
+     * Method that returns the {@link SearchParams} for the page to be displayed
+     *
+     * @param pageToDisplay is the 'startIndex' (Page to Display) value, with 1 as the first page
+     * @return A new instance of {@link SearchParams} with the page to be displayed;
+     * or the same instance when the page is unchanged
+     */
+    @NonNull
+    public SearchParams withPageToDisplay(int pageToDisplay) {
+        if (mPageToDisplay == pageToDisplay) {
+            return this;
+        }
+        return new SearchParams(mQuery, mPrintType, mFilter, mOrderBy, pageToDisplay, mMaxResults, mSearchEverywhere);
+    }
+
+    /**
+     * Method that prepares the Search URL from the parameters
+     *
+     * @param baseUrlString is the String containing the Base URL of the Book API
+     * @return URL object of the Search URL; Null when the Search Query is empty
+     * or the URL could not be formed
+     */
+    @Nullable
+    public URL toURL(@NonNull String baseUrlString) {
+        return buildURL(baseUrlString, getStartItemIndex(), mMaxResults, null);
+    }
+
+    /**
+     * Method that prepares the URL of a request for a range of items, for the Search Query
+     * and the Search Settings other than the page. Used for fetching only the items
+     * of a page that are yet to be fetched.
+     *
+     * @param baseUrlString  is the String containing the Base URL of the Book API
+     * @param startItemIndex is the index of the first item of the range, with 0 as the first item
+     * @param itemCount      is the number of items in the range
+     * @return URL object of the request; Null when the Search Query is empty
+     * or the URL could not be formed
+     */
+    @Nullable
+    public URL toRangeURL(@NonNull String baseUrlString, int startItemIndex, int itemCount) {
+        return buildURL(baseUrlString, startItemIndex, itemCount, null);
+    }
+
+    /**
+     * Method that prepares the URL of a probe request, which checks whether an item exists at the
+     * index passed, for the Search Query and the Search Settings other than the page.
+     * Only a single item is requested, with just its Id in the response.
+     *
+     * @param baseUrlString is the String containing the Base URL of the Book API
+     * @param itemIndex     is the index of the item to be probed, with 0 as the first item
+     * @return URL object of the probe request; Null when the Search Query is empty
+     * or the URL could not be formed
+     */
+    @Nullable
+    public URL toProbeURL(@NonNull String baseUrlString, int itemIndex) {
+        return buildURL(baseUrlString, itemIndex, 1, PROBE_FIELDS);
+    }
+
+    /**
+     * Method that prepares the URL for the Search Query and the Search Settings,
+     * from the index of the first item and the number of items to be returned
+     *
+     * @param baseUrlString  is the String containing the Base URL of the Book API
+     * @param startItemIndex is the index of the first item to be returned, with 0 as the first item
+     * @param maxResults     is the number of items to be returned
+     * @param fields         is the partial response projection; Null for the full response
+     * @return URL object of the request; Null when the Search Query is empty
+     * or the URL could not be formed
+     */
+    @Nullable
+    private URL buildURL(String baseUrlString, int startItemIndex, int maxResults, @Nullable String fields) {
+        //Returning NULL when the Search Query is empty
+        if (TextUtils.isEmpty(mQuery)) {
+            return null;
+        }
+
+        //Building the URL with the search string and the settings
+        Uri.Builder uriBuilder = Uri.parse(baseUrlString).buildUpon();
+        uriBuilder.appendQueryParameter(QUERY_PARAM_SEARCH, mQuery);
+        if (!TextUtils.isEmpty(mPrintType)) {
+            uriBuilder.appendQueryParameter(QUERY_PARAM_PRINT_TYPE, mPrintType);
+        }
+        if (!TextUtils.isEmpty(mFilter)) {
+            uriBuilder.appendQueryParameter(QUERY_PARAM_FILTER, mFilter);
+        }
+        if (!TextUtils.isEmpty(mOrderBy)) {
+            uriBuilder.appendQueryParameter(QUERY_PARAM_ORDER_BY, mOrderBy);
+        }
+        uriBuilder.appendQueryParameter(QUERY_PARAM_START_INDEX, String.valueOf(startItemIndex));
+        uriBuilder.appendQueryParameter(QUERY_PARAM_MAX_RESULTS, String.valueOf(maxResults));
+        if (!TextUtils.isEmpty(fields)) {
+            uriBuilder.appendQueryParameter(QUERY_PARAM_FIELDS, fields);
+        }
+
+        //Forming the URL using the URI built
+        URL urlObject = null;
+        try {
+            urlObject = new URL(uriBuilder.toString());
+        } catch (MalformedURLException e) {
+            Log.e(LOG_TAG, "Error occurred while forming the URL\n", e);
+        }
+
+        //Returning the URL Object formed
+        return urlObject;
+    }
+
+    /**
+     * Method that returns the index of the first item of the page to be displayed,
+     * which is the value of the 'startIndex' Query Parameter
+     *
+     * @return The index of the first item of the page, with 0 as the first item
+     */
+    public int getStartItemIndex() {
+        //Translating the page to the offset of its first item, as 'startIndex' is an item offset
+        return (mPageToDisplay - 1) * mMaxResults;
+    }
+
+    /**
+     * Method that returns the index of the last page that has any item, for the
+     * total number of items passed, consistent with {@link #getStartItemIndex()}
+     *
+     * @param itemCount is the total number of items of the Search
+     * @return The index of the last page, with 1 as the first page
+     */
+    public int getLastPageIndexFor(int itemCount) {
+        return Math.max(1, (itemCount + mMaxResults - 1) / mMaxResults);
+    }
+
+    /**
+     * Method that returns the Key identifying the results of the Search regardless of their pages.
+     * The Search Query is trimmed, case-folded, has its runs of whitespace collapsed and its
+     * keyword filter prefixes normalized, so that the Queries yielding the same results share the Key.
+     *
+     * @return String containing the Key of the Search Query and the Search Settings other than the page
+     */
+    @NonNull
+    public String toQueryKey() {
+        //Normalizing the Search Query
+        String query = (mQuery == null) ? "" : mQuery.trim().toLowerCase(Locale.US);
+        query = WHITESPACE_PATTERN.matcher(query).replaceAll(" ");
+        query = KEYWORD_FILTER_PATTERN.matcher(query).replaceAll("$1:");
+
+        //Joining the normalized Search Query with the Search Settings that decide the results
+        return query + KEY_SEPARATOR + mPrintType + KEY_SEPARATOR + mFilter + KEY_SEPARATOR + mOrderBy
+                + KEY_SEPARATOR + isFederatedSearch();
+    }
+
+    /**
+     * Method that says whether the Search Query is to be searched under several keyword filters
+     * concurrently, which is when "Search Everywhere" is enabled and the Query has no keyword filter
+     * of its own
+     *
+     * @return <b>TRUE</b> when the Search is to be federated; <b>FALSE</b> otherwise
+     */
+    public boolean isFederatedSearch() {
+        return mSearchEverywhere && !TextUtils.isEmpty(mQuery)
+                && !KEYWORD_FILTER_PATTERN.matcher(mQuery.toLowerCase(Locale.US)).find();
+    }
+
+    /**
+     * Returns the Search Query executed by the User
+     *
+     * @return The Search Query
+     */
+    public String getQuery() {
+        return mQuery;
+    }
+
+    /**
+     * Returns the 'printType' (Publication Type) setting value
+     *
+     * @return The Publication Type of the results
+     */
+    public String getPrintType() {
+        return mPrintType;
+    }
+
+    /**
+     * Returns the 'filter' (Content Type) setting value
+     *
+     * @return The Content Type of the results; or NULL when the results are not restricted
+     */
+    public String getFilter() {
+        return mFilter;
+    }
+
+    /**
+     * Returns the 'orderBy' (Sort By) setting value
+     *
+     * @return The order of the results
+     */
+    public String getOrderBy() {
+        return mOrderBy;
+    }
+
+    /**
+     * Returns the 'startIndex' (Page to Display) setting value, with 1 as the first page
+     *
+     * @return The page to be displayed
+     */
+    public int getPageToDisplay() {
+        return mPageToDisplay;
+    }
+
+    /**
+     * Returns the 'maxResults' (Results per page) setting value
+     *
+     * @return The number of results per page
+     */
+    public int getMaxResults() {
+        return mMaxResults;
+    }
+
+    /**
+     * Returns the "Search Everywhere" setting value
+     *
+     * @return <b>TRUE</b> when "Search Everywhere" is enabled; <b>FALSE</b> otherwise
+     */
+    public boolean isSearchEverywhere() {
+        return mSearchEverywhere;
+    }
+
+    /**
+     * Indicates whether some other object is "equal to" this one, that is,
+     * whether it prepares the same Search
+     *
+     * @param other the reference object with which to compare.
+     * @return {@code true} if this object is the same as the obj
+     * argument; {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SearchParams)) {
+            return false;
+        }
+
+        SearchParams that = (SearchParams) other;
+        return mPageToDisplay == that.mPageToDisplay
+                && mMaxResults == that.mMaxResults
+                && mSearchEverywhere == that.mSearchEverywhere
+                && TextUtils.equals(mQuery, that.mQuery)
+                && TextUtils.equals(mPrintType, that.mPrintType)
+                && TextUtils.equals(mFilter, that.mFilter)
+                && TextUtils.equals(mOrderBy, that.mOrderBy);
+    }
+
+    /**
+     * Returns a hash code value for the object, consistent with {@link #equals(Object)}
+     *
+     * @return a hash code value for this object.
+     */
+    @Override
+    public int hashCode() {
+        int result = mQuery != null ? mQuery.hashCode() : 0;
+        result = 31 * result + (mPrintType != null ? mPrintType.hashCode() : 0);
+        result = 31 * result + (mFilter != null ? mFilter.hashCode() : 0);
+        result = 31 * result + (mOrderBy != null ? mOrderBy.hashCode() : 0);
+        result = 31 * result + mPageToDisplay;
+        result = 31 * result + mMaxResults;
+        result = 31 * result + (mSearchEverywhere ? 1 : 0);
+        return result;
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return a string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return "SearchParams{" +
+                "query='" + mQuery + '\'' +
+                ", printType='" + mPrintType + '\'' +
+                ", filter='" + mFilter + '\'' +
+                ", orderBy='" + mOrderBy + '\'' +
+                ", pageToDisplay=" + mPageToDisplay +
+                ", maxResults=" + mMaxResults +
+                ", searchEverywhere=" + mSearchEverywhere +
+                '}';
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.observers;
+
+import android.support.annotation.NonNull;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.utils.BooksDiffResult;
+
+import java.util.List;
+
+/**
+ * Interface that declares methods to be implemented by the RecyclerView's Adapters
+ * to receive the result of the difference computation done by
+ * {@link com.example.kaushiknsanji.bookslibrary.workers.BooksListDiffer}
+ *
+ * @author Kaushik N Sanji
+ */
+public interface OnBooksListDiffListener {
+
+    /**
+     * Method invoked on the Main Thread when the new list of {@link BookInfo} objects
+     * has been diffed and latched as the current list
+     *
+     * @param newBookInfos is the new (unmodifiable) list of {@link BookInfo} objects
+     * @param diffResult   is the result of the difference computation to be dispatched to the Adapter
+     */
+    void onBooksListDiffed(@NonNull List<BookInfo> newBookInfos, @NonNull BooksDiffResult diffResult);
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.observers;
+
+import android.support.annotation.NonNull;
+
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+
+/**
+ * Interface that declares methods to be implemented by the
+ * {@link com.example.kaushiknsanji.bookslibrary.BookSearchActivity}
+ * to receive the last page of a Search discovered in the background, after the page
+ * loaded by the {@link com.example.kaushiknsanji.bookslibrary.workers.BooksLoader}
+ * was delivered with a provisional last page
+ *
+ * @author Kaushik N Sanji
+ */
+public interface OnLastPageDiscoveredListener {
+
+    /**
+     * Method invoked on the Main Thread with the last page discovered for the Search Query
+     *
+     * @param searchParams  is the Search Query and the Search Settings of the page that started the discovery
+     * @param lastPageIndex is the index of the last page discovered, with 1 as the first page
+     */
+    void onLastPageDiscovered(@NonNull SearchParams searchParams, int lastPageIndex);
+}
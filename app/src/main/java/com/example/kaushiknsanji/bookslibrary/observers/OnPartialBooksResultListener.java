@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.observers;
+
+import android.support.annotation.NonNull;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+
+import java.util.List;
+
+/**
+ * Interface that declares methods to be implemented by the
+ * {@link com.example.kaushiknsanji.bookslibrary.BookSearchActivity}
+ * to receive the partial results of a load in progress by the
+ * {@link com.example.kaushiknsanji.bookslibrary.workers.BooksLoader}
+ *
+ * @author Kaushik N Sanji
+ */
+public interface OnPartialBooksResultListener {
+
+    /**
+     * Method invoked on the Main Thread with the results loaded so far, which are only to be shown.
+     * The final result of the load is delivered later through the Loader callbacks.
+     *
+     * @param bookInfos is the List of {@link BookInfo} objects loaded so far
+     */
+    void onPartialBooksResult(@NonNull List<BookInfo> bookInfos);
+}
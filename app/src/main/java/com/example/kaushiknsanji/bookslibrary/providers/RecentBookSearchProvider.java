@@ -16,10 +16,25 @@
 
 package com.example.kaushiknsanji.bookslibrary.providers;
 
+import android.app.SearchManager;
 import android.content.SearchRecentSuggestionsProvider;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.MergeCursor;
+import android.net.Uri;
+import android.provider.BaseColumns;
+import android.text.TextUtils;
+
+import com.example.kaushiknsanji.bookslibrary.cache.BookSuggestionIndex;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
- * Class for providing Recent Search Suggestions
+ * Class for providing Recent Search Suggestions, followed by the completions of the
+ * Titles and Authors of the Books seen, looked up from the {@link BookSuggestionIndex}
  *
  * @author Kaushik N Sanji
  */
@@ -31,9 +46,116 @@ public class RecentBookSearchProvider extends SearchRecentSuggestionsProvider {
     //Initializing the Database Mode constant for the provider
     public static final int DATABASE_MODE = DATABASE_MODE_QUERIES;
 
+    //Constant for the number of completions suggested, when the limit is not passed by the SearchView
+    private static final int DEFAULT_MAX_COMPLETIONS = 6;
+
     //Setting up the Recent Search Suggestions provider in the constructor
     public RecentBookSearchProvider() {
         setupSuggestions(AUTHORITY, DATABASE_MODE);
     }
 
+    /**
+     * Implement this to initialize your content provider on startup.
+     *
+     * @return true if the provider was successfully loaded, false otherwise
+     */
+    @Override
+    public boolean onCreate() {
+        //Seeding the index of Titles and Authors in the background, from the Books saved locally
+        BookSuggestionIndex.seedFromStore(getContext());
+        return super.onCreate();
+    }
+
+    /**
+     * Method that returns the Recent Search Suggestions matching the text typed, followed by
+     * the completions of the Titles and Authors of the Books seen, which are not already suggested
+     *
+     * @param uri           The URI to query, which may carry the limit of Suggestions
+     * @param projection    The list of columns to put into the cursor
+     * @param selection     A selection criteria to apply when filtering rows
+     * @param selectionArgs The text typed, in the first argument
+     * @param sortOrder     How the rows in the cursor should be sorted
+     * @return a Cursor of the Recent Search Suggestions merged with the completions
+     */
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        //Retrieving the Recent Search Suggestions
+        Cursor recentCursor = super.query(uri, projection, selection, selectionArgs, sortOrder);
+
+        //Retrieving the text typed
+        String typedText = (selectionArgs != null && selectionArgs.length > 0) ? selectionArgs[0] : null;
+        if (recentCursor == null || TextUtils.isEmpty(typedText)) {
+            //Returning the Recent Search Suggestions alone when there is nothing typed
+            return recentCursor;
+        }
+
+        //Looking up the completions of the Titles and Authors
+        List<BookSuggestionIndex.Suggestion> suggestions = BookSuggestionIndex.lookup(typedText, getLimit(uri));
+        if (suggestions.isEmpty()) {
+            return recentCursor;
+        }
+
+        //Reading the Recent Search Suggestions, to not repeat them in the completions: START
+        Set<String> recentQueries = new HashSet<>();
+        int queryColumnIndex = recentCursor.getColumnIndex(SearchManager.SUGGEST_COLUMN_QUERY);
+        if (queryColumnIndex != -1) {
+            while (recentCursor.moveToNext()) {
+                String recentQuery = recentCursor.getString(queryColumnIndex);
+                if (recentQuery != null) {
+                    recentQueries.add(recentQuery.toLowerCase(Locale.getDefault()));
+                }
+            }
+            //Rewinding the Cursor for the SearchView
+            recentCursor.moveToPosition(-1);
+        }
+        //Reading the Recent Search Suggestions, to not repeat them in the completions: END
+
+        //Building the Cursor of the completions with the same columns as that of the Recent Search Suggestions
+        String[] columnNames = recentCursor.getColumnNames();
+        MatrixCursor completionsCursor = new MatrixCursor(columnNames, suggestions.size());
+        int rowId = 0;
+        for (BookSuggestionIndex.Suggestion suggestion : suggestions) {
+            String text = suggestion.getText();
+            if (recentQueries.contains(text.toLowerCase(Locale.getDefault()))) {
+                continue;
+            }
+
+            //Filling the columns of the row known for the completions, leaving the rest as Null
+            Object[] columnValues = new Object[columnNames.length];
+            for (int index = 0; index < columnNames.length; index++) {
+                String columnName = columnNames[index];
+                if (BaseColumns._ID.equals(columnName)) {
+                    //Using negative ids, to not clash with the ids of the Recent Search Suggestions
+                    columnValues[index] = --rowId;
+                } else if (SearchManager.SUGGEST_COLUMN_TEXT_1.equals(columnName)
+                        || SearchManager.SUGGEST_COLUMN_QUERY.equals(columnName)) {
+                    columnValues[index] = text;
+                }
+            }
+            completionsCursor.addRow(columnValues);
+        }
+
+        //Returning the Recent Search Suggestions followed by the completions
+        return new MergeCursor(new Cursor[]{recentCursor, completionsCursor});
+    }
+
+    /**
+     * Method that reads the limit of Suggestions passed by the SearchView
+     *
+     * @param uri The URI of the query
+     * @return The limit of Suggestions; or {@link #DEFAULT_MAX_COMPLETIONS} when not passed
+     */
+    private int getLimit(Uri uri) {
+        String limitStr = uri.getQueryParameter(SearchManager.SUGGEST_PARAMETER_LIMIT);
+        if (!TextUtils.isEmpty(limitStr)) {
+            try {
+                return Integer.parseInt(limitStr);
+            } catch (NumberFormatException e) {
+                //Falling back to the default on an invalid limit
+                return DEFAULT_MAX_COMPLETIONS;
+            }
+        }
+        return DEFAULT_MAX_COMPLETIONS;
+    }
+
 }
@@ -25,11 +25,11 @@ import android.support.v7.preference.Preference;
 import android.support.v7.preference.PreferenceFragmentCompat;
 import android.support.v7.preference.PreferenceManager;
 import android.support.v7.preference.PreferenceScreen;
+import android.support.v7.preference.TwoStatePreference;
 
 import com.example.kaushiknsanji.bookslibrary.R;
 import com.example.kaushiknsanji.bookslibrary.utils.PreferencesObserverUtility;
 
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -62,6 +62,7 @@ public class SearchSettingsFragment extends PreferenceFragmentCompat
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_sort_by_key)));
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_page_to_display_key)));
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_results_per_page_key)));
+        bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_cache_max_staleness_key)));
         bindPreferenceSummaryToValue(findPreference(getString(R.string.pref_reset_settings_key)));
         //Bind preferences' summary to their value: END
     }
@@ -208,7 +209,7 @@ public class SearchSettingsFragment extends PreferenceFragmentCompat
         //Retrieving the Preferences
         SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(requireContext());
         //Retrieving the Preferences which are excluded from preparing the Search URL
-        List<String> keysExcludedFromSearch = PreferencesObserverUtility.getPreferenceKeysToExclude(requireContext());
+        Set<String> keysExcludedFromSearch = PreferencesObserverUtility.getPreferenceKeysToExclude(requireContext());
 
         //Iterating over the Preference Keys to reset them to their defaults: START
         Set<String> prefKeySet = sharedPreferences.getAll().keySet();
@@ -232,6 +233,12 @@ public class SearchSettingsFragment extends PreferenceFragmentCompat
                 } else if (prefKeyStr.equals(getString(R.string.pref_results_per_page_key))) {
                     bindPreferenceToDefaultValue(findPreference(prefKeyStr),
                             getResources().getInteger(R.integer.pref_results_per_page_default_value));
+                } else if (prefKeyStr.equals(getString(R.string.pref_live_search_key))) {
+                    bindPreferenceToDefaultValue(findPreference(prefKeyStr),
+                            getResources().getBoolean(R.bool.pref_live_search_default));
+                } else if (prefKeyStr.equals(getString(R.string.pref_cache_max_staleness_key))) {
+                    bindPreferenceToDefaultValue(findPreference(prefKeyStr),
+                            getString(R.string.pref_cache_max_staleness_default));
                 }
             }
         }
@@ -265,6 +272,9 @@ public class SearchSettingsFragment extends PreferenceFragmentCompat
             numberPickerPreference.setSummary(String.valueOf(defaultValue));
             //Setting the Default value
             numberPickerPreference.setValue((Integer) defaultValue);
+        } else if (preference instanceof TwoStatePreference) {
+            //For Preferences of type SwitchPreferenceCompat, which show the Summary of their state
+            ((TwoStatePreference) preference).setChecked((Boolean) defaultValue);
         }
     }
 
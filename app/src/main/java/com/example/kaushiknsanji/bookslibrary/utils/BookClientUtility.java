@@ -16,8 +16,11 @@
 
 package com.example.kaushiknsanji.bookslibrary.utils;
 
+import android.support.annotation.Nullable;
+import android.support.v4.os.CancellationSignal;
 import android.util.Log;
 
+import com.example.kaushiknsanji.bookslibrary.metrics.SearchTracer;
 import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
 
 import org.json.JSONArray;
@@ -48,13 +51,16 @@ public class BookClientUtility {
 
     /**
      * Method that makes the search request to the given URL
-     * and returns a List of {@link BookInfo} objects containing the parsed information
+     * and returns the JSON Response received. To be run on the I/O stage of the Search pipeline.
      *
-     * @param urlObject is a {@link URL} to which the HTTP GET request is to be made
-     * @return a List of {@link BookInfo} objects containing the parsed information
-     * obtained after making the search request
+     * @param urlObject          is a {@link URL} to which the HTTP GET request is to be made
+     * @param searchId           is the Search ID of the Search being traced by the {@link SearchTracer}
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the request when canceled; can be Null
+     * @return String containing the JSON Response received; or NULL when the URL is not formed
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
      */
-    public static List<BookInfo> searchAndExtractVolumes(URL urlObject) {
+    public static String searchVolumes(URL urlObject, long searchId,
+                                       @Nullable CancellationSignal cancellationSignal) {
         //If URL Object is not formed then return as NULL
         if (urlObject == null) {
             return null;
@@ -62,31 +68,58 @@ public class BookClientUtility {
 
         //Making the HTTP Request to retrieve the JSON Response
         String jsonResponse = "";
+        long httpStartNanos = SearchTracer.beginStage(SearchTracer.STAGE_HTTP);
         try {
-            jsonResponse = makeHttpGetRequest(urlObject);
+            jsonResponse = makeHttpGetRequest(urlObject, cancellationSignal);
         } catch (IOException e) {
             Log.e(LOG_TAG, "Error occurred while closing the URL Stream\n", e);
+        } finally {
+            SearchTracer.endStage(searchId, SearchTracer.STAGE_HTTP, httpStartNanos);
         }
 
+        //Returning the JSON Response received
+        return jsonResponse;
+    }
+
+    /**
+     * Method that parses the JSON Response of the search request and returns a List of
+     * {@link BookInfo} objects containing the parsed information.
+     * To be run on the CPU stage of the Search pipeline.
+     *
+     * @param jsonResponse       is a String containing the JSON Response of the search request
+     * @param searchId           is the Search ID of the Search being traced by the {@link SearchTracer}
+     * @param cancellationSignal is the {@link CancellationSignal} that stops the parsing when canceled; can be Null
+     * @return a List of {@link BookInfo} objects containing the parsed information;
+     * or NULL when the response is empty
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
+     */
+    public static List<BookInfo> extractVolumes(String jsonResponse, long searchId,
+                                                @Nullable CancellationSignal cancellationSignal) {
         //If the response received is null or empty, then return as NULL
         if (jsonResponse == null
                 || jsonResponse.trim().length() == 0) {
             return null;
         }
 
-        //Returning the List of {@link BookInfo} objects containing the parsed information
-        return extractVolumesFromResponse(jsonResponse);
+        //Parsing and returning the List of {@link BookInfo} objects containing the parsed information
+        long parseStartNanos = SearchTracer.beginStage(SearchTracer.STAGE_PARSE);
+        List<BookInfo> bookInfoList = extractVolumesFromResponse(jsonResponse, cancellationSignal);
+        SearchTracer.endStage(searchId, SearchTracer.STAGE_PARSE, parseStartNanos);
+        return bookInfoList;
     }
 
     /**
      * Method that parses the Book Volumes from the JSON Response and returns a list
      * of {@link BookInfo} objects containing the parsed information
      *
-     * @param jsonResponse is a String containing the response received after the
-     *                     GET Request call was made to the URL
+     * @param jsonResponse       is a String containing the response received after the
+     *                           GET Request call was made to the URL
+     * @param cancellationSignal is the {@link CancellationSignal} that stops the parsing when canceled; can be Null
      * @return List of {@link BookInfo} objects containing the parsed information
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
      */
-    private static List<BookInfo> extractVolumesFromResponse(String jsonResponse) {
+    private static List<BookInfo> extractVolumesFromResponse(String jsonResponse,
+                                                             @Nullable CancellationSignal cancellationSignal) {
         //Initializing an ArrayList of BookInfo objects to store the data parsed
         ArrayList<BookInfo> bookInfoList = new ArrayList<>();
 
@@ -106,140 +139,14 @@ public class BookClientUtility {
 
             //Iterating over the 'items' JSON Array
             for (int index = 0; index < noOfItems; index++) {
+                //Stopping the parsing when the load is canceled
+                ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
+
                 //Retrieving the current item JSON Object
                 JSONObject itemJsonObject = itemsJsonArray.getJSONObject(index);
 
-                //Retrieving the Id of the Book Volume
-                String bookId = itemJsonObject.getString("id");
-
-                //Creating a new {@link BookInfo} object to store the parsed data
-                BookInfo bookInfo = new BookInfo(bookId);
-
-                //Retrieving the 'volumeInfo' JSON Object
-                JSONObject volumeInfoJsonObject = itemJsonObject.getJSONObject("volumeInfo");
-
-                //Parsing and storing the Title
-                bookInfo.setTitle(volumeInfoJsonObject.getString("title"));
-                //Parsing and storing the SubTitle if any
-                bookInfo.setSubTitle(volumeInfoJsonObject.optString("subtitle"));
-
-                //Parsing and storing the Authors list : START
-                JSONArray authorsJsonArray = volumeInfoJsonObject.optJSONArray("authors");
-                if (authorsJsonArray != null) {
-                    //When authors are present
-                    int noOfAuthors = authorsJsonArray.length();
-                    String[] authors = new String[noOfAuthors];
-                    for (int i = 0; i < noOfAuthors; i++) {
-                        authors[i] = authorsJsonArray.getString(i);
-                    }
-                    bookInfo.setAuthors(authors);
-                } else {
-                    //Storing as null when authors are absent
-                    bookInfo.setAuthors(null);
-                }
-                //Parsing and storing the Authors list : END
-
-                //Parsing and storing the Publisher
-                bookInfo.setPublisher(volumeInfoJsonObject.optString("publisher", ""));
-                //Parsing and storing the Published date
-                bookInfo.setPublishedDateStr(volumeInfoJsonObject.optString("publishedDate", ""));
-                //Parsing and storing the Number of Pages
-                bookInfo.setPageCount(volumeInfoJsonObject.optInt("pageCount", 1));
-                //Parsing and storing the Book Type
-                bookInfo.setBookType(volumeInfoJsonObject.getString("printType"));
-
-                //Parsing and storing the Categories list : START
-                JSONArray categoriesJsonArray = volumeInfoJsonObject.optJSONArray("categories");
-                if (categoriesJsonArray != null) {
-                    //When categories are present
-                    int noOfCategories = categoriesJsonArray.length();
-                    String[] categories = new String[noOfCategories];
-                    for (int i = 0; i < noOfCategories; i++) {
-                        categories[i] = categoriesJsonArray.getString(i);
-                    }
-                    bookInfo.setCategories(categories);
-                } else {
-                    //Storing as null when categories are absent
-                    bookInfo.setCategories(null);
-                }
-                //Parsing and storing the Categories list : END
-
-                //Parsing and storing the ratings
-                bookInfo.setBookRatings((float) volumeInfoJsonObject.optDouble("averageRating", 0.0));
-                //Parsing and storing the rating count
-                bookInfo.setBookRatingCount(volumeInfoJsonObject.optInt("ratingsCount", 0));
-                //Parsing and storing the Description
-                bookInfo.setDescription(volumeInfoJsonObject.optString("description", ""));
-
-                //Parsing and storing the links to the Images : START
-                JSONObject imageLinksJsonObject = volumeInfoJsonObject.optJSONObject("imageLinks");
-                if (imageLinksJsonObject != null) {
-                    //When Image Links are present
-
-                    //Retrieving all the Image Links
-                    String smallThumbnailLink = imageLinksJsonObject.getString("smallThumbnail");
-                    String thumbnailLink = imageLinksJsonObject.optString("thumbnail", smallThumbnailLink);
-                    String smallImageLink = imageLinksJsonObject.optString("small", thumbnailLink);
-                    String mediumImageLink = imageLinksJsonObject.optString("medium", smallImageLink);
-                    String largeImageLink = imageLinksJsonObject.optString("large", mediumImageLink);
-                    String extraLargeImageLink = imageLinksJsonObject.optString("extraLarge", largeImageLink);
-                    //Storing the required Links
-                    bookInfo.setImageLinkSmall(smallImageLink);
-                    bookInfo.setImageLinkLarge(largeImageLink);
-                    bookInfo.setImageLinkExtraLarge(extraLargeImageLink);
-                } else {
-                    //Storing as Null when Image Links are absent
-                    bookInfo.setImageLinkSmall(null);
-                    bookInfo.setImageLinkLarge(null);
-                    bookInfo.setImageLinkExtraLarge(null);
-                }
-                //Parsing and storing the links to the Images : END
-
-                //Retrieving the 'saleInfo' JSON Object
-                JSONObject saleInfoJsonObject = itemJsonObject.getJSONObject("saleInfo");
-
-                //Parsing and storing the saleability of the book
-                bookInfo.setSaleability(saleInfoJsonObject.getString("saleability"));
-
-                //Parsing and storing the List Price : START
-                JSONObject listPriceJsonObject = saleInfoJsonObject.optJSONObject("listPrice");
-                if (listPriceJsonObject != null) {
-                    //Parsing the 'amount' when 'listPrice' JSON Object is present
-                    bookInfo.setListPrice(listPriceJsonObject.getDouble("amount"));
-                } else {
-                    //Setting to 0 when 'listPrice' JSON Object is NOT present
-                    bookInfo.setListPrice(0.0);
-                }
-                //Parsing and storing the List Price : END
-
-                //Parsing and storing the Retail Price : START
-                JSONObject retailPriceJsonObject = saleInfoJsonObject.optJSONObject("retailPrice");
-                if (retailPriceJsonObject != null) {
-                    //Parsing the 'amount' when 'retailPrice' JSON Object is present
-                    bookInfo.setRetailPrice(retailPriceJsonObject.getDouble("amount"));
-                } else {
-                    //Setting to 0 when 'retailPrice' JSON Object is NOT present
-                    bookInfo.setRetailPrice(0.0);
-                }
-                //Parsing and storing the Retail Price : END
-
-                //Parsing and storing the Buy Link
-                bookInfo.setBuyLink(saleInfoJsonObject.optString("buyLink", ""));
-
-                //Retrieving the 'accessInfo' JSON Object
-                JSONObject accessInfoJsonObject = itemJsonObject.getJSONObject("accessInfo");
-
-                //Parsing and storing the epub sample link
-                bookInfo.setEpubLink(accessInfoJsonObject.getJSONObject("epub").optString("acsTokenLink", ""));
-                //Parsing and storing the pdf sample link
-                bookInfo.setPdfLink(accessInfoJsonObject.getJSONObject("pdf").optString("acsTokenLink", ""));
-                //Parsing and storing the web sample link
-                bookInfo.setPreviewLink(accessInfoJsonObject.getString("webReaderLink"));
-                //Parsing and storing the Sample access view status
-                bookInfo.setAccessViewStatus(accessInfoJsonObject.getString("accessViewStatus"));
-
-                //Adding the BookInfo object to the List
-                bookInfoList.add(bookInfo);
+                //Parsing the current item and adding the BookInfo object to the List
+                bookInfoList.add(extractVolume(itemJsonObject));
             }
 
         } catch (JSONException e) {
@@ -250,14 +157,185 @@ public class BookClientUtility {
         return bookInfoList;
     }
 
+    /**
+     * Method that parses a single Book Volume from its 'items' JSON Object and returns
+     * a {@link BookInfo} object containing the parsed information
+     *
+     * @param itemJsonObject is the JSON Object of the Book Volume from the 'items' JSON Array
+     * @return {@link BookInfo} object containing the parsed information
+     * @throws JSONException when the mandatory data of the Book Volume is absent
+     */
+    private static BookInfo extractVolume(JSONObject itemJsonObject) throws JSONException {
+        //Retrieving the Id of the Book Volume
+        String bookId = itemJsonObject.getString("id");
+
+        //Creating a new {@link BookInfo} object to store the parsed data
+        BookInfo bookInfo = new BookInfo(bookId);
+
+        //Retrieving the 'volumeInfo' JSON Object
+        JSONObject volumeInfoJsonObject = itemJsonObject.getJSONObject("volumeInfo");
+
+        //Parsing and storing the Title
+        bookInfo.setTitle(volumeInfoJsonObject.getString("title"));
+        //Parsing and storing the SubTitle if any
+        bookInfo.setSubTitle(volumeInfoJsonObject.optString("subtitle"));
+
+        //Parsing and storing the Authors list : START
+        JSONArray authorsJsonArray = volumeInfoJsonObject.optJSONArray("authors");
+        if (authorsJsonArray != null) {
+            //When authors are present
+            int noOfAuthors = authorsJsonArray.length();
+            String[] authors = new String[noOfAuthors];
+            for (int i = 0; i < noOfAuthors; i++) {
+                authors[i] = authorsJsonArray.getString(i);
+            }
+            bookInfo.setAuthors(authors);
+        } else {
+            //Storing as null when authors are absent
+            bookInfo.setAuthors(null);
+        }
+        //Parsing and storing the Authors list : END
+
+        //Parsing and storing the Publisher
+        bookInfo.setPublisher(volumeInfoJsonObject.optString("publisher", ""));
+        //Parsing and storing the Published date
+        bookInfo.setPublishedDateStr(volumeInfoJsonObject.optString("publishedDate", ""));
+        //Parsing and storing the Number of Pages
+        bookInfo.setPageCount(volumeInfoJsonObject.optInt("pageCount", 1));
+        //Parsing and storing the Book Type
+        bookInfo.setBookType(volumeInfoJsonObject.getString("printType"));
+
+        //Parsing and storing the Categories list : START
+        JSONArray categoriesJsonArray = volumeInfoJsonObject.optJSONArray("categories");
+        if (categoriesJsonArray != null) {
+            //When categories are present
+            int noOfCategories = categoriesJsonArray.length();
+            String[] categories = new String[noOfCategories];
+            for (int i = 0; i < noOfCategories; i++) {
+                categories[i] = categoriesJsonArray.getString(i);
+            }
+            bookInfo.setCategories(categories);
+        } else {
+            //Storing as null when categories are absent
+            bookInfo.setCategories(null);
+        }
+        //Parsing and storing the Categories list : END
+
+        //Parsing and storing the ratings
+        bookInfo.setBookRatings((float) volumeInfoJsonObject.optDouble("averageRating", 0.0));
+        //Parsing and storing the rating count
+        bookInfo.setBookRatingCount(volumeInfoJsonObject.optInt("ratingsCount", 0));
+        //Parsing and storing the Description
+        bookInfo.setDescription(volumeInfoJsonObject.optString("description", ""));
+
+        //Parsing and storing the links to the Images : START
+        JSONObject imageLinksJsonObject = volumeInfoJsonObject.optJSONObject("imageLinks");
+        if (imageLinksJsonObject != null) {
+            //When Image Links are present
+
+            //Retrieving all the Image Links
+            String smallThumbnailLink = imageLinksJsonObject.getString("smallThumbnail");
+            String thumbnailLink = imageLinksJsonObject.optString("thumbnail", smallThumbnailLink);
+            String smallImageLink = imageLinksJsonObject.optString("small", thumbnailLink);
+            String mediumImageLink = imageLinksJsonObject.optString("medium", smallImageLink);
+            String largeImageLink = imageLinksJsonObject.optString("large", mediumImageLink);
+            String extraLargeImageLink = imageLinksJsonObject.optString("extraLarge", largeImageLink);
+            //Storing the required Links
+            bookInfo.setImageLinkSmall(smallImageLink);
+            bookInfo.setImageLinkLarge(largeImageLink);
+            bookInfo.setImageLinkExtraLarge(extraLargeImageLink);
+        } else {
+            //Storing as Null when Image Links are absent
+            bookInfo.setImageLinkSmall(null);
+            bookInfo.setImageLinkLarge(null);
+            bookInfo.setImageLinkExtraLarge(null);
+        }
+        //Parsing and storing the links to the Images : END
+
+        //Retrieving the 'saleInfo' JSON Object
+        JSONObject saleInfoJsonObject = itemJsonObject.getJSONObject("saleInfo");
+
+        //Parsing and storing the saleability of the book
+        bookInfo.setSaleability(saleInfoJsonObject.getString("saleability"));
+
+        //Parsing and storing the List Price : START
+        JSONObject listPriceJsonObject = saleInfoJsonObject.optJSONObject("listPrice");
+        if (listPriceJsonObject != null) {
+            //Parsing the 'amount' when 'listPrice' JSON Object is present
+            bookInfo.setListPrice(listPriceJsonObject.getDouble("amount"));
+        } else {
+            //Setting to 0 when 'listPrice' JSON Object is NOT present
+            bookInfo.setListPrice(0.0);
+        }
+        //Parsing and storing the List Price : END
+
+        //Parsing and storing the Retail Price : START
+        JSONObject retailPriceJsonObject = saleInfoJsonObject.optJSONObject("retailPrice");
+        if (retailPriceJsonObject != null) {
+            //Parsing the 'amount' when 'retailPrice' JSON Object is present
+            bookInfo.setRetailPrice(retailPriceJsonObject.getDouble("amount"));
+        } else {
+            //Setting to 0 when 'retailPrice' JSON Object is NOT present
+            bookInfo.setRetailPrice(0.0);
+        }
+        //Parsing and storing the Retail Price : END
+
+        //Parsing and storing the Buy Link
+        bookInfo.setBuyLink(saleInfoJsonObject.optString("buyLink", ""));
+
+        //Retrieving the 'accessInfo' JSON Object
+        JSONObject accessInfoJsonObject = itemJsonObject.getJSONObject("accessInfo");
+
+        //Parsing and storing the epub sample link
+        bookInfo.setEpubLink(accessInfoJsonObject.getJSONObject("epub").optString("acsTokenLink", ""));
+        //Parsing and storing the pdf sample link
+        bookInfo.setPdfLink(accessInfoJsonObject.getJSONObject("pdf").optString("acsTokenLink", ""));
+        //Parsing and storing the web sample link
+        bookInfo.setPreviewLink(accessInfoJsonObject.getString("webReaderLink"));
+        //Parsing and storing the Sample access view status
+        bookInfo.setAccessViewStatus(accessInfoJsonObject.getString("accessViewStatus"));
+
+        //Computing the content fingerprints once all the data is parsed,
+        //to be used later for the comparison of the Book contents
+        bookInfo.computeFingerprints();
+
+        //Returning the BookInfo object parsed
+        return bookInfo;
+    }
+
+    /**
+     * Method that parses a single Book Volume stored earlier as the JSON String of its
+     * 'items' JSON Object, and returns a {@link BookInfo} object containing the parsed information
+     *
+     * @param itemJsonStr is the JSON String of the Book Volume from the 'items' JSON Array
+     * @return {@link BookInfo} object containing the parsed information; or NULL when the
+     * JSON String could not be parsed
+     */
+    public static BookInfo extractStoredVolume(String itemJsonStr) {
+        try {
+            //Parsing and returning the BookInfo object
+            return extractVolume(new JSONObject(itemJsonStr));
+        } catch (JSONException e) {
+            Log.e(LOG_TAG, "Error occurred while parsing the stored Book Volume\n", e);
+        }
+
+        //Returning NULL when the JSON String could not be parsed
+        return null;
+    }
+
     /**
      * Method that makes a HTTP GET Request to the URL passed and returns the response received
      *
-     * @param urlObject is the {@link URL} to which the HTTP GET Request is to be established
+     * @param urlObject          is the {@link URL} to which the HTTP GET Request is to be established
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the connection when canceled; can be Null
      * @return String containing the response received after the GET Request call was made to the URL
      * @throws IOException while opening connection to URL
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
      */
-    public static String makeHttpGetRequest(URL urlObject) throws IOException {
+    public static String makeHttpGetRequest(URL urlObject, @Nullable CancellationSignal cancellationSignal) throws IOException {
+        //Not connecting when the load is already canceled
+        ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
+
         //Declaring the JSON Response String and defaulting to empty string
         String jsonResponse = "";
 
@@ -267,6 +345,8 @@ public class BookClientUtility {
 
         try {
             urlConnection = (HttpURLConnection) urlObject.openConnection();
+            //Aborting the connection as soon as the load is canceled
+            ConnectionCancellationUtility.abortOnCancel(cancellationSignal, urlConnection);
             urlConnection.setReadTimeout(10000); //10 Seconds Read Timeout
             urlConnection.setRequestMethod("GET"); //Request Method set to GET
             urlConnection.connect(); //Establishing connection
@@ -274,7 +354,7 @@ public class BookClientUtility {
             if (urlConnection.getResponseCode() == HttpURLConnection.HTTP_OK) {
                 //When the response is OK(200), then read the response
                 urlConnectionInputStream = urlConnection.getInputStream();
-                jsonResponse = readStream(urlConnectionInputStream);
+                jsonResponse = readStream(urlConnectionInputStream, cancellationSignal);
             } else {
                 //When the response is not OK(200), then log the error code
                 Log.e(LOG_TAG, "HTTP GET Request failed with the code " + urlConnection.getResponseCode());
@@ -283,6 +363,8 @@ public class BookClientUtility {
         } catch (IOException e) {
             Log.e(LOG_TAG, "Error occurred while opening connection to URL\n", e);
         } finally {
+            //Unregistering the connection from the signal as it is done
+            ConnectionCancellationUtility.clearOnCancel(cancellationSignal, urlConnection);
 
             if (urlConnection != null) {
                 //Disconnecting in the end if the connection was established
@@ -296,6 +378,9 @@ public class BookClientUtility {
 
         }
 
+        //Discarding the partial response when the connection was aborted on cancel
+        ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
+
         //Returning the JSON Response received
         return jsonResponse;
     }
@@ -304,9 +389,12 @@ public class BookClientUtility {
      * Method that reads the response from the URL Stream
      *
      * @param urlConnectionInputStream is the InputStream object of a URL Connection
+     * @param cancellationSignal       is the {@link CancellationSignal} that stops the reading when canceled; can be Null
      * @return String containing the response read from the URL Stream
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
      */
-    private static String readStream(InputStream urlConnectionInputStream) {
+    private static String readStream(InputStream urlConnectionInputStream,
+                                     @Nullable CancellationSignal cancellationSignal) {
         //StringBuilder instance to build and store the response read
         StringBuilder responseBuilder = new StringBuilder();
 
@@ -315,6 +403,8 @@ public class BookClientUtility {
         try {
             String readStr = "";
             while ((readStr = bufferedReader.readLine()) != null) {
+                //Stopping the reading when the load is canceled
+                ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
                 //When Not Null, appending the line read to the Builder
                 responseBuilder.append(readStr);
             }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * Class that holds the result of the difference computation between two sets of
+ * {@link com.example.kaushiknsanji.bookslibrary.models.BookInfo} objects, done by
+ * {@link BooksDiffUtility#calculateDiff(java.util.List, java.util.List)}.
+ * <p>
+ * Depending on the Strategy chosen for the computation, the result either wraps the
+ * {@link android.support.v7.util.DiffUtil.DiffResult} or describes a complete replacement
+ * of the items, that is dispatched without running the diff algorithm.
+ *
+ * @author Kaushik N Sanji
+ */
+public class BooksDiffResult {
+
+    //Strategy used when the lists share too few items, and are replaced completely
+    public static final int STRATEGY_FULL_REPLACE = 0;
+    //Strategy used when the new list only appends items to the old list, diffed without move detection
+    public static final int STRATEGY_APPEND_ONLY = 1;
+    //Strategy used when the lists overlap, diffed with move detection
+    public static final int STRATEGY_MYERS_DIFF = 2;
+
+    //Stores the Strategy used for the computation
+    private final int mStrategy;
+
+    //Stores the DiffResult when the diff algorithm was run; otherwise NULL
+    private final DiffUtil.DiffResult mDiffResult;
+
+    //Stores the size of the old list
+    private final int mOldListSize;
+
+    //Stores the size of the new list
+    private final int mNewListSize;
+
+    //Stores the time taken in milliseconds for the computation
+    private final long mElapsedTimeMillis;
+
+    /**
+     * Constructor of {@link BooksDiffResult}
+     *
+     * @param strategy          is the Strategy used for the computation, one of the STRATEGY_* constants
+     * @param diffResult        is the {@link android.support.v7.util.DiffUtil.DiffResult} when the
+     *                          diff algorithm was run; NULL for {@link #STRATEGY_FULL_REPLACE}
+     * @param oldListSize       is the size of the old list
+     * @param newListSize       is the size of the new list
+     * @param elapsedTimeMillis is the time taken in milliseconds for the computation
+     */
+    BooksDiffResult(int strategy, @Nullable DiffUtil.DiffResult diffResult,
+                    int oldListSize, int newListSize, long elapsedTimeMillis) {
+        mStrategy = strategy;
+        mDiffResult = diffResult;
+        mOldListSize = oldListSize;
+        mNewListSize = newListSize;
+        mElapsedTimeMillis = elapsedTimeMillis;
+    }
+
+    /**
+     * Method that returns the name of the Strategy passed, used for logging purpose
+     *
+     * @param strategy is one of the STRATEGY_* constants
+     * @return String containing the name of the Strategy
+     */
+    public static String getStrategyName(int strategy) {
+        switch (strategy) {
+            case STRATEGY_FULL_REPLACE:
+                return "FULL_REPLACE";
+            case STRATEGY_APPEND_ONLY:
+                return "APPEND_ONLY";
+            case STRATEGY_MYERS_DIFF:
+                return "MYERS_DIFF";
+            default:
+                return "UNKNOWN";
+        }
+    }
+
+    /**
+     * Method that returns the Strategy used for the computation
+     *
+     * @return Integer value of the Strategy, one of the STRATEGY_* constants
+     */
+    public int getStrategy() {
+        return mStrategy;
+    }
+
+    /**
+     * Method that returns the time taken in milliseconds for the computation
+     *
+     * @return Long value of the time taken in milliseconds
+     */
+    public long getElapsedTimeMillis() {
+        return mElapsedTimeMillis;
+    }
+
+    /**
+     * Method that dispatches the update events to the given adapter
+     *
+     * @param adapter is the RecyclerView Adapter to be notified of the changes
+     */
+    public void dispatchUpdatesTo(@NonNull final RecyclerView.Adapter adapter) {
+        if (mDiffResult != null) {
+            //Delegating to the DiffResult when the diff algorithm was run
+            mDiffResult.dispatchUpdatesTo(adapter);
+        } else {
+            //Replacing all the items otherwise
+            if (mOldListSize > 0) {
+                adapter.notifyItemRangeRemoved(0, mOldListSize);
+            }
+            if (mNewListSize > 0) {
+                adapter.notifyItemRangeInserted(0, mNewListSize);
+            }
+        }
+    }
+
+    /**
+     * Method that dispatches the update events to the given callback
+     *
+     * @param updateCallback is the {@link ListUpdateCallback} to be notified of the changes
+     */
+    public void dispatchUpdatesTo(@NonNull ListUpdateCallback updateCallback) {
+        if (mDiffResult != null) {
+            //Delegating to the DiffResult when the diff algorithm was run
+            mDiffResult.dispatchUpdatesTo(updateCallback);
+        } else {
+            //Replacing all the items otherwise
+            if (mOldListSize > 0) {
+                updateCallback.onRemoved(0, mOldListSize);
+            }
+            if (mNewListSize > 0) {
+                updateCallback.onInserted(0, mNewListSize);
+            }
+        }
+    }
+
+}
@@ -16,10 +16,14 @@
 
 package com.example.kaushiknsanji.bookslibrary.utils;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
 import android.support.v7.util.DiffUtil;
+import android.util.Log;
 
 import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
 
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -32,6 +36,22 @@ import java.util.List;
  */
 public class BooksDiffUtility extends DiffUtil.Callback {
 
+    //Payload Bit Flag that indicates a change in the textual information of the Book
+    public static final int PAYLOAD_INFO = 1;
+    //Payload Bit Flag that indicates a change in the Book ratings
+    public static final int PAYLOAD_RATING = 1 << 1;
+    //Payload Bit Flag that indicates a change in the saleability and prices of the Book
+    public static final int PAYLOAD_PRICE = 1 << 2;
+    //Payload Bit Flag that indicates a change in the Image of the Book
+    public static final int PAYLOAD_IMAGE = 1 << 3;
+
+    //Constant used for logs
+    private static final String LOG_TAG = BooksDiffUtility.class.getSimpleName();
+
+    //Minimum ratio of the items common to both the lists, below which
+    //the lists are replaced completely instead of running the diff algorithm
+    private static final float MIN_OVERLAP_RATIO_FOR_DIFF = 0.25f;
+
     //Stores the current List of BookInfo objects to be compared
     private List<BookInfo> mOldBookInfoList;
 
@@ -49,6 +69,101 @@ public class BooksDiffUtility extends DiffUtil.Callback {
         mNewBookInfoList = newBookInfos;
     }
 
+    /**
+     * Method that computes the difference between the two sets of {@link BookInfo} objects,
+     * choosing the cheapest Strategy that applies based on a pre-pass over the Book Ids.
+     * <p>
+     * <br/>When the lists share only a few items (like on a Page change or a new Search),
+     * the items are replaced completely without running the diff algorithm.
+     * <br/>When the new list only appends items to the old list, the diff algorithm is run without move detection.
+     * <br/>Otherwise, the diff algorithm is run with move detection.
+     *
+     * @param oldBookInfos is the Current List of {@link BookInfo} objects to be compared
+     * @param newBookInfos is the New List of {@link BookInfo} objects to be compared
+     * @return {@link BooksDiffResult} containing the result of the computation
+     */
+    public static BooksDiffResult calculateDiff(@NonNull List<BookInfo> oldBookInfos,
+                                                @NonNull List<BookInfo> newBookInfos) {
+        //Saving the start time of computation
+        long startTimeNanos = System.nanoTime();
+
+        //Retrieving the size of the lists
+        int oldListSize = oldBookInfos.size();
+        int newListSize = newBookInfos.size();
+
+        //Evaluating the strategy to be used for the computation
+        int strategy = evaluateStrategy(oldBookInfos, newBookInfos);
+
+        DiffUtil.DiffResult diffResult = null;
+        if (strategy != BooksDiffResult.STRATEGY_FULL_REPLACE) {
+            //Running the diff algorithm, detecting moves only when the new list is not an append of the old list
+            diffResult = DiffUtil.calculateDiff(new BooksDiffUtility(oldBookInfos, newBookInfos),
+                    strategy == BooksDiffResult.STRATEGY_MYERS_DIFF);
+        }
+
+        //Evaluating the time taken for the computation
+        long elapsedTimeMillis = (System.nanoTime() - startTimeNanos) / 1000000L;
+        Log.d(LOG_TAG, "calculateDiff: Strategy " + BooksDiffResult.getStrategyName(strategy)
+                + " for " + oldListSize + " -> " + newListSize + " items took " + elapsedTimeMillis + " ms");
+
+        //Returning the result of the computation
+        return new BooksDiffResult(strategy, diffResult, oldListSize, newListSize, elapsedTimeMillis);
+    }
+
+    /**
+     * Method that evaluates the Strategy to be used for the difference computation,
+     * by hashing the Book Ids of the old list and measuring its overlap with the new list.
+     *
+     * @param oldBookInfos is the Current List of {@link BookInfo} objects to be compared
+     * @param newBookInfos is the New List of {@link BookInfo} objects to be compared
+     * @return Integer value of the Strategy, one of the BooksDiffResult.STRATEGY_* constants
+     */
+    @VisibleForTesting
+    static int evaluateStrategy(List<BookInfo> oldBookInfos, List<BookInfo> newBookInfos) {
+        //Retrieving the size of the lists
+        int oldListSize = oldBookInfos.size();
+        int newListSize = newBookInfos.size();
+
+        if (oldListSize == 0 || newListSize == 0) {
+            //Replacing completely when either of the lists is empty
+            return BooksDiffResult.STRATEGY_FULL_REPLACE;
+        }
+
+        //Hashing the Book Ids of the old list
+        HashSet<String> oldBookIdSet = new HashSet<>(oldListSize * 2);
+        for (BookInfo bookInfo : oldBookInfos) {
+            oldBookIdSet.add(bookInfo.getBookId());
+        }
+
+        //Counting the items common to both the lists, and checking whether
+        //the new list retains the old list as-is at its start
+        int commonCount = 0;
+        boolean isAppendOnly = newListSize >= oldListSize;
+        for (int index = 0; index < newListSize; index++) {
+            String newBookId = newBookInfos.get(index).getBookId();
+            if (oldBookIdSet.contains(newBookId)) {
+                commonCount++;
+            }
+            if (isAppendOnly && index < oldListSize
+                    && !oldBookInfos.get(index).getBookId().equals(newBookId)) {
+                isAppendOnly = false;
+            }
+        }
+
+        if (isAppendOnly) {
+            //When the old list is retained as-is with new items appended
+            return BooksDiffResult.STRATEGY_APPEND_ONLY;
+        }
+
+        if (commonCount < MIN_OVERLAP_RATIO_FOR_DIFF * Math.max(oldListSize, newListSize)) {
+            //When the lists share too few items, it is cheaper to replace them completely
+            return BooksDiffResult.STRATEGY_FULL_REPLACE;
+        }
+
+        //For all else, running the diff algorithm with move detection
+        return BooksDiffResult.STRATEGY_MYERS_DIFF;
+    }
+
     /**
      * Returns the size of the old list.
      *
@@ -101,11 +216,56 @@ public class BooksDiffUtility extends DiffUtil.Callback {
      */
     @Override
     public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-        //Returning the result of the comparison of Book Titles only as we assume
-        //that there will be no change in a subset of the fields representing the BookInfo
-        return mOldBookInfoList.get(oldItemPosition).getTitle().equals(
-                mNewBookInfoList.get(newItemPosition).getTitle()
-        );
+        //Retrieving the Old and New BookInfo objects being compared
+        BookInfo oldBookInfo = mOldBookInfoList.get(oldItemPosition);
+        BookInfo newBookInfo = mNewBookInfoList.get(newItemPosition);
+
+        //Contents are the same only when all four precomputed sectional fingerprints match,
+        //namely those of the Info, the Rating, the Price and the Image sections
+        return oldBookInfo.getInfoFingerprint() == newBookInfo.getInfoFingerprint()
+                && oldBookInfo.getRatingFingerprint() == newBookInfo.getRatingFingerprint()
+                && oldBookInfo.getPriceFingerprint() == newBookInfo.getPriceFingerprint()
+                && oldBookInfo.getImageFingerprint() == newBookInfo.getImageFingerprint();
+    }
+
+    /**
+     * When {@link #areItemsTheSame(int, int)} returns {@code true} for two items and
+     * {@link #areContentsTheSame(int, int)} returns false for them, DiffUtil
+     * calls this method to get a payload about the change.
+     * <p>
+     * The payload returned is an Integer Bit mask of the PAYLOAD_* flags
+     * that identifies the parts of the Book that have changed, which allows the Adapters
+     * to rebind only the affected views.
+     *
+     * @param oldItemPosition The position of the item in the old list
+     * @param newItemPosition The position of the item in the new list
+     * @return An Integer Bit mask of the PAYLOAD_* flags representing the change between the two items;
+     * or NULL when no section has changed
+     */
+    @Override
+    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+        //Retrieving the Old and New BookInfo objects being compared
+        BookInfo oldBookInfo = mOldBookInfoList.get(oldItemPosition);
+        BookInfo newBookInfo = mNewBookInfoList.get(newItemPosition);
+
+        //Evaluating the Bit mask of the changes by comparing the sectional fingerprints
+        int payloadMask = 0;
+        if (oldBookInfo.getInfoFingerprint() != newBookInfo.getInfoFingerprint()) {
+            payloadMask |= PAYLOAD_INFO;
+        }
+        if (oldBookInfo.getRatingFingerprint() != newBookInfo.getRatingFingerprint()) {
+            payloadMask |= PAYLOAD_RATING;
+        }
+        if (oldBookInfo.getPriceFingerprint() != newBookInfo.getPriceFingerprint()) {
+            payloadMask |= PAYLOAD_PRICE;
+        }
+        if (oldBookInfo.getImageFingerprint() != newBookInfo.getImageFingerprint()) {
+            payloadMask |= PAYLOAD_IMAGE;
+        }
+
+        //Returning NULL when no sectional change was found, for a complete rebind of the item
+        //(Not expected, as the contents compare the same only when all the sections do)
+        return payloadMask == 0 ? null : payloadMask;
     }
 
 }
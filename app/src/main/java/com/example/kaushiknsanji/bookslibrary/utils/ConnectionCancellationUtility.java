@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.utils;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.os.CancellationSignal;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Utility Class that ties a {@link HttpURLConnection} to a {@link CancellationSignal},
+ * so that the connection is aborted as soon as the signal is canceled, instead of
+ * the blocked read running on until it times out.
+ * <p>
+ * A {@link CancellationSignal} holds only one listener, while a load may run several requests
+ * concurrently on the same signal. Hence a single listener is registered per signal, which
+ * aborts all the connections open on the signal at the time it is canceled.
+ *
+ * @author Kaushik N Sanji
+ */
+public class ConnectionCancellationUtility {
+
+    //Constant used for logs
+    private static final String LOG_TAG = ConnectionCancellationUtility.class.getSimpleName();
+
+    //Dedicated single worker thread for aborting the connections, since the signal is usually
+    //canceled from the Main Thread where closing a socket is not permitted
+    private static final Executor ABORT_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        /**
+         * Constructs a new {@code Thread}.
+         *
+         * @param runnable a runnable to be executed by new thread instance
+         * @return constructed thread
+         */
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    //Running the aborts at the Background priority
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, LOG_TAG);
+        }
+    });
+
+    //Connections open on each signal, which are aborted together when the signal is canceled;
+    //keyed weakly so that the signals of the loads done are not retained. Guarded by itself.
+    private static final Map<CancellationSignal, Set<HttpURLConnection>> mOpenConnections = new WeakHashMap<>();
+
+    /**
+     * Method that registers the connection to be disconnected when the signal is canceled.
+     * Disconnecting closes the socket, which makes the blocked read of the connection to fail immediately.
+     * When the signal is already canceled, the connection is disconnected right away.
+     *
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     * @param urlConnection      is the {@link HttpURLConnection} to be aborted on cancel
+     */
+    public static void abortOnCancel(@Nullable CancellationSignal cancellationSignal,
+                                     @NonNull HttpURLConnection urlConnection) {
+        if (cancellationSignal == null) {
+            //Returning when the load is not cancellable
+            return;
+        }
+
+        //Adding the connection to the ones open on the signal
+        final Set<HttpURLConnection> openConnections;
+        boolean isFirstConnection = false;
+        synchronized (mOpenConnections) {
+            Set<HttpURLConnection> connections = mOpenConnections.get(cancellationSignal);
+            if (connections == null) {
+                connections = new HashSet<>();
+                mOpenConnections.put(cancellationSignal, connections);
+                isFirstConnection = true;
+            }
+            connections.add(urlConnection);
+            openConnections = connections;
+        }
+
+        if (isFirstConnection) {
+            //Registering the only listener of the signal, which aborts all the connections open on it
+            //(Invoked right away when the signal is already canceled)
+            cancellationSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                /**
+                 * Called when {@link CancellationSignal#cancel} is invoked.
+                 */
+                @Override
+                public void onCancel() {
+                    List<HttpURLConnection> connectionsToAbort;
+                    synchronized (mOpenConnections) {
+                        connectionsToAbort = new ArrayList<>(openConnections);
+                    }
+                    for (HttpURLConnection connection : connectionsToAbort) {
+                        disconnect(connection);
+                    }
+                }
+            });
+        }
+
+        if (cancellationSignal.isCanceled()) {
+            //Aborting the connection added after the signal was canceled
+            disconnect(urlConnection);
+        }
+    }
+
+    /**
+     * Method that unregisters the connection from the signal, once the connection is done.
+     * The listener of the signal stays registered for the other connections open on it.
+     *
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     * @param urlConnection      is the {@link HttpURLConnection} done; can be Null when it was not opened
+     */
+    public static void clearOnCancel(@Nullable CancellationSignal cancellationSignal,
+                                     @Nullable HttpURLConnection urlConnection) {
+        if (cancellationSignal == null || urlConnection == null) {
+            //Returning when nothing was registered
+            return;
+        }
+
+        synchronized (mOpenConnections) {
+            Set<HttpURLConnection> connections = mOpenConnections.get(cancellationSignal);
+            if (connections != null) {
+                connections.remove(urlConnection);
+            }
+        }
+    }
+
+    /**
+     * Method that returns the number of connections open on the signal, that are aborted on cancel
+     *
+     * @param cancellationSignal is the {@link CancellationSignal} of the load
+     * @return The number of connections registered and not yet done
+     */
+    static int getOpenConnectionCount(@NonNull CancellationSignal cancellationSignal) {
+        synchronized (mOpenConnections) {
+            Set<HttpURLConnection> connections = mOpenConnections.get(cancellationSignal);
+            return (connections == null) ? 0 : connections.size();
+        }
+    }
+
+    /**
+     * Method that disconnects the connection on the abort thread, as the signal is usually
+     * canceled from the Main Thread
+     *
+     * @param urlConnection is the {@link HttpURLConnection} to be aborted
+     */
+    private static void disconnect(final HttpURLConnection urlConnection) {
+        ABORT_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                //Disconnecting to close the socket being read
+                urlConnection.disconnect();
+            }
+        });
+    }
+
+    /**
+     * Method that throws {@link android.support.v4.os.OperationCanceledException}
+     * when the signal has been canceled
+     *
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     */
+    public static void throwIfCanceled(@Nullable CancellationSignal cancellationSignal) {
+        if (cancellationSignal != null) {
+            cancellationSignal.throwIfCanceled();
+        }
+    }
+
+}
@@ -19,6 +19,8 @@ package com.example.kaushiknsanji.bookslibrary.utils;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.os.Build;
+import android.support.annotation.Nullable;
+import android.support.v4.os.CancellationSignal;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -47,10 +49,12 @@ public class ImageUtility {
      * Method that downloads and returns the Image from the URL mentioned
      * Also adds the Image to Memory Cache when successfully downloaded
      *
-     * @param imageURLStr String containing the Image URL from which the Image needs to be downloaded
+     * @param imageURLStr        String containing the Image URL from which the Image needs to be downloaded
+     * @param cancellationSignal {@link CancellationSignal} that aborts the download and decoding when canceled; can be Null
      * @return Bitmap of the Image downloaded from the URL mentioned
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
      */
-    public static Bitmap downloadFromURL(String imageURLStr) {
+    public static Bitmap downloadFromURL(String imageURLStr, @Nullable CancellationSignal cancellationSignal) {
         //Creating the URL
         URL imageURL = createURL(imageURLStr);
 
@@ -67,15 +71,20 @@ public class ImageUtility {
         //Declaring the HTTP Input Stream
         InputStream imageInputStream = null;
 
+        //Not connecting when the download is already canceled
+        ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
+
         try {
             urlConnection = (HttpURLConnection) imageURL.openConnection();
+            //Aborting the connection as soon as the download is canceled
+            ConnectionCancellationUtility.abortOnCancel(cancellationSignal, urlConnection);
             urlConnection.setConnectTimeout(10000); //10seconds as Connection Timeout
             urlConnection.connect(); //Connecting to the Image URL
 
             if (urlConnection.getResponseCode() == HttpURLConnection.HTTP_OK) {
                 //When the Response code is OK(200), then download and construct the Bitmap
                 imageInputStream = urlConnection.getInputStream();
-                bitmap = getSampledBitmapImage(imageInputStream);
+                bitmap = getSampledBitmapImage(imageInputStream, cancellationSignal);
             } else {
                 //When the response is not OK(200), then log the error code
                 Log.e(LOG_TAG, "HTTP Request to Image URL failed with the code " + urlConnection.getResponseCode());
@@ -84,6 +93,9 @@ public class ImageUtility {
         } catch (IOException e) {
             Log.e(LOG_TAG, "Error occurred while opening connection to the Image URL\n", e);
         } finally {
+            //Unregistering the connection from the signal as it is done
+            ConnectionCancellationUtility.clearOnCancel(cancellationSignal, urlConnection);
+
             if (urlConnection != null) {
                 //Disconnecting in the end if the connection was established
                 urlConnection.disconnect();
@@ -104,6 +116,9 @@ public class ImageUtility {
             }
         }
 
+        //Discarding the failed download when the connection was aborted on cancel
+        ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
+
         //Returning the Bitmap Image downloaded
         return bitmap;
     }
@@ -111,21 +126,30 @@ public class ImageUtility {
     /**
      * Method that downloads, processes and constructs a Down Sampled Bitmap Image
      *
-     * @param imageInputStream The InputStream of the Image derived from the connection to the Image URL
+     * @param imageInputStream   The InputStream of the Image derived from the connection to the Image URL
+     * @param cancellationSignal {@link CancellationSignal} that stops the reading and decoding when canceled; can be Null
      * @return Down Sampled Bitmap Image downloaded from the Stream specified
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
      */
-    private static Bitmap getSampledBitmapImage(InputStream imageInputStream) {
+    private static Bitmap getSampledBitmapImage(InputStream imageInputStream,
+                                                @Nullable CancellationSignal cancellationSignal) {
         //Retrieving the Image Byte Array for downsampling
-        byte[] imageByteArray = getImageByteArrayForProcessing(imageInputStream);
+        byte[] imageByteArray = getImageByteArrayForProcessing(imageInputStream, cancellationSignal);
 
         //Returning NULL when the Image Byte array was not generated due to some failure
         if (imageByteArray == null) {
             return null;
         }
 
+        //Skipping the decode of the bounds when the download is canceled
+        ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
+
         //Retrieving the Down Sampling factor to downsample the image if necessary
         int downScalingFactorSize = getDownSamplingFactor(imageByteArray);
 
+        //Skipping the decode of the image when the download is canceled
+        ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
+
         //Returning the Down Sampled Bitmap Image
         return getDownSampledImage(imageByteArray, downScalingFactorSize);
     }
@@ -207,10 +231,13 @@ public class ImageUtility {
     /**
      * Method that generates an Image Byte Array from the Image Stream for processing/downsampling
      *
-     * @param imageInputStream The InputStream of the Image derived from the connection to the Image URL
+     * @param imageInputStream   The InputStream of the Image derived from the connection to the Image URL
+     * @param cancellationSignal {@link CancellationSignal} that stops the reading when canceled; can be Null
      * @return Image Byte Array generated for Image processing/downsampling
+     * @throws android.support.v4.os.OperationCanceledException if the signal is canceled
      */
-    private static byte[] getImageByteArrayForProcessing(InputStream imageInputStream) {
+    private static byte[] getImageByteArrayForProcessing(InputStream imageInputStream,
+                                                         @Nullable CancellationSignal cancellationSignal) {
         //Creating a Buffered Input Stream of the Image Stream
         BufferedInputStream bufferedImageInputStream = new BufferedInputStream(imageInputStream);
 
@@ -227,6 +254,8 @@ public class ImageUtility {
         //Writing the Bytes read to the ByteArrayOutputStream
         try {
             while ((bytesRead = bufferedImageInputStream.read(byteBuff, 0, byteBuff.length)) > 0) {
+                //Stopping the reading when the download is canceled
+                ConnectionCancellationUtility.throwIfCanceled(cancellationSignal);
                 byteArrayOutputStream.write(byteBuff, 0, bytesRead);
             }
 
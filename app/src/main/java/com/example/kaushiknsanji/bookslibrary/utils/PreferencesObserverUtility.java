@@ -17,68 +17,40 @@
 package com.example.kaushiknsanji.bookslibrary.utils;
 
 import android.content.Context;
-import android.text.TextUtils;
 
 import com.example.kaushiknsanji.bookslibrary.R;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
- * Utility Class that manages the Preference Keys to exclude
- * from or include in the Preference Listener and also in the
- * preparation of the Search URL
+ * Utility Class that provides the Preference Keys to exclude
+ * from the Preference Listener and also from the
+ * resetting of the Search settings
  *
  * @author Kaushik N Sanji
  */
 public class PreferencesObserverUtility {
 
     /**
-     * Method that returns the List of Preference Keys
-     * that are to be excluded while preparing the Search URL and also for the Preference Listener
+     * Method that returns the Set of Preference Keys
+     * that are to be excluded from the Preference Listener and from resetting the Search settings
      *
      * @param context is the Context of the Activity/Fragment or App
-     * @return List of Strings that contain the Preference Keys to be excluded
+     * @return Set of Strings that contain the Preference Keys to be excluded
      */
-    public static List<String> getPreferenceKeysToExclude(Context context) {
-        //Initializing an ArrayList of Strings for the Keys to be excluded
-        ArrayList<String> keysToExclude = new ArrayList<>();
+    public static Set<String> getPreferenceKeysToExclude(Context context) {
+        //Initializing a HashSet of Strings for the Keys to be excluded, for constant time lookups
+        HashSet<String> keysToExclude = new HashSet<>();
 
         //Adding the Preference Keys to be excluded
         keysToExclude.add(context.getString(R.string.pref_page_to_display_max_value_key));
         keysToExclude.add(context.getString(R.string.pref_reset_settings_key));
         keysToExclude.add(context.getString(R.string.pref_last_displayed_page_key));
+        keysToExclude.add(context.getString(R.string.pref_live_search_key));
 
         //Returning the exclusion list
         return keysToExclude;
     }
 
-    /**
-     * Method to add another key to an existing exclusion list
-     *
-     * @param keysToExclude is the List of Strings that contain the Preference Keys to be excluded
-     * @param key           is an additional Preference Key string to be excluded
-     */
-    public static void addKeyToExclude(List<String> keysToExclude, String key) {
-        //Checking initially if the Key is not empty and the list does NOT contain the Key yet
-        if (!TextUtils.isEmpty(key) && !keysToExclude.contains(key)) {
-            //Adding to the exclusion list
-            keysToExclude.add(key);
-        }
-    }
-
-    /**
-     * Method to remove a key from an existing exclusion list
-     *
-     * @param keysToExclude is the List of Strings that contain the Preference Keys to be excluded
-     * @param key           is the Preference Key string to be removed from exclusion
-     */
-    public static void removeKeyToInclude(List<String> keysToExclude, String key) {
-        //Checking initially if the Key is not empty and the list does contain the Key
-        if (!TextUtils.isEmpty(key) && keysToExclude.contains(key)) {
-            //Removing from the exclusion list
-            keysToExclude.remove(key);
-        }
-    }
-
 }
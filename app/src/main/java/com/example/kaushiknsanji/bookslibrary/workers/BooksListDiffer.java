@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.example.kaushiknsanji.bookslibrary.metrics.SearchTracer;
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.observers.OnBooksListDiffListener;
+import com.example.kaushiknsanji.bookslibrary.utils.BooksDiffResult;
+import com.example.kaushiknsanji.bookslibrary.utils.BooksDiffUtility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class that computes the difference between the current and the new list of
+ * {@link BookInfo} objects on the CPU stage of the {@link SearchPipeline}, and delivers the result
+ * to the {@link OnBooksListDiffListener} on the Main Thread.
+ * <p>
+ * Every submission is tagged with a monotonically increasing generation number. When the
+ * submissions race (like quick page taps or preference changes), the results of the stale
+ * generations are dropped and only the latest submission is latched as the current list.
+ *
+ * @author Kaushik N Sanji
+ */
+public class BooksListDiffer {
+
+    //Constant used for logs
+    private static final String LOG_TAG = BooksListDiffer.class.getSimpleName();
+
+    //Stores the reference to the Listener OnBooksListDiffListener
+    private final OnBooksListDiffListener mListener;
+
+    //Stores the current (unmodifiable) List of BookInfo objects latched
+    private List<BookInfo> mCurrentBookInfoList;
+
+    //Stores the generation of the latest submission, accessed only on the Main Thread
+    private int mMaxScheduledGeneration;
+
+    /**
+     * Constructor of {@link BooksListDiffer}
+     *
+     * @param listener         is the instance of {@link OnBooksListDiffListener} to receive the results
+     * @param initialBookInfos is the initial List of {@link BookInfo} objects
+     */
+    public BooksListDiffer(@NonNull OnBooksListDiffListener listener, @NonNull List<BookInfo> initialBookInfos) {
+        mListener = listener;
+        mCurrentBookInfoList = Collections.unmodifiableList(new ArrayList<>(initialBookInfos));
+    }
+
+    /**
+     * Method that returns the current List of {@link BookInfo} objects latched
+     *
+     * @return The current unmodifiable List of {@link BookInfo} objects
+     */
+    @NonNull
+    public List<BookInfo> getCurrentList() {
+        return mCurrentBookInfoList;
+    }
+
+    /**
+     * Method that submits a new List of {@link BookInfo} objects to be diffed against the current list.
+     * The result is delivered to the {@link OnBooksListDiffListener} unless a newer list
+     * gets submitted before the computation completes.
+     *
+     * @param newBookInfos is the new List of {@link BookInfo} objects
+     */
+    @MainThread
+    public void submitList(@NonNull List<BookInfo> newBookInfos) {
+        //Taking a snapshot of the new list, so that it is immune to any later modifications by the caller
+        final List<BookInfo> newBookInfoList = Collections.unmodifiableList(new ArrayList<>(newBookInfos));
+        //Retrieving the current list to be diffed against
+        final List<BookInfo> oldBookInfoList = mCurrentBookInfoList;
+        //Tagging the submission with the next generation
+        final int runGeneration = ++mMaxScheduledGeneration;
+        //Retrieving the Search ID of the Search being traced, to trace the diff under
+        final long searchId = SearchTracer.getActiveSearchId();
+
+        if (oldBookInfoList.isEmpty() || newBookInfoList.isEmpty()) {
+            //When either of the lists is empty, the result is a plain replacement
+            //that does not need a background computation
+            latchList(newBookInfoList, BooksDiffUtility.calculateDiff(oldBookInfoList, newBookInfoList));
+            return;
+        }
+
+        //Computing the difference on the CPU stage of the Search pipeline
+        SearchPipeline.getCpuExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                //Computing the difference
+                long diffStartNanos = SearchTracer.beginStage(SearchTracer.STAGE_DIFF);
+                final BooksDiffResult diffResult = BooksDiffUtility.calculateDiff(oldBookInfoList, newBookInfoList);
+                SearchTracer.endStage(searchId, SearchTracer.STAGE_DIFF, diffStartNanos);
+
+                //Handing over the result to the Main Thread
+                SearchPipeline.postToMain(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mMaxScheduledGeneration == runGeneration) {
+                            //Latching the list only when this is still the latest submission
+                            latchList(newBookInfoList, diffResult);
+                        } else {
+                            //Dropping the stale result
+                            Log.d(LOG_TAG, "submitList: Dropped the stale diff of generation " + runGeneration
+                                    + ", latest is " + mMaxScheduledGeneration);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Method that latches the new list as the current list and dispatches the result
+     * to the {@link OnBooksListDiffListener} in the same Main Thread message, so that
+     * the swap of the list and the dispatch of its updates happen atomically
+     *
+     * @param newBookInfoList is the new List of {@link BookInfo} objects to be latched
+     * @param diffResult      is the result of the difference computation
+     */
+    private void latchList(List<BookInfo> newBookInfoList, BooksDiffResult diffResult) {
+        mCurrentBookInfoList = newBookInfoList;
+        mListener.onBooksListDiffed(newBookInfoList, diffResult);
+    }
+
+}
@@ -17,25 +17,33 @@
 package com.example.kaushiknsanji.bookslibrary.workers;
 
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.net.Uri;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.content.AsyncTaskLoader;
-import android.support.v7.preference.PreferenceManager;
-import android.text.TextUtils;
+import android.support.v4.os.CancellationSignal;
+import android.support.v4.os.OperationCanceledException;
 import android.util.Log;
 
 import com.example.kaushiknsanji.bookslibrary.R;
+import com.example.kaushiknsanji.bookslibrary.cache.BookSuggestionIndex;
+import com.example.kaushiknsanji.bookslibrary.cache.DuplicateBookFilter;
+import com.example.kaushiknsanji.bookslibrary.cache.SearchItemStore;
+import com.example.kaushiknsanji.bookslibrary.cache.SearchResultsCache;
+import com.example.kaushiknsanji.bookslibrary.data.OfflineBookStore;
+import com.example.kaushiknsanji.bookslibrary.metrics.SearchTracer;
 import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
-import com.example.kaushiknsanji.bookslibrary.utils.BookClientPaginationUtility;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+import com.example.kaushiknsanji.bookslibrary.observers.OnLastPageDiscoveredListener;
+import com.example.kaushiknsanji.bookslibrary.observers.OnPartialBooksResultListener;
 import com.example.kaushiknsanji.bookslibrary.utils.BookClientUtility;
 import com.example.kaushiknsanji.bookslibrary.utils.NetworkUtility;
-import com.example.kaushiknsanji.bookslibrary.utils.PreferencesObserverUtility;
 
-import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * {@link AsyncTaskLoader} class for extracting the Book Volumes
@@ -49,24 +57,131 @@ public class BooksLoader extends AsyncTaskLoader<List<BookInfo>> {
     public final static int BOOK_SEARCH_LOADER = 100;
     //Constant used for logs
     private static final String LOG_TAG = BooksLoader.class.getSimpleName();
-    //Stores the Search String executed by the User
-    private String mSearchQueryStr;
+    //Stores the Search Query and the Search Settings to be used for the next load
+    private volatile SearchParams mSearchParams;
+    //Stores the Search Query and the Search Settings used by the last load
+    private volatile SearchParams mLoadedSearchParams;
 
     //Saves the result of the Search Query which is a List of BookInfo objects
     private List<BookInfo> mBookInfoList;
 
     //Boolean that stores the Network Connectivity state
     private boolean mIsNetworkConnected = false;
+    //Boolean that stores whether the result was answered from the local Book store, for want of network
+    private volatile boolean mIsOfflineResult = false;
+
+    //Stores the last page index known before the load, that is, the 'endIndex'
+    private volatile int mKnownLastPageIndex;
+    //Stores the last page index determined by the load
+    private volatile int mLastPageIndex;
+    //Stores the maximum age in milliseconds of a cached page that is served without fetching it again
+    private volatile long mCacheFreshMillis;
+
+    //Signal that aborts the load in progress when canceled
+    private CancellationSignal mCancellationSignal;
+
+    //Listener notified of the partial results of the load in progress; accessed on the Main Thread only
+    private OnPartialBooksResultListener mOnPartialBooksResultListener;
+
+    //Listener notified of the last page discovered in the background; accessed on the Main Thread only
+    private OnLastPageDiscoveredListener mOnLastPageDiscoveredListener;
+
+    //Passes the last page discovered in the background to the Listener registered by then
+    private final OnLastPageDiscoveredListener mLastPageForwarder = new OnLastPageDiscoveredListener() {
+        /**
+         * Method invoked on the Main Thread with the last page discovered for the Search Query
+         *
+         * @param searchParams  is the Search Query and the Search Settings of the page that started the discovery
+         * @param lastPageIndex is the index of the last page discovered, with 1 as the first page
+         */
+        @Override
+        public void onLastPageDiscovered(@NonNull SearchParams searchParams, int lastPageIndex) {
+            if (!isReset() && mOnLastPageDiscoveredListener != null) {
+                //Passing the last page discovered, unless the loader is already reset
+                mOnLastPageDiscoveredListener.onLastPageDiscovered(searchParams, lastPageIndex);
+            }
+        }
+    };
 
     /**
      * Constructor of the Loader {@link BooksLoader}
      *
-     * @param context        is the reference to Activity Context
-     * @param searchQueryStr is the Search Query executed by the User
+     * @param context      is the reference to Activity Context
+     * @param searchParams is the Search Query and the Search Settings to be used for the load
      */
-    public BooksLoader(Context context, String searchQueryStr) {
+    public BooksLoader(Context context, SearchParams searchParams) {
         super(context);
-        mSearchQueryStr = searchQueryStr;
+        mSearchParams = searchParams;
+    }
+
+    /**
+     * Method that updates the Search Query and the Search Settings to be used for the next load
+     *
+     * @param searchParams is the Search Query and the Search Settings to be used for the next load
+     */
+    public void setSearchParams(SearchParams searchParams) {
+        mSearchParams = searchParams;
+    }
+
+    /**
+     * Method that updates the last page index known so far, that is, the 'endIndex',
+     * from which the next load continues to probe for the last page
+     *
+     * @param knownLastPageIndex is the last page index known so far, with 1 as the first page
+     */
+    public void setKnownLastPageIndex(int knownLastPageIndex) {
+        mKnownLastPageIndex = knownLastPageIndex;
+    }
+
+    /**
+     * Method that updates the maximum age of a page cached in {@link SearchResultsCache},
+     * up to which the page is served by the next load without fetching it again
+     *
+     * @param cacheFreshMillis is the maximum age in milliseconds of the page to be served;
+     *                         or 0 to always fetch the page
+     */
+    public void setCacheFreshMillis(long cacheFreshMillis) {
+        mCacheFreshMillis = cacheFreshMillis;
+    }
+
+    /**
+     * Method that registers the Listener to be notified of the partial results of the load in progress,
+     * which are only to be shown, leaving the result of the Loader to the final result of the load
+     *
+     * @param listener is the {@link OnPartialBooksResultListener} to be registered; or Null to unregister
+     */
+    @MainThread
+    public void setOnPartialBooksResultListener(@Nullable OnPartialBooksResultListener listener) {
+        mOnPartialBooksResultListener = listener;
+    }
+
+    /**
+     * Method that registers the Listener to be notified of the last page discovered in the background,
+     * after the page loaded was delivered with a provisional last page
+     *
+     * @param listener is the {@link OnLastPageDiscoveredListener} to be registered; or Null to unregister
+     */
+    @MainThread
+    public void setOnLastPageDiscoveredListener(@Nullable OnLastPageDiscoveredListener listener) {
+        mOnLastPageDiscoveredListener = listener;
+    }
+
+    /**
+     * Method that returns the last page index determined by the last load
+     *
+     * @return The last page index with 1 as the first page; or 0 when not determined
+     */
+    public int getLastPageIndex() {
+        return mLastPageIndex;
+    }
+
+    /**
+     * Method that returns the Search Query and the Search Settings used by the last load
+     *
+     * @return The {@link SearchParams} of the last load; or null when not loaded yet
+     */
+    public SearchParams getLoadedSearchParams() {
+        return mLoadedSearchParams;
     }
 
     /**
@@ -79,72 +194,370 @@ public class BooksLoader extends AsyncTaskLoader<List<BookInfo>> {
      */
     @Override
     public List<BookInfo> loadInBackground() {
+        //Creating the Signal for this load, unless the load is already canceled
+        synchronized (this) {
+            if (isLoadInBackgroundCanceled()) {
+                throw new OperationCanceledException();
+            }
+            mCancellationSignal = new CancellationSignal();
+        }
+
+        try {
+            return loadBooks(mCancellationSignal);
+        } finally {
+            //Clearing the Signal as the load is done
+            synchronized (this) {
+                mCancellationSignal = null;
+            }
+        }
+    }
+
+    /**
+     * Called on the main thread to abort a load in progress.
+     * Cancels the {@link CancellationSignal} of the load in progress, which aborts its connection
+     * and stops its reading or parsing immediately.
+     */
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+
+        synchronized (this) {
+            if (mCancellationSignal != null) {
+                mCancellationSignal.cancel();
+            }
+        }
+    }
+
+    /**
+     * Method that executes the Search and determines the last page index for pagination
+     *
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the load when canceled
+     * @return The List of {@link BookInfo} objects retrieved for the search done
+     * @throws OperationCanceledException if the load is canceled during execution.
+     */
+    private List<BookInfo> loadBooks(final CancellationSignal cancellationSignal) {
         //Retrieving the reference to Context
-        Context context = getContext();
+        final Context context = getContext();
+
+        //Serving the page from the Memory Cache when it was loaded recently
+        SearchParams cachedSearchParams = mSearchParams;
+        SearchResultsCache.CachedPage cachedPage = SearchResultsCache.getPage(cachedSearchParams, mCacheFreshMillis);
+        if (cachedPage != null) {
+            Log.d(LOG_TAG, "loadInBackground: Served from cache " + cachedSearchParams);
+            mLoadedSearchParams = cachedSearchParams;
+            //Marking the result as online, being the one loaded online recently
+            mIsNetworkConnected = true;
+            mIsOfflineResult = false;
+            //Restoring the last page index determined along with the page
+            mLastPageIndex = Math.max(cachedPage.getLastPageIndex(), mKnownLastPageIndex);
+            //Returning a copy of the page, as the result delivered is not to be shared with the cache
+            return new ArrayList<>(cachedPage.getBookInfos());
+        }
+
+        //Slicing the page from the items fetched recently, which holds the page of a different page size
+        //or one overlapping the pages fetched, when all its items are present
+        SearchItemStore.ItemSlice itemSlice = SearchItemStore.getSlice(cachedSearchParams, mCacheFreshMillis);
+        if (itemSlice != null && itemSlice.isComplete()) {
+            Log.d(LOG_TAG, "loadInBackground: Sliced from the items fetched " + cachedSearchParams);
+            mLoadedSearchParams = cachedSearchParams;
+            //Marking the result as online, being the one loaded online recently
+            mIsNetworkConnected = true;
+            mIsOfflineResult = false;
+            //Reading the last page from the bound discovered for the Search Query, if any
+            mLastPageIndex = Math.max(LastPageDiscovery.getCachedLastPageIndex(cachedSearchParams),
+                    cachedSearchParams.getPageToDisplay());
+            //Suppressing the Books already seen on the pages before
+            List<BookInfo> uniqueBookInfos = DuplicateBookFilter.filterPage(cachedSearchParams,
+                    itemSlice.getBookInfos(), getFollowingItems(cachedSearchParams));
+            //Caching the page sliced, to render it instantly when revisited
+            SearchResultsCache.putPage(cachedSearchParams, uniqueBookInfos, mLastPageIndex);
+            return uniqueBookInfos;
+        }
 
         //Proceeding to extract data when the Internet Connectivity is established
         if (NetworkUtility.isNetworkConnected(context)) {
             //Updating the Connectivity status to True
             mIsNetworkConnected = true;
 
+            //Using the snapshot of the Search Query and the Search Settings read once for this load
+            SearchParams searchParams = cachedSearchParams;
+            mLoadedSearchParams = searchParams;
+            //Clearing the last page index of the previous load
+            mLastPageIndex = 0;
+
+            //Retrieving the Search ID of the Search being traced, or tracing a new one
+            //when the load was not started by a Search Intent
+            final long searchId = SearchTracer.getOrBeginSearch(searchParams.getQuery());
+
+            if (searchParams.isFederatedSearch()) {
+                //Searching the Query under several keyword filters concurrently, when "Search Everywhere" is enabled
+                return loadFederatedSearch(context, searchParams, searchId, cancellationSignal);
+            }
+
             //Preparing the URL for the Search Query
-            URL searchURL = createURL(BookClientUtility.VOL_BASE_URL, mSearchQueryStr,
-                    PreferencesObserverUtility.getPreferenceKeysToExclude(context));
+            long createUrlStartNanos = SearchTracer.beginStage(SearchTracer.STAGE_CREATE_URL);
+            final URL searchURL = searchParams.toURL(BookClientUtility.VOL_BASE_URL);
+            SearchTracer.endStage(searchId, SearchTracer.STAGE_CREATE_URL, createUrlStartNanos);
             Log.d(LOG_TAG, "loadInBackground: searchURL " + searchURL);
 
-            //Executing the Search and extracting the Book volumes returned
-            List<BookInfo> bookInfos = BookClientUtility.searchAndExtractVolumes(searchURL);
+            //Fetching only the items missing, when the page has some of its items fetched recently
+            List<BookInfo> slicedBookInfos = null;
+            if (itemSlice != null) {
+                slicedBookInfos = fetchMissingItems(searchParams, itemSlice, searchId, cancellationSignal);
+            }
 
-            //Calculating the probable index of last page for pagination: START
-            if (bookInfos != null && bookInfos.size() > 0) {
-                //Retrieving the Preferences to get the current setting values
-                SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+            final String jsonResponse;
+            final List<BookInfo> bookInfos;
+            //The number of items fetched for the page, including the duplicates
+            final int fetchedItemCount;
+            if (slicedBookInfos != null) {
+                //When the page is now complete with the items missing
+                //(The items missing are already saved to the local Book store)
+                jsonResponse = null;
+                fetchedItemCount = slicedBookInfos.size();
+                //Suppressing the Books already seen on the pages before
+                bookInfos = DuplicateBookFilter.filterPage(searchParams, slicedBookInfos, getFollowingItems(searchParams));
+            } else {
+                //Executing the Search for the page along with its neighbouring pages in one burst,
+                //returning as soon as the page is parsed on the CPU stage, while the neighbouring pages
+                //are completed and cached in the background for when they are navigated to
+                List<SearchParams> pagesParams = getPagesToFetch(searchParams);
+                PageRangeFetcher.FetchedPage requestedPage = PageRangeFetcher.fetchPages(context, pagesParams,
+                        searchParams, getFollowingItems(searchParams),
+                        Math.max(searchParams.getPageToDisplay(), mKnownLastPageIndex), searchId, cancellationSignal);
+                jsonResponse = requestedPage.getJsonResponse();
+                fetchedItemCount = (requestedPage.getBookInfos() == null) ? 0 : requestedPage.getBookInfos().size();
+                //Using the page without the Books already seen on the pages before
+                //(The items of the page are already saved at their absolute offset, for slicing the pages later)
+                bookInfos = requestedPage.getUniqueBookInfos();
+            }
+
+            //Clearing the offline state of the previous load
+            mIsOfflineResult = false;
 
-                //Retrieving the 'maxResults' (Results per page) setting value
-                int itemsPerPage = preferences.getInt(context.getString(R.string.pref_results_per_page_key),
-                        context.getResources().getInteger(R.integer.pref_results_per_page_default_value));
+            //Discovering the index of last page for pagination: START
+            if (bookInfos != null && bookInfos.size() > 0) {
+                long paginationProbeStartNanos = SearchTracer.beginStage(SearchTracer.STAGE_PAGINATION_PROBE);
 
-                //Retrieving the 'startIndex' (Page to Display) setting value
-                int startIndex = preferences.getInt(context.getString(R.string.pref_page_to_display_key),
-                        context.getResources().getInteger(R.integer.pref_page_to_display_default_value));
+                //Retrieving the last page from the bound cached for the Search Query, or else the page following
+                //when the page is full, while the bound is discovered in the background and passed on when found
+                //(Reading the number of items fetched, as the duplicates suppressed do not mark the end of the results)
+                int lastPageIndex = LastPageDiscovery.getLastPageIndex(searchParams, fetchedItemCount, mLastPageForwarder);
 
-                //Retrieving the 'endIndex' preference value
-                int endIndex = preferences.getInt(context.getString(R.string.pref_page_to_display_max_value_key),
-                        startIndex);
+                //Saving the last page index found, for the Activity to update its Pagination state
+                mLastPageIndex = Math.max(lastPageIndex, searchParams.getPageToDisplay());
 
-                //Finding the next value of the last page index based on the current 'startIndex' & 'maxResults' values
-                //(Normalizing setting values to 0, as 0 is the actual first page index)
-                int lastPageIndex = BookClientPaginationUtility.getLastPageIndex(searchURL, itemsPerPage, startIndex - 1, endIndex - 1);
-                //Normalizing the result to 1 as the first page index
-                lastPageIndex += 1;
+                Log.d(LOG_TAG, "loadInBackground: lastPageIndex found " + lastPageIndex);
 
-                if (lastPageIndex > endIndex) {
-                    //Updating 'endIndex' preference value only when the newly determined value
-                    //is greater than its previously determined value
+                SearchTracer.endStage(searchId, SearchTracer.STAGE_PAGINATION_PROBE, paginationProbeStartNanos);
 
-                    //Opening the Editor to update the value of the last page index found
-                    SharedPreferences.Editor prefEditor = preferences.edit();
-                    prefEditor.putInt(context.getString(R.string.pref_page_to_display_max_value_key),
-                            lastPageIndex); //updating the 'endIndex'
-                    prefEditor.apply(); //Applying the changes
+                //Caching the page loaded, to render it instantly when revisited
+                SearchResultsCache.putPage(searchParams, bookInfos, mLastPageIndex);
 
-                    Log.d(LOG_TAG, "loadInBackground: lastPageIndex updated to " + lastPageIndex);
-                }
+                //Saving the Books loaded to the local Book store in the background, for answering offline
+                OfflineBookStore.saveSearchResults(context, searchParams, jsonResponse);
 
+                //Indexing the Titles and Authors of the Books loaded, for the Search Suggestions
+                BookSuggestionIndex.addBooks(bookInfos);
             }
-            //Calculating the probable index of last page for pagination: END
+            //Discovering the index of last page for pagination: END
 
             //Returning the result
             return bookInfos;
         }
 
+        //Recording the Search Settings of the load attempted, even though offline
+        final SearchParams searchParams = mSearchParams;
+        mLoadedSearchParams = searchParams;
+
         //Updating the Connectivity status to False as it is not active
         mIsNetworkConnected = false;
 
+        //Answering the Search from the local Book store, on the I/O stage
+        OfflineBookStore.OfflineSearchResult offlineSearchResult = SearchPipeline.callOnIo(
+                new Callable<OfflineBookStore.OfflineSearchResult>() {
+                    @Override
+                    public OfflineBookStore.OfflineSearchResult call() {
+                        return OfflineBookStore.search(context, searchParams, cancellationSignal);
+                    }
+                }, cancellationSignal);
+
+        if (offlineSearchResult != null && offlineSearchResult.getBookInfos().size() > 0) {
+            //When the local Book store has the Books for the page requested
+            mIsOfflineResult = true;
+
+            //Saving the last page index of the Books matched locally
+            mLastPageIndex = offlineSearchResult.getLastPageIndex();
+
+            //Returning the result answered offline
+            return offlineSearchResult.getBookInfos();
+        }
+
+        //Clearing the state of the previous load, as there is no result
+        mIsOfflineResult = false;
+        mLastPageIndex = 0;
+
         //For all else, returning null
         return null;
     }
 
+    /**
+     * Method that executes the "Search Everywhere" Search through the {@link FederatedSearch},
+     * passing the results merged so far to the {@link OnPartialBooksResultListener} as each of its
+     * sub-queries returns. The final result alone is delivered as the result of the Loader, which
+     * replaces them, applying only the differences to the page shown.
+     *
+     * @param context            is the Context of the Application
+     * @param searchParams       is the Search Query and the Search Settings of the page
+     * @param searchId           is the Search ID of the Search being traced
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the load when canceled
+     * @return The List of {@link BookInfo} objects of all the sub-queries merged
+     * @throws OperationCanceledException if the load is canceled during execution.
+     */
+    private List<BookInfo> loadFederatedSearch(final Context context, SearchParams searchParams, long searchId,
+                                               final CancellationSignal cancellationSignal) {
+        //Clearing the offline state of the previous load
+        mIsOfflineResult = false;
+        //Reporting the page itself as the last page, until the sub-queries say there are more
+        mLastPageIndex = searchParams.getPageToDisplay();
+
+        //Executing the sub-queries, streaming the results merged so far on the Main Thread
+        FederatedSearch.MergedResult mergedResult = FederatedSearch.search(searchParams,
+                Arrays.asList(context.getResources().getStringArray(R.array.federated_search_filter_values)),
+                searchId, cancellationSignal, new FederatedSearch.OnPartialResultListener() {
+                    @Override
+                    public void onPartialResult(@NonNull final List<BookInfo> bookInfos) {
+                        SearchPipeline.postToMain(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (!cancellationSignal.isCanceled() && isStarted()
+                                        && mOnPartialBooksResultListener != null) {
+                                    //Showing the results merged so far, unless the load was abandoned
+                                    mOnPartialBooksResultListener.onPartialBooksResult(bookInfos);
+                                }
+                            }
+                        });
+                    }
+                });
+        final List<BookInfo> bookInfos = mergedResult.getBookInfos();
+
+        //Advancing the last page by one when any of the sub-queries has more pages
+        mLastPageIndex = searchParams.getPageToDisplay() + (mergedResult.hasNextPage() ? 1 : 0);
+
+        if (bookInfos.size() > 0) {
+            //Caching the page merged, to render it instantly when revisited
+            SearchResultsCache.putPage(searchParams, bookInfos, mLastPageIndex);
+
+            //Indexing the Titles and Authors of the Books loaded, for the Search Suggestions
+            BookSuggestionIndex.addBooks(bookInfos);
+        }
+
+        //Returning the result
+        return bookInfos;
+    }
+
+    /**
+     * Method that fetches the range of the items missing in the page, and slices the page
+     * again from the items fetched. The items fetched are saved to the local Book store
+     * and the Search Suggestions.
+     *
+     * @param searchParams       is the Search Query and the Search Settings of the page
+     * @param itemSlice          is the {@link SearchItemStore.ItemSlice} with the range of the items missing
+     * @param searchId           is the Search ID of the Search being traced
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the load when canceled
+     * @return The List of {@link BookInfo} objects of the page; or null when the page
+     * is still incomplete, for which the whole page needs to be fetched
+     * @throws OperationCanceledException if the load is canceled during execution.
+     */
+    private List<BookInfo> fetchMissingItems(SearchParams searchParams, SearchItemStore.ItemSlice itemSlice,
+                                             final long searchId, final CancellationSignal cancellationSignal) {
+        //Preparing the URL for the range of the items missing
+        int missingStartIndex = itemSlice.getMissingStartIndex();
+        int missingItemCount = itemSlice.getMissingItemCount();
+        final URL rangeURL = searchParams.toRangeURL(BookClientUtility.VOL_BASE_URL, missingStartIndex, missingItemCount);
+        Log.d(LOG_TAG, "fetchMissingItems: rangeURL " + rangeURL);
+
+        //Executing the request on the I/O stage
+        final String jsonResponse = SearchPipeline.callOnIo(new Callable<String>() {
+            @Override
+            public String call() {
+                return BookClientUtility.searchVolumes(rangeURL, searchId, cancellationSignal);
+            }
+        }, cancellationSignal);
+
+        //Extracting the Book volumes returned, on the CPU stage
+        List<BookInfo> missingBookInfos = SearchPipeline.callOnCpu(new Callable<List<BookInfo>>() {
+            @Override
+            public List<BookInfo> call() {
+                return BookClientUtility.extractVolumes(jsonResponse, searchId, cancellationSignal);
+            }
+        }, cancellationSignal);
+
+        if (missingBookInfos == null) {
+            //Returning null when the request failed
+            return null;
+        }
+
+        //Saving the items fetched at their absolute offset, and in the local Book store and the Search Suggestions
+        SearchItemStore.putItems(searchParams, missingStartIndex, missingItemCount, missingBookInfos);
+        OfflineBookStore.saveSearchResults(getContext(), searchParams, missingStartIndex, jsonResponse);
+        BookSuggestionIndex.addBooks(missingBookInfos);
+
+        //Slicing the page again, which is returned only when complete
+        SearchItemStore.ItemSlice updatedItemSlice = SearchItemStore.getSlice(searchParams, mCacheFreshMillis);
+        return (updatedItemSlice != null && updatedItemSlice.isComplete()) ? updatedItemSlice.getBookInfos() : null;
+    }
+
+    /**
+     * Method that returns the items of the page following the one passed, when all of them
+     * were fetched recently, for backfilling the page short of the duplicates suppressed
+     *
+     * @param searchParams is the Search Query and the Search Settings of the page
+     * @return The List of {@link BookInfo} objects of the following page; or NULL when not fetched
+     */
+    private List<BookInfo> getFollowingItems(SearchParams searchParams) {
+        SearchItemStore.ItemSlice followingSlice = SearchItemStore.getSlice(
+                searchParams.withPageToDisplay(searchParams.getPageToDisplay() + 1), mCacheFreshMillis);
+        return (followingSlice != null && followingSlice.isComplete()) ? followingSlice.getBookInfos() : null;
+    }
+
+    /**
+     * Method that returns the pages to be fetched for the page requested, which includes
+     * its previous and next pages within the pages known, unless they were cached recently.
+     * The neighbouring pages are not fetched when the cached pages are not to be served.
+     *
+     * @param searchParams is the Search Query and the Search Settings of the page requested
+     * @return The List of {@link SearchParams} of the pages to be fetched, in the order of the pages
+     */
+    private List<SearchParams> getPagesToFetch(SearchParams searchParams) {
+        List<SearchParams> pagesParams = new ArrayList<>(3);
+        int pageIndex = searchParams.getPageToDisplay();
+        int lastPageIndex = Math.max(pageIndex, mKnownLastPageIndex);
+        long cacheFreshMillis = mCacheFreshMillis;
+
+        //Adding the previous page when not cached recently
+        if (cacheFreshMillis > 0 && pageIndex > 1) {
+            SearchParams previousPageParams = searchParams.withPageToDisplay(pageIndex - 1);
+            if (!SearchResultsCache.hasPage(previousPageParams, cacheFreshMillis)) {
+                pagesParams.add(previousPageParams);
+            }
+        }
+
+        //Adding the page requested
+        pagesParams.add(searchParams);
+
+        //Adding the next page when not cached recently
+        if (cacheFreshMillis > 0 && pageIndex < lastPageIndex) {
+            SearchParams nextPageParams = searchParams.withPageToDisplay(pageIndex + 1);
+            if (!SearchResultsCache.hasPage(nextPageParams, cacheFreshMillis)) {
+                pagesParams.add(nextPageParams);
+            }
+        }
+
+        //Returning the pages to be fetched
+        return pagesParams;
+    }
+
     /**
      * Sends the result of the load to the registered listener. Should only be called by subclasses.
      *
@@ -252,94 +665,6 @@ public class BooksLoader extends AsyncTaskLoader<List<BookInfo>> {
         }
     }
 
-    /**
-     * Method that creates a URL using a String containing the URL
-     * and the Search String passed
-     *
-     * @param urlString     is String containing the URL to be used
-     * @param searchString  is the Search String to be appended
-     * @param keysToExclude is the List of Keys that are to be excluded from appending it to the URL
-     * @return URL object of the URL String passed
-     */
-    private URL createURL(final String urlString, final String searchString, final List<String> keysToExclude) {
-        //Returning NULL when the URL String or the Search String is empty
-        if (TextUtils.isEmpty(urlString) || TextUtils.isEmpty(searchString)) {
-            return null;
-        }
-
-        //Parsing the URL String
-        Uri uriObject = Uri.parse(urlString);
-
-        //Building the URL with the search string
-        Uri.Builder uriBuilder = uriObject.buildUpon();
-        uriBuilder.appendQueryParameter("q", searchString);
-
-        //Getting the Context reference
-        Context context = getContext();
-
-        //Retrieving the preference key string, that is, 'startIndex'
-        String startIndexPrefKeyStr = context.getString(R.string.pref_page_to_display_key);
-
-        //Using the Preferences to build the URI with its values: START
-        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
-        Set<? extends Map.Entry<String, ?>> prefEntries = preferences.getAll().entrySet();
-
-        //Iterating over the Map of Preferences and building the URI
-        for (Map.Entry<String, ?> prefEntry : prefEntries) {
-            //Get the Key
-            String prefKeyStr = prefEntry.getKey();
-
-            if (!keysToExclude.contains(prefKeyStr)) {
-                //If the key is not in the exclusion list passed
-
-                //Get the associated Value
-                Object prefValueObj = prefEntry.getValue();
-
-                //Casting the object value to string if present
-                String prefValueStr = "";
-                if (prefValueObj != null) {
-                    prefValueStr = String.valueOf(prefValueObj);
-                }
-
-                /*
-                 * Continue to the Next iteration
-                 * when the Key is for Content Type setting and its value is 'none'
-                 * as it has no meaning in the Book API
-                 */
-                if (prefKeyStr.equals(context.getString(R.string.pref_content_type_key))
-                        && prefValueStr.equals(context.getString(R.string.pref_content_type_default))) {
-                    continue;
-                }
-
-                //Appending the Key and Value to the URI when the Value is not empty
-                if (!TextUtils.isEmpty(prefValueStr)) {
-                    if (prefKeyStr.equals(startIndexPrefKeyStr)) {
-                        //Normalizing the value of 'startIndex' setting to 0, as 0 is the first page
-                        int startIndex = Integer.parseInt(prefValueStr);
-                        uriBuilder.appendQueryParameter(prefKeyStr, String.valueOf(startIndex - 1));
-                    } else {
-                        //When the setting key is not the 'startIndex' key
-                        uriBuilder.appendQueryParameter(prefKeyStr, prefValueStr);
-                    }
-                }
-
-            }
-
-        }
-        //Using the Preferences to build the URI with its values: END
-
-        //Forming the URL using the URI built
-        URL urlObject = null;
-        try {
-            urlObject = new URL(uriBuilder.toString());
-        } catch (MalformedURLException e) {
-            Log.e(LOG_TAG, "Error occurred while forming the URL\n", e);
-        }
-
-        //Returning the URL Object formed
-        return urlObject;
-    }
-
     /**
      * Method that returns the evaluated Network Connectivity status
      *
@@ -351,4 +676,16 @@ public class BooksLoader extends AsyncTaskLoader<List<BookInfo>> {
         return mIsNetworkConnected;
     }
 
+    /**
+     * Method that returns whether the result of the last load was answered from the local
+     * Book store, as the Internet Connectivity was not established
+     *
+     * @return a Boolean representing the source of the result
+     * <br/><b>TRUE</b> if the result was answered offline
+     * <br/><b>FALSE</b> otherwise
+     */
+    public boolean isOfflineResult() {
+        return mIsOfflineResult;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+import android.support.v4.os.CancellationSignal;
+import android.support.v4.os.OperationCanceledException;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+import com.example.kaushiknsanji.bookslibrary.utils.BookClientUtility;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Class that executes the "Search Everywhere" Search, which searches the same terms under several
+ * keyword filters such as 'intitle:', 'inauthor:' and 'subject:' concurrently on the I/O stage of
+ * the {@link SearchPipeline}.
+ * <p>
+ * The results of the sub-queries are merged by the Stable Id of the Books, and ranked by the
+ * Reciprocal Rank Fusion of their ranks in each sub-query, so that a Book found under several
+ * filters ranks above one found under a single filter. The results merged so far are handed
+ * to the {@link OnPartialResultListener} as each sub-query returns, so that the first results are
+ * shown as soon as the fastest sub-query returns, and the slower ones fill in behind.
+ *
+ * @author Kaushik N Sanji
+ */
+public class FederatedSearch {
+
+    //Constant k of the Reciprocal Rank Fusion, which damps the lead of the top ranks of a single sub-query
+    private static final int RRF_RANK_CONSTANT = 60;
+
+    /**
+     * Method that searches the page of the Search Query under each of the keyword filters concurrently,
+     * and merges their results in the order of the combined rank
+     *
+     * @param searchParams            is the Search Query and the Search Settings of the page
+     * @param filterValues            is the List of keyword filters to search the Query under, such as '+intitle:'
+     * @param searchId                is the Search ID of the Search being traced by the {@link com.example.kaushiknsanji.bookslibrary.metrics.SearchTracer}
+     * @param cancellationSignal      is the {@link CancellationSignal} that aborts the requests when canceled; can be Null
+     * @param onPartialResultListener is the Listener notified of the results merged so far, as each
+     *                                sub-query but the last returns; can be Null
+     * @return The {@link MergedResult} of all the sub-queries
+     * @throws OperationCanceledException if the load is canceled while searching
+     */
+    @WorkerThread
+    @NonNull
+    public static MergedResult search(@NonNull SearchParams searchParams, @NonNull List<String> filterValues,
+                                      final long searchId, @Nullable final CancellationSignal cancellationSignal,
+                                      @Nullable OnPartialResultListener onPartialResultListener) {
+        //Submitting the sub-queries together, to be collected in the order they complete
+        int noOfSubQueries = filterValues.size();
+        CompletionService<SubQueryResult> completionService = new ExecutorCompletionService<>(SearchPipeline.getIoExecutor());
+        List<Future<SubQueryResult>> subQueryFutures = new ArrayList<>(noOfSubQueries);
+        for (int index = 0; index < noOfSubQueries; index++) {
+            final int subQueryIndex = index;
+            final URL searchURL = searchParams.withKeywordFilter(filterValues.get(index)).toURL(BookClientUtility.VOL_BASE_URL);
+            subQueryFutures.add(completionService.submit(new Callable<SubQueryResult>() {
+                @Override
+                public SubQueryResult call() {
+                    return new SubQueryResult(subQueryIndex,
+                            BookClientUtility.searchVolumes(searchURL, searchId, cancellationSignal));
+                }
+            }));
+        }
+
+        //Books merged so far, keyed by their Stable Id
+        Map<Long, RankedBook> rankedBooks = new HashMap<>();
+        //Rank of the first item of the page in each sub-query, with 1 as the first item
+        int firstRank = searchParams.getStartItemIndex() + 1;
+        //Says whether any sub-query returned a full page, which means there are more pages
+        boolean hasNextPage = false;
+
+        try {
+            for (int noOfCompleted = 1; noOfCompleted <= noOfSubQueries; noOfCompleted++) {
+                //Waiting for the next sub-query to return
+                final SubQueryResult subQueryResult = SearchPipeline.awaitResult(
+                        SearchPipeline.awaitNext(completionService, cancellationSignal), cancellationSignal);
+
+                //Parsing the response on the CPU stage
+                List<BookInfo> bookInfos = SearchPipeline.callOnCpu(new Callable<List<BookInfo>>() {
+                    @Override
+                    public List<BookInfo> call() {
+                        return BookClientUtility.extractVolumes(subQueryResult.mJsonResponse, searchId, cancellationSignal);
+                    }
+                }, cancellationSignal);
+
+                if (bookInfos != null) {
+                    //Adding the score of each Book for its rank in the sub-query
+                    addRanks(rankedBooks, bookInfos, subQueryResult.mSubQueryIndex, firstRank);
+                    hasNextPage |= bookInfos.size() >= searchParams.getMaxResults();
+                }
+
+                if (onPartialResultListener != null && noOfCompleted < noOfSubQueries && !rankedBooks.isEmpty()) {
+                    //Streaming the results merged so far, while the slower sub-queries are pending
+                    onPartialResultListener.onPartialResult(sortByScore(rankedBooks));
+                }
+            }
+        } catch (OperationCanceledException e) {
+            //Abandoning the sub-queries pending, when the load is canceled
+            for (Future<SubQueryResult> subQueryFuture : subQueryFutures) {
+                subQueryFuture.cancel(false);
+            }
+            throw e;
+        }
+
+        //Returning the results of all the sub-queries merged
+        return new MergedResult(sortByScore(rankedBooks), hasNextPage);
+    }
+
+    /**
+     * Method that adds the score of each Book returned by the sub-query for its rank in the sub-query,
+     * merging the Books by their Stable Id
+     *
+     * @param rankedBooks   is the Map of the Books merged so far, keyed by their Stable Id
+     * @param bookInfos     is the List of {@link BookInfo} objects returned by the sub-query, in its order
+     * @param subQueryIndex is the index of the sub-query, in the order of the keyword filters
+     * @param firstRank     is the rank of the first item of the page in the sub-query, with 1 as the first item
+     */
+    @VisibleForTesting
+    static void addRanks(Map<Long, RankedBook> rankedBooks, List<BookInfo> bookInfos, int subQueryIndex, int firstRank) {
+        int noOfBooks = bookInfos.size();
+        for (int position = 0; position < noOfBooks; position++) {
+            BookInfo bookInfo = bookInfos.get(position);
+            RankedBook rankedBook = rankedBooks.get(bookInfo.getStableId());
+            if (rankedBook == null) {
+                rankedBook = new RankedBook();
+                rankedBooks.put(bookInfo.getStableId(), rankedBook);
+            }
+            rankedBook.addRank(bookInfo, subQueryIndex, firstRank + position);
+        }
+    }
+
+    /**
+     * Method that returns the Books merged in the order of their combined score. The ties are broken
+     * by the best rank, and then by the order of the sub-queries, so that the order does not
+     * depend on the order in which the sub-queries returned.
+     *
+     * @param rankedBooks is the Map of the Books merged, keyed by their Stable Id
+     * @return The List of {@link BookInfo} objects in the order of their combined score
+     */
+    @VisibleForTesting
+    static List<BookInfo> sortByScore(Map<Long, RankedBook> rankedBooks) {
+        List<RankedBook> sortedBooks = new ArrayList<>(rankedBooks.values());
+        Collections.sort(sortedBooks, new Comparator<RankedBook>() {
+            @Override
+            public int compare(RankedBook rankedBook1, RankedBook rankedBook2) {
+                int result = Double.compare(rankedBook2.mScore, rankedBook1.mScore);
+                if (result == 0) {
+                    result = rankedBook1.mBestRank - rankedBook2.mBestRank;
+                }
+                if (result == 0) {
+                    result = rankedBook1.mSubQueryIndex - rankedBook2.mSubQueryIndex;
+                }
+                return result;
+            }
+        });
+
+        //Reading the Books in the order sorted
+        List<BookInfo> bookInfos = new ArrayList<>(sortedBooks.size());
+        for (RankedBook rankedBook : sortedBooks) {
+            bookInfos.add(rankedBook.mBookInfo);
+        }
+        return bookInfos;
+    }
+
+    /**
+     * Listener Interface to be implemented by the caller that streams the results merged so far
+     */
+    public interface OnPartialResultListener {
+        /**
+         * Callback Method of {@link FederatedSearch} invoked on the worker thread as each sub-query
+         * but the last returns
+         *
+         * @param bookInfos is the List of {@link BookInfo} objects merged so far, in the order of their combined score
+         */
+        void onPartialResult(@NonNull List<BookInfo> bookInfos);
+    }
+
+    /**
+     * Class that holds the JSON Response of a sub-query along with its index
+     */
+    private static class SubQueryResult {
+        //Index of the sub-query, in the order of the keyword filters
+        final int mSubQueryIndex;
+        //The JSON Response of the sub-query
+        final String mJsonResponse;
+
+        /**
+         * Constructor of {@link SubQueryResult}
+         *
+         * @param subQueryIndex is the index of the sub-query, in the order of the keyword filters
+         * @param jsonResponse  is the JSON Response of the sub-query
+         */
+        SubQueryResult(int subQueryIndex, String jsonResponse) {
+            mSubQueryIndex = subQueryIndex;
+            mJsonResponse = jsonResponse;
+        }
+    }
+
+    /**
+     * Class that accumulates the combined score of a Book found by one or more of the sub-queries
+     */
+    static class RankedBook {
+        //The Book, as returned by the first of the sub-queries that found it
+        BookInfo mBookInfo;
+        //Index of the first of the sub-queries that found the Book
+        int mSubQueryIndex = Integer.MAX_VALUE;
+        //The best rank of the Book among the sub-queries
+        int mBestRank = Integer.MAX_VALUE;
+        //The sum of the Reciprocal Rank Fusion scores of the Book
+        double mScore;
+
+        /**
+         * Method that adds the score of the Book for its rank in the sub-query
+         *
+         * @param bookInfo      is the Book as returned by the sub-query
+         * @param subQueryIndex is the index of the sub-query
+         * @param rank          is the rank of the Book in the sub-query, with 1 as the first item
+         */
+        void addRank(BookInfo bookInfo, int subQueryIndex, int rank) {
+            mScore += 1.0 / (RRF_RANK_CONSTANT + rank);
+            mBestRank = Math.min(mBestRank, rank);
+            if (subQueryIndex < mSubQueryIndex) {
+                //Keeping the Book of the first sub-query, regardless of the order they returned
+                mSubQueryIndex = subQueryIndex;
+                mBookInfo = bookInfo;
+            }
+        }
+    }
+
+    /**
+     * Class that holds the results of all the sub-queries merged
+     */
+    public static class MergedResult {
+
+        //The List of BookInfo objects merged, in the order of their combined score
+        private final List<BookInfo> mBookInfos;
+        //Says whether any sub-query has more pages
+        private final boolean mHasNextPage;
+
+        /**
+         * Constructor of {@link MergedResult}
+         *
+         * @param bookInfos   is the List of {@link BookInfo} objects merged, in the order of their combined score
+         * @param hasNextPage is a Boolean that says whether any sub-query has more pages
+         */
+        MergedResult(List<BookInfo> bookInfos, boolean hasNextPage) {
+            mBookInfos = bookInfos;
+            mHasNextPage = hasNextPage;
+        }
+
+        /**
+         * Method that returns the Books merged
+         *
+         * @return The List of {@link BookInfo} objects in the order of their combined score; empty when none
+         */
+        public List<BookInfo> getBookInfos() {
+            return mBookInfos;
+        }
+
+        /**
+         * Method that says whether any sub-query returned a full page, which means there are more pages
+         *
+         * @return <b>TRUE</b> when there are more pages; <b>FALSE</b> otherwise
+         */
+        public boolean hasNextPage() {
+            return mHasNextPage;
+        }
+    }
+
+}
@@ -19,10 +19,14 @@ package com.example.kaushiknsanji.bookslibrary.workers;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.support.v4.content.AsyncTaskLoader;
+import android.support.v4.os.CancellationSignal;
+import android.support.v4.os.OperationCanceledException;
 
 import com.example.kaushiknsanji.bookslibrary.utils.ImageUtility;
 import com.example.kaushiknsanji.bookslibrary.utils.NetworkUtility;
 
+import java.util.concurrent.Callable;
+
 /**
  * {@link AsyncTaskLoader} for downloading the Bitmap Image from a given Image URL,
  * in a worker thread
@@ -37,6 +41,9 @@ public class ImageDownloader extends AsyncTaskLoader<Bitmap> {
     //Stores the Bitmap Downloaded
     private Bitmap mDownloadedBitmap;
 
+    //Signal that aborts the download in progress when canceled
+    private CancellationSignal mCancellationSignal;
+
     /**
      * Constructor of the Loader
      *
@@ -58,19 +65,57 @@ public class ImageDownloader extends AsyncTaskLoader<Bitmap> {
      */
     @Override
     public Bitmap loadInBackground() {
-        //Proceeding to download when the Internet Connectivity is established
-        if (NetworkUtility.isNetworkConnected(getContext())) {
-            //Downloading the Image from URL and returning the Bitmap
-            Bitmap downloadedBitmap = ImageUtility.downloadFromURL(mImageURLStr);
-            if (downloadedBitmap != null) {
-                //Uploading the Bitmap to GPU for caching in background thread (for faster loads)
-                downloadedBitmap.prepareToDraw();
+        //Creating the Signal for this download, unless the load is already canceled
+        synchronized (this) {
+            if (isLoadInBackgroundCanceled()) {
+                throw new OperationCanceledException();
             }
-            return downloadedBitmap; //Returning the Bitmap downloaded
+            mCancellationSignal = new CancellationSignal();
         }
 
-        //For all else, returning null
-        return null;
+        try {
+            //Proceeding to download when the Internet Connectivity is established
+            if (NetworkUtility.isNetworkConnected(getContext())) {
+                //Downloading the Image from URL on the image I/O stage and returning the Bitmap
+                final CancellationSignal cancellationSignal = mCancellationSignal;
+                Bitmap downloadedBitmap = SearchPipeline.callOnImageIo(new Callable<Bitmap>() {
+                    @Override
+                    public Bitmap call() {
+                        return ImageUtility.downloadFromURL(mImageURLStr, cancellationSignal);
+                    }
+                }, cancellationSignal);
+                if (downloadedBitmap != null) {
+                    //Uploading the Bitmap to GPU for caching in background thread (for faster loads)
+                    downloadedBitmap.prepareToDraw();
+                }
+                return downloadedBitmap; //Returning the Bitmap downloaded
+            }
+
+            //For all else, returning null
+            return null;
+
+        } finally {
+            //Clearing the Signal as the download is done
+            synchronized (this) {
+                mCancellationSignal = null;
+            }
+        }
+    }
+
+    /**
+     * Called on the main thread to abort a download in progress.
+     * Cancels the {@link CancellationSignal} of the download in progress, which aborts its connection
+     * and stops its reading or decoding immediately.
+     */
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+
+        synchronized (this) {
+            if (mCancellationSignal != null) {
+                mCancellationSignal.cancel();
+            }
+        }
     }
 
     /**
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.InflateException;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Class that warms up the RecyclerView by inflating its item views and creating their ViewHolders
+ * on a background thread, while the Search request is in flight. The ViewHolders are then put into
+ * the RecyclerView's Pool on the Main Thread, so that the first render of the result only binds the data.
+ * <p>
+ * This works like {@link android.support.v4.view.AsyncLayoutInflater}, but inflates with a clone
+ * of the Activity's LayoutInflater, so that the AppCompat widgets (and the 'app:srcCompat' attribute
+ * used by the item layouts) are created the same as they are when inflated on the Main Thread.
+ *
+ * @author Kaushik N Sanji
+ */
+public class ItemViewWarmer {
+
+    //Constant used for logs
+    private static final String LOG_TAG = ItemViewWarmer.class.getSimpleName();
+
+    //Dedicated single worker thread for inflating the item views
+    private static final Executor INFLATE_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        /**
+         * Constructs a new {@code Thread}.
+         *
+         * @param runnable a runnable to be executed by new thread instance
+         * @return constructed thread
+         */
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    //Running the inflation at the Background priority
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, LOG_TAG);
+        }
+    });
+
+    //Handler to post the ViewHolders created onto the Main Thread
+    private static final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+
+    //Item view inflated in background, being handed to the Adapter creating its ViewHolder on the same thread
+    private static final ThreadLocal<View> mPreInflatedView = new ThreadLocal<>();
+
+    /**
+     * Method that inflates the item views of the RecyclerView and creates their ViewHolders on
+     * a background thread, and puts the ViewHolders into the RecyclerView's Pool. The warm up is done
+     * only when the RecyclerView is yet to show any item and its Adapter implements {@link PreInflatedViewConsumer}.
+     *
+     * @param recyclerView is the RecyclerView to be warmed up
+     * @param layoutRes    is the layout resource of the item view, which is also its view type
+     * @param count        is the number of item views to be inflated
+     */
+    @MainThread
+    public static void warmUp(@NonNull final RecyclerView recyclerView, @LayoutRes final int layoutRes, final int count) {
+        //Retrieving the Adapter of the RecyclerView
+        final RecyclerView.Adapter adapter = recyclerView.getAdapter();
+        if (count <= 0 || !(adapter instanceof PreInflatedViewConsumer) || adapter.getItemCount() > 0) {
+            //Returning when there is nothing to warm up
+            return;
+        }
+
+        //Cloning the LayoutInflater of the Activity to be used by the worker thread,
+        //which retains the Activity's view factory
+        final LayoutInflater inflater = LayoutInflater.from(recyclerView.getContext())
+                .cloneInContext(recyclerView.getContext());
+
+        //Inflating the item views and creating their ViewHolders on the worker thread
+        INFLATE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (int index = 0; index < count; index++) {
+                    //Inflating the item view and creating its ViewHolder
+                    final RecyclerView.ViewHolder viewHolder;
+                    try {
+                        //Passing False as the RecyclerView attaches the View itself
+                        mPreInflatedView.set(inflater.inflate(layoutRes, recyclerView, false));
+                        //Creating the ViewHolder through the Adapter, which also marks its view type,
+                        //and takes the item view inflated instead of inflating one
+                        viewHolder = adapter.createViewHolder(recyclerView, layoutRes);
+                    } catch (InflateException e) {
+                        Log.e(LOG_TAG, "Error occurred while inflating the item view in background\n", e);
+                        return;
+                    } finally {
+                        mPreInflatedView.remove();
+                    }
+
+                    //Handing over the ViewHolder on the Main Thread
+                    mMainThreadHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (recyclerView.getAdapter() != adapter) {
+                                //Ignoring when the Adapter has been replaced meanwhile
+                                return;
+                            }
+
+                            //Putting the ViewHolder into the RecyclerView's Pool
+                            recyclerView.getRecycledViewPool().putRecycledView(viewHolder);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Method that takes the item view inflated in background, when called by the
+     * {@link PreInflatedViewConsumer} Adapter creating its ViewHolder on the worker thread.
+     *
+     * @return The item view inflated in background; or Null when called otherwise,
+     * in which case the Adapter is to inflate the item view itself
+     */
+    @Nullable
+    public static View takePreInflatedView() {
+        View itemView = mPreInflatedView.get();
+        mPreInflatedView.remove();
+        return itemView;
+    }
+
+    /**
+     * Interface to be implemented by the RecyclerView's Adapters whose ViewHolders can be created
+     * on a background thread, from the item views inflated on it. Their
+     * {@link RecyclerView.Adapter#onCreateViewHolder(android.view.ViewGroup, int)} is to use the item view
+     * returned by {@link #takePreInflatedView()} when not Null, and is not to touch the state of the Adapter.
+     */
+    public interface PreInflatedViewConsumer {
+    }
+
+}
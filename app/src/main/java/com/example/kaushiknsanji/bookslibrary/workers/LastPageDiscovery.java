@@ -0,0 +1,488 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.os.CancellationSignal;
+import android.support.v4.os.OperationCanceledException;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.example.kaushiknsanji.bookslibrary.metrics.SampleRecorder;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+import com.example.kaushiknsanji.bookslibrary.observers.OnLastPageDiscoveredListener;
+import com.example.kaushiknsanji.bookslibrary.utils.BookClientUtility;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Class that discovers the number of items of a Search, and hence its last page, by probing
+ * whether an item exists at an index, instead of relying on the 'totalItems' reported by the
+ * Book API which is unreliable. Each probe requests a single item with just its Id.
+ * <p>
+ * The probes are issued concurrently on the I/O stage of the {@link SearchPipeline}, first
+ * growing exponentially past the last item known until an index with no item is found, and then
+ * narrowing the range in between until the last page is known. The bound discovered is cached
+ * per Search Query and Search Settings, and is refined in the background once it ages.
+ * The page loaded is never held back for the probes, being delivered with the bound cached or
+ * a provisional one, while the bound is discovered in the background and passed on when found.
+ * <p>
+ * A discovery gives up on its probes past a deadline, returning the bound found so far. The
+ * refinements are coordinated by a thread of their own, never by a thread of the I/O stage,
+ * since a thread of the I/O stage waiting on the probes queued behind it can deadlock the stage.
+ *
+ * @author Kaushik N Sanji
+ */
+public class LastPageDiscovery {
+
+    //Constant used for logs
+    private static final String LOG_TAG = LastPageDiscovery.class.getSimpleName();
+
+    //Number of probes issued concurrently per round, leaving a thread of the I/O stage for the rest
+    private static final int MAX_CONCURRENT_PROBES = 3;
+    //Maximum number of rounds of probes per discovery
+    private static final int MAX_PROBE_ROUNDS = 8;
+    //Number of the Search Queries whose bounds are cached
+    private static final int MAX_CACHED_BOUNDS = 32;
+    //Age in milliseconds after which a bound cached is refined in the background
+    private static final long BOUND_REFRESH_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    //Time in milliseconds allowed for a discovery, past which its probes pending are abandoned
+    private static final long DISCOVERY_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(15);
+    //Maximum number of refinements pending at a time, past which the bounds aged are refined on a later load
+    private static final int MAX_PENDING_REFINEMENTS = 4;
+    //Number of most recent samples retained per measurement
+    private static final int SAMPLE_CAPACITY = 256;
+
+    //Memory Cache of the bounds discovered, keyed by the Search Query Key
+    private static final LruCache<String, DiscoveredBound> mBoundCache = new LruCache<>(MAX_CACHED_BOUNDS);
+
+    //Keys of the Search Queries whose bounds are being refined in the background; guarded by itself
+    private static final Set<String> mRefiningKeys = new HashSet<>();
+
+    //Dedicated single thread coordinating the refinements one at a time, which only waits
+    //on the probes run by the I/O stage
+    private static final Executor REFINE_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        /**
+         * Constructs a new {@code Thread}.
+         *
+         * @param runnable a runnable to be executed by new thread instance
+         * @return constructed thread
+         */
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    //Running the refinements at the Background priority
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, LOG_TAG);
+        }
+    });
+
+    //Prober of the items through the Book API
+    private static final ItemProber API_ITEM_PROBER = new ItemProber() {
+        /**
+         * Method that probes whether an item exists at the index of the Search
+         *
+         * @param searchParams       is the Search Query and the Search Settings
+         * @param itemIndex          is the index of the item to be probed
+         * @param cancellationSignal is the {@link CancellationSignal} that aborts the probe when canceled; can be Null
+         * @return <b>TRUE</b> when the item exists; <b>FALSE</b> when it does not;
+         * or Null when the probe failed
+         */
+        @Nullable
+        @Override
+        public Boolean probeItem(@NonNull SearchParams searchParams, int itemIndex,
+                                 @Nullable CancellationSignal cancellationSignal) {
+            return LastPageDiscovery.probeItem(searchParams.toProbeURL(BookClientUtility.VOL_BASE_URL, itemIndex),
+                    cancellationSignal);
+        }
+    };
+
+    //Records the number of probes made per discovery
+    private static final SampleRecorder mProbeCounts = new SampleRecorder(SAMPLE_CAPACITY);
+
+    /**
+     * Method that returns the index of the last page of the Search, from the bound cached for
+     * the Search Query when present, without waiting for the probes. When there is no bound cached
+     * for the page loaded, a provisional last page is returned, and the bound is discovered in the
+     * background. The bound cached is refined in the background when it is not exact or has aged.
+     * The last page of the bound discovered or refined is passed to the Listener on the Main Thread.
+     *
+     * @param searchParams    is the Search Query and the Search Settings of the page loaded
+     * @param loadedItemCount is the number of items returned for the page loaded
+     * @param listener        is the {@link OnLastPageDiscoveredListener} to be notified of the last page
+     *                        discovered in the background; can be Null
+     * @return The index of the last page, with 1 as the first page, which is the page following
+     * the page loaded when provisional
+     */
+    public static int getLastPageIndex(@NonNull SearchParams searchParams, int loadedItemCount,
+                                       @Nullable OnLastPageDiscoveredListener listener) {
+        //Index of the last item known to exist, from the page loaded
+        int lastKnownItemIndex = searchParams.getStartItemIndex() + loadedItemCount - 1;
+
+        String queryKey = searchParams.toQueryKey();
+        DiscoveredBound discoveredBound = mBoundCache.get(queryKey);
+        if (discoveredBound == null || discoveredBound.mItemCount <= lastKnownItemIndex) {
+            //When there is no bound cached, or the page loaded goes past the one cached
+
+            if (loadedItemCount < searchParams.getMaxResults()) {
+                //When the page loaded is not full, it is the last page
+                discoveredBound = new DiscoveredBound(lastKnownItemIndex + 1, true);
+                mBoundCache.put(queryKey, discoveredBound);
+            } else {
+                //Discovering the bound in the background by probing past the last item known,
+                //reporting the page following the page loaded meanwhile, as the page loaded is full
+                refineInBackground(searchParams, queryKey, lastKnownItemIndex, listener);
+                return searchParams.getPageToDisplay() + 1;
+            }
+        } else if (!discoveredBound.mIsExact || discoveredBound.getAgeMillis() > BOUND_REFRESH_MILLIS) {
+            //Refining the bound cached in the background, when it is not exact or has aged
+            refineInBackground(searchParams, queryKey, Math.max(lastKnownItemIndex, discoveredBound.mItemCount - 1),
+                    listener);
+        }
+
+        //Returning the last page for the number of items discovered
+        return searchParams.getLastPageIndexFor(discoveredBound.mItemCount);
+    }
+
+    /**
+     * Method that returns the index of the last page of the Search from the bound cached
+     * for the Search Query, without probing
+     *
+     * @param searchParams is the Search Query and the Search Settings of the page
+     * @return The index of the last page, with 1 as the first page; or 0 when no bound is cached
+     */
+    public static int getCachedLastPageIndex(@NonNull SearchParams searchParams) {
+        DiscoveredBound discoveredBound = mBoundCache.get(searchParams.toQueryKey());
+        return (discoveredBound == null) ? 0 : searchParams.getLastPageIndexFor(discoveredBound.mItemCount);
+    }
+
+    /**
+     * Method that discovers or refines the bound of the Search Query in the background, on the thread
+     * coordinating the refinements, passing its last page to the Listener on the Main Thread when found.
+     * Only one refinement is pending per Search Query, and the refinement is skipped when
+     * too many are pending.
+     *
+     * @param searchParams       is the Search Query and the Search Settings
+     * @param queryKey           is the Key of the Search Query
+     * @param lastKnownItemIndex is the index of the last item known to exist
+     * @param listener           is the {@link OnLastPageDiscoveredListener} to be notified of the last page
+     *                           discovered; can be Null
+     */
+    private static void refineInBackground(final SearchParams searchParams, final String queryKey,
+                                           final int lastKnownItemIndex,
+                                           @Nullable final OnLastPageDiscoveredListener listener) {
+        synchronized (mRefiningKeys) {
+            if (mRefiningKeys.size() >= MAX_PENDING_REFINEMENTS || !mRefiningKeys.add(queryKey)) {
+                //Returning when the bound is already being refined, or too many refinements are pending
+                return;
+            }
+        }
+
+        REFINE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                //Signal of the refinement, that aborts its probes still running when done
+                CancellationSignal refineSignal = new CancellationSignal();
+                try {
+                    //Probing from the last item known again, and caching the bound discovered
+                    DiscoveredBound discoveredBound = discover(searchParams, lastKnownItemIndex, API_ITEM_PROBER,
+                            refineSignal, DISCOVERY_TIMEOUT_MILLIS);
+                    mBoundCache.put(queryKey, discoveredBound);
+
+                    if (listener != null) {
+                        //Passing the last page of the bound discovered on the Main Thread
+                        final int lastPageIndex = searchParams.getLastPageIndexFor(discoveredBound.mItemCount);
+                        SearchPipeline.postToMain(new Runnable() {
+                            @Override
+                            public void run() {
+                                listener.onLastPageDiscovered(searchParams, lastPageIndex);
+                            }
+                        });
+                    }
+                } finally {
+                    //Aborting the probes abandoned past the deadline
+                    refineSignal.cancel();
+                    synchronized (mRefiningKeys) {
+                        mRefiningKeys.remove(queryKey);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Method that discovers the number of items of the Search, by probing concurrently
+     * for the existence of items past the last item known.
+     *
+     * @param searchParams       is the Search Query and the Search Settings
+     * @param lastKnownItemIndex is the index of the last item known to exist
+     * @param itemProber         is the {@link ItemProber} that probes the items
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the probes when canceled; can be Null
+     * @param timeoutMillis      is the time in milliseconds allowed for the discovery
+     * @return The {@link DiscoveredBound} of the Search, which is a lower bound when
+     * the probes failed, the time ran out or the rounds ran out
+     * @throws OperationCanceledException if the load is canceled while probing
+     */
+    @VisibleForTesting
+    static DiscoveredBound discover(SearchParams searchParams, int lastKnownItemIndex, ItemProber itemProber,
+                                    @Nullable CancellationSignal cancellationSignal, long timeoutMillis) {
+        //Time in milliseconds since boot, past which the probes pending are abandoned
+        long deadlineMillis = SystemClock.elapsedRealtime() + timeoutMillis;
+        //Index of the last item found, and of the first item found missing (-1 until found)
+        int foundItemIndex = lastKnownItemIndex;
+        int missingItemIndex = -1;
+        //Distance of the first probe of a round from the last item found, while growing
+        int probeStep = searchParams.getMaxResults();
+        int probeCount = 0;
+
+        for (int round = 0; round < MAX_PROBE_ROUNDS; round++) {
+            //Preparing the indices to be probed in this round, in ascending order
+            List<Integer> itemIndices = new ArrayList<>(MAX_CONCURRENT_PROBES);
+            if (missingItemIndex < 0) {
+                //Growing exponentially past the last item found
+                for (int probe = 0; probe < MAX_CONCURRENT_PROBES; probe++) {
+                    itemIndices.add(foundItemIndex + (probeStep << probe));
+                }
+                probeStep <<= MAX_CONCURRENT_PROBES;
+            } else {
+                //Narrowing the range between the item found and the one missing,
+                //until both fall in the same last page
+                if (searchParams.getLastPageIndexFor(foundItemIndex + 1)
+                        == searchParams.getLastPageIndexFor(missingItemIndex)) {
+                    break;
+                }
+                int rangeSize = missingItemIndex - foundItemIndex;
+                for (int probe = 1; probe <= MAX_CONCURRENT_PROBES; probe++) {
+                    int itemIndex = foundItemIndex + (int) ((long) rangeSize * probe / (MAX_CONCURRENT_PROBES + 1));
+                    if (itemIndex > foundItemIndex && itemIndex < missingItemIndex
+                            && (itemIndices.isEmpty() || itemIndices.get(itemIndices.size() - 1) < itemIndex)) {
+                        itemIndices.add(itemIndex);
+                    }
+                }
+            }
+
+            //Probing the indices concurrently
+            Boolean[] itemExists = probeItems(searchParams, itemIndices, itemProber, cancellationSignal, deadlineMillis);
+            probeCount += itemIndices.size();
+
+            //Moving the bounds up to the first index found missing
+            for (int index = 0; index < itemIndices.size(); index++) {
+                if (itemExists[index] == null) {
+                    //Returning the lower bound found so far, when a probe failed or timed out
+                    mProbeCounts.record(probeCount);
+                    return new DiscoveredBound(foundItemIndex + 1, false);
+                } else if (itemExists[index]) {
+                    foundItemIndex = itemIndices.get(index);
+                } else {
+                    missingItemIndex = itemIndices.get(index);
+                    break;
+                }
+            }
+        }
+
+        Log.d(LOG_TAG, "discover: items found up to " + foundItemIndex + ", missing from " + missingItemIndex
+                + " in " + probeCount + " probes");
+        mProbeCounts.record(probeCount);
+
+        //Returning the bound discovered, which is exact only when the range was narrowed to the last page
+        boolean isExact = missingItemIndex >= 0 && searchParams.getLastPageIndexFor(foundItemIndex + 1)
+                == searchParams.getLastPageIndexFor(missingItemIndex);
+        return new DiscoveredBound(foundItemIndex + 1, isExact);
+    }
+
+    /**
+     * Method that probes the existence of items at the indices passed, concurrently
+     *
+     * @param searchParams       is the Search Query and the Search Settings
+     * @param itemIndices        is the List of indices of the items to be probed
+     * @param itemProber         is the {@link ItemProber} that probes the items
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the probes when canceled; can be Null
+     * @param deadlineMillis     is the time in milliseconds since boot, past which the probes pending are abandoned
+     * @return Array of the existence of the items in the order of the indices passed,
+     * where an element is Null when its probe failed or did not complete in time
+     * @throws OperationCanceledException if the load is canceled while probing
+     */
+    private static Boolean[] probeItems(final SearchParams searchParams, List<Integer> itemIndices,
+                                        final ItemProber itemProber,
+                                        @Nullable final CancellationSignal cancellationSignal,
+                                        long deadlineMillis) {
+        //Submitting all the probes
+        List<Future<Boolean>> probeFutures = new ArrayList<>(itemIndices.size());
+        for (final int itemIndex : itemIndices) {
+            probeFutures.add(SearchPipeline.submitOnIo(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return itemProber.probeItem(searchParams, itemIndex, cancellationSignal);
+                }
+            }));
+        }
+
+        //Collecting the results of the probes in order
+        Boolean[] itemExists = new Boolean[itemIndices.size()];
+        try {
+            for (int index = 0; index < itemExists.length; index++) {
+                itemExists[index] = SearchPipeline.awaitResult(probeFutures.get(index), cancellationSignal,
+                        deadlineMillis - SystemClock.elapsedRealtime());
+            }
+        } catch (TimeoutException e) {
+            //Abandoning the probes pending when the time runs out, leaving their results as Null
+            Log.d(LOG_TAG, "probeItems: probes timed out");
+            for (Future<Boolean> probeFuture : probeFutures) {
+                probeFuture.cancel(true);
+            }
+        } catch (OperationCanceledException e) {
+            //Abandoning the probes not yet run, when the load is canceled
+            for (Future<Boolean> probeFuture : probeFutures) {
+                probeFuture.cancel(false);
+            }
+            throw e;
+        }
+        return itemExists;
+    }
+
+    /**
+     * Method that makes the probe request and checks whether it returned an item
+     *
+     * @param probeURL           is the URL of the probe request
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the request when canceled; can be Null
+     * @return <b>TRUE</b> when the item exists; <b>FALSE</b> when it does not;
+     * or Null when the probe failed
+     */
+    @Nullable
+    private static Boolean probeItem(URL probeURL, @Nullable CancellationSignal cancellationSignal) {
+        if (probeURL == null) {
+            return null;
+        }
+
+        try {
+            //Making the probe request
+            String jsonResponse = BookClientUtility.makeHttpGetRequest(probeURL, cancellationSignal);
+            if (jsonResponse == null || jsonResponse.trim().length() == 0) {
+                return null;
+            }
+
+            //Reading the items returned, unless an error was returned
+            JSONObject rootJsonObject = new JSONObject(jsonResponse);
+            if (rootJsonObject.optJSONObject("error") != null) {
+                return null;
+            }
+            JSONArray itemsJsonArray = rootJsonObject.optJSONArray("items");
+            return itemsJsonArray != null && itemsJsonArray.length() > 0;
+
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Error occurred while probing " + probeURL + "\n", e);
+        } catch (JSONException e) {
+            Log.e(LOG_TAG, "Error occurred while parsing the probe response\n", e);
+        }
+
+        //Returning Null when the probe failed
+        return null;
+    }
+
+    /**
+     * Method that summarizes the number of bounds cached and the probes made per discovery
+     *
+     * @return String containing the summary, one line per measurement
+     */
+    @NonNull
+    public static String dump() {
+        return "bounds cached: " + mBoundCache.size() + "\n"
+                + mProbeCounts.summarizeCounts("probes per discovery") + "\n";
+    }
+
+    /**
+     * Method that discards the probe counts recorded
+     */
+    public static void reset() {
+        mProbeCounts.clear();
+    }
+
+    /**
+     * Interface that probes whether an item exists at an index of the Search
+     */
+    interface ItemProber {
+        /**
+         * Method that probes whether an item exists at the index of the Search
+         *
+         * @param searchParams       is the Search Query and the Search Settings
+         * @param itemIndex          is the index of the item to be probed
+         * @param cancellationSignal is the {@link CancellationSignal} that aborts the probe when canceled; can be Null
+         * @return <b>TRUE</b> when the item exists; <b>FALSE</b> when it does not;
+         * or Null when the probe failed
+         */
+        @Nullable
+        Boolean probeItem(@NonNull SearchParams searchParams, int itemIndex, @Nullable CancellationSignal cancellationSignal);
+    }
+
+    /**
+     * Class that holds the number of items discovered for a Search
+     */
+    static class DiscoveredBound {
+        //The number of items discovered
+        final int mItemCount;
+        //Whether the number of items is exact to the last page, or only a lower bound
+        final boolean mIsExact;
+        //The time in milliseconds since boot, when the bound was discovered
+        final long mDiscoveredAtMillis;
+
+        /**
+         * Constructor of {@link DiscoveredBound}
+         *
+         * @param itemCount is the number of items discovered
+         * @param isExact   is whether the number of items is exact to the last page
+         */
+        DiscoveredBound(int itemCount, boolean isExact) {
+            mItemCount = itemCount;
+            mIsExact = isExact;
+            mDiscoveredAtMillis = SystemClock.elapsedRealtime();
+        }
+
+        /**
+         * Method that returns the time elapsed since the bound was discovered
+         *
+         * @return The age of the bound in milliseconds
+         */
+        long getAgeMillis() {
+            return SystemClock.elapsedRealtime() - mDiscoveredAtMillis;
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+/**
+ * Class that debounces the Search Query being typed in the SearchView, for searching as you type.
+ * <p>
+ * The Query is searched once the typing pauses for the debounce window. The Queries shorter than
+ * the minimum length, or unchanged from the one last searched, are suppressed. To protect the quota
+ * of the Book API, the number of requests outstanding on the I/O stage of the {@link SearchPipeline}
+ * is capped. A single Search may issue several requests, for the neighbouring pages, the pagination
+ * probes or the federated sub-queries, all of which are counted. While the requests outstanding
+ * are at the cap, the latest Query typed is held back and retried after every debounce window.
+ *
+ * @author Kaushik N Sanji
+ */
+public class LiveSearchScheduler {
+
+    //Constant used for logs
+    private static final String LOG_TAG = LiveSearchScheduler.class.getSimpleName();
+
+    //Handler of the Main Thread that delivers the debounced Query
+    private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+    //Window in milliseconds for which the typing needs to pause before searching
+    private final long mDebounceWindowMillis;
+    //Minimum length of the Query to be searched
+    private final int mMinQueryLength;
+    //Maximum number of requests outstanding on the I/O stage, beyond which the Query is held back
+    private final int mMaxOutstandingRequests;
+    //Listener that performs the Search
+    private final OnLiveSearchListener mOnLiveSearchListener;
+
+    //Stores the Query typed that is yet to be delivered
+    private String mPendingQuery;
+    //Stores the Query last searched
+    private String mLastSearchedQuery;
+
+    //Runnable that delivers the pending Query once the window elapses
+    private final Runnable mSearchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            deliverPendingQuery();
+        }
+    };
+
+    /**
+     * Constructor of {@link LiveSearchScheduler}
+     *
+     * @param debounceWindowMillis   is the window in milliseconds for which the typing needs to pause before searching
+     * @param minQueryLength         is the minimum length of the Query to be searched
+     * @param maxOutstandingRequests is the maximum number of requests outstanding on the I/O stage,
+     *                               beyond which the Query is held back
+     * @param onLiveSearchListener   is the Listener that performs the Search
+     */
+    public LiveSearchScheduler(long debounceWindowMillis, int minQueryLength, int maxOutstandingRequests,
+                               @NonNull OnLiveSearchListener onLiveSearchListener) {
+        mDebounceWindowMillis = debounceWindowMillis;
+        mMinQueryLength = minQueryLength;
+        mMaxOutstandingRequests = maxOutstandingRequests;
+        mOnLiveSearchListener = onLiveSearchListener;
+    }
+
+    /**
+     * Method that schedules the Search of the Query typed, once the typing pauses for the window.
+     * The window restarts on every change.
+     *
+     * @param queryText is the Query currently typed in the SearchView
+     */
+    @MainThread
+    public void onQueryTextChanged(@Nullable String queryText) {
+        //Discarding the Query pending, as the text has changed
+        cancel();
+
+        String query = (queryText == null) ? "" : queryText.trim();
+        if (query.length() < mMinQueryLength) {
+            //Suppressing the Queries that are too short to be meaningful
+            return;
+        }
+
+        //Restarting the window with the latest Query
+        mPendingQuery = query;
+        mMainThreadHandler.postDelayed(mSearchRunnable, mDebounceWindowMillis);
+    }
+
+    /**
+     * Method that records the Query searched outside of this scheduler, such as on submit,
+     * so that the same Query typed again does not trigger another search
+     *
+     * @param query is the Query searched
+     */
+    @MainThread
+    public void markSearched(@Nullable String query) {
+        mLastSearchedQuery = (query == null) ? null : query.trim();
+    }
+
+    /**
+     * Method that discards any pending Query
+     */
+    @MainThread
+    public void cancel() {
+        mMainThreadHandler.removeCallbacks(mSearchRunnable);
+        mPendingQuery = null;
+    }
+
+    /**
+     * Method that delivers the pending Query to the {@link OnLiveSearchListener}
+     * when it differs from the one last searched and the requests outstanding are below the cap.
+     * When at the cap, the Query is held back and retried after the debounce window.
+     */
+    private void deliverPendingQuery() {
+        //Reading the pending Query
+        String query = mPendingQuery;
+
+        if (query == null || query.equalsIgnoreCase(mLastSearchedQuery)) {
+            //Skipping the search when the Query is unchanged
+            Log.d(LOG_TAG, "deliverPendingQuery: Skipped, unchanged query " + query);
+            mPendingQuery = null;
+            return;
+        }
+
+        //Counting the requests still outstanding on the I/O stage
+        int outstandingRequests = SearchPipeline.getOutstandingIoCount();
+        if (outstandingRequests >= mMaxOutstandingRequests) {
+            //Holding back the Query until the requests outstanding drop below the cap
+            Log.d(LOG_TAG, "deliverPendingQuery: Held back, " + outstandingRequests + " requests outstanding");
+            mMainThreadHandler.postDelayed(mSearchRunnable, mDebounceWindowMillis);
+            return;
+        }
+
+        //Delivering the Query
+        mPendingQuery = null;
+        mLastSearchedQuery = query;
+        mOnLiveSearchListener.onLiveSearch(query);
+    }
+
+    /**
+     * Listener Interface to be implemented by the Activity that performs the Search
+     * of the Query typed
+     */
+    public interface OnLiveSearchListener {
+        /**
+         * Callback Method of {@link LiveSearchScheduler} invoked on the Main Thread
+         * when the Query typed needs to be searched
+         *
+         * @param query is the Query typed, trimmed of the surrounding spaces
+         */
+        void onLiveSearch(@NonNull String query);
+    }
+
+}
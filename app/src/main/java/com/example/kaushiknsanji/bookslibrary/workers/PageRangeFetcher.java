@@ -0,0 +1,411 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.content.Context;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+import android.support.v4.os.CancellationSignal;
+import android.support.v4.os.OperationCanceledException;
+import android.util.Log;
+
+import com.example.kaushiknsanji.bookslibrary.cache.BookSuggestionIndex;
+import com.example.kaushiknsanji.bookslibrary.cache.DuplicateBookFilter;
+import com.example.kaushiknsanji.bookslibrary.cache.SearchItemStore;
+import com.example.kaushiknsanji.bookslibrary.cache.SearchResultsCache;
+import com.example.kaushiknsanji.bookslibrary.data.OfflineBookStore;
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+import com.example.kaushiknsanji.bookslibrary.utils.BookClientUtility;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Class that fetches several pages of Search results concurrently on the I/O stage of
+ * the {@link SearchPipeline}, keeping at most {@link #MAX_CONCURRENT_PAGE_FETCHES} requests
+ * in flight. Only the page requested is waited on, which is returned as soon as it is parsed
+ * on the CPU stage. The pages around it are completed in the background, and are then added to
+ * the {@link SearchResultsCache}, the {@link SearchItemStore}, the {@link OfflineBookStore} and
+ * the {@link BookSuggestionIndex}, so that they are served from the cache when navigated to.
+ * <p>
+ * The Books repeated across the pages are suppressed through the {@link DuplicateBookFilter}
+ * as each page is parsed. Since the page requested is not held back for the pages before it,
+ * a Book it shares with the previous page of the same burst is suppressed from the previous page instead.
+ * The neighbouring pages are coordinated by a thread of their own, never by a thread of the I/O stage,
+ * since a thread of the I/O stage waiting on the requests queued behind it can deadlock the stage.
+ *
+ * @author Kaushik N Sanji
+ */
+public class PageRangeFetcher {
+
+    //Constant used for logs
+    private static final String LOG_TAG = PageRangeFetcher.class.getSimpleName();
+
+    //Maximum number of pages fetched concurrently, leaving a thread of the I/O stage for the rest
+    private static final int MAX_CONCURRENT_PAGE_FETCHES = 3;
+
+    //Dedicated single thread completing the neighbouring pages one burst at a time, which only waits
+    //on the requests run by the I/O stage
+    private static final Executor NEIGHBOUR_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        /**
+         * Constructs a new {@code Thread}.
+         *
+         * @param runnable a runnable to be executed by new thread instance
+         * @return constructed thread
+         */
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    //Completing the neighbouring pages at the Background priority
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, LOG_TAG);
+        }
+    });
+
+    //Requester of the pages through the Book API
+    private static final PageRequester API_PAGE_REQUESTER = new PageRequester() {
+        /**
+         * Method that requests the page of Search results
+         *
+         * @param pageParams         is the Search Query and the Search Settings of the page to be fetched
+         * @param searchId           is the Search ID of the Search being traced
+         * @param cancellationSignal is the {@link CancellationSignal} that aborts the request when canceled; can be Null
+         * @return String containing the JSON Response; or NULL when the request failed
+         */
+        @Nullable
+        @Override
+        public String requestPage(@NonNull SearchParams pageParams, long searchId,
+                                  @Nullable CancellationSignal cancellationSignal) {
+            //Preparing the URL of the page
+            URL searchURL = pageParams.toURL(BookClientUtility.VOL_BASE_URL);
+            return BookClientUtility.searchVolumes(searchURL, searchId, cancellationSignal);
+        }
+    };
+
+    /**
+     * Method that fetches the pages of Search results for the Search Settings passed, concurrently,
+     * returning the page requested as soon as it is parsed. The page requested is added to the
+     * {@link SearchResultsCache} and the {@link SearchItemStore} before it is returned, and the
+     * rest of the pages are completed and saved in the background.
+     *
+     * @param context            is the Context of the Activity/Fragment or App
+     * @param pagesParams        is the List of Search Query and Search Settings of the pages to be fetched,
+     *                           which includes the page requested
+     * @param requestedParams    is the Search Query and the Search Settings of the page requested
+     * @param followingBookInfos is the List of {@link BookInfo} objects of the page following the page requested,
+     *                           when already fetched, to backfill the page requested; can be Null
+     * @param lastPageIndex      is the last page index known so far, to be cached along with the pages
+     * @param searchId           is the Search ID of the Search being traced by the {@link com.example.kaushiknsanji.bookslibrary.metrics.SearchTracer}
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the requests when canceled
+     *                           before the page requested is returned; can be Null
+     * @return The {@link FetchedPage} of the page requested
+     * @throws OperationCanceledException if the load is canceled while fetching
+     */
+    @WorkerThread
+    @NonNull
+    public static FetchedPage fetchPages(@NonNull Context context, @NonNull List<SearchParams> pagesParams,
+                                         @NonNull SearchParams requestedParams,
+                                         @Nullable List<BookInfo> followingBookInfos, int lastPageIndex,
+                                         long searchId, @Nullable CancellationSignal cancellationSignal) {
+        return fetchPages(context, pagesParams, requestedParams, followingBookInfos, lastPageIndex,
+                searchId, cancellationSignal, API_PAGE_REQUESTER);
+    }
+
+    /**
+     * Method that fetches the pages of Search results through the {@link PageRequester} passed,
+     * returning the page requested as soon as it is parsed.
+     *
+     * @param context            is the Context of the Activity/Fragment or App
+     * @param pagesParams        is the List of Search Query and Search Settings of the pages to be fetched,
+     *                           which includes the page requested
+     * @param requestedParams    is the Search Query and the Search Settings of the page requested
+     * @param followingBookInfos is the List of {@link BookInfo} objects of the page following the page requested,
+     *                           when already fetched, to backfill the page requested; can be Null
+     * @param lastPageIndex      is the last page index known so far, to be cached along with the pages
+     * @param searchId           is the Search ID of the Search being traced
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the requests when canceled
+     *                           before the page requested is returned; can be Null
+     * @param pageRequester      is the {@link PageRequester} that requests the pages
+     * @return The {@link FetchedPage} of the page requested
+     * @throws OperationCanceledException if the load is canceled while fetching
+     */
+    @VisibleForTesting
+    @WorkerThread
+    @NonNull
+    static FetchedPage fetchPages(@NonNull Context context, @NonNull List<SearchParams> pagesParams,
+                                  @NonNull SearchParams requestedParams,
+                                  @Nullable List<BookInfo> followingBookInfos, int lastPageIndex,
+                                  long searchId, @Nullable CancellationSignal cancellationSignal,
+                                  @NonNull PageRequester pageRequester) {
+        //Preparing the neighbouring pages in the order passed
+        final List<SearchParams> neighbourPagesParams = new ArrayList<>(pagesParams.size());
+        for (SearchParams pageParams : pagesParams) {
+            if (!pageParams.equals(requestedParams)) {
+                neighbourPagesParams.add(pageParams);
+            }
+        }
+
+        //Signal of the neighbouring pages, which outlives the load once the page requested is returned
+        final CancellationSignal neighbourSignal = new CancellationSignal();
+
+        //Submitting the request of the page requested first, followed by the first window of the neighbouring pages
+        Future<String> requestedFuture = submitRequest(pageRequester, requestedParams, searchId, cancellationSignal);
+        final List<Future<String>> neighbourFutures = new ArrayList<>(neighbourPagesParams.size());
+        for (int index = 0; index < Math.min(MAX_CONCURRENT_PAGE_FETCHES - 1, neighbourPagesParams.size()); index++) {
+            neighbourFutures.add(submitRequest(pageRequester, neighbourPagesParams.get(index), searchId, neighbourSignal));
+        }
+
+        FetchedPage requestedPage;
+        try {
+            //Waiting only for the page requested, and parsing it on the CPU stage
+            requestedPage = parsePage(requestedParams, SearchPipeline.awaitResult(requestedFuture, cancellationSignal),
+                    followingBookInfos, searchId, cancellationSignal);
+        } catch (OperationCanceledException e) {
+            //Abandoning the neighbouring pages as well, when the load is canceled
+            neighbourSignal.cancel();
+            for (Future<String> neighbourFuture : neighbourFutures) {
+                neighbourFuture.cancel(false);
+            }
+            throw e;
+        }
+
+        //Caching the page requested, and saving its items at their absolute offset for slicing the pages later
+        SearchResultsCache.putPage(requestedParams, requestedPage.getUniqueBookInfos(), lastPageIndex);
+        SearchItemStore.putItems(requestedParams, requestedParams.getStartItemIndex(),
+                requestedParams.getMaxResults(), requestedPage.getBookInfos());
+
+        //Completing the neighbouring pages in the background
+        if (!neighbourPagesParams.isEmpty()) {
+            completeNeighbourPages(context.getApplicationContext(), neighbourPagesParams, neighbourFutures,
+                    requestedPage, lastPageIndex, searchId, neighbourSignal, pageRequester);
+        }
+
+        //Returning the page requested
+        return requestedPage;
+    }
+
+    /**
+     * Method that waits for the neighbouring pages on the {@link #NEIGHBOUR_EXECUTOR}, and then saves
+     * each of them to the {@link SearchResultsCache}, the {@link SearchItemStore},
+     * the {@link OfflineBookStore} and the {@link BookSuggestionIndex}, in the order passed
+     *
+     * @param appContext           is the Application Context
+     * @param neighbourPagesParams is the List of Search Query and Search Settings of the neighbouring pages
+     * @param neighbourFutures     is the List of {@link Future} of the requests of the neighbouring pages submitted
+     * @param requestedPage        is the {@link FetchedPage} of the page requested
+     * @param lastPageIndex        is the last page index known so far, to be cached along with the pages
+     * @param searchId             is the Search ID of the Search being traced
+     * @param neighbourSignal      is the {@link CancellationSignal} of the neighbouring pages
+     * @param pageRequester        is the {@link PageRequester} that requests the pages
+     */
+    private static void completeNeighbourPages(final Context appContext, final List<SearchParams> neighbourPagesParams,
+                                               final List<Future<String>> neighbourFutures,
+                                               final FetchedPage requestedPage, final int lastPageIndex,
+                                               final long searchId, final CancellationSignal neighbourSignal,
+                                               final PageRequester pageRequester) {
+        NEIGHBOUR_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                int noOfPages = neighbourPagesParams.size();
+                SearchParams requestedParams = requestedPage.getSearchParams();
+                try {
+                    for (int index = 0; index < noOfPages; index++) {
+                        //Waiting for the page, submitting the next request as each one completes
+                        String jsonResponse = SearchPipeline.awaitResult(neighbourFutures.get(index), neighbourSignal);
+                        if (neighbourFutures.size() < noOfPages) {
+                            neighbourFutures.add(submitRequest(pageRequester,
+                                    neighbourPagesParams.get(neighbourFutures.size()), searchId, neighbourSignal));
+                        }
+
+                        //Parsing the page on the CPU stage, backfilling the previous page from the page requested
+                        SearchParams pageParams = neighbourPagesParams.get(index);
+                        List<BookInfo> followingBookInfos = null;
+                        if (pageParams.getPageToDisplay() + 1 == requestedParams.getPageToDisplay()) {
+                            followingBookInfos = requestedPage.getBookInfos();
+                        }
+                        FetchedPage fetchedPage = parsePage(pageParams, jsonResponse, followingBookInfos,
+                                searchId, neighbourSignal);
+
+                        //Caching the page, and saving its items at their absolute offset for slicing the pages later
+                        SearchResultsCache.putPage(pageParams, fetchedPage.getUniqueBookInfos(), lastPageIndex);
+                        SearchItemStore.putItems(pageParams, pageParams.getStartItemIndex(),
+                                pageParams.getMaxResults(), fetchedPage.getBookInfos());
+
+                        //Saving the page to the local Book store and the Search Suggestions
+                        if (fetchedPage.getBookInfos() != null) {
+                            OfflineBookStore.saveSearchResults(appContext, pageParams, jsonResponse);
+                            BookSuggestionIndex.addBooks(fetchedPage.getBookInfos());
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    //Dropping the rest of the neighbouring pages, as they are only prefetched
+                    Log.e(LOG_TAG, "Error occurred while completing the neighbouring pages\n", e);
+                } finally {
+                    //Aborting the requests abandoned
+                    neighbourSignal.cancel();
+                }
+            }
+        });
+    }
+
+    /**
+     * Method that parses the JSON Response of the page on the CPU stage, and suppresses
+     * the Books of the page already seen on the pages before it
+     *
+     * @param pageParams         is the Search Query and the Search Settings of the page
+     * @param jsonResponse       is the JSON Response received for the page
+     * @param followingBookInfos is the List of {@link BookInfo} objects of the page following, to backfill
+     *                           the page with; can be Null
+     * @param searchId           is the Search ID of the Search being traced
+     * @param cancellationSignal is the {@link CancellationSignal} that stops the parsing when canceled; can be Null
+     * @return The {@link FetchedPage} of the page
+     * @throws OperationCanceledException if the signal is canceled while parsing
+     */
+    private static FetchedPage parsePage(SearchParams pageParams, final String jsonResponse,
+                                         @Nullable List<BookInfo> followingBookInfos, final long searchId,
+                                         @Nullable final CancellationSignal cancellationSignal) {
+        //Parsing the response on the CPU stage
+        List<BookInfo> bookInfos = SearchPipeline.callOnCpu(new Callable<List<BookInfo>>() {
+            @Override
+            public List<BookInfo> call() {
+                return BookClientUtility.extractVolumes(jsonResponse, searchId, cancellationSignal);
+            }
+        }, cancellationSignal);
+
+        //Suppressing the duplicates of the page
+        FetchedPage fetchedPage = new FetchedPage(pageParams, jsonResponse, bookInfos);
+        fetchedPage.mUniqueBookInfos = DuplicateBookFilter.filterPage(pageParams, bookInfos, followingBookInfos);
+        return fetchedPage;
+    }
+
+    /**
+     * Method that submits the request of the page to the I/O stage
+     *
+     * @param pageRequester      is the {@link PageRequester} that requests the page
+     * @param pageParams         is the Search Query and the Search Settings of the page to be fetched
+     * @param searchId           is the Search ID of the Search being traced
+     * @param cancellationSignal is the {@link CancellationSignal} that aborts the request when canceled; can be Null
+     * @return The {@link Future} of the JSON Response of the request
+     */
+    private static Future<String> submitRequest(final PageRequester pageRequester, final SearchParams pageParams,
+                                                final long searchId,
+                                                @Nullable final CancellationSignal cancellationSignal) {
+        return SearchPipeline.submitOnIo(new Callable<String>() {
+            @Override
+            public String call() {
+                return pageRequester.requestPage(pageParams, searchId, cancellationSignal);
+            }
+        });
+    }
+
+    /**
+     * Interface that requests a page of Search results
+     */
+    interface PageRequester {
+        /**
+         * Method that requests the page of Search results
+         *
+         * @param pageParams         is the Search Query and the Search Settings of the page to be fetched
+         * @param searchId           is the Search ID of the Search being traced
+         * @param cancellationSignal is the {@link CancellationSignal} that aborts the request when canceled; can be Null
+         * @return String containing the JSON Response; or NULL when the request failed
+         */
+        @Nullable
+        String requestPage(@NonNull SearchParams pageParams, long searchId, @Nullable CancellationSignal cancellationSignal);
+    }
+
+    /**
+     * Class that holds a page of Search results fetched, along with its JSON Response
+     */
+    public static class FetchedPage {
+
+        //The Search Query and the Search Settings of the page
+        private final SearchParams mSearchParams;
+        //The JSON Response received for the page
+        private final String mJsonResponse;
+        //The List of BookInfo objects parsed from the JSON Response
+        private final List<BookInfo> mBookInfos;
+        //The List of BookInfo objects of the page without the duplicates, backfilled when possible
+        private List<BookInfo> mUniqueBookInfos;
+
+        /**
+         * Constructor of {@link FetchedPage}
+         *
+         * @param searchParams is the Search Query and the Search Settings of the page
+         * @param jsonResponse is the JSON Response received for the page
+         * @param bookInfos    is the List of {@link BookInfo} objects parsed from the JSON Response
+         */
+        FetchedPage(SearchParams searchParams, String jsonResponse, List<BookInfo> bookInfos) {
+            mSearchParams = searchParams;
+            mJsonResponse = jsonResponse;
+            mBookInfos = bookInfos;
+        }
+
+        /**
+         * Method that returns the Search Query and the Search Settings of the page
+         *
+         * @return The {@link SearchParams} of the page
+         */
+        public SearchParams getSearchParams() {
+            return mSearchParams;
+        }
+
+        /**
+         * Method that returns the JSON Response received for the page
+         *
+         * @return String containing the JSON Response; or NULL when the request could not be made
+         */
+        public String getJsonResponse() {
+            return mJsonResponse;
+        }
+
+        /**
+         * Method that returns the List of {@link BookInfo} objects parsed for the page, at their offset
+         *
+         * @return The List of {@link BookInfo} objects; or NULL when the response is empty
+         */
+        public List<BookInfo> getBookInfos() {
+            return mBookInfos;
+        }
+
+        /**
+         * Method that returns the List of {@link BookInfo} objects to be shown for the page,
+         * without the Books already seen on the pages before it
+         *
+         * @return The List of {@link BookInfo} objects; or NULL when the response is empty
+         */
+        public List<BookInfo> getUniqueBookInfos() {
+            return mUniqueBookInfos;
+        }
+    }
+
+}
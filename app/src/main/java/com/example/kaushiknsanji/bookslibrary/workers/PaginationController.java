@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.example.kaushiknsanji.bookslibrary.R;
+
+/**
+ * Class that holds the Pagination state of the Search results in memory, that is,
+ * the page to display ('startIndex'), the last page index determined ('endIndex')
+ * and the page index last viewed.
+ * <p>
+ * Page navigation updates only the in-memory state and notifies the registered
+ * {@link OnPageChangeListener} to load the page directly. The state is written
+ * to the SharedPreferences lazily through {@link #persist()}, and only when changed.
+ *
+ * @author Kaushik N Sanji
+ */
+@MainThread
+public class PaginationController {
+
+    //Constant used for logs
+    private static final String LOG_TAG = PaginationController.class.getSimpleName();
+
+    //For the Settings SharedPreferences where the state is persisted
+    private final SharedPreferences mPreferences;
+    //Preference Keys of the state persisted
+    private final String mPageIndexPrefKey;
+    private final String mLastPageIndexPrefKey;
+    private final String mLastViewedPageIndexPrefKey;
+    //Index of the first page, which is 1
+    private final int mFirstPageIndex;
+    //Listener notified when the page to display is changed by navigation
+    private final OnPageChangeListener mOnPageChangeListener;
+
+    //Index of the page to display, that is, the 'startIndex'
+    private int mPageIndex;
+    //Index of the last page determined so far, that is, the 'endIndex'
+    private int mLastPageIndex;
+    //Index of the page last viewed before the current navigation
+    private int mLastViewedPageIndex;
+    //Boolean that says whether the state differs from the one persisted
+    private boolean mIsDirty;
+
+    /**
+     * Constructor of {@link PaginationController} that restores the state last persisted
+     *
+     * @param context              is the Context of the Activity
+     * @param preferences          is the instance of the Default SharedPreferences
+     * @param onPageChangeListener is the Listener notified when the page to display is changed by navigation
+     */
+    public PaginationController(@NonNull Context context, @NonNull SharedPreferences preferences,
+                                @NonNull OnPageChangeListener onPageChangeListener) {
+        mPreferences = preferences;
+        mOnPageChangeListener = onPageChangeListener;
+        mPageIndexPrefKey = context.getString(R.string.pref_page_to_display_key);
+        mLastPageIndexPrefKey = context.getString(R.string.pref_page_to_display_max_value_key);
+        mLastViewedPageIndexPrefKey = context.getString(R.string.pref_last_displayed_page_key);
+        mFirstPageIndex = context.getResources().getInteger(R.integer.pref_page_to_display_default_value);
+
+        //Restoring the state persisted
+        mPageIndex = preferences.getInt(mPageIndexPrefKey, mFirstPageIndex);
+        mLastPageIndex = preferences.getInt(mLastPageIndexPrefKey, mPageIndex);
+        mLastViewedPageIndex = preferences.getInt(mLastViewedPageIndexPrefKey, mPageIndex);
+    }
+
+    /**
+     * Returns the index of the page to display, that is, the 'startIndex'
+     *
+     * @return The index of the page to display
+     */
+    public int getPageIndex() {
+        return mPageIndex;
+    }
+
+    /**
+     * Returns the index of the last page determined so far, that is, the 'endIndex'
+     *
+     * @return The index of the last page
+     */
+    public int getLastPageIndex() {
+        return mLastPageIndex;
+    }
+
+    /**
+     * Returns the index of the page last viewed before the current navigation
+     *
+     * @return The index of the page last viewed
+     */
+    public int getLastViewedPageIndex() {
+        return mLastViewedPageIndex;
+    }
+
+    /**
+     * Returns the index of the first page
+     *
+     * @return The index of the first page, which is 1
+     */
+    public int getFirstPageIndex() {
+        return mFirstPageIndex;
+    }
+
+    /**
+     * Method that navigates to the first page
+     */
+    public void moveToFirstPage() {
+        moveToPage(mFirstPageIndex);
+    }
+
+    /**
+     * Method that navigates to the page previous to the current page
+     */
+    public void moveToPreviousPage() {
+        moveToPage(mPageIndex - 1);
+    }
+
+    /**
+     * Method that navigates to the page next to the current page
+     */
+    public void moveToNextPage() {
+        moveToPage(mPageIndex + 1);
+    }
+
+    /**
+     * Method that navigates to the last page determined so far
+     */
+    public void moveToLastPage() {
+        moveToPage(mLastPageIndex);
+    }
+
+    /**
+     * Method that navigates to the page requested, recording the current page as the
+     * page last viewed, and notifies the {@link OnPageChangeListener} to load the page
+     *
+     * @param pageIndex is the index of the page to navigate to
+     */
+    public void moveToPage(int pageIndex) {
+        //Recording the current page as the page last viewed
+        mLastViewedPageIndex = mPageIndex;
+        //Updating the page to display, not going below the first page
+        mPageIndex = Math.max(mFirstPageIndex, pageIndex);
+        mIsDirty = true;
+
+        Log.d(LOG_TAG, "moveToPage: " + mLastViewedPageIndex + " -> " + mPageIndex);
+
+        //Loading the page to display
+        mOnPageChangeListener.onPageChanged(mPageIndex);
+    }
+
+    /**
+     * Method that restores the page to display, and the last page index, to the page requested.
+     * Used when the page requested reports no result, and notifies the {@link OnPageChangeListener}
+     * to load the page restored
+     *
+     * @param pageIndex is the index of the page to restore to
+     */
+    public void restoreToPage(int pageIndex) {
+        mPageIndex = pageIndex;
+        mLastPageIndex = pageIndex;
+        mIsDirty = true;
+
+        //Loading the page restored
+        mOnPageChangeListener.onPageChanged(mPageIndex);
+    }
+
+    /**
+     * Method that resets all page indices to the first page, for a new Search.
+     * The {@link OnPageChangeListener} is not notified as the caller loads the new Search.
+     */
+    public void reset() {
+        if (mPageIndex != mFirstPageIndex || mLastPageIndex != mFirstPageIndex
+                || mLastViewedPageIndex != mFirstPageIndex) {
+            mPageIndex = mFirstPageIndex;
+            mLastPageIndex = mFirstPageIndex;
+            mLastViewedPageIndex = mFirstPageIndex;
+            mIsDirty = true;
+        }
+    }
+
+    /**
+     * Method that updates the last page index with the one determined by the Loader,
+     * when it is greater than the one determined so far
+     *
+     * @param lastPageIndex is the index of the last page determined by the Loader
+     */
+    public void updateLastPageIndex(int lastPageIndex) {
+        if (lastPageIndex > mLastPageIndex) {
+            mLastPageIndex = lastPageIndex;
+            mIsDirty = true;
+
+            Log.d(LOG_TAG, "updateLastPageIndex: lastPageIndex updated to " + lastPageIndex);
+        }
+    }
+
+    /**
+     * Method that synchronizes the page to display with the value changed
+     * outside of this controller, such as from the Settings. The {@link OnPageChangeListener}
+     * is not notified as the change is already persisted and reloaded through the Preference Listener.
+     *
+     * @param pageIndex is the index of the page to display, as persisted
+     */
+    public void syncPageIndex(int pageIndex) {
+        mPageIndex = pageIndex;
+    }
+
+    /**
+     * Method that writes the state to the SharedPreferences, only when changed since the last write
+     */
+    public void persist() {
+        if (!mIsDirty) {
+            //Returning when there is nothing new to write
+            return;
+        }
+
+        //Opening the Editor to write the state
+        SharedPreferences.Editor prefEditor = mPreferences.edit();
+        prefEditor.putInt(mPageIndexPrefKey, mPageIndex);
+        prefEditor.putInt(mLastPageIndexPrefKey, mLastPageIndex);
+        prefEditor.putInt(mLastViewedPageIndexPrefKey, mLastViewedPageIndex);
+        prefEditor.apply(); //Applying the changes
+
+        //Marking the state as persisted
+        mIsDirty = false;
+    }
+
+    /**
+     * Listener Interface to be implemented by the Activity that loads the page to display
+     */
+    public interface OnPageChangeListener {
+        /**
+         * Callback Method of {@link PaginationController} invoked when the page
+         * to display is changed by navigation, and needs to be loaded
+         *
+         * @param pageIndex is the index of the page to display, with 1 as the first page
+         */
+        void onPageChanged(int pageIndex);
+    }
+
+}
@@ -0,0 +1,560 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.support.v4.os.CancellationSignal;
+import android.support.v4.os.OperationCanceledException;
+
+import com.example.kaushiknsanji.bookslibrary.metrics.SampleRecorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class that provides the stages of the Search pipeline, each with its own threads:
+ * <ul>
+ * <li>An I/O pool for the HTTP requests of the Search and the pagination probe.</li>
+ * <li>A separate I/O pool for the image downloads, at a lower priority, so that the
+ * covers of a long result list never queue ahead of the Search pages and the probes.</li>
+ * <li>A small CPU pool at the Background priority for parsing, text measurement and diffing.</li>
+ * <li>A batched handoff to the Main Thread, which runs all the results posted before
+ * the Main Thread gets to them, in a single message.</li>
+ * </ul>
+ * Each stage records the depth of its queue on submission, and the time its tasks spent
+ * waiting and running, so that the pools can be sized for the low-end devices.
+ *
+ * @author Kaushik N Sanji
+ */
+public class SearchPipeline {
+
+    //Constant used for logs
+    private static final String LOG_TAG = SearchPipeline.class.getSimpleName();
+
+    //Number of threads in the I/O pool, bounding the number of concurrent connections
+    private static final int IO_POOL_SIZE = 4;
+    //Number of threads in the image I/O pool, bounding the number of concurrent image downloads
+    private static final int IMAGE_POOL_SIZE = 2;
+    //Number of threads in the CPU pool, leaving at least one core to the Main Thread
+    private static final int CPU_POOL_SIZE = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+    //Time in seconds after which an idle thread of a pool is terminated
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+    //Interval in milliseconds at which a blocked caller checks its CancellationSignal
+    private static final long CANCEL_POLL_INTERVAL_MILLIS = 100L;
+    //Number of most recent samples retained per measurement
+    private static final int SAMPLE_CAPACITY = 512;
+
+    //Stage executing the network I/O, at a priority slightly above the Background
+    private static final StageExecutor IO_STAGE = new StageExecutor("io", IO_POOL_SIZE,
+            Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+    //Stage executing the image downloads, at the Background priority below the Search I/O
+    private static final StageExecutor IMAGE_STAGE = new StageExecutor("image", IMAGE_POOL_SIZE,
+            Process.THREAD_PRIORITY_BACKGROUND);
+    //Stage executing the CPU bound work, at the Background priority
+    private static final StageExecutor CPU_STAGE = new StageExecutor("cpu", CPU_POOL_SIZE,
+            Process.THREAD_PRIORITY_BACKGROUND);
+
+    //Handler of the Main Thread that runs the batches handed off
+    private static final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+    //Lock guarding the batch of tasks pending on the Main Thread
+    private static final Object mMainBatchLock = new Object();
+    //Batch of tasks pending on the Main Thread
+    private static List<TimedTask> mPendingMainTasks = new ArrayList<>();
+    //Records the time in microseconds the tasks waited for the Main Thread
+    private static final SampleRecorder mMainWaitMicros = new SampleRecorder(SAMPLE_CAPACITY);
+    //Records the number of tasks run per Main Thread message
+    private static final SampleRecorder mMainBatchSizes = new SampleRecorder(SAMPLE_CAPACITY);
+
+    //Runnable that runs the batch of tasks pending on the Main Thread
+    private static final Runnable mMainBatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            //Taking the whole batch, so that the tasks posted from here on form the next batch
+            List<TimedTask> batch;
+            synchronized (mMainBatchLock) {
+                batch = mPendingMainTasks;
+                mPendingMainTasks = new ArrayList<>();
+            }
+
+            //Recording the size of the batch
+            mMainBatchSizes.record(batch.size());
+
+            //Running the tasks in the order posted
+            for (TimedTask task : batch) {
+                mMainWaitMicros.record(task.getWaitMicros());
+                task.mRunnable.run();
+            }
+        }
+    };
+
+    /**
+     * Method that returns the {@link Executor} of the I/O stage, for the network requests
+     *
+     * @return The {@link Executor} of the I/O stage
+     */
+    @NonNull
+    public static Executor getIoExecutor() {
+        return IO_STAGE;
+    }
+
+    /**
+     * Method that returns the {@link Executor} of the CPU stage, for parsing, measuring and diffing
+     *
+     * @return The {@link Executor} of the CPU stage
+     */
+    @NonNull
+    public static Executor getCpuExecutor() {
+        return CPU_STAGE;
+    }
+
+    /**
+     * Method that returns the number of tasks submitted to the I/O stage that are yet to complete,
+     * both queued and running. These are the requests issued for the Search, including the
+     * neighbouring pages, the pagination probes and the federated sub-queries.
+     *
+     * @return The number of tasks outstanding on the I/O stage
+     */
+    public static int getOutstandingIoCount() {
+        return IO_STAGE.getOutstandingCount();
+    }
+
+    /**
+     * Method that runs the task on the I/O stage and waits for its result.
+     * To be called by the Loaders, whose own thread then only coordinates the stages.
+     *
+     * @param callable           is the task to be run
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     * @param <T>                is the type of the result of the task
+     * @return The result of the task
+     * @throws OperationCanceledException if the load is canceled while waiting
+     */
+    @WorkerThread
+    public static <T> T callOnIo(@NonNull Callable<T> callable, @Nullable CancellationSignal cancellationSignal) {
+        return callOnStage(IO_STAGE, callable, cancellationSignal);
+    }
+
+    /**
+     * Method that runs the image download task on the image I/O stage and waits for its result.
+     * To be called by the image Loaders, so that the images do not compete with the Search
+     * requests for the threads of the I/O stage.
+     *
+     * @param callable           is the task to be run
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     * @param <T>                is the type of the result of the task
+     * @return The result of the task
+     * @throws OperationCanceledException if the load is canceled while waiting
+     */
+    @WorkerThread
+    public static <T> T callOnImageIo(@NonNull Callable<T> callable, @Nullable CancellationSignal cancellationSignal) {
+        return callOnStage(IMAGE_STAGE, callable, cancellationSignal);
+    }
+
+    /**
+     * Method that runs the task on the CPU stage and waits for its result.
+     * To be called by the Loaders, whose own thread then only coordinates the stages.
+     *
+     * @param callable           is the task to be run
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     * @param <T>                is the type of the result of the task
+     * @return The result of the task
+     * @throws OperationCanceledException if the load is canceled while waiting
+     */
+    @WorkerThread
+    public static <T> T callOnCpu(@NonNull Callable<T> callable, @Nullable CancellationSignal cancellationSignal) {
+        return callOnStage(CPU_STAGE, callable, cancellationSignal);
+    }
+
+    /**
+     * Method that submits the task to the I/O stage without waiting for its result,
+     * for running several requests concurrently. The result is to be collected through
+     * {@link #awaitResult(Future, CancellationSignal)}.
+     *
+     * @param callable is the task to be run
+     * @param <T>      is the type of the result of the task
+     * @return The {@link Future} of the task submitted
+     */
+    @NonNull
+    public static <T> Future<T> submitOnIo(@NonNull Callable<T> callable) {
+        FutureTask<T> futureTask = new FutureTask<>(callable);
+        IO_STAGE.execute(futureTask);
+        return futureTask;
+    }
+
+    /**
+     * Method that hands off the task to the Main Thread. The tasks posted before the
+     * Main Thread gets to them are run together in a single message.
+     *
+     * @param runnable is the task to be run on the Main Thread
+     */
+    public static void postToMain(@NonNull Runnable runnable) {
+        synchronized (mMainBatchLock) {
+            //Adding the task to the pending batch
+            mPendingMainTasks.add(new TimedTask(runnable));
+            if (mPendingMainTasks.size() == 1) {
+                //Scheduling the batch on the first task, the rest join the same batch
+                mMainThreadHandler.post(mMainBatchRunnable);
+            }
+        }
+    }
+
+    /**
+     * Method that runs the task on the stage passed and waits for its result
+     *
+     * @param stage              is the {@link StageExecutor} to run the task
+     * @param callable           is the task to be run
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     * @param <T>                is the type of the result of the task
+     * @return The result of the task
+     * @throws OperationCanceledException if the load is canceled while waiting
+     */
+    private static <T> T callOnStage(StageExecutor stage, Callable<T> callable,
+                                     @Nullable CancellationSignal cancellationSignal) {
+        //Submitting the task
+        FutureTask<T> futureTask = new FutureTask<>(callable);
+        stage.execute(futureTask);
+
+        //Waiting for its result
+        return awaitResult(futureTask, cancellationSignal);
+    }
+
+    /**
+     * Method that waits for the result of the task submitted to a stage, checking the
+     * {@link CancellationSignal} periodically, so that a canceled load does not wait for a task
+     * still queued on the stage
+     *
+     * @param future             is the {@link Future} of the task submitted
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     * @param <T>                is the type of the result of the task
+     * @return The result of the task
+     * @throws OperationCanceledException if the load is canceled while waiting
+     */
+    @WorkerThread
+    public static <T> T awaitResult(@NonNull Future<T> future, @Nullable CancellationSignal cancellationSignal) {
+        try {
+            while (true) {
+                try {
+                    //Waiting for the result
+                    return future.get(CANCEL_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (cancellationSignal != null && cancellationSignal.isCanceled()) {
+                        //Abandoning the task when the load is canceled
+                        future.cancel(false);
+                        throw new OperationCanceledException();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            //Abandoning the task when the caller is interrupted
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } catch (ExecutionException e) {
+            //Rethrowing the failure of the task on the caller
+            throw rethrowFailure(e);
+        }
+    }
+
+    /**
+     * Method that waits for the result of the task submitted to a stage, for no longer than
+     * the time passed, checking the {@link CancellationSignal} periodically. The task is left
+     * to the caller when the time runs out.
+     *
+     * @param future             is the {@link Future} of the task submitted
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     * @param timeoutMillis      is the maximum time to wait in milliseconds
+     * @param <T>                is the type of the result of the task
+     * @return The result of the task
+     * @throws OperationCanceledException if the load is canceled while waiting
+     * @throws TimeoutException           if the task did not complete in time
+     */
+    @WorkerThread
+    public static <T> T awaitResult(@NonNull Future<T> future, @Nullable CancellationSignal cancellationSignal,
+                                    long timeoutMillis) throws TimeoutException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long pollIntervalNanos = TimeUnit.MILLISECONDS.toNanos(CANCEL_POLL_INTERVAL_MILLIS);
+        try {
+            while (true) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    //Giving up on the task when the time runs out
+                    throw new TimeoutException();
+                }
+                try {
+                    //Waiting for the result, until the next poll or the deadline
+                    return future.get(Math.min(remainingNanos, pollIntervalNanos), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    if (cancellationSignal != null && cancellationSignal.isCanceled()) {
+                        //Abandoning the task when the load is canceled
+                        future.cancel(false);
+                        throw new OperationCanceledException();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            //Abandoning the task when the caller is interrupted
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } catch (ExecutionException e) {
+            //Rethrowing the failure of the task on the caller
+            throw rethrowFailure(e);
+        }
+    }
+
+    /**
+     * Method that rethrows the failure of a task on the caller waiting for its result
+     *
+     * @param e is the {@link ExecutionException} wrapping the failure of the task
+     * @return Nothing, as it always throws; declared for the callers to throw
+     */
+    private static RuntimeException rethrowFailure(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+    }
+
+    /**
+     * Method that waits for the next of the tasks submitted to the {@link CompletionService} to complete,
+     * in the order they complete, checking the {@link CancellationSignal} periodically
+     *
+     * @param completionService  is the {@link CompletionService} the tasks were submitted to
+     * @param cancellationSignal is the {@link CancellationSignal} of the load; can be Null
+     * @param <T>                is the type of the result of the tasks
+     * @return The {@link Future} of the task completed, whose result is ready
+     * @throws OperationCanceledException if the load is canceled while waiting
+     */
+    @WorkerThread
+    @NonNull
+    public static <T> Future<T> awaitNext(@NonNull CompletionService<T> completionService,
+                                          @Nullable CancellationSignal cancellationSignal) {
+        try {
+            while (true) {
+                //Waiting for the next task to complete
+                Future<T> future = completionService.poll(CANCEL_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (future != null) {
+                    return future;
+                }
+                if (cancellationSignal != null && cancellationSignal.isCanceled()) {
+                    //Abandoning the wait when the load is canceled
+                    throw new OperationCanceledException();
+                }
+            }
+        } catch (InterruptedException e) {
+            //Abandoning the wait when the caller is interrupted
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        }
+    }
+
+    /**
+     * Method that summarizes the measurements of all the stages
+     *
+     * @return String containing the summary of the measurements, one line per measurement
+     */
+    @NonNull
+    public static String dump() {
+        StringBuilder dumpBuilder = new StringBuilder();
+        IO_STAGE.appendSummary(dumpBuilder);
+        IMAGE_STAGE.appendSummary(dumpBuilder);
+        CPU_STAGE.appendSummary(dumpBuilder);
+        dumpBuilder.append(mMainWaitMicros.summarizeMicros("main wait")).append("\n");
+        dumpBuilder.append(mMainBatchSizes.summarizeCounts("main batch size")).append("\n");
+        return dumpBuilder.toString();
+    }
+
+    /**
+     * Method that discards the measurements of all the stages
+     */
+    public static void reset() {
+        IO_STAGE.clearSamples();
+        IMAGE_STAGE.clearSamples();
+        CPU_STAGE.clearSamples();
+        mMainWaitMicros.clear();
+        mMainBatchSizes.clear();
+    }
+
+    /**
+     * Class that holds the task along with the time it was submitted,
+     * to measure the time it waited for its thread
+     */
+    private static class TimedTask {
+        //The task to be run
+        final Runnable mRunnable;
+        //Time in nanoseconds when the task was submitted
+        final long mSubmitNanos;
+
+        /**
+         * Constructor of {@link TimedTask}
+         *
+         * @param runnable is the task to be run
+         */
+        TimedTask(Runnable runnable) {
+            mRunnable = runnable;
+            mSubmitNanos = System.nanoTime();
+        }
+
+        /**
+         * Method that returns the time the task has been waiting since its submission
+         *
+         * @return The time waited in microseconds
+         */
+        long getWaitMicros() {
+            return (System.nanoTime() - mSubmitNanos) / 1000L;
+        }
+    }
+
+    /**
+     * {@link Executor} of a stage, backed by a fixed size {@link ThreadPoolExecutor} whose threads
+     * run at the priority of the stage, that records the queue depth, wait time and run time of its tasks
+     */
+    private static class StageExecutor implements Executor {
+        //Name of the stage
+        private final String mStageName;
+        //Pool of threads of the stage
+        private final ThreadPoolExecutor mThreadPoolExecutor;
+        //Records the number of tasks queued ahead of each task submitted
+        private final SampleRecorder mQueueDepths = new SampleRecorder(SAMPLE_CAPACITY);
+        //Records the time in microseconds each task waited for a thread
+        private final SampleRecorder mWaitMicros = new SampleRecorder(SAMPLE_CAPACITY);
+        //Records the time in microseconds each task took to run
+        private final SampleRecorder mRunMicros = new SampleRecorder(SAMPLE_CAPACITY);
+        //Number of tasks submitted that are yet to complete, both queued and running
+        private final AtomicInteger mOutstandingCount = new AtomicInteger(0);
+
+        /**
+         * Constructor of {@link StageExecutor}
+         *
+         * @param stageName      is the name of the stage, used for naming its threads
+         * @param poolSize       is the number of threads of the stage
+         * @param threadPriority is the Linux priority of the threads of the stage
+         */
+        StageExecutor(final String stageName, int poolSize, final int threadPriority) {
+            mStageName = stageName;
+            mThreadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        //Counter used for numbering the threads
+                        private final AtomicInteger mThreadCount = new AtomicInteger(1);
+
+                        /**
+                         * Constructs a new {@code Thread}.
+                         *
+                         * @param runnable a runnable to be executed by new thread instance
+                         * @return constructed thread
+                         */
+                        @Override
+                        public Thread newThread(@NonNull final Runnable runnable) {
+                            return new Thread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    //Running the tasks at the priority of the stage
+                                    Process.setThreadPriority(threadPriority);
+                                    runnable.run();
+                                }
+                            }, LOG_TAG + "-" + stageName + "-" + mThreadCount.getAndIncrement());
+                        }
+                    });
+            //Releasing the threads when the stage stays idle
+            mThreadPoolExecutor.allowCoreThreadTimeOut(true);
+        }
+
+        /**
+         * Executes the given command at some time in the future, on a thread of the stage
+         *
+         * @param command the runnable task
+         */
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            //Recording the number of tasks queued ahead of this task
+            mQueueDepths.record(mThreadPoolExecutor.getQueue().size());
+
+            final TimedTask timedTask = new TimedTask(command);
+            mOutstandingCount.incrementAndGet();
+            mThreadPoolExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    //Recording the time waited for the thread
+                    mWaitMicros.record(timedTask.getWaitMicros());
+
+                    //Running the task and recording the time it took
+                    long runStartNanos = System.nanoTime();
+                    try {
+                        command.run();
+                    } finally {
+                        mRunMicros.record((System.nanoTime() - runStartNanos) / 1000L);
+                        mOutstandingCount.decrementAndGet();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Method that returns the number of tasks submitted that are yet to complete
+         *
+         * @return The number of tasks queued and running on the stage
+         */
+        int getOutstandingCount() {
+            return mOutstandingCount.get();
+        }
+
+        /**
+         * Method that appends the summary of the measurements of the stage
+         *
+         * @param dumpBuilder is the StringBuilder to append the summary to
+         */
+        void appendSummary(StringBuilder dumpBuilder) {
+            dumpBuilder.append(String.format(Locale.US, "%s pool: %d threads, %d active, %d queued, %d completed\n",
+                    mStageName, mThreadPoolExecutor.getMaximumPoolSize(), mThreadPoolExecutor.getActiveCount(),
+                    mThreadPoolExecutor.getQueue().size(), mThreadPoolExecutor.getCompletedTaskCount()));
+            dumpBuilder.append(mQueueDepths.summarizeCounts(mStageName + " queue depth")).append("\n");
+            dumpBuilder.append(mWaitMicros.summarizeMicros(mStageName + " wait")).append("\n");
+            dumpBuilder.append(mRunMicros.summarizeMicros(mStageName + " run")).append("\n");
+        }
+
+        /**
+         * Method that discards the measurements of the stage
+         */
+        void clearSamples() {
+            mQueueDepths.clear();
+            mWaitMicros.clear();
+            mRunMicros.clear();
+        }
+    }
+
+}
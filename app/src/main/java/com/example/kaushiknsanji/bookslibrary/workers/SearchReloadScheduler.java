@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+
+/**
+ * Class that coalesces the reload requests raised on the change of Search settings.
+ * <p>
+ * The requests received within a window are batched, and once the window elapses
+ * without any further request, the latest {@link SearchParams} is compared with the one
+ * last executed. The registered {@link OnReloadListener} is notified only when they differ,
+ * which results in at most one fetch for a burst of setting changes.
+ *
+ * @author Kaushik N Sanji
+ */
+public class SearchReloadScheduler {
+
+    //Constant used for logs
+    private static final String LOG_TAG = SearchReloadScheduler.class.getSimpleName();
+
+    //Handler of the Main Thread that delivers the batched reload
+    private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+    //Window in milliseconds within which the reload requests are batched
+    private final long mCoalesceWindowMillis;
+    //Listener that performs the reload
+    private final OnReloadListener mOnReloadListener;
+
+    //Stores the SearchParams of the latest reload request that is yet to be delivered
+    private SearchParams mPendingSearchParams;
+    //Stores the SearchParams last executed by the Loader
+    private SearchParams mLastExecutedSearchParams;
+    //Stores the number of reload requests batched into the pending reload
+    private int mBatchedRequestCount;
+
+    //Runnable that delivers the pending reload once the window elapses
+    private final Runnable mReloadRunnable = new Runnable() {
+        @Override
+        public void run() {
+            deliverPendingReload();
+        }
+    };
+
+    /**
+     * Constructor of {@link SearchReloadScheduler}
+     *
+     * @param coalesceWindowMillis is the window in milliseconds within which the reload requests are batched
+     * @param onReloadListener     is the Listener that performs the reload
+     */
+    public SearchReloadScheduler(long coalesceWindowMillis, @NonNull OnReloadListener onReloadListener) {
+        mCoalesceWindowMillis = coalesceWindowMillis;
+        mOnReloadListener = onReloadListener;
+    }
+
+    /**
+     * Method that schedules a reload for the {@link SearchParams} passed, batching it with
+     * the other requests received within the window. The window restarts on every request.
+     *
+     * @param searchParams is the latest snapshot of the Search Query and the Search Settings
+     */
+    @MainThread
+    public void requestReload(@NonNull SearchParams searchParams) {
+        //Replacing any pending request with the latest one
+        mPendingSearchParams = searchParams;
+        mBatchedRequestCount++;
+
+        //Restarting the window
+        mMainThreadHandler.removeCallbacks(mReloadRunnable);
+        mMainThreadHandler.postDelayed(mReloadRunnable, mCoalesceWindowMillis);
+    }
+
+    /**
+     * Method that records the {@link SearchParams} executed by the Loader outside of this scheduler,
+     * so that a pending request for the same parameters does not trigger another fetch
+     *
+     * @param searchParams is the snapshot of the Search Query and the Search Settings executed
+     */
+    @MainThread
+    public void markExecuted(@Nullable SearchParams searchParams) {
+        mLastExecutedSearchParams = searchParams;
+    }
+
+    /**
+     * Method that discards any pending reload request
+     */
+    @MainThread
+    public void cancel() {
+        mMainThreadHandler.removeCallbacks(mReloadRunnable);
+        mPendingSearchParams = null;
+        mBatchedRequestCount = 0;
+    }
+
+    /**
+     * Method that delivers the pending reload to the {@link OnReloadListener}
+     * when its {@link SearchParams} differs from the one last executed
+     */
+    private void deliverPendingReload() {
+        //Taking the pending request and resetting the batch
+        SearchParams searchParams = mPendingSearchParams;
+        int batchedRequestCount = mBatchedRequestCount;
+        mPendingSearchParams = null;
+        mBatchedRequestCount = 0;
+
+        if (searchParams == null || searchParams.equals(mLastExecutedSearchParams)) {
+            //Skipping the reload when the effective Search is unchanged
+            Log.d(LOG_TAG, "deliverPendingReload: Skipped, unchanged after " + batchedRequestCount + " requests");
+            return;
+        }
+
+        Log.d(LOG_TAG, "deliverPendingReload: Reloading once for " + batchedRequestCount + " requests");
+
+        //Recording the parameters as executed and reloading
+        mLastExecutedSearchParams = searchParams;
+        mOnReloadListener.onReload(searchParams);
+    }
+
+    /**
+     * Listener Interface to be implemented by the Activity that performs the reload
+     * of the Search results
+     */
+    public interface OnReloadListener {
+        /**
+         * Callback Method of {@link SearchReloadScheduler} invoked on the Main Thread
+         * when the Search results need to be reloaded
+         *
+         * @param searchParams is the snapshot of the Search Query and the Search Settings to be loaded
+         */
+        void onReload(@NonNull SearchParams searchParams);
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.text.Layout;
+import android.text.SpannedString;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.widget.TextView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class that computes the Text Layouts ({@link StaticLayout}) on the CPU stage of the {@link SearchPipeline}.
+ * <p>
+ * The Layout computed for a TextView is handed over on the Main Thread, and is used for
+ * detecting whether the Text exceeds its MaxLines, without waiting for a global layout pass.
+ * The Layout computed for a plain Text is handed over to the view that draws it as-is,
+ * such as the {@link com.example.kaushiknsanji.bookslibrary.customviews.PrecomputedTextView}.
+ *
+ * @author Kaushik N Sanji
+ */
+public class TextLayoutPrecomputer {
+
+    //Constant used for logs
+    private static final String LOG_TAG = TextLayoutPrecomputer.class.getSimpleName();
+
+    //Cache of the Typefaces loaded from the Font assets, keyed by their asset path
+    private static final Map<String, Typeface> mTypefaceCache = new HashMap<>();
+
+    /**
+     * Method that computes the Layout of the Text currently set on the TextView, on a background
+     * thread, for the width currently available to the Text. The Layout is computed without
+     * any limit on its lines, so that its line count tells whether the Text exceeds the MaxLines.
+     * The Layout computed is discarded when the Text or the width of the TextView has changed meanwhile.
+     *
+     * @param textView is the TextView whose Text Layout is to be computed
+     * @param listener is the {@link OnTextLayoutPrecomputedListener} to receive the Layout computed
+     */
+    @MainThread
+    public static void precompute(@NonNull final TextView textView, @NonNull final OnTextLayoutPrecomputedListener listener) {
+        //Retrieving the width available to the Text
+        final int availableWidth = getAvailableWidth(textView);
+        //Retrieving the Text to be laid out
+        final CharSequence sourceText = textView.getText();
+        if (availableWidth <= 0 || TextUtils.isEmpty(sourceText)) {
+            //Returning when the TextView is not yet laid out or has no Text
+            return;
+        }
+
+        //Taking an immutable copy of the Text and the Paint, to be read by the worker thread
+        final CharSequence text = new SpannedString(sourceText);
+        final TextPaint textPaint = new TextPaint(textView.getPaint());
+
+        //Retrieving the line spacing and padding settings of the TextView
+        final float spacingMultiplier;
+        final float spacingExtra;
+        final boolean includeFontPadding;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            spacingMultiplier = textView.getLineSpacingMultiplier();
+            spacingExtra = textView.getLineSpacingExtra();
+            includeFontPadding = textView.getIncludeFontPadding();
+        } else {
+            //Using the defaults of the TextView when the getters are not available
+            spacingMultiplier = 1.0f;
+            spacingExtra = 0.0f;
+            includeFontPadding = true;
+        }
+
+        //Computing the Layout on the CPU stage of the Search pipeline
+        SearchPipeline.getCpuExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final StaticLayout textLayout = new StaticLayout(text, textPaint, availableWidth,
+                        Layout.Alignment.ALIGN_NORMAL, spacingMultiplier, spacingExtra, includeFontPadding);
+
+                //Handing over the Layout to the Main Thread
+                SearchPipeline.postToMain(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (textView.getText() != sourceText || getAvailableWidth(textView) != availableWidth) {
+                            //Ignoring the Layout as the TextView has changed meanwhile
+                            return;
+                        }
+
+                        //Delivering the Layout computed
+                        listener.onTextLayoutPrecomputed(textView, textLayout);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Method that computes the Layout of a plain Text on a background thread, with the Paint and
+     * the Font passed, for the width available to the Text. The Font is also loaded on the
+     * background thread. The Layout computed is handed over on the Main Thread to the
+     * {@link OnLayoutPrecomputedCallback}, which is expected to draw the Layout as-is.
+     *
+     * @param context        is the Context used for reading the Font asset
+     * @param text           is the Text to be laid out
+     * @param textPaint      is the Paint with the Text Size and the Color to lay out the Text with
+     * @param fontAssetPath  is the path to the Font asset to lay out the Text with. Can be {@code null}
+     *                       to use the Typeface of the Paint passed
+     * @param availableWidth is the Integer value of the width available to the Text
+     * @param callback       is the {@link OnLayoutPrecomputedCallback} to receive the Layout computed
+     */
+    @MainThread
+    public static void precompute(@NonNull Context context, @NonNull CharSequence text,
+                                  @NonNull TextPaint textPaint, @Nullable final String fontAssetPath,
+                                  final int availableWidth, @NonNull final OnLayoutPrecomputedCallback callback) {
+        //Taking an immutable copy of the Text and the Paint, to be read by the worker thread
+        final CharSequence textCopy = new SpannedString(text);
+        final TextPaint textPaintCopy = new TextPaint(textPaint);
+        //Using the Application Context, as the work may outlive the Activity
+        final Context appContext = context.getApplicationContext();
+
+        //Computing the Layout on the CPU stage of the Search pipeline
+        SearchPipeline.getCpuExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (fontAssetPath != null) {
+                    //Loading the Font on the worker thread
+                    textPaintCopy.setTypeface(getTypeface(appContext, fontAssetPath));
+                }
+
+                final StaticLayout textLayout = new StaticLayout(textCopy, textPaintCopy, availableWidth,
+                        Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, true);
+
+                //Handing over the Layout to the Main Thread
+                SearchPipeline.postToMain(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onLayoutPrecomputed(textLayout);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Method that returns the Typeface of the Font asset, loading it on its first use
+     *
+     * @param context       is the Context used for reading the Font asset
+     * @param fontAssetPath is the path to the Font asset
+     * @return The {@link Typeface} loaded from the Font asset
+     */
+    @WorkerThread
+    private static Typeface getTypeface(Context context, String fontAssetPath) {
+        synchronized (mTypefaceCache) {
+            Typeface typeface = mTypefaceCache.get(fontAssetPath);
+            if (typeface == null) {
+                //Loading the Typeface for the first time
+                typeface = Typeface.createFromAsset(context.getAssets(), fontAssetPath);
+                mTypefaceCache.put(fontAssetPath, typeface);
+            }
+            return typeface;
+        }
+    }
+
+    /**
+     * Method that returns the width available to the Text of the TextView,
+     * excluding its paddings and compound drawables
+     *
+     * @param textView is the TextView whose width available for the Text is to be found
+     * @return Integer value of the width available for the Text
+     */
+    private static int getAvailableWidth(TextView textView) {
+        return textView.getWidth() - textView.getCompoundPaddingLeft() - textView.getCompoundPaddingRight();
+    }
+
+    /**
+     * Interface to be implemented by the Activity/Fragment to receive
+     * the Text Layouts computed on a background thread
+     */
+    public interface OnTextLayoutPrecomputedListener {
+        /**
+         * Method invoked on the Main Thread with the Layout computed for the Text of the TextView
+         *
+         * @param textView   is the TextView whose Text was laid out
+         * @param textLayout is the {@link Layout} computed for the Text, without any limit on its lines
+         */
+        void onTextLayoutPrecomputed(@NonNull TextView textView, @NonNull Layout textLayout);
+    }
+
+    /**
+     * Callback interface to be implemented by the view that draws a Text
+     * with the Layout computed on a background thread
+     */
+    public interface OnLayoutPrecomputedCallback {
+        /**
+         * Method invoked on the Main Thread with the Layout computed for the Text
+         *
+         * @param textLayout is the {@link Layout} computed for the Text
+         */
+        void onLayoutPrecomputed(@NonNull Layout textLayout);
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.cache;
+
+import com.example.kaushiknsanji.bookslibrary.data.OfflineBookStore;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests of {@link BookSuggestionIndex#lookup(String, int)}
+ *
+ * @author Kaushik N Sanji
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BookSuggestionIndexTest {
+
+    @Before
+    public void setUp() {
+        BookSuggestionIndex.clearIndex();
+    }
+
+    @Test
+    public void lookup_emptyText_returnsNothing() {
+        addTitles("Android Programming");
+
+        assertTrue(BookSuggestionIndex.lookup("", 5).isEmpty());
+        assertTrue(BookSuggestionIndex.lookup(" - ", 5).isEmpty());
+    }
+
+    @Test
+    public void lookup_textStartingAWord_matchesIgnoringCaseAndPunctuation() {
+        addTitles("The Art of Computer Programming", "Programming Pearls", "Clean Code");
+
+        assertEquals(Arrays.asList("Programming Pearls", "The Art of Computer Programming"),
+                texts(BookSuggestionIndex.lookup("PROGRAM", 5)));
+        assertEquals(Collections.singletonList("The Art of Computer Programming"),
+                texts(BookSuggestionIndex.lookup("computer-prog", 5)));
+    }
+
+    @Test
+    public void lookup_suggestionsStartingWithText_rankedAboveMoreFrequentOnes() {
+        addTitles("Learning Java", "Learning Java", "Java Concurrency in Practice");
+
+        assertEquals(Arrays.asList("Java Concurrency in Practice", "Learning Java"),
+                texts(BookSuggestionIndex.lookup("java", 5)));
+    }
+
+    @Test
+    public void lookup_suggestionsSeenMoreOften_rankedFirstThenShorterOnes() {
+        addTitles("Dune", "Dune Messiah", "Dune Messiah", "Dune World");
+
+        assertEquals(Arrays.asList("Dune Messiah", "Dune", "Dune World"),
+                texts(BookSuggestionIndex.lookup("dune", 5)));
+    }
+
+    @Test
+    public void lookup_titlesAndAuthors_returnsBothKinds() {
+        BookSuggestionIndex.addTexts(Collections.singletonList("Tolkien and the Great War"),
+                Collections.singletonList("J. R. R. Tolkien"));
+
+        List<BookSuggestionIndex.Suggestion> suggestions = BookSuggestionIndex.lookup("tolkien", 5);
+
+        assertEquals(Arrays.asList("Tolkien and the Great War", "J. R. R. Tolkien"), texts(suggestions));
+        assertEquals(BookSuggestionIndex.KIND_TITLE, suggestions.get(0).getKind());
+        assertEquals(BookSuggestionIndex.KIND_AUTHOR, suggestions.get(1).getKind());
+    }
+
+    @Test
+    public void lookup_moreMatchesThanMaxResults_returnsOnlyTheBestRanked() {
+        addTitles("Kotlin in Action", "Kotlin in Action", "Kotlin Cookbook", "Kotlin Coroutines");
+
+        assertEquals(Arrays.asList("Kotlin in Action", "Kotlin Cookbook"),
+                texts(BookSuggestionIndex.lookup("kotlin", 2)));
+    }
+
+    @Test
+    public void lookup_titleNotSeenWithinTheStoredBooks_isEvicted() {
+        addTitles("Forgotten Realms");
+        addTitles("Recent Realms");
+
+        //Adding as many other Books as retained by the local Book store
+        List<String> otherTitles = new ArrayList<>(OfflineBookStore.MAX_STORED_BOOKS - 1);
+        for (int index = 0; index < OfflineBookStore.MAX_STORED_BOOKS - 1; index++) {
+            otherTitles.add("Book " + index);
+        }
+        BookSuggestionIndex.addTexts(otherTitles, Collections.<String>emptyList());
+
+        assertEquals(Collections.singletonList("Recent Realms"),
+                texts(BookSuggestionIndex.lookup("realms", 5)));
+    }
+
+    @Test
+    public void lookup_titleSeenAgain_isRetainedPastTheStoredBooks() {
+        addTitles("Forgotten Realms");
+        List<String> otherTitles = new ArrayList<>(OfflineBookStore.MAX_STORED_BOOKS - 1);
+        for (int index = 0; index < OfflineBookStore.MAX_STORED_BOOKS - 1; index++) {
+            otherTitles.add("Book " + index);
+        }
+        BookSuggestionIndex.addTexts(otherTitles, Collections.<String>emptyList());
+        addTitles("Forgotten Realms");
+        BookSuggestionIndex.addTexts(otherTitles, Collections.<String>emptyList());
+
+        assertEquals(Collections.singletonList("Forgotten Realms"),
+                texts(BookSuggestionIndex.lookup("forgotten", 5)));
+    }
+
+    /**
+     * Method that adds the Titles to the index, as a page of Books without Authors
+     *
+     * @param titles are the Titles to be added
+     */
+    private static void addTitles(String... titles) {
+        BookSuggestionIndex.addTexts(Arrays.asList(titles), Collections.<String>emptyList());
+    }
+
+    /**
+     * Method that returns the texts of the Suggestions in the same order
+     *
+     * @param suggestions is the List of {@link BookSuggestionIndex.Suggestion} looked up
+     * @return List of the texts of the Suggestions
+     */
+    private static List<String> texts(List<BookSuggestionIndex.Suggestion> suggestions) {
+        List<String> texts = new ArrayList<>(suggestions.size());
+        for (BookSuggestionIndex.Suggestion suggestion : suggestions) {
+            texts.add(suggestion.getText());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.cache;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+import com.example.kaushiknsanji.bookslibrary.models.TestSearchParams;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Local unit tests of {@link DuplicateBookFilter}
+ *
+ * @author Kaushik N Sanji
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DuplicateBookFilterTest {
+
+    //Constant for the Search Query of the pages filtered
+    private static final String QUERY = "android";
+
+    @Before
+    public void setUp() {
+        DuplicateBookFilter.clearFilter();
+    }
+
+    @Test
+    public void filterPage_failedRequest_returnsNull() {
+        assertNull(DuplicateBookFilter.filterPage(TestSearchParams.of(QUERY, 1, 10), null, null));
+    }
+
+    @Test
+    public void filterPage_bookRepeatedOnPage_isShownOnlyAtFirstOffset() {
+        List<BookInfo> page = books("b0", "b1", "b0", "b2");
+
+        List<BookInfo> uniquePage = DuplicateBookFilter.filterPage(TestSearchParams.of(QUERY, 1, 4), page, null);
+
+        assertEquals(Arrays.asList("b0", "b1", "b2"), bookIds(uniquePage));
+    }
+
+    @Test
+    public void filterPage_pageShortOfDuplicates_isBackfilledAndBackfilledBookLeavesItsPage() {
+        SearchParams firstPageParams = TestSearchParams.of(QUERY, 1, 4);
+        SearchParams secondPageParams = TestSearchParams.of(QUERY, 2, 4);
+        List<BookInfo> firstPage = books("b0", "b1", "b0", "b2");
+        List<BookInfo> secondPage = books("b3", "b4", "b5", "b6");
+
+        List<BookInfo> uniqueFirstPage = DuplicateBookFilter.filterPage(firstPageParams, firstPage, secondPage);
+        List<BookInfo> uniqueSecondPage = DuplicateBookFilter.filterPage(secondPageParams, secondPage, null);
+
+        assertEquals(Arrays.asList("b0", "b1", "b2", "b3"), bookIds(uniqueFirstPage));
+        assertEquals(Arrays.asList("b4", "b5", "b6"), bookIds(uniqueSecondPage));
+        //Filtering the first page again yields the same page
+        assertEquals(bookIds(uniqueFirstPage),
+                bookIds(DuplicateBookFilter.filterPage(firstPageParams, firstPage, secondPage)));
+    }
+
+    @Test
+    public void filterPage_bookRepeatedOnFollowingPage_isSuppressedFromFollowingPage() {
+        List<BookInfo> firstPage = books("b0", "b1", "b2");
+        List<BookInfo> secondPage = books("b3", "b1", "b4");
+
+        DuplicateBookFilter.filterPage(TestSearchParams.of(QUERY, 1, 3), firstPage, secondPage);
+        List<BookInfo> uniqueSecondPage = DuplicateBookFilter.filterPage(TestSearchParams.of(QUERY, 2, 3), secondPage, null);
+
+        assertEquals(Arrays.asList("b3", "b4"), bookIds(uniqueSecondPage));
+    }
+
+    @Test
+    public void filterPage_afterPageSizeChange_showsBookBackfilledAtPreviousPageSize() {
+        //With 10 results per page, the Book at offset 10 is backfilled to the offset 9
+        List<BookInfo> firstPage = books("b0", "b1", "b2", "b3", "b4", "b5", "b6", "b7", "b8", "b0");
+        List<BookInfo> secondPage = books("b10", "b11", "b12", "b13", "b14", "b15", "b16", "b17", "b18", "b19");
+        List<BookInfo> uniqueFirstPage = DuplicateBookFilter.filterPage(TestSearchParams.of(QUERY, 1, 10), firstPage, secondPage);
+        assertEquals("b10", uniqueFirstPage.get(9).getBookId());
+
+        //With 20 results per page, the same Books are on the first page, and the Book is still shown
+        List<BookInfo> largerFirstPage = new ArrayList<>(firstPage);
+        largerFirstPage.addAll(secondPage);
+        List<BookInfo> uniqueLargerFirstPage = DuplicateBookFilter.filterPage(TestSearchParams.of(QUERY, 1, 20), largerFirstPage, null);
+
+        assertEquals(19, uniqueLargerFirstPage.size());
+        assertEquals("b10", uniqueLargerFirstPage.get(9).getBookId());
+    }
+
+    @Test
+    public void removeDuplicates_retainsFirstOfEachBookInOrder() {
+        List<BookInfo> uniqueBookInfos = DuplicateBookFilter.removeDuplicates(books("b2", "b1", "b2", "b3", "b1"));
+
+        assertEquals(Arrays.asList("b2", "b1", "b3"), bookIds(uniqueBookInfos));
+    }
+
+    /**
+     * Method that builds the List of {@link BookInfo} objects for the Book Ids passed
+     *
+     * @param bookIds are the Ids of the Books in order
+     * @return List of {@link BookInfo} objects
+     */
+    private static List<BookInfo> books(String... bookIds) {
+        List<BookInfo> bookInfos = new ArrayList<>(bookIds.length);
+        for (String bookId : bookIds) {
+            bookInfos.add(new BookInfo(bookId));
+        }
+        return bookInfos;
+    }
+
+    /**
+     * Method that returns the Ids of the Books passed in order
+     *
+     * @param bookInfos is the List of {@link BookInfo} objects
+     * @return List of the Ids of the Books
+     */
+    private static List<String> bookIds(List<BookInfo> bookInfos) {
+        List<String> bookIds = new ArrayList<>(bookInfos.size());
+        for (BookInfo bookInfo : bookInfos) {
+            bookIds.add(bookInfo.getBookId());
+        }
+        return bookIds;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.cache;
+
+import android.os.SystemClock;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+import com.example.kaushiknsanji.bookslibrary.models.TestSearchParams;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests of {@link SearchItemStore} and the page-to-offset translation
+ * of {@link SearchParams} it relies on
+ *
+ * @author Kaushik N Sanji
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SearchItemStoreTest {
+
+    //Constant for the Search Query of the items saved
+    private static final String QUERY = "android";
+    //Constant for the maximum age of the items read, as used by the Loader
+    private static final long MAX_AGE_MILLIS = 60000L;
+
+    @Before
+    public void setUp() {
+        SearchItemStore.clearStore();
+    }
+
+    @Test
+    public void getStartItemIndex_translatesPageToOffsetOfItsFirstItem() {
+        assertEquals(0, TestSearchParams.of(QUERY, 1, 10).getStartItemIndex());
+        assertEquals(20, TestSearchParams.of(QUERY, 3, 10).getStartItemIndex());
+        assertEquals(28, TestSearchParams.of(QUERY, 5, 7).getStartItemIndex());
+    }
+
+    @Test
+    public void getLastPageIndexFor_translatesItemCountToLastPage() {
+        SearchParams searchParams = TestSearchParams.of(QUERY, 1, 10);
+
+        assertEquals(1, searchParams.getLastPageIndexFor(0));
+        assertEquals(1, searchParams.getLastPageIndexFor(10));
+        assertEquals(2, searchParams.getLastPageIndexFor(11));
+        assertEquals(14, searchParams.getLastPageIndexFor(137));
+    }
+
+    @Test
+    public void getSlice_nothingSaved_returnsNull() {
+        assertNull(SearchItemStore.getSlice(TestSearchParams.of(QUERY, 1, 10), MAX_AGE_MILLIS));
+    }
+
+    @Test
+    public void getSlice_lookupDisabled_returnsNull() {
+        putPage(1, 10, items(0, 10));
+
+        assertNull(SearchItemStore.getSlice(TestSearchParams.of(QUERY, 1, 10), 0));
+    }
+
+    @Test
+    public void getSlice_differentPageSize_slicesItemsSavedAtAnotherPageSize() {
+        putPage(1, 10, items(0, 10));
+        putPage(2, 10, items(10, 10));
+
+        SearchItemStore.ItemSlice itemSlice = SearchItemStore.getSlice(TestSearchParams.of(QUERY, 3, 6), MAX_AGE_MILLIS);
+
+        assertTrue(itemSlice.isComplete());
+        assertEquals(Arrays.asList("b12", "b13", "b14", "b15", "b16", "b17"), bookIds(itemSlice.getBookInfos()));
+    }
+
+    @Test
+    public void getSlice_partialOverlap_returnsRangeOfItemsMissing() {
+        putPage(1, 10, items(0, 10));
+
+        SearchItemStore.ItemSlice itemSlice = SearchItemStore.getSlice(TestSearchParams.of(QUERY, 3, 4), MAX_AGE_MILLIS);
+
+        assertFalse(itemSlice.isComplete());
+        assertNull(itemSlice.getBookInfos());
+        assertEquals(10, itemSlice.getMissingStartIndex());
+        assertEquals(2, itemSlice.getMissingItemCount());
+    }
+
+    @Test
+    public void getSlice_pageAcrossEndOfResults_isCompleteWithItemsBeforeTheEnd() {
+        //Saving a page short of the items requested, which marks the end of the results
+        putPage(1, 10, items(0, 7));
+
+        SearchItemStore.ItemSlice itemSlice = SearchItemStore.getSlice(TestSearchParams.of(QUERY, 2, 5), MAX_AGE_MILLIS);
+
+        assertTrue(itemSlice.isComplete());
+        assertEquals(Arrays.asList("b5", "b6"), bookIds(itemSlice.getBookInfos()));
+    }
+
+    @Test
+    public void getSlice_pagePastEndOfResults_returnsNull() {
+        putPage(1, 10, items(0, 7));
+
+        assertNull(SearchItemStore.getSlice(TestSearchParams.of(QUERY, 3, 5), MAX_AGE_MILLIS));
+    }
+
+    @Test
+    public void getSlice_itemsPastEndMarkedEarlier_discardsTheEnd() {
+        putPage(1, 10, items(0, 7));
+        //Saving a full page that goes past the end marked earlier
+        putPage(1, 20, items(0, 20));
+
+        SearchItemStore.ItemSlice itemSlice = SearchItemStore.getSlice(TestSearchParams.of(QUERY, 2, 10), MAX_AGE_MILLIS);
+
+        assertTrue(itemSlice.isComplete());
+        assertEquals(10, itemSlice.getBookInfos().size());
+    }
+
+    @Test
+    public void getSlice_olderRangeExpired_keepsFreshItemsAndTreatsStaleAsMissing() {
+        putPage(1, 10, items(0, 10));
+        //Moving the clock past the maximum age of the first page, and then saving the second page
+        SystemClock.setCurrentTimeMillis(SystemClock.elapsedRealtime() + MAX_AGE_MILLIS + 1000L);
+        putPage(2, 10, items(10, 10));
+
+        //The fresh second page is intact
+        SearchItemStore.ItemSlice freshSlice = SearchItemStore.getSlice(TestSearchParams.of(QUERY, 2, 10), MAX_AGE_MILLIS);
+        assertTrue(freshSlice.isComplete());
+        assertEquals(10, freshSlice.getBookInfos().size());
+
+        //The stale first page is not served
+        assertNull(SearchItemStore.getSlice(TestSearchParams.of(QUERY, 1, 10), MAX_AGE_MILLIS));
+
+        //A page overlapping both needs only its stale items to be fetched
+        SearchItemStore.ItemSlice overlappingSlice = SearchItemStore.getSlice(TestSearchParams.of(QUERY, 2, 8), MAX_AGE_MILLIS);
+        assertFalse(overlappingSlice.isComplete());
+        assertEquals(8, overlappingSlice.getMissingStartIndex());
+        assertEquals(2, overlappingSlice.getMissingItemCount());
+    }
+
+    /**
+     * Method that saves the items fetched for the page of the Search Query
+     *
+     * @param pageToDisplay is the page fetched, with 1 as the first page
+     * @param maxResults    is the number of items requested for the page
+     * @param bookInfos     is the List of {@link BookInfo} objects fetched
+     */
+    private static void putPage(int pageToDisplay, int maxResults, List<BookInfo> bookInfos) {
+        SearchParams searchParams = TestSearchParams.of(QUERY, pageToDisplay, maxResults);
+        SearchItemStore.putItems(searchParams, searchParams.getStartItemIndex(), maxResults, bookInfos);
+    }
+
+    /**
+     * Method that builds the Books with the Ids of their absolute offset
+     *
+     * @param startItemIndex is the absolute offset of the first Book
+     * @param count          is the number of Books to be built
+     * @return List of {@link BookInfo} objects with the Ids 'b{offset}'
+     */
+    private static List<BookInfo> items(int startItemIndex, int count) {
+        List<BookInfo> bookInfos = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            bookInfos.add(new BookInfo("b" + (startItemIndex + index)));
+        }
+        return bookInfos;
+    }
+
+    /**
+     * Method that returns the Ids of the Books passed in order
+     *
+     * @param bookInfos is the List of {@link BookInfo} objects
+     * @return List of the Ids of the Books
+     */
+    private static List<String> bookIds(List<BookInfo> bookInfos) {
+        List<String> bookIds = new ArrayList<>(bookInfos.size());
+        for (BookInfo bookInfo : bookInfos) {
+            bookIds.add(bookInfo.getBookId());
+        }
+        return bookIds;
+    }
+}
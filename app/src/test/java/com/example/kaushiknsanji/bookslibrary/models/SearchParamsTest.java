@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.models;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import com.example.kaushiknsanji.bookslibrary.R;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Local unit tests of {@link SearchParams#toQueryKey()}
+ *
+ * @author Kaushik N Sanji
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SearchParamsTest {
+
+    @Test
+    public void toQueryKey_differentPagesAndPageSizes_shareTheKey() {
+        assertEquals(TestSearchParams.of("android", 1, 10).toQueryKey(),
+                TestSearchParams.of("android", 3, 20).toQueryKey());
+    }
+
+    @Test
+    public void toQueryKey_queryDifferingInCaseAndWhitespace_sharesTheKey() {
+        assertEquals(TestSearchParams.of("android studio", 1, 10).toQueryKey(),
+                TestSearchParams.of("  Android \t  STUDIO ", 1, 10).toQueryKey());
+    }
+
+    @Test
+    public void toQueryKey_keywordFilterWithSpacesAroundColon_sharesTheKey() {
+        assertEquals(TestSearchParams.of("intitle:android inauthor:google", 1, 10).toQueryKey(),
+                TestSearchParams.of("intitle : android INAUTHOR:  google", 1, 10).toQueryKey());
+    }
+
+    @Test
+    public void toQueryKey_differentQueries_haveDifferentKeys() {
+        assertNotEquals(TestSearchParams.of("android", 1, 10).toQueryKey(),
+                TestSearchParams.of("android studio", 1, 10).toQueryKey());
+        assertNotEquals(TestSearchParams.of("intitle:android", 1, 10).toQueryKey(),
+                TestSearchParams.of("android", 1, 10).toQueryKey());
+    }
+
+    @Test
+    public void toQueryKey_differentSortOrder_hasDifferentKey() {
+        SearchParams relevanceParams = TestSearchParams.of("android", 1, 10);
+
+        Context context = RuntimeEnvironment.application;
+        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+        String sortByKey = context.getString(R.string.pref_sort_by_key);
+        preferences.edit().putString(sortByKey, "newest").commit();
+        SearchParams newestParams = relevanceParams.withPreference(context, preferences, sortByKey);
+
+        assertNotEquals(relevanceParams.toQueryKey(), newestParams.toQueryKey());
+    }
+
+    @Test
+    public void toQueryKey_federatedSearch_hasDifferentKey() {
+        assertNotEquals(TestSearchParams.of("android", 1, 10, false).toQueryKey(),
+                TestSearchParams.of("android", 1, 10, true).toQueryKey());
+    }
+
+    @Test
+    public void toQueryKey_searchEverywhereWithKeywordFilter_sharesTheKey() {
+        //The Query with a keyword filter of its own is never federated
+        assertEquals(TestSearchParams.of("intitle:android", 1, 10, false).toQueryKey(),
+                TestSearchParams.of("intitle:android", 1, 10, true).toQueryKey());
+    }
+}
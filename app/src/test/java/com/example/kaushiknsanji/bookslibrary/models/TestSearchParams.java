@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.models;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+import android.support.annotation.NonNull;
+
+import com.example.kaushiknsanji.bookslibrary.R;
+
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Utility class for the local unit tests that builds the {@link SearchParams}
+ * the way the app does, from the values saved in the Preferences
+ *
+ * @author Kaushik N Sanji
+ */
+public class TestSearchParams {
+
+    /**
+     * Method that builds the {@link SearchParams} of the page of the Search Query,
+     * with the rest of the Search settings at their defaults
+     *
+     * @param query         is the Search Query
+     * @param pageToDisplay is the page to display, with 1 as the first page
+     * @param maxResults    is the number of results per page
+     * @return Instance of {@link SearchParams} built from the Preferences
+     */
+    @NonNull
+    public static SearchParams of(String query, int pageToDisplay, int maxResults) {
+        return of(query, pageToDisplay, maxResults, false);
+    }
+
+    /**
+     * Method that builds the {@link SearchParams} of the page of the Search Query,
+     * with the rest of the Search settings at their defaults
+     *
+     * @param query            is the Search Query
+     * @param pageToDisplay    is the page to display, with 1 as the first page
+     * @param maxResults       is the number of results per page
+     * @param searchEverywhere is the "Search Everywhere" setting value
+     * @return Instance of {@link SearchParams} built from the Preferences
+     */
+    @NonNull
+    public static SearchParams of(String query, int pageToDisplay, int maxResults, boolean searchEverywhere) {
+        Context context = RuntimeEnvironment.application;
+        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+        preferences.edit()
+                .clear()
+                .putInt(context.getString(R.string.pref_page_to_display_key), pageToDisplay)
+                .putInt(context.getString(R.string.pref_results_per_page_key), maxResults)
+                .putBoolean(context.getString(R.string.pref_search_everywhere_key), searchEverywhere)
+                .commit();
+        return SearchParams.fromPreferences(context, preferences, query);
+    }
+}
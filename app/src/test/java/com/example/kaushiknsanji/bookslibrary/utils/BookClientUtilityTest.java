@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.utils;
+
+import android.support.v4.os.CancellationSignal;
+import android.support.v4.os.OperationCanceledException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Local unit tests of the cancellation of the requests made by {@link BookClientUtility},
+ * against the {@link SlowHttpServer} that keeps sending its response.
+ *
+ * @author Kaushik N Sanji
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BookClientUtilityTest {
+
+    //Constant for the time in milliseconds allowed for the connection to be closed after cancel
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000L;
+
+    //The local Server sending its response slowly
+    private SlowHttpServer mSlowHttpServer;
+    //Executor running the blocking requests
+    private ExecutorService mRequestExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        mSlowHttpServer = new SlowHttpServer();
+        mRequestExecutor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mRequestExecutor.shutdownNow();
+        mSlowHttpServer.close();
+    }
+
+    @Test
+    public void makeHttpGetRequest_cancelWhileReading_throwsAndClosesSocket() throws Exception {
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        Future<String> requestFuture = submitRequest(cancellationSignal);
+
+        //Canceling once the response is being read
+        assertTrue("Request did not reach the server", mSlowHttpServer.awaitStreaming(1, CLOSE_TIMEOUT_MILLIS));
+        cancellationSignal.cancel();
+
+        //The request ends with the cancellation shortly after cancel
+        assertCanceled(requestFuture);
+        //The bytes stop flowing as the socket is closed
+        assertTrue("Socket was not closed after cancel", mSlowHttpServer.awaitClosed(1, CLOSE_TIMEOUT_MILLIS));
+    }
+
+    @Test
+    public void makeHttpGetRequest_alreadyCanceled_throwsWithoutConnecting() throws Exception {
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        cancellationSignal.cancel();
+
+        try {
+            BookClientUtility.makeHttpGetRequest(mSlowHttpServer.getURL(), cancellationSignal);
+            fail("Expected OperationCanceledException");
+        } catch (OperationCanceledException expected) {
+            //The request is not made when the load is already canceled
+        }
+        assertTrue("Request reached the server", !mSlowHttpServer.awaitStreaming(1, 200L));
+    }
+
+    /**
+     * Method that makes the request to the Server on a background thread
+     *
+     * @param cancellationSignal is the {@link CancellationSignal} of the request
+     * @return The {@link Future} of the response of the request
+     */
+    Future<String> submitRequest(final CancellationSignal cancellationSignal) {
+        return mRequestExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return BookClientUtility.makeHttpGetRequest(mSlowHttpServer.getURL(), cancellationSignal);
+            }
+        });
+    }
+
+    /**
+     * Method that asserts that the request ended with {@link OperationCanceledException}
+     * within the time allowed
+     *
+     * @param requestFuture is the {@link Future} of the request
+     * @throws Exception when the wait is interrupted
+     */
+    static void assertCanceled(Future<String> requestFuture) throws Exception {
+        try {
+            requestFuture.get(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            fail("Expected OperationCanceledException");
+        } catch (ExecutionException e) {
+            assertTrue("Unexpected failure " + e.getCause(), e.getCause() instanceof OperationCanceledException);
+        }
+    }
+
+}
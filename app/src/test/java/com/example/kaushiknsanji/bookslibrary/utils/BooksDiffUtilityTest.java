@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.utils;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests of {@link BooksDiffUtility}
+ *
+ * @author Kaushik N Sanji
+ */
+public class BooksDiffUtilityTest {
+
+    @Test
+    public void evaluateStrategy_emptyList_replacesFully() {
+        assertEquals(BooksDiffResult.STRATEGY_FULL_REPLACE,
+                BooksDiffUtility.evaluateStrategy(Collections.<BookInfo>emptyList(), books("b1", "b2")));
+        assertEquals(BooksDiffResult.STRATEGY_FULL_REPLACE,
+                BooksDiffUtility.evaluateStrategy(books("b1", "b2"), Collections.<BookInfo>emptyList()));
+    }
+
+    @Test
+    public void evaluateStrategy_itemsAppended_diffsWithoutMoves() {
+        assertEquals(BooksDiffResult.STRATEGY_APPEND_ONLY,
+                BooksDiffUtility.evaluateStrategy(books("b1", "b2"), books("b1", "b2", "b3", "b4")));
+        assertEquals(BooksDiffResult.STRATEGY_APPEND_ONLY,
+                BooksDiffUtility.evaluateStrategy(books("b1", "b2"), books("b1", "b2")));
+    }
+
+    @Test
+    public void evaluateStrategy_itemsReordered_diffsWithMoves() {
+        assertEquals(BooksDiffResult.STRATEGY_MYERS_DIFF,
+                BooksDiffUtility.evaluateStrategy(books("b1", "b2", "b3", "b4"), books("b2", "b1", "b3", "b4")));
+        assertEquals(BooksDiffResult.STRATEGY_MYERS_DIFF,
+                BooksDiffUtility.evaluateStrategy(books("b1", "b2", "b3", "b4"), books("b1", "b3", "b4")));
+    }
+
+    @Test
+    public void evaluateStrategy_fewItemsInCommon_replacesFully() {
+        assertEquals(BooksDiffResult.STRATEGY_FULL_REPLACE,
+                BooksDiffUtility.evaluateStrategy(books("b1", "b2", "b3", "b4", "b5"),
+                        books("b5", "b6", "b7", "b8", "b9")));
+    }
+
+    @Test
+    public void areContentsTheSame_sameContent_isTrue() {
+        BooksDiffUtility diffCallback = new BooksDiffUtility(
+                Collections.singletonList(book("b1", "Title", 4.5f, "http://image")),
+                Collections.singletonList(book("b1", "Title", 4.5f, "http://image")));
+
+        assertTrue(diffCallback.areContentsTheSame(0, 0));
+        assertNull(diffCallback.getChangePayload(0, 0));
+    }
+
+    @Test
+    public void areContentsTheSame_sectionChanged_isFalseWithPayloadOfSection() {
+        BooksDiffUtility diffCallback = new BooksDiffUtility(
+                Arrays.asList(book("b1", "Title", 4.5f, "http://image"), book("b2", "Title", 4.5f, "http://image")),
+                Arrays.asList(book("b1", "Title", 4.0f, "http://image"), book("b2", "New Title", 4.5f, "http://new-image")));
+
+        assertFalse(diffCallback.areContentsTheSame(0, 0));
+        assertEquals(BooksDiffUtility.PAYLOAD_RATING, diffCallback.getChangePayload(0, 0));
+        assertFalse(diffCallback.areContentsTheSame(1, 1));
+        assertEquals(BooksDiffUtility.PAYLOAD_INFO | BooksDiffUtility.PAYLOAD_IMAGE, diffCallback.getChangePayload(1, 1));
+    }
+
+    /**
+     * Method that builds the List of {@link BookInfo} objects for the Book Ids passed
+     *
+     * @param bookIds are the Ids of the Books in order
+     * @return List of {@link BookInfo} objects
+     */
+    private static List<BookInfo> books(String... bookIds) {
+        List<BookInfo> bookInfos = new ArrayList<>(bookIds.length);
+        for (String bookId : bookIds) {
+            bookInfos.add(book(bookId, bookId, 0f, null));
+        }
+        return bookInfos;
+    }
+
+    /**
+     * Method that builds the {@link BookInfo} with the content passed, and its fingerprints computed
+     *
+     * @param bookId         is the Id of the Book
+     * @param title          is the Title of the Book
+     * @param bookRatings    is the Book ratings
+     * @param imageLinkSmall is the link to the small Image of the Book
+     * @return The {@link BookInfo} built
+     */
+    private static BookInfo book(String bookId, String title, float bookRatings, String imageLinkSmall) {
+        BookInfo bookInfo = new BookInfo(bookId);
+        bookInfo.setTitle(title);
+        bookInfo.setBookRatings(bookRatings);
+        bookInfo.setImageLinkSmall(imageLinkSmall);
+        bookInfo.computeFingerprints();
+        return bookInfo;
+    }
+}
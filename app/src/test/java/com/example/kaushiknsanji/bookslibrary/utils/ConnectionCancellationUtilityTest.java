@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.utils;
+
+import android.support.v4.os.CancellationSignal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests of {@link ConnectionCancellationUtility} for the requests
+ * running concurrently on the same {@link CancellationSignal}
+ *
+ * @author Kaushik N Sanji
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ConnectionCancellationUtilityTest {
+
+    //Constant for the time in milliseconds allowed for the connections to be closed after cancel
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000L;
+    //Constant for the number of requests run concurrently
+    private static final int NO_OF_REQUESTS = 3;
+
+    //The local Server sending its response slowly
+    private SlowHttpServer mSlowHttpServer;
+    //Executor running the blocking requests
+    private ExecutorService mRequestExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        mSlowHttpServer = new SlowHttpServer();
+        mRequestExecutor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mRequestExecutor.shutdownNow();
+        mSlowHttpServer.close();
+    }
+
+    @Test
+    public void cancel_abortsAllConcurrentConnections() throws Exception {
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        List<Future<String>> requestFutures = new ArrayList<>();
+        for (int index = 0; index < NO_OF_REQUESTS; index++) {
+            requestFutures.add(submitRequest(mSlowHttpServer.getURL(), cancellationSignal));
+        }
+        assertTrue("Requests did not reach the server", mSlowHttpServer.awaitStreaming(NO_OF_REQUESTS, CLOSE_TIMEOUT_MILLIS));
+        assertEquals(NO_OF_REQUESTS, ConnectionCancellationUtility.getOpenConnectionCount(cancellationSignal));
+
+        cancellationSignal.cancel();
+
+        //Every request is aborted, not just the last one registered
+        for (Future<String> requestFuture : requestFutures) {
+            BookClientUtilityTest.assertCanceled(requestFuture);
+        }
+        assertTrue("Not all sockets were closed after cancel",
+                mSlowHttpServer.awaitClosed(NO_OF_REQUESTS, CLOSE_TIMEOUT_MILLIS));
+        assertEquals(0, ConnectionCancellationUtility.getOpenConnectionCount(cancellationSignal));
+    }
+
+    @Test
+    public void cancel_afterOneRequestFinished_stillAbortsTheOthers() throws Exception {
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        Future<String> slowFuture = submitRequest(mSlowHttpServer.getURL(), cancellationSignal);
+        assertTrue("Request did not reach the server", mSlowHttpServer.awaitStreaming(1, CLOSE_TIMEOUT_MILLIS));
+
+        //Finishing another request on the same signal, which fails to connect to a closed port
+        submitRequest(getClosedPortURL(), cancellationSignal).get();
+        assertEquals(1, ConnectionCancellationUtility.getOpenConnectionCount(cancellationSignal));
+
+        cancellationSignal.cancel();
+
+        //The request finished first does not unregister the abort of the one still running
+        BookClientUtilityTest.assertCanceled(slowFuture);
+        assertTrue("Socket was not closed after cancel", mSlowHttpServer.awaitClosed(1, CLOSE_TIMEOUT_MILLIS));
+    }
+
+    /**
+     * Method that makes the request to the URL on a background thread
+     *
+     * @param url                is the {@link URL} of the request
+     * @param cancellationSignal is the {@link CancellationSignal} of the request
+     * @return The {@link Future} of the response of the request
+     */
+    private Future<String> submitRequest(final URL url, final CancellationSignal cancellationSignal) {
+        return mRequestExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return BookClientUtility.makeHttpGetRequest(url, cancellationSignal);
+            }
+        });
+    }
+
+    /**
+     * Method that returns the URL of a local port that is not listening
+     *
+     * @return The {@link URL} whose connection is refused
+     * @throws Exception when the port could not be found
+     */
+    private static URL getClosedPortURL() throws Exception {
+        ServerSocket serverSocket = new ServerSocket(0);
+        int port = serverSocket.getLocalPort();
+        serverSocket.close();
+        return new URL("http", "127.0.0.1", port, "/volumes");
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP Server for the tests, that sends the body of its response slowly, one line
+ * every {@link #LINE_INTERVAL_MILLIS}, for as long as the client keeps the connection open.
+ * The connections accepted and the connections closed by the client are counted.
+ *
+ * @author Kaushik N Sanji
+ */
+class SlowHttpServer implements Closeable {
+
+    //Constant for the interval in milliseconds between the lines of the response sent
+    static final long LINE_INTERVAL_MILLIS = 50L;
+
+    //Constant for the maximum number of lines sent, which keeps the response running for a minute
+    private static final int MAX_LINES = 1200;
+
+    //The Server Socket listening on the loopback address
+    private final ServerSocket mServerSocket;
+    //Permits released for each connection that has received the first line of the response
+    private final Semaphore mStreamingPermits = new Semaphore(0);
+    //Permits released for each connection found closed by the client
+    private final Semaphore mClosedPermits = new Semaphore(0);
+
+    /**
+     * Constructor of {@link SlowHttpServer} that starts accepting the connections
+     *
+     * @throws IOException when the Server Socket could not be opened
+     */
+    SlowHttpServer() throws IOException {
+        mServerSocket = new ServerSocket(0, 8, InetAddress.getByName("127.0.0.1"));
+        Thread acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptConnections();
+            }
+        }, "SlowHttpServer-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * Method that returns the URL of the Server
+     *
+     * @return The {@link URL} of the Server
+     * @throws IOException when the URL could not be formed
+     */
+    URL getURL() throws IOException {
+        return new URL("http", "127.0.0.1", mServerSocket.getLocalPort(), "/volumes");
+    }
+
+    /**
+     * Method that waits until the number of connections passed are receiving the response
+     *
+     * @param noOfConnections is the number of connections to wait for
+     * @param timeoutMillis   is the maximum time to wait in milliseconds
+     * @return <b>TRUE</b> when the connections are receiving the response; <b>FALSE</b> on timeout
+     * @throws InterruptedException when interrupted while waiting
+     */
+    boolean awaitStreaming(int noOfConnections, long timeoutMillis) throws InterruptedException {
+        return mStreamingPermits.tryAcquire(noOfConnections, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Method that waits until the number of connections passed are closed by the client
+     *
+     * @param noOfConnections is the number of connections to wait for
+     * @param timeoutMillis   is the maximum time to wait in milliseconds
+     * @return <b>TRUE</b> when the connections are closed; <b>FALSE</b> on timeout
+     * @throws InterruptedException when interrupted while waiting
+     */
+    boolean awaitClosed(int noOfConnections, long timeoutMillis) throws InterruptedException {
+        return mClosedPermits.tryAcquire(noOfConnections, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Method that accepts the connections until the Server is closed, serving each on its own thread
+     */
+    private void acceptConnections() {
+        try {
+            while (!mServerSocket.isClosed()) {
+                final Socket socket = mServerSocket.accept();
+                Thread serveThread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                }, "SlowHttpServer-serve");
+                serveThread.setDaemon(true);
+                serveThread.start();
+            }
+        } catch (IOException e) {
+            //Stopping when the Server is closed
+        }
+    }
+
+    /**
+     * Method that reads the request and sends the response slowly, until the client closes the connection
+     *
+     * @param socket is the {@link Socket} of the connection accepted
+     */
+    private void serve(Socket socket) {
+        Charset charset = Charset.forName("UTF-8");
+        try {
+            //Reading the request up to the blank line ending its headers
+            BufferedReader requestReader = new BufferedReader(new InputStreamReader(socket.getInputStream(), charset));
+            String requestLine;
+            while ((requestLine = requestReader.readLine()) != null && requestLine.length() > 0) {
+                //Skipping the request headers
+            }
+
+            //Sending the headers, with the body running until the connection is closed
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nConnection: close\r\n\r\n{\n")
+                    .getBytes(charset));
+            outputStream.flush();
+            mStreamingPermits.release();
+
+            //Sending the body one line at a time; the write fails once the client closes the connection
+            for (int lineIndex = 0; lineIndex < MAX_LINES; lineIndex++) {
+                Thread.sleep(LINE_INTERVAL_MILLIS);
+                outputStream.write(("\"line" + lineIndex + "\": " + lineIndex + ",\n").getBytes(charset));
+                outputStream.flush();
+            }
+        } catch (IOException e) {
+            //Counting the connection closed by the client
+            mClosedPermits.release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //Ignoring the failure to close
+            }
+        }
+    }
+
+    /**
+     * Method that stops the Server from accepting further connections
+     *
+     * @throws IOException when the Server Socket could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        mServerSocket.close();
+    }
+
+}
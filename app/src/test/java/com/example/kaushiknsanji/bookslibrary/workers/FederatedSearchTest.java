@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import com.example.kaushiknsanji.bookslibrary.models.BookInfo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Local unit tests of the Reciprocal Rank Fusion of the sub-query results by {@link FederatedSearch}
+ *
+ * @author Kaushik N Sanji
+ */
+public class FederatedSearchTest {
+
+    @Test
+    public void sortByScore_bookFoundUnderSeveralFilters_ranksAboveBooksFoundUnderOne() {
+        Map<Long, FederatedSearch.RankedBook> rankedBooks = new HashMap<>();
+        FederatedSearch.addRanks(rankedBooks, books("b1", "b2", "b3"), 0, 1);
+        FederatedSearch.addRanks(rankedBooks, books("b4", "b5", "b2"), 1, 1);
+
+        assertEquals(Arrays.asList("b2", "b1", "b4", "b5", "b3"), bookIds(FederatedSearch.sortByScore(rankedBooks)));
+    }
+
+    @Test
+    public void sortByScore_tiedScores_brokenByBestRankThenSubQueryOrder() {
+        Map<Long, FederatedSearch.RankedBook> rankedBooks = new HashMap<>();
+        FederatedSearch.addRanks(rankedBooks, books("b3", "b4"), 1, 1);
+        FederatedSearch.addRanks(rankedBooks, books("b1", "b2"), 0, 1);
+
+        assertEquals(Arrays.asList("b1", "b3", "b2", "b4"), bookIds(FederatedSearch.sortByScore(rankedBooks)));
+    }
+
+    @Test
+    public void sortByScore_isIndependentOfTheOrderSubQueriesReturned() {
+        List<BookInfo> firstSubQueryBooks = books("b1", "b2", "b3");
+        List<BookInfo> secondSubQueryBooks = books("b4", "b1", "b3");
+
+        Map<Long, FederatedSearch.RankedBook> inOrderBooks = new HashMap<>();
+        FederatedSearch.addRanks(inOrderBooks, firstSubQueryBooks, 0, 11);
+        FederatedSearch.addRanks(inOrderBooks, secondSubQueryBooks, 1, 11);
+        Map<Long, FederatedSearch.RankedBook> reversedBooks = new HashMap<>();
+        FederatedSearch.addRanks(reversedBooks, secondSubQueryBooks, 1, 11);
+        FederatedSearch.addRanks(reversedBooks, firstSubQueryBooks, 0, 11);
+
+        List<BookInfo> inOrderResult = FederatedSearch.sortByScore(inOrderBooks);
+        List<BookInfo> reversedResult = FederatedSearch.sortByScore(reversedBooks);
+        assertEquals(bookIds(inOrderResult), bookIds(reversedResult));
+        //The Book found by several sub-queries is the one returned by the first of them
+        assertSame(firstSubQueryBooks.get(0), reversedResult.get(0));
+    }
+
+    /**
+     * Method that builds the List of {@link BookInfo} objects for the Book Ids passed
+     *
+     * @param bookIds are the Ids of the Books in order
+     * @return List of {@link BookInfo} objects
+     */
+    private static List<BookInfo> books(String... bookIds) {
+        List<BookInfo> bookInfos = new ArrayList<>(bookIds.length);
+        for (String bookId : bookIds) {
+            bookInfos.add(new BookInfo(bookId));
+        }
+        return bookInfos;
+    }
+
+    /**
+     * Method that returns the Ids of the Books passed in order
+     *
+     * @param bookInfos is the List of {@link BookInfo} objects
+     * @return List of the Ids of the Books
+     */
+    private static List<String> bookIds(List<BookInfo> bookInfos) {
+        List<String> bookIds = new ArrayList<>(bookInfos.size());
+        for (BookInfo bookInfo : bookInfos) {
+            bookIds.add(bookInfo.getBookId());
+        }
+        return bookIds;
+    }
+}
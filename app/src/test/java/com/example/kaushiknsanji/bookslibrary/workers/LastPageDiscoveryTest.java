@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.os.CancellationSignal;
+
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+import com.example.kaushiknsanji.bookslibrary.models.TestSearchParams;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests of {@link LastPageDiscovery#discover(SearchParams, int, LastPageDiscovery.ItemProber,
+ * CancellationSignal, long)} against a Search with a known number of items
+ *
+ * @author Kaushik N Sanji
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LastPageDiscoveryTest {
+
+    //Constant for the time in milliseconds allowed for a discovery that completes
+    private static final long TIMEOUT_MILLIS = 10000L;
+    //Constant for the maximum number of probes of a discovery, that is 8 rounds of 3 probes
+    private static final int MAX_PROBES = 24;
+
+    @Test
+    public void discover_findsExactLastPage() {
+        SearchParams searchParams = TestSearchParams.of("android", 1, 10);
+        CountingItemProber itemProber = new CountingItemProber(137);
+
+        LastPageDiscovery.DiscoveredBound discoveredBound =
+                LastPageDiscovery.discover(searchParams, 9, itemProber, null, TIMEOUT_MILLIS);
+
+        assertTrue(discoveredBound.mIsExact);
+        assertEquals(14, searchParams.getLastPageIndexFor(discoveredBound.mItemCount));
+        assertTrue(discoveredBound.mItemCount <= 137);
+        assertTrue(itemProber.mProbeCount.get() <= MAX_PROBES);
+    }
+
+    @Test
+    public void discover_lastItemKnownOnLastPage_findsExactLastPage() {
+        SearchParams searchParams = TestSearchParams.of("android", 3, 20);
+
+        LastPageDiscovery.DiscoveredBound discoveredBound =
+                LastPageDiscovery.discover(searchParams, 59, new CountingItemProber(60), null, TIMEOUT_MILLIS);
+
+        assertTrue(discoveredBound.mIsExact);
+        assertEquals(3, searchParams.getLastPageIndexFor(discoveredBound.mItemCount));
+    }
+
+    @Test
+    public void discover_probeFailed_returnsLowerBound() {
+        SearchParams searchParams = TestSearchParams.of("android", 1, 10);
+        //Probes fail from the index 50, in a Search of 500 items
+        CountingItemProber itemProber = new CountingItemProber(500) {
+            @Nullable
+            @Override
+            public Boolean probeItem(@NonNull SearchParams searchParams, int itemIndex,
+                                     @Nullable CancellationSignal cancellationSignal) {
+                Boolean itemExists = super.probeItem(searchParams, itemIndex, cancellationSignal);
+                return (itemIndex >= 50) ? null : itemExists;
+            }
+        };
+
+        LastPageDiscovery.DiscoveredBound discoveredBound =
+                LastPageDiscovery.discover(searchParams, 9, itemProber, null, TIMEOUT_MILLIS);
+
+        assertFalse(discoveredBound.mIsExact);
+        assertTrue(discoveredBound.mItemCount >= 10 && discoveredBound.mItemCount <= 50);
+    }
+
+    @Test
+    public void discover_probesPastDeadline_returnsLowerBoundInTime() throws Exception {
+        SearchParams searchParams = TestSearchParams.of("android", 1, 10);
+        //Probes that do not complete until released
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        LastPageDiscovery.ItemProber itemProber = new LastPageDiscovery.ItemProber() {
+            @Nullable
+            @Override
+            public Boolean probeItem(@NonNull SearchParams searchParams, int itemIndex,
+                                     @Nullable CancellationSignal cancellationSignal) {
+                try {
+                    releaseLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+        };
+
+        try {
+            long startMillis = SystemClock.elapsedRealtime();
+            LastPageDiscovery.DiscoveredBound discoveredBound =
+                    LastPageDiscovery.discover(searchParams, 9, itemProber, null, 300L);
+
+            assertTrue(SystemClock.elapsedRealtime() - startMillis < TIMEOUT_MILLIS);
+            assertFalse(discoveredBound.mIsExact);
+            assertEquals(10, discoveredBound.mItemCount);
+        } finally {
+            releaseLatch.countDown();
+        }
+    }
+
+    /**
+     * {@link LastPageDiscovery.ItemProber} of a Search with a known number of items,
+     * that counts the probes made
+     */
+    private static class CountingItemProber implements LastPageDiscovery.ItemProber {
+        //The number of items of the Search
+        private final int mItemCount;
+        //The number of probes made
+        final AtomicInteger mProbeCount = new AtomicInteger();
+
+        /**
+         * Constructor of {@link CountingItemProber}
+         *
+         * @param itemCount is the number of items of the Search
+         */
+        CountingItemProber(int itemCount) {
+            mItemCount = itemCount;
+        }
+
+        /**
+         * Method that probes whether an item exists at the index of the Search
+         *
+         * @param searchParams       is the Search Query and the Search Settings
+         * @param itemIndex          is the index of the item to be probed
+         * @param cancellationSignal is the {@link CancellationSignal} that aborts the probe when canceled; can be Null
+         * @return <b>TRUE</b> when the item exists; <b>FALSE</b> when it does not
+         */
+        @Nullable
+        @Override
+        public Boolean probeItem(@NonNull SearchParams searchParams, int itemIndex,
+                                 @Nullable CancellationSignal cancellationSignal) {
+            mProbeCount.incrementAndGet();
+            return itemIndex < mItemCount;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 Kaushik N. Sanji
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.example.kaushiknsanji.bookslibrary.workers;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.os.CancellationSignal;
+
+import com.example.kaushiknsanji.bookslibrary.cache.DuplicateBookFilter;
+import com.example.kaushiknsanji.bookslibrary.cache.SearchResultsCache;
+import com.example.kaushiknsanji.bookslibrary.models.SearchParams;
+import com.example.kaushiknsanji.bookslibrary.models.TestSearchParams;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests of {@link PageRangeFetcher#fetchPages(android.content.Context, List, SearchParams, List,
+ * int, long, CancellationSignal, PageRangeFetcher.PageRequester)} with a neighbouring page slow to be fetched
+ *
+ * @author Kaushik N Sanji
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PageRangeFetcherTest {
+
+    //Constant for the time in milliseconds allowed for the neighbouring pages to be completed
+    private static final long TIMEOUT_MILLIS = 10000L;
+    //Constant for the maximum age in milliseconds of the pages cached that are looked up
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    //The page requested, and its next page that is slow to be fetched
+    private final SearchParams mRequestedParams = TestSearchParams.of("android", 2, 2);
+    private final SearchParams mNextPageParams = mRequestedParams.withPageToDisplay(3);
+
+    @Before
+    public void setUp() {
+        SearchResultsCache.clearCache();
+        DuplicateBookFilter.clearFilter();
+    }
+
+    @Test
+    public void fetchPages_slowNeighbour_returnsRequestedPageBeforeNeighbour() {
+        SlowNeighbourRequester pageRequester = new SlowNeighbourRequester();
+
+        try {
+            PageRangeFetcher.FetchedPage requestedPage = PageRangeFetcher.fetchPages(RuntimeEnvironment.application,
+                    Arrays.asList(mRequestedParams, mNextPageParams), mRequestedParams, null, 3,
+                    0L, null, pageRequester);
+
+            //The page requested is returned while its next page is still being fetched
+            assertEquals(mRequestedParams, requestedPage.getSearchParams());
+            assertEquals(2, requestedPage.getUniqueBookInfos().size());
+            assertEquals("b2", requestedPage.getUniqueBookInfos().get(0).getBookId());
+            assertTrue(SearchResultsCache.hasPage(mRequestedParams, MAX_AGE_MILLIS));
+            assertFalse(SearchResultsCache.hasPage(mNextPageParams, MAX_AGE_MILLIS));
+        } finally {
+            pageRequester.mReleaseLatch.countDown();
+        }
+    }
+
+    @Test
+    public void fetchPages_slowNeighbour_cachesNeighbourOnceFetched() throws Exception {
+        SlowNeighbourRequester pageRequester = new SlowNeighbourRequester();
+
+        PageRangeFetcher.fetchPages(RuntimeEnvironment.application,
+                Arrays.asList(mRequestedParams, mNextPageParams), mRequestedParams, null, 3,
+                0L, null, pageRequester);
+        assertFalse(SearchResultsCache.hasPage(mNextPageParams, MAX_AGE_MILLIS));
+
+        //Completing the next page, which is then cached in the background
+        pageRequester.mReleaseLatch.countDown();
+        long deadlineMillis = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!SearchResultsCache.hasPage(mNextPageParams, MAX_AGE_MILLIS)
+                && System.currentTimeMillis() < deadlineMillis) {
+            Thread.sleep(10L);
+        }
+
+        assertTrue(SearchResultsCache.hasPage(mNextPageParams, MAX_AGE_MILLIS));
+        assertEquals("b4", SearchResultsCache.getPage(mNextPageParams, MAX_AGE_MILLIS)
+                .getBookInfos().get(0).getBookId());
+    }
+
+    /**
+     * Method that returns the JSON Response of a page of the Books with the Ids passed
+     *
+     * @param bookIds are the Ids of the Books of the page
+     * @return String containing the JSON Response of the page
+     */
+    private static String pageJson(String... bookIds) {
+        StringBuilder jsonBuilder = new StringBuilder("{\"items\":[");
+        for (int index = 0; index < bookIds.length; index++) {
+            if (index > 0) {
+                jsonBuilder.append(',');
+            }
+            jsonBuilder.append("{\"id\":\"").append(bookIds[index]).append("\",")
+                    .append("\"volumeInfo\":{\"title\":\"Title ").append(bookIds[index]).append("\",\"printType\":\"BOOK\"},")
+                    .append("\"saleInfo\":{\"saleability\":\"NOT_FOR_SALE\"},")
+                    .append("\"accessInfo\":{\"epub\":{},\"pdf\":{},\"webReaderLink\":\"\",\"accessViewStatus\":\"NONE\"}}");
+        }
+        return jsonBuilder.append("]}").toString();
+    }
+
+    /**
+     * {@link PageRangeFetcher.PageRequester} that answers the page requested at once,
+     * and the rest of the pages only when released
+     */
+    private class SlowNeighbourRequester implements PageRangeFetcher.PageRequester {
+        //Latch that releases the neighbouring pages
+        final CountDownLatch mReleaseLatch = new CountDownLatch(1);
+
+        /**
+         * Method that requests the page of Search results
+         *
+         * @param pageParams         is the Search Query and the Search Settings of the page to be fetched
+         * @param searchId           is the Search ID of the Search being traced
+         * @param cancellationSignal is the {@link CancellationSignal} that aborts the request when canceled; can be Null
+         * @return String containing the JSON Response of the page
+         */
+        @Nullable
+        @Override
+        public String requestPage(@NonNull SearchParams pageParams, long searchId,
+                                  @Nullable CancellationSignal cancellationSignal) {
+            if (pageParams.equals(mRequestedParams)) {
+                return pageJson("b2", "b3");
+            }
+
+            try {
+                mReleaseLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return pageJson("b4", "b5");
+        }
+    }
+}